@@ -1,5 +1,9 @@
 package Pages;
 
+import Pages.net.ConnectionManager;
+import Pages.net.FrameInputStream;
+import Pages.net.FrameOutputStream;
+import Pages.net.TokenOutputStream;
 import Pages.view.LoginFrame;
 import Pages.view.RegisterFrame;
 
@@ -14,6 +18,9 @@ public class MainApp {
     private static Socket socket;
     private static ObjectOutputStream out;
     private static ObjectInputStream in;
+    private static ConnectionManager connections;
+    private static final String HOST = "localhost";//此处填入服务器ip地址
+    private static final int PORT = 8080;
 
     public static void main(String[] args) {
         // 初始化Socket或其他必要的设置
@@ -27,10 +34,26 @@ public class MainApp {
     }
 
     public static void initializeSocket() {
+        // 服务器使用nio传输方式时，请求和响应都需要按长度前缀分帧
+        boolean nio = "nio".equalsIgnoreCase(System.getProperty("vcampus.transport"));
         try {
-            socket = new Socket("localhost", 8080);//此处填入服务器ip地址
-            out = new ObjectOutputStream(socket.getOutputStream());
-            in = new ObjectInputStream(socket.getInputStream());
+            // 默认给请求带上编号，各窗口同时发请求时响应不会串，断线后自动重连；-Dvcampus.mux=false可改回单连接逐个收发
+            if (Boolean.parseBoolean(System.getProperty("vcampus.mux", "true"))) {
+                connections = new ConnectionManager(HOST, PORT, nio, Integer.getInteger("vcampus.connections", 2));
+                connections.start();
+                out = connections.getRequestStream();
+                in = connections.getResponseStream();
+                return;
+            }
+            socket = new Socket(HOST, PORT);
+            // 请求由TokenOutputStream在function之后插入登录令牌
+            if (nio) {
+                out = new TokenOutputStream(new ObjectOutputStream(new FrameOutputStream(socket.getOutputStream())));
+                in = new ObjectInputStream(new FrameInputStream(socket.getInputStream()));
+            } else {
+                out = new TokenOutputStream(new ObjectOutputStream(socket.getOutputStream()));
+                in = new ObjectInputStream(socket.getInputStream());
+            }
             System.out.println("Connected to server");
         } catch (Exception e) {
             e.printStackTrace();
@@ -39,8 +62,12 @@ public class MainApp {
 
     public static void close_source() {
         try {
-            out.writeObject("exit");
-            out.flush();
+            if (connections != null) {
+                connections.close();
+            } else {
+                out.writeObject("exit");
+                out.flush();
+            }
             System.out.println("exit");
         } catch (IOException e) {
             e.printStackTrace();
@@ -65,6 +92,11 @@ public class MainApp {
         MainApp.socket = socket;
     }
 
+    // 未启用带编号请求时为null
+    public static ConnectionManager getConnections() {
+        return connections;
+    }
+
     public static ObjectInputStream getIn() {
         return in;
     }
@@ -0,0 +1,114 @@
+package Pages.net;
+
+import Pages.MainApp;
+import Pages.protocol.RowSet;
+import Pages.protocol.WireFrame;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * 异步访问服务器，页面不必在事件分派线程上等待网络往返
+ * 请求的发送和响应的解析都在单独的I/O线程上进行，结果通过onEdt交回事件分派线程更新界面
+ * 启用带编号请求时多个请求可以同时在途，各自的响应互不影响
+ */
+public final class ClientService {
+
+	private static final ExecutorService IO = Executors.newSingleThreadExecutor(
+			Thread.ofPlatform().name("client-io").daemon().factory());
+
+	// 在事件分派线程上执行
+	public static final Executor EDT = SwingUtilities::invokeLater;
+
+	/**
+	 * 从响应中读出结果，在I/O线程上执行，不要在这里操作界面
+	 */
+	@FunctionalInterface
+	public interface ResponseReader<T> {
+		T read(ObjectInputStream in) throws IOException, ClassNotFoundException;
+	}
+
+	private ClientService() {
+	}
+
+	/**
+	 * 发出一个请求
+	 * @param reader 按服务器写入的顺序读出响应
+	 * @param parts 依次写入的model、function和参数
+	 */
+	public static <T> CompletableFuture<T> request(ResponseReader<T> reader, Object... parts) {
+		ConnectionManager connections = MainApp.getConnections();
+		if (connections == null) {
+			// 未启用带编号请求时只能逐个收发，在I/O线程上独占连接完成一次往返
+			return CompletableFuture.supplyAsync(() -> exchange(reader, parts), IO);
+		}
+		return CompletableFuture.supplyAsync(() -> {
+					try {
+						return connections.send(parts);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}, IO)
+				.thenCompose(response -> response)
+				.thenApplyAsync(in -> read(reader, in), IO);
+	}
+
+	// 请求一个行集帧
+	public static CompletableFuture<RowSet> requestRows(Object... parts) {
+		return request(WireFrame::readRowSet, parts);
+	}
+
+	/**
+	 * 请求完成后在事件分派线程上处理结果，失败时与各页面原来的处理一致，打印异常
+	 * 返回的Future在事件分派线程上完成，后续的thenRun可以直接恢复按钮等界面状态
+	 */
+	public static <T> CompletableFuture<Void> onEdt(CompletableFuture<T> future, Consumer<? super T> action) {
+		return future.handleAsync((result, ex) -> {
+			try {
+				if (ex != null) {
+					throw ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+				}
+				action.accept(result);
+			} catch (Throwable t) {
+				t.printStackTrace();
+				System.out.println(t.getMessage());
+			}
+			return null;
+		}, EDT);
+	}
+
+	private static <T> T exchange(ResponseReader<T> reader, Object[] parts) {
+		ObjectOutputStream out = MainApp.getOut();
+		synchronized (out) {
+			try {
+				for (Object part : parts) {
+					out.writeObject(part);
+				}
+				out.flush();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return read(reader, MainApp.getIn());
+		}
+	}
+
+	private static <T> T read(ResponseReader<T> reader, ObjectInputStream in) {
+		try {
+			return reader.read(in);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (ClassNotFoundException e) {
+			throw new CompletionException(e);
+		}
+	}
+}
@@ -0,0 +1,321 @@
+package Pages.net;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 维护到服务器的几条常驻连接，请求轮流分到各条连接上
+ * 连接断开后在后台按退避间隔重连；每个请求都带着令牌，新连接不需要另外恢复会话
+ * 请求没能发出时换一条连接重发；已经发出但没等到响应的请求不重发，避免重复借书、重复扣款
+ */
+public class ConnectionManager {
+
+	private static final long INITIAL_BACKOFF_MS = 500;
+	private static final long MAX_BACKOFF_MS = 8000;
+	private static final int CONNECT_TIMEOUT_MS = 3000;
+	// 发送一个请求最多尝试的次数，全部连接都断开时每次之间按退避间隔等待
+	private static final int SEND_ATTEMPTS = 5;
+
+	private final String host;
+	private final int port;
+	private final boolean nio;
+	private final MultiplexedChannel[] channels;
+	private final boolean[] reconnecting;
+	private final AtomicInteger next = new AtomicInteger();
+	private final ScheduledExecutorService reconnector = Executors.newSingleThreadScheduledExecutor(
+			Thread.ofPlatform().name("reconnector").daemon().factory());
+	private final ThreadLocal<Exchange> exchanges = ThreadLocal.withInitial(Exchange::new);
+	private final ObjectOutputStream requestStream;
+	private final ObjectInputStream responseStream;
+	private volatile boolean closed;
+
+	// 每个线程各自的待发送内容和待读取的响应
+	private static final class Exchange {
+		final List<Object> parts = new ArrayList<>();
+		final Deque<CompletableFuture<MultiplexedChannel.Response>> responses = new ArrayDeque<>();
+		MultiplexedChannel.Response current;
+	}
+
+	/**
+	 * @param nio 服务器使用nio传输方式时请求和响应需要按长度前缀分帧
+	 * @param size 常驻连接数
+	 */
+	public ConnectionManager(String host, int port, boolean nio, int size) throws IOException {
+		this.host = host;
+		this.port = port;
+		this.nio = nio;
+		this.channels = new MultiplexedChannel[Math.max(1, size)];
+		this.reconnecting = new boolean[channels.length];
+		this.requestStream = new RequestStream();
+		this.responseStream = new ResponseStream();
+	}
+
+	// 建立全部连接，连不上的在后台继续重连
+	public void start() {
+		for (int slot = 0; slot < channels.length; slot++) {
+			if (!connect(slot)) {
+				scheduleReconnect(slot);
+			}
+		}
+	}
+
+	/**
+	 * 发出一个请求，不等待响应，令牌由TokenHolder自动插入
+	 * @param parts 依次写入请求的对象，例如model、function和参数
+	 * @throws IOException 多次尝试后仍连不上服务器
+	 */
+	public CompletableFuture<MultiplexedChannel.Response> send(Object... parts) throws IOException {
+		Object[] request = TokenHolder.attach(parts);
+		IOException last = null;
+		long backoff = INITIAL_BACKOFF_MS;
+		for (int attempt = 0; attempt < SEND_ATTEMPTS; attempt++) {
+			MultiplexedChannel channel = acquire();
+			if (channel != null) {
+				try {
+					return channel.send(request);
+				} catch (IOException e) {
+					// 这条连接已断开，请求没有发出，立即换一条
+					last = e;
+					continue;
+				}
+			}
+			try {
+				Thread.sleep(backoff);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("等待重连时被中断");
+			}
+			backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+		}
+		throw last != null ? last : new ConnectException("无法连接服务器");
+	}
+
+	/**
+	 * 兼容原有的写法：writeObject若干次后flush即发出一个请求
+	 * 各页面仍可以在各自的线程上按“写请求、读响应”的顺序使用，重连后继续可用
+	 */
+	public ObjectOutputStream getRequestStream() {
+		return requestStream;
+	}
+
+	/**
+	 * 与getRequestStream配合使用，读取当前线程最早发出且未读完的请求的响应
+	 */
+	public ObjectInputStream getResponseStream() {
+		return responseStream;
+	}
+
+	// 通知服务器结束各条连接上的会话
+	public void close() {
+		closed = true;
+		reconnector.shutdownNow();
+		for (MultiplexedChannel channel : snapshot()) {
+			if (channel != null && channel.isOpen()) {
+				try {
+					channel.close();
+				} catch (IOException e) {
+					System.out.println("关闭连接失败：" + e.getMessage());
+				}
+			}
+		}
+	}
+
+	// 轮流取一条可用的连接，全部断开时当场尝试重连一条
+	private MultiplexedChannel acquire() {
+		MultiplexedChannel[] current = snapshot();
+		int start = Math.floorMod(next.getAndIncrement(), current.length);
+		for (int i = 0; i < current.length; i++) {
+			MultiplexedChannel channel = current[(start + i) % current.length];
+			if (channel != null && channel.isOpen()) {
+				return channel;
+			}
+		}
+		if (connect(start)) {
+			return snapshot()[start];
+		}
+		return null;
+	}
+
+	private synchronized MultiplexedChannel[] snapshot() {
+		return channels.clone();
+	}
+
+	// 连接服务器在锁外进行，只在放入连接槽时加锁，连接缓慢时不会挡住其他线程取连接
+	private boolean connect(int slot) {
+		if (closed) {
+			return false;
+		}
+		MultiplexedChannel existing = snapshot()[slot];
+		if (existing != null && existing.isOpen()) {
+			return true;
+		}
+		Socket socket = new Socket();
+		MultiplexedChannel channel;
+		try {
+			socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MS);
+			ObjectOutputStream out;
+			ObjectInputStream in;
+			if (nio) {
+				out = new ObjectOutputStream(new FrameOutputStream(socket.getOutputStream()));
+				out.flush();
+				in = new ObjectInputStream(new FrameInputStream(socket.getInputStream()));
+			} else {
+				out = new ObjectOutputStream(socket.getOutputStream());
+				out.flush();
+				in = new ObjectInputStream(socket.getInputStream());
+			}
+			channel = new MultiplexedChannel(out, in, () -> scheduleReconnect(slot));
+		} catch (IOException e) {
+			System.out.println("连接服务器失败：" + e.getMessage());
+			try {
+				socket.close();
+			} catch (IOException ignored) {
+			}
+			return false;
+		}
+		if (!install(slot, channel)) {
+			// 其他线程已经连上了这个槽，或者已关闭，多建的连接不再使用
+			try {
+				channel.close();
+			} catch (IOException e) {
+				System.out.println("关闭连接失败：" + e.getMessage());
+			}
+			return !closed;
+		}
+		System.out.println("Connected to server, slot " + slot);
+		return true;
+	}
+
+	private synchronized boolean install(int slot, MultiplexedChannel channel) {
+		if (closed || (channels[slot] != null && channels[slot].isOpen())) {
+			return false;
+		}
+		channels[slot] = channel;
+		return true;
+	}
+
+	private synchronized void scheduleReconnect(int slot) {
+		if (closed || reconnecting[slot]) {
+			return;
+		}
+		reconnecting[slot] = true;
+		scheduleReconnect(slot, INITIAL_BACKOFF_MS);
+	}
+
+	private void scheduleReconnect(int slot, long delay) {
+		reconnector.schedule(() -> {
+			if (connect(slot) || closed) {
+				synchronized (this) {
+					reconnecting[slot] = false;
+				}
+				return;
+			}
+			scheduleReconnect(slot, Math.min(delay * 2, MAX_BACKOFF_MS));
+		}, delay, TimeUnit.MILLISECONDS);
+	}
+
+	// 当前线程要读取的响应：跳过已读完的，依次等待后面发出的请求
+	private MultiplexedChannel.Response currentResponse() throws IOException {
+		Exchange exchange = exchanges.get();
+		while (exchange.current == null || exchange.current.exhausted()) {
+			CompletableFuture<MultiplexedChannel.Response> next = exchange.responses.poll();
+			if (next == null) {
+				break;
+			}
+			exchange.current = await(next);
+		}
+		if (exchange.current == null) {
+			throw new EOFException("没有等待响应的请求");
+		}
+		return exchange.current;
+	}
+
+	private static MultiplexedChannel.Response await(CompletableFuture<MultiplexedChannel.Response> future)
+			throws IOException {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof IOException io) {
+				throw io;
+			}
+			throw new IOException(e.getCause());
+		}
+	}
+
+	private final class RequestStream extends ObjectOutputStream {
+
+		RequestStream() throws IOException {
+			super();
+		}
+
+		@Override
+		protected void writeObjectOverride(Object obj) {
+			exchanges.get().parts.add(obj);
+		}
+
+		@Override
+		public void writeUnshared(Object obj) {
+			exchanges.get().parts.add(obj);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			Exchange exchange = exchanges.get();
+			if (exchange.parts.isEmpty()) {
+				return;
+			}
+			Object[] parts = exchange.parts.toArray();
+			exchange.parts.clear();
+			exchange.responses.add(send(parts));
+		}
+
+		@Override
+		public void close() throws IOException {
+			flush();
+		}
+	}
+
+	private final class ResponseStream extends ObjectInputStream {
+
+		ResponseStream() throws IOException {
+			super();
+		}
+
+		@Override
+		protected Object readObjectOverride() throws IOException, ClassNotFoundException {
+			return currentResponse().readObject();
+		}
+
+		@Override
+		public Object readUnshared() throws IOException, ClassNotFoundException {
+			return currentResponse().readUnshared();
+		}
+
+		@Override
+		public int available() throws IOException {
+			MultiplexedChannel.Response current = exchanges.get().current;
+			return current == null ? 0 : current.available();
+		}
+
+		@Override
+		public void close() {
+			// 底层连接由ConnectionManager负责关闭
+		}
+	}
+}
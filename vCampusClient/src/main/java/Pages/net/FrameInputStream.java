@@ -0,0 +1,66 @@
+package Pages.net;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 按4字节长度前缀读取服务器发来的帧，并把各帧负载拼接成一条连续的字节流
+ */
+public class FrameInputStream extends InputStream {
+
+	private final DataInputStream socketIn;
+	private int remaining;
+
+	public FrameInputStream(InputStream socketIn) {
+		this.socketIn = new DataInputStream(socketIn);
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (!nextFrame()) {
+			return -1;
+		}
+		remaining--;
+		return socketIn.read();
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (!nextFrame()) {
+			return -1;
+		}
+		int n = socketIn.read(b, off, Math.min(len, remaining));
+		if (n < 0) {
+			return -1;
+		}
+		remaining -= n;
+		return n;
+	}
+
+	@Override
+	public int available() throws IOException {
+		return Math.min(remaining, socketIn.available());
+	}
+
+	@Override
+	public void close() throws IOException {
+		socketIn.close();
+	}
+
+	// 当前帧读完后读取下一帧的长度
+	private boolean nextFrame() throws IOException {
+		while (remaining == 0) {
+			try {
+				remaining = socketIn.readInt();
+			} catch (EOFException e) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
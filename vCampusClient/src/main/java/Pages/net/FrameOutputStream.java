@@ -0,0 +1,47 @@
+package Pages.net;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 缓存写入的数据，每次flush时以4字节长度前缀帧的形式发给服务器（服务器nio传输方式使用）
+ * 服务器把一帧当作完整的请求处理，写完一个请求的全部内容后才能flush，中途flush会被服务器当作不完整的请求断开连接
+ */
+public class FrameOutputStream extends OutputStream {
+
+	private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+	private final DataOutputStream socketOut;
+
+	public FrameOutputStream(OutputStream socketOut) {
+		this.socketOut = new DataOutputStream(socketOut);
+	}
+
+	@Override
+	public void write(int b) {
+		buffer.write(b);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) {
+		buffer.write(b, off, len);
+	}
+
+	@Override
+	public synchronized void flush() throws IOException {
+		if (buffer.size() == 0) {
+			return;
+		}
+		socketOut.writeInt(buffer.size());
+		buffer.writeTo(socketOut);
+		socketOut.flush();
+		buffer.reset();
+	}
+
+	@Override
+	public void close() throws IOException {
+		flush();
+		socketOut.close();
+	}
+}
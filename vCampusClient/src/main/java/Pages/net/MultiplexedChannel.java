@@ -0,0 +1,150 @@
+package Pages.net;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 在同一条连接上同时发出多个请求，响应按请求编号交回
+ * 发送格式："mux"、请求编号（long）、请求字节（一个完整请求单独写成的对象流）
+ * 响应格式：请求编号（long）、响应字节；服务器按处理完成的顺序返回，不一定与发送顺序一致
+ * 后台读取线程接收所有响应，发请求的一方只需等待各自的Future
+ * 断线后不再可用，由ConnectionManager负责重连
+ */
+public class MultiplexedChannel {
+
+	private static final String MARKER = "mux";
+
+	private final ObjectOutputStream socketOut;
+	private final ObjectInputStream socketIn;
+	private final AtomicLong nextId = new AtomicLong();
+	private final Map<Long, CompletableFuture<Response>> pending = new ConcurrentHashMap<>();
+	private final Runnable onDisconnect;
+	private volatile IOException failure;
+	private volatile boolean closed;
+
+	/**
+	 * 一个请求的响应，读完后底层字节流即为空
+	 */
+	public static final class Response extends ObjectInputStream {
+		private final ByteArrayInputStream bytes;
+
+		private Response(ByteArrayInputStream bytes) throws IOException {
+			super(bytes);
+			this.bytes = bytes;
+		}
+
+		public boolean exhausted() {
+			return bytes.available() == 0;
+		}
+	}
+
+	/**
+	 * @param onDisconnect 连接断开（非主动关闭）时在读取线程上调用
+	 */
+	public MultiplexedChannel(ObjectOutputStream socketOut, ObjectInputStream socketIn, Runnable onDisconnect) {
+		this.socketOut = socketOut;
+		this.socketIn = socketIn;
+		this.onDisconnect = onDisconnect;
+		Thread.ofPlatform().name("mux-reader").daemon().start(this::readLoop);
+	}
+
+	/**
+	 * 发出一个请求，不等待响应
+	 * @param parts 依次写入请求的对象，例如model、function和参数
+	 * @return 服务器的响应，按原来的顺序readObject即可；请求发出后连接断开时以IOException结束
+	 * @throws IOException 连接已断开，请求没有发出，可以换一条连接重发
+	 */
+	public CompletableFuture<Response> send(Object... parts) throws IOException {
+		IOException broken = failure;
+		if (broken != null) {
+			throw broken;
+		}
+		byte[] request = encode(parts);
+		CompletableFuture<Response> future = new CompletableFuture<>();
+		long requestId = nextId.incrementAndGet();
+		pending.put(requestId, future);
+		try {
+			synchronized (socketOut) {
+				socketOut.writeObject(MARKER);
+				socketOut.writeLong(requestId);
+				socketOut.writeUnshared(request);
+				socketOut.flush();
+			}
+		} catch (IOException e) {
+			pending.remove(requestId);
+			// 写了一半的流已无法继续使用，关闭后读取线程随之退出
+			failure = e;
+			try {
+				socketIn.close();
+			} catch (IOException ignored) {
+			}
+			throw e;
+		}
+		// 读取线程已退出时不会再有响应
+		if (failure != null) {
+			fail(requestId, failure);
+		}
+		return future;
+	}
+
+	public boolean isOpen() {
+		return failure == null && !closed;
+	}
+
+	// 通知服务器结束会话
+	public void close() throws IOException {
+		closed = true;
+		synchronized (socketOut) {
+			socketOut.writeObject("exit");
+			socketOut.flush();
+		}
+	}
+
+	private void readLoop() {
+		try {
+			while (true) {
+				long requestId = socketIn.readLong();
+				byte[] response = (byte[]) socketIn.readUnshared();
+				CompletableFuture<Response> future = pending.remove(requestId);
+				if (future != null) {
+					future.complete(new Response(new ByteArrayInputStream(response)));
+				}
+			}
+		} catch (IOException | ClassNotFoundException e) {
+			failure = e instanceof IOException io ? io : new IOException(e);
+			if (!closed) {
+				System.out.println("与服务器的连接已断开：" + e);
+			}
+			for (Long requestId : pending.keySet()) {
+				fail(requestId, failure);
+			}
+			if (!closed) {
+				onDisconnect.run();
+			}
+		}
+	}
+
+	private void fail(long requestId, IOException cause) {
+		CompletableFuture<Response> future = pending.remove(requestId);
+		if (future != null) {
+			future.completeExceptionally(cause);
+		}
+	}
+
+	private static byte[] encode(Object[] parts) throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		try (ObjectOutputStream requestOut = new ObjectOutputStream(buffer)) {
+			for (Object part : parts) {
+				requestOut.writeObject(part);
+			}
+		}
+		return buffer.toByteArray();
+	}
+}
@@ -0,0 +1,93 @@
+package Pages.net;
+
+import Pages.protocol.RowSet;
+import Pages.protocol.WireFrame;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.function.UnaryOperator;
+
+import javax.swing.table.DefaultTableModel;
+
+/**
+ * 让表格与服务器上的列表保持一致（各模块的requestChanges）
+ * 第一次取全部行并记下版本号，之后只取变化的行和删除的id，在表格中原地更新，不再整表重画
+ * 表格改为显示查找结果等其他内容后调用reset，下次同步重新取全部行
+ * 所有方法都在事件分派线程上调用
+ */
+public class TableSync {
+
+	private final DefaultTableModel dtm;
+	private final String model;
+	private final UnaryOperator<RowSet> display;
+	// 上次同步到的版本号，-1表示需要重新取全部行
+	private long revision = -1;
+	// reset后丢弃还在途的同步结果
+	private int generation;
+	private boolean syncing;
+	private boolean again;
+
+	private record Changes(long revision, RowSet rows, long[] deletedIds) {
+	}
+
+	/**
+	 * @param model 列表所在模块，例如图书为"4"
+	 * @param display 行集填入表格前的显示转换，例如把借阅状态转换为文字
+	 */
+	public TableSync(DefaultTableModel dtm, String model, UnaryOperator<RowSet> display) {
+		this.dtm = dtm;
+		this.model = model;
+		this.display = display;
+	}
+
+	public TableSync(DefaultTableModel dtm, String model) {
+		this(dtm, model, rows -> rows);
+	}
+
+	/**
+	 * 向服务器取上次同步之后的变化并合并到表格
+	 * 上一次同步还没返回时等它结束后再取一次，避免旧的结果覆盖新的
+	 */
+	public void sync() {
+		if (syncing) {
+			again = true;
+			return;
+		}
+		syncing = true;
+		long since = revision;
+		int current = generation;
+		ClientService.onEdt(ClientService.request(TableSync::readChanges, model, "requestChanges", since), changes -> {
+			if (current != generation) {
+				return;
+			}
+			RowSet rows = display.apply(changes.rows());
+			if (since < 0) {
+				dtm.setRowCount(0);
+				rows.fill(dtm);
+			} else {
+				rows.merge(dtm, changes.deletedIds());
+			}
+			revision = changes.revision();
+		}).thenRun(() -> {
+			syncing = false;
+			if (again) {
+				again = false;
+				sync();
+			}
+		});
+	}
+
+	// 表格内容已不是同步的列表，下次sync重新取全部行
+	public void reset() {
+		revision = -1;
+		generation++;
+	}
+
+	// 在I/O线程上读出变化：版本号、行集、删除的id
+	private static Changes readChanges(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		Long revision = (Long) in.readObject();
+		RowSet rows = WireFrame.readRowSet(in);
+		long[] deletedIds = (long[]) in.readObject();
+		return new Changes(revision, rows, deletedIds);
+	}
+}
@@ -0,0 +1,141 @@
+package Pages.net;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 保存登录后服务器下发的JWT令牌
+ * 服务器要求除登录、注册外的每个请求在function之后带上令牌，由这里统一插入，各页面不必关心
+ * 令牌快到期时在后台向服务器换发（model "1"的Refresh），换上新令牌后通知服务器吊销旧令牌（ConfirmRefresh）
+ * 登录超过服务器规定的最长时间后不再换发，令牌到期后需重新登录
+ */
+public final class TokenHolder {
+
+	// 距离过期不足这么久时换发
+	private static final long REFRESH_MARGIN_MS = 30 * 60 * 1000;
+	// 换发失败（例如正在重连）后隔这么久再试
+	private static final long RETRY_MS = 60 * 1000;
+	private static final Pattern EXP = Pattern.compile("\"exp\"\\s*:\\s*(\\d+)");
+
+	private static final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(
+			Thread.ofPlatform().name("token-refresher").daemon().factory());
+
+	private static volatile String token;
+	private static ScheduledFuture<?> refreshTask;
+
+	private TokenHolder() {
+	}
+
+	/**
+	 * 登录或换发成功后保存令牌，并按过期时间安排下一次换发
+	 */
+	public static synchronized void set(String newToken) {
+		token = newToken;
+		long expiresAt = expiresAt(newToken);
+		if (expiresAt > 0) {
+			schedule(Math.max(0, expiresAt - REFRESH_MARGIN_MS - System.currentTimeMillis()));
+		}
+	}
+
+	public static String get() {
+		return token;
+	}
+
+	// 退出登录时清除
+	public static synchronized void clear() {
+		token = null;
+		if (refreshTask != null) {
+			refreshTask.cancel(false);
+			refreshTask = null;
+		}
+	}
+
+	// 登录和注册时还没有令牌，与服务器一致不区分function的大小写
+	public static boolean requiresToken(Object model, Object function) {
+		return !("1".equals(model) && function instanceof String name
+				&& (name.equalsIgnoreCase("login") || name.equalsIgnoreCase("register")));
+	}
+
+	/**
+	 * 在model、function之后插入令牌
+	 * @param parts 页面写出的请求：model、function和参数
+	 */
+	public static Object[] attach(Object[] parts) {
+		String current = token;
+		if (current == null || parts.length < 2 || !requiresToken(parts[0], parts[1])) {
+			return parts;
+		}
+		Object[] request = new Object[parts.length + 1];
+		request[0] = parts[0];
+		request[1] = parts[1];
+		request[2] = current;
+		System.arraycopy(parts, 2, request, 3, parts.length - 2);
+		return request;
+	}
+
+	/**
+	 * 读取令牌中的过期时刻（毫秒），只用于安排换发，不校验签名
+	 * @return 无法解析时返回0
+	 */
+	static long expiresAt(String jwt) {
+		String[] sections = jwt == null ? new String[0] : jwt.split("\\.");
+		if (sections.length < 2) {
+			return 0;
+		}
+		try {
+			String payload = new String(Base64.getUrlDecoder().decode(sections[1]), StandardCharsets.UTF_8);
+			Matcher matcher = EXP.matcher(payload);
+			return matcher.find() ? Long.parseLong(matcher.group(1)) * 1000 : 0;
+		} catch (IllegalArgumentException e) {
+			return 0;
+		}
+	}
+
+	private static synchronized void schedule(long delayMs) {
+		if (refreshTask != null) {
+			refreshTask.cancel(false);
+		}
+		refreshTask = refresher.schedule(TokenHolder::refresh, delayMs, TimeUnit.MILLISECONDS);
+	}
+
+	private static void refresh() {
+		String current = token;
+		if (current == null) {
+			return;
+		}
+		ClientService.request(TokenHolder::readRefresh, "1", "Refresh").whenComplete((result, ex) -> {
+			// 换发期间已退出或重新登录的，不覆盖新的状态
+			if (token != current) {
+				return;
+			}
+			if (ex != null) {
+				System.out.println("令牌换发失败，稍后重试：" + ex.getMessage());
+				schedule(RETRY_MS);
+			} else if (result instanceof String newToken && !"error".equals(newToken)) {
+				set(newToken);
+				System.out.println("令牌已换发");
+				// 之后的请求都带新令牌，旧令牌可以吊销；失败时旧令牌到期后自然失效
+				ClientService.request(in -> in.readObject(), "1", "ConfirmRefresh", current);
+			} else {
+				System.out.println("登录已过期，请重新登录");
+			}
+		});
+	}
+
+	// 换发成功时为新令牌；不再换发时服务器写入"error"和原因
+	private static Object readRefresh(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		Object result = in.readObject();
+		if ("error".equals(result)) {
+			System.out.println(in.readObject());
+		}
+		return result;
+	}
+}
@@ -0,0 +1,45 @@
+package Pages.net;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 单连接逐个收发（-Dvcampus.mux=false）时使用：缓存一个请求写出的对象，flush时插入令牌再写入连接
+ */
+public class TokenOutputStream extends ObjectOutputStream {
+
+	private final ObjectOutputStream socketOut;
+	private final List<Object> parts = new ArrayList<>();
+
+	public TokenOutputStream(ObjectOutputStream socketOut) throws IOException {
+		super();
+		this.socketOut = socketOut;
+	}
+
+	@Override
+	protected synchronized void writeObjectOverride(Object obj) {
+		parts.add(obj);
+	}
+
+	@Override
+	public synchronized void writeUnshared(Object obj) {
+		parts.add(obj);
+	}
+
+	@Override
+	public synchronized void flush() throws IOException {
+		for (Object part : TokenHolder.attach(parts.toArray())) {
+			socketOut.writeObject(part);
+		}
+		parts.clear();
+		socketOut.flush();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		flush();
+		socketOut.close();
+	}
+}
@@ -0,0 +1,128 @@
+package Pages.protocol;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 行集中各列的类型及其整列解包方式，与服务器端ColumnType一一对应
+ */
+public enum ColumnType {
+
+	// 按与上一非空值的差值累加还原
+	LONG(1) {
+		@Override
+		Object[] read(int rows, BinaryReader reader) throws IOException {
+			boolean[] present = readNullMask(rows, reader);
+			Object[] values = new Object[rows];
+			long previous = 0;
+			for (int i = 0; i < rows; i++) {
+				if (present[i]) {
+					previous += reader.readVarLong();
+					values[i] = previous;
+				}
+			}
+			return values;
+		}
+	},
+
+	INT(2) {
+		@Override
+		Object[] read(int rows, BinaryReader reader) throws IOException {
+			boolean[] present = readNullMask(rows, reader);
+			Object[] values = new Object[rows];
+			for (int i = 0; i < rows; i++) {
+				if (present[i]) {
+					values[i] = reader.readVarInt();
+				}
+			}
+			return values;
+		}
+	},
+
+	DOUBLE(3) {
+		@Override
+		Object[] read(int rows, BinaryReader reader) throws IOException {
+			boolean[] present = readNullMask(rows, reader);
+			Object[] values = new Object[rows];
+			for (int i = 0; i < rows; i++) {
+				if (present[i]) {
+					values[i] = reader.readDouble();
+				}
+			}
+			return values;
+		}
+	},
+
+	// 布尔列为位图
+	BOOLEAN(4) {
+		@Override
+		Object[] read(int rows, BinaryReader reader) throws IOException {
+			byte[] bits = reader.readBytes((rows + 7) / 8);
+			Object[] values = new Object[rows];
+			for (int i = 0; i < rows; i++) {
+				values[i] = (bits[i >> 3] & (1 << (i & 7))) != 0;
+			}
+			return values;
+		}
+	},
+
+	// 字典编码：先读字符串表，再按每行的下标取值，0表示null
+	STRING(5) {
+		@Override
+		Object[] read(int rows, BinaryReader reader) throws IOException {
+			int size = reader.readVarInt();
+			String[] dictionary = new String[size + 1];
+			for (int i = 1; i <= size; i++) {
+				dictionary[i] = reader.readString();
+			}
+			Object[] values = new Object[rows];
+			for (int i = 0; i < rows; i++) {
+				int index = reader.readVarInt();
+				if (index < 0 || index > size) {
+					throw new StreamCorruptedException("字符串字典下标越界：" + index);
+				}
+				values[i] = dictionary[index];
+			}
+			return values;
+		}
+	};
+
+	private static final Map<Byte, ColumnType> BY_CODE = new HashMap<>();
+
+	static {
+		for (ColumnType type : values()) {
+			BY_CODE.put(type.code, type);
+		}
+	}
+
+	private final byte code;
+
+	ColumnType(int code) {
+		this.code = (byte) code;
+	}
+
+	public byte getCode() {
+		return code;
+	}
+
+	public static ColumnType fromCode(byte code) throws IOException {
+		ColumnType type = BY_CODE.get(code);
+		if (type == null) {
+			throw new StreamCorruptedException("未知的列类型：" + code);
+		}
+		return type;
+	}
+
+	abstract Object[] read(int rows, BinaryReader reader) throws IOException;
+
+	private static boolean[] readNullMask(int rows, BinaryReader reader) throws IOException {
+		byte[] bits = reader.readBytes((rows + 7) / 8);
+		boolean[] present = new boolean[rows];
+		for (int i = 0; i < rows; i++) {
+			present[i] = (bits[i >> 3] & (1 << (i & 7))) != 0;
+		}
+		return present;
+	}
+}
@@ -0,0 +1,162 @@
+package Pages.protocol;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Vector;
+import java.util.function.Function;
+
+import javax.swing.table.DefaultTableModel;
+
+/**
+ * 服务器发来的行集，按列保存数据，可直接填充到表格模型
+ */
+public class RowSet {
+
+	private final List<String> columnNames;
+	private final Object[][] columns;
+	private final int rowCount;
+
+	private RowSet(List<String> columnNames, Object[][] columns, int rowCount) {
+		this.columnNames = columnNames;
+		this.columns = columns;
+		this.rowCount = rowCount;
+	}
+
+	public static RowSet decode(byte[] frame) throws IOException {
+		BinaryReader reader = WireFrame.open(frame, WireFrame.TYPE_ROW_SET);
+		int columnCount = reader.readVarInt();
+		List<String> names = new ArrayList<>(columnCount);
+		List<ColumnType> types = new ArrayList<>(columnCount);
+		for (int i = 0; i < columnCount; i++) {
+			names.add(reader.readString());
+			types.add(ColumnType.fromCode(reader.readByte()));
+		}
+		int rows = reader.readVarInt();
+		if (rows < 0) {
+			throw new StreamCorruptedException("行数错误：" + rows);
+		}
+		Object[][] columns = new Object[columnCount][];
+		for (int i = 0; i < columnCount; i++) {
+			columns[i] = types.get(i).read(rows, reader);
+		}
+		return new RowSet(names, columns, rows);
+	}
+
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	public List<String> getColumnNames() {
+		return columnNames;
+	}
+
+	public Object get(int row, String column) {
+		return columns[indexOf(column)][row];
+	}
+
+	/**
+	 * 对整列做显示转换，例如把借阅状态转换为“未借阅/已借阅”
+	 */
+	public RowSet map(String column, Function<Object, Object> mapper) {
+		Object[] values = columns[indexOf(column)];
+		for (int i = 0; i < rowCount; i++) {
+			values[i] = mapper.apply(values[i]);
+		}
+		return this;
+	}
+
+	/**
+	 * 按行集的列顺序追加到表格模型
+	 */
+	public void fill(DefaultTableModel dtm) {
+		fill(dtm, columnNames.toArray(new String[0]));
+	}
+
+	/**
+	 * 只取指定的列，按给定顺序追加到表格模型
+	 * 所有行一次性加入，只触发一次表格刷新
+	 */
+	@SuppressWarnings({"rawtypes", "unchecked"})
+	public void fill(DefaultTableModel dtm, String... columnOrder) {
+		if (rowCount == 0) {
+			return;
+		}
+		int[] indexes = new int[columnOrder.length];
+		for (int c = 0; c < columnOrder.length; c++) {
+			indexes[c] = indexOf(columnOrder[c]);
+		}
+		int width = dtm.getColumnCount();
+		Vector<Vector> data = dtm.getDataVector();
+		int first = data.size();
+		for (int r = 0; r < rowCount; r++) {
+			Vector<Object> row = new Vector<>(width);
+			for (int c = 0; c < indexes.length && c < width; c++) {
+				row.add(columns[indexes[c]][r]);
+			}
+			row.setSize(width);
+			data.add(row);
+		}
+		dtm.fireTableRowsInserted(first, data.size() - 1);
+	}
+
+	/**
+	 * 增量同步时按第一列的id合并到表格模型，列顺序与fill(dtm)一致
+	 * 先去掉deletedIds中的行，再原地更新已有的行，没有的行追加到末尾
+	 */
+	@SuppressWarnings({"rawtypes", "unchecked"})
+	public void merge(DefaultTableModel dtm, long[] deletedIds) {
+		Vector<Vector> data = dtm.getDataVector();
+		if (deletedIds.length > 0) {
+			Set<Object> deleted = new HashSet<>();
+			for (long id : deletedIds) {
+				deleted.add(id);
+			}
+			if (data.removeIf(row -> deleted.contains(row.get(0)))) {
+				dtm.fireTableDataChanged();
+			}
+		}
+		if (rowCount == 0) {
+			return;
+		}
+		Map<Object, Integer> rowsById = new HashMap<>();
+		for (int r = 0; r < data.size(); r++) {
+			rowsById.put(data.get(r).get(0), r);
+		}
+		int width = Math.min(columns.length, dtm.getColumnCount());
+		int first = data.size();
+		for (int r = 0; r < rowCount; r++) {
+			Integer existing = rowsById.get(columns[0][r]);
+			if (existing == null) {
+				Vector<Object> row = new Vector<>(dtm.getColumnCount());
+				for (int c = 0; c < width; c++) {
+					row.add(columns[c][r]);
+				}
+				row.setSize(dtm.getColumnCount());
+				data.add(row);
+				continue;
+			}
+			Vector row = data.get(existing);
+			for (int c = 0; c < width; c++) {
+				row.set(c, columns[c][r]);
+			}
+			dtm.fireTableRowsUpdated(existing, existing);
+		}
+		if (data.size() > first) {
+			dtm.fireTableRowsInserted(first, data.size() - 1);
+		}
+	}
+
+	private int indexOf(String column) {
+		int index = columnNames.indexOf(column);
+		if (index < 0) {
+			throw new IllegalArgumentException("不存在的列：" + column);
+		}
+		return index;
+	}
+}
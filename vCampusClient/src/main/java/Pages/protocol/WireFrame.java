@@ -0,0 +1,57 @@
+package Pages.protocol;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+
+/**
+ * 服务器发来的二进制帧
+ * 帧格式：魔数(2字节) 版本(1字节) 类型(1字节) 负载长度(4字节) | 负载
+ */
+public final class WireFrame {
+
+	public static final short MAGIC = 0x5643; // "VC"
+	public static final byte VERSION = 2;
+	public static final int HEADER_SIZE = 8;
+
+	// 帧类型
+	public static final byte TYPE_ROW_SET = 1;
+
+	private WireFrame() {
+	}
+
+	/**
+	 * 从对象流读取一个行集帧
+	 * 使用readUnshared，避免对象流的句柄表一直持有已接收的帧
+	 */
+	public static RowSet readRowSet(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		return RowSet.decode((byte[]) in.readUnshared());
+	}
+
+	/**
+	 * 校验帧头并返回定位到负载起始处的读取器
+	 */
+	public static BinaryReader open(byte[] frame, byte expectedType) throws IOException {
+		if (frame == null || frame.length < HEADER_SIZE) {
+			throw new StreamCorruptedException("帧长度不足");
+		}
+		ByteBuffer header = ByteBuffer.wrap(frame, 0, HEADER_SIZE);
+		if (header.getShort() != MAGIC) {
+			throw new StreamCorruptedException("帧魔数错误");
+		}
+		byte version = header.get();
+		if (version != VERSION) {
+			throw new StreamCorruptedException("不支持的协议版本：" + version);
+		}
+		byte type = header.get();
+		if (type != expectedType) {
+			throw new StreamCorruptedException("帧类型不匹配：" + type);
+		}
+		int length = header.getInt();
+		if (length != frame.length - HEADER_SIZE) {
+			throw new StreamCorruptedException("帧负载长度错误：" + length);
+		}
+		return new BinaryReader(frame, HEADER_SIZE, length);
+	}
+}
@@ -10,6 +10,7 @@ import javax.swing.JPanel;
 import javax.swing.border.EmptyBorder;
 
 
+import Pages.net.TokenHolder;
 import Pages.view.manager.AddClassFrame;
 import Pages.view.manager.AllStudentFrame;
 import Pages.view.manager.ApproveBookFrame;
@@ -326,6 +327,7 @@ public class AdminFrame extends JFrame {
 	protected void LoginOut(ActionEvent ae) {
 		// TODO Auto-generated method stub
 		if(JOptionPane.showConfirmDialog(this, "是否确认退出?","正在退出...",JOptionPane.YES_NO_OPTION) == JOptionPane.OK_OPTION) {
+			TokenHolder.clear();//退出后不再使用原来的登录令牌
 			LoginFrame loginframe=new LoginFrame();//用户确认退出
 				//loginframe.setVisible(true);
 				this.dispose();}//关闭界面}
@@ -1,6 +1,7 @@
 package Pages.view;
 //**@author 唐可成
 import Pages.MainApp;
+import Pages.net.ClientService;
 
 import java.awt.EventQueue;
 
@@ -16,8 +17,6 @@ import java.awt.event.ActionListener;
 import java.awt.event.ActionEvent;
 import javax.swing.ImageIcon;
 import java.awt.Color;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 
 public class ChangePasswordFrame extends JInternalFrame {
 
@@ -26,9 +25,6 @@ public class ChangePasswordFrame extends JInternalFrame {
 	private JTextField NewPassword;
 	private JTextField ComfirmPassword;
 
-	ObjectInputStream in = MainApp.getIn();
-	ObjectOutputStream out = MainApp.getOut();
-
 	/**
 	 * Launch the application.
 	 */
@@ -120,17 +116,10 @@ public class ChangePasswordFrame extends JInternalFrame {
 		String SendOldPassword=this.OldPassword.getText();
 		String SendNldPassword=this.NewPassword.getText();
 		String SendComfirmPassword=this.ComfirmPassword.getText();
-		try{
-			out.writeObject("1");
-			out.writeObject("ChangePassword");
-			out.writeObject(MainApp.getCurrentUserId());
-			System.out.println(MainApp.getCurrentUserId());
-			out.writeObject(SendOldPassword);
-			out.writeObject(SendNldPassword);
-			out.writeObject(SendComfirmPassword);
-			out.flush();
+		System.out.println(MainApp.getCurrentUserId());
+		ClientService.onEdt(ClientService.request(in -> (Integer) in.readObject(), "1", "ChangePassword",
+				MainApp.getCurrentUserId(), SendOldPassword, SendNldPassword, SendComfirmPassword), ActionType -> {
 			//响应模式，1原密码错误，2两次填写新密码不一致，3修改成功
-			Integer ActionType=(Integer) in.readObject();
 			if(ActionType==0) {
 				JOptionPane.showMessageDialog(this,"输入的原密码错误");
 
@@ -143,14 +132,10 @@ public class ChangePasswordFrame extends JInternalFrame {
 				JOptionPane.showMessageDialog(this,"修改密码成功");
 
 			}
-
-			OldPassword.setText("");
-			NewPassword.setText("");
-			ComfirmPassword.setText("");//按确认键后关闭窗口并清除已填写内容
-		} catch (Exception ex) {
-			ex.printStackTrace();
-			System.out.println(ex.getMessage());
-		}
+		});
+		OldPassword.setText("");
+		NewPassword.setText("");
+		ComfirmPassword.setText("");//按确认键后关闭窗口并清除已填写内容
 
 		
 	}
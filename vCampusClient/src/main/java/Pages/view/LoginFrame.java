@@ -7,6 +7,8 @@ import javax.swing.JPanel;
 import javax.swing.border.EmptyBorder;
 
 import Pages.MainApp;
+import Pages.net.ClientService;
+import Pages.net.TokenHolder;
 import Pages.view.student.StudentFrame;
 import Pages.view.teacher.TeacherFrame;
 
@@ -24,8 +26,8 @@ import javax.swing.JDesktopPane;
 import java.awt.Color;
 import javax.swing.ImageIcon;
 import java.awt.Toolkit;
+import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 
 public class LoginFrame extends JFrame {
 
@@ -35,9 +37,6 @@ public class LoginFrame extends JFrame {
 	private JPasswordField userpassword;
 	private RegisterFrame registerframe;
 	private JDesktopPane desktopPane;
-
-	ObjectInputStream in = MainApp.getIn();
-	ObjectOutputStream out = MainApp.getOut();
    
 
 	/**
@@ -161,86 +160,99 @@ public class LoginFrame extends JFrame {
 				
 		String password=this.userpassword.getText();//密码框.密码
 
-		try {
-			out.writeObject("1");
-			out.writeObject("Login");
-			out.writeObject(name);
-			out.writeObject(password);
-			out.flush();
+		// 登录请求在后台发出，等待期间界面不会卡住，也不能重复点击
+		JButton button=(JButton) ae.getSource();
+		button.setEnabled(false);
+		ClientService.onEdt(ClientService.request(LoginFrame::readLoginResult, "1", "Login", name, password),
+				this::showLoginResult).thenRun(() -> button.setEnabled(true));
+	}
+
+	private record LoginResult(Integer confirm, Long userId, String token) {
+	}
+
+	// 登录成功时服务器在结果后面依次写入用户ID和令牌
+	private static LoginResult readLoginResult(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		Integer LoginComfirm=(Integer)in.readObject();
+		if(LoginComfirm>1) {
+			return new LoginResult(LoginComfirm, (Long)in.readObject(), (String)in.readObject());
+		}
+		return new LoginResult(LoginComfirm, null, null);
+	}
 
-			Integer LoginComfirm=(Integer)in.readObject();//登录后界面显示逻辑。后台传入。查无此人0；密码错误1，管理员2，老师3，学生4
-			if(LoginComfirm==0) {
-				JOptionPane.showMessageDialog(this,"用户不存在");
+	private void showLoginResult(LoginResult result) {
+		Integer LoginComfirm=result.confirm();//登录后界面显示逻辑。后台传入。查无此人0；密码错误1，管理员2，老师3，学生4
+		// 之后的每个请求都会带上这个令牌，断线重连后也用它恢复会话
+		if(result.token()!=null) {
+			TokenHolder.set(result.token());
+		}
+		if(LoginComfirm==0) {
+			JOptionPane.showMessageDialog(this,"用户不存在");
+		}
+		else if(LoginComfirm==1) {
+			JOptionPane.showMessageDialog(this,"密码错误");
+		}
+		else if(LoginComfirm==2) {
+			MainApp.setCurrentUserId(result.userId());
+			AdminFrame adminframe=new AdminFrame();
+			//跳转管理员界面
+			adminframe.setVisible(true);
+			this.dispose();//关闭登录界面
+			int IdentityChange=0;
+			if(IdentityChange==1) {
+				JOptionPane.showMessageDialog(this,"您的账户已被删除，即将退出系统");
+				LoginFrame loginframe=new LoginFrame();
+				loginframe.setVisible(true);
+				adminframe.dispose();//关闭界面}
 			}
-			else if(LoginComfirm==1) {
-				JOptionPane.showMessageDialog(this,"密码错误");
+			else if(IdentityChange==2) {
+				JOptionPane.showMessageDialog(this,"您的权限已变更，请重新登录");
+				LoginFrame loginframe=new LoginFrame();
+				loginframe.setVisible(true);
+				adminframe.dispose();
 			}
-			else if(LoginComfirm==2) {
-				MainApp.setCurrentUserId((Long)in.readObject());
-				AdminFrame adminframe=new AdminFrame();
-				//跳转管理员界面
-				adminframe.setVisible(true);
-				this.dispose();//关闭登录界面
-				int IdentityChange=0;
-				if(IdentityChange==1) {
-					JOptionPane.showMessageDialog(this,"您的账户已被删除，即将退出系统");
-					LoginFrame loginframe=new LoginFrame();
-					loginframe.setVisible(true);
-					adminframe.dispose();//关闭界面}
-				}
-				else if(IdentityChange==2) {
-					JOptionPane.showMessageDialog(this,"您的权限已变更，请重新登录");
-					LoginFrame loginframe=new LoginFrame();
-					loginframe.setVisible(true);
-					adminframe.dispose();
-				}
+		}
+		else if(LoginComfirm==3) {
+			MainApp.setCurrentUserId(result.userId());
+			this.dispose();//关闭登录界面
+			TeacherFrame teacherframe=new TeacherFrame();
+			//跳转教师界面
+			teacherframe.setVisible(true);
+
+			int IdentityChange=0;//检测权限变更，删除1，权限变动2
+			if(IdentityChange==1) {
+				JOptionPane.showMessageDialog(this,"您的账户已被删除，即将退出系统");
+				LoginFrame loginframe=new LoginFrame();
+				loginframe.setVisible(true);
+				teacherframe.dispose();//关闭界面}
 			}
-			else if(LoginComfirm==3) {
-				MainApp.setCurrentUserId((Long)in.readObject());
-				this.dispose();//关闭登录界面
-				TeacherFrame teacherframe=new TeacherFrame();
-				//跳转教师界面
-				teacherframe.setVisible(true);
-
-				int IdentityChange=0;//检测权限变更，删除1，权限变动2
-				if(IdentityChange==1) {
-					JOptionPane.showMessageDialog(this,"您的账户已被删除，即将退出系统");
-					LoginFrame loginframe=new LoginFrame();
-					loginframe.setVisible(true);
-					teacherframe.dispose();//关闭界面}
-				}
-				else if(IdentityChange==2) {
-					JOptionPane.showMessageDialog(this,"您的权限已变更，请重新登录");
-					LoginFrame loginframe=new LoginFrame();
-					loginframe.setVisible(true);
-					teacherframe.dispose();
-				}
+			else if(IdentityChange==2) {
+				JOptionPane.showMessageDialog(this,"您的权限已变更，请重新登录");
+				LoginFrame loginframe=new LoginFrame();
+				loginframe.setVisible(true);
+				teacherframe.dispose();
 			}
-			else if(LoginComfirm==4) {
-				Long Id=(Long)in.readObject();
-				MainApp.setCurrentUserId(Id);
-				System.out.println("StudentId:"+Id);
-				StudentFrame studentframe=new StudentFrame();
-				//跳转学生界面
-				studentframe.setVisible(true);
-				this.dispose();//关闭登录界面
-				int IdentityChange=0;
-				if(IdentityChange==1) {
-					JOptionPane.showMessageDialog(this,"您的账户已被删除，即将退出系统");
-					LoginFrame loginframe=new LoginFrame();
-					loginframe.setVisible(true);
-					studentframe.dispose();//关闭界面}
-				}
-				else if(IdentityChange==2) {
-					JOptionPane.showMessageDialog(this,"您的权限已变更，请重新登录");
-					LoginFrame loginframe=new LoginFrame();
-					loginframe.setVisible(true);
-					studentframe.dispose();
-				}
+		}
+		else if(LoginComfirm==4) {
+			Long Id=result.userId();
+			MainApp.setCurrentUserId(Id);
+			System.out.println("StudentId:"+Id);
+			StudentFrame studentframe=new StudentFrame();
+			//跳转学生界面
+			studentframe.setVisible(true);
+			this.dispose();//关闭登录界面
+			int IdentityChange=0;
+			if(IdentityChange==1) {
+				JOptionPane.showMessageDialog(this,"您的账户已被删除，即将退出系统");
+				LoginFrame loginframe=new LoginFrame();
+				loginframe.setVisible(true);
+				studentframe.dispose();//关闭界面}
+			}
+			else if(IdentityChange==2) {
+				JOptionPane.showMessageDialog(this,"您的权限已变更，请重新登录");
+				LoginFrame loginframe=new LoginFrame();
+				loginframe.setVisible(true);
+				studentframe.dispose();
 			}
-		} catch (Exception ex) {
-			ex.printStackTrace();
-			System.out.println(ex.getMessage());
 		}
 	}
 }
@@ -1,6 +1,6 @@
 package Pages.view;
 //**@author 唐可成
-import Pages.MainApp;
+import Pages.net.ClientService;
 
 import java.awt.EventQueue;
 
@@ -14,8 +14,6 @@ import java.awt.event.ActionEvent;
 import javax.swing.ImageIcon;
 import java.awt.Color;
 import java.awt.Font;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 
 public class RegisterFrame extends JInternalFrame {
 
@@ -23,9 +21,6 @@ public class RegisterFrame extends JInternalFrame {
 	private JTextField TextFile1;
 	private JTextField TextFile2;
 
-	ObjectInputStream in = MainApp.getIn();
-	ObjectOutputStream out = MainApp.getOut();
-
 	/**
 	 * Launch the application.
 	 */
@@ -98,33 +93,22 @@ public class RegisterFrame extends JInternalFrame {
 
 	}
 	protected void RegisterButton(ActionEvent ae) {
-		try {
-			setVisible(false);
-			//后台由此获取输入框内容
-			String name=this.TextFile1.getText();//用户名
-			String password=this.TextFile2.getText();//密码
-
-			out.writeObject("1");
-			out.writeObject("Register");
-			out.writeObject(name);
-			out.writeObject(password);
-			out.flush();
+		setVisible(false);
+		//后台由此获取输入框内容
+		String name=this.TextFile1.getText();//用户名
+		String password=this.TextFile2.getText();//密码
 
-			boolean response = (boolean)in.readObject();
+		ClientService.onEdt(ClientService.request(in -> (Boolean) in.readObject(), "1", "Register", name, password), response -> {
 			if(response == true) {
 				JOptionPane.showMessageDialog(this,"注册成功");
 			}
 			else{
 				JOptionPane.showMessageDialog(this,"注册失败");
 			}
+		});
 
-			TextFile1.setText("");
-			TextFile2.setText("");
-
-		} catch (Exception ex) {
-			ex.printStackTrace();
-			System.out.println(ex.getMessage());
-		}
+		TextFile1.setText("");
+		TextFile2.setText("");
 		
 		
 	}
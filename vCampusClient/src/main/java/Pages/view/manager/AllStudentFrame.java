@@ -1,6 +1,6 @@
 package Pages.view.manager;
 //**@author 唐可成
-import Pages.MainApp;
+import Pages.net.ClientService;
 
 import java.awt.EventQueue;
 
@@ -15,8 +15,8 @@ import javax.swing.JOptionPane;
 import javax.swing.JTextField;
 import javax.swing.JButton;
 import java.awt.event.ActionListener;
+import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Vector;
 import java.awt.event.ActionEvent;
@@ -41,8 +41,6 @@ public class AllStudentFrame extends JInternalFrame {
 	private DefaultTableModel dtm=null;
 	private JTextField TextFile0;
 
-	ObjectInputStream in = MainApp.getIn();
-	ObjectOutputStream out = MainApp.getOut();
 	
 	
 
@@ -194,37 +192,27 @@ public class AllStudentFrame extends JInternalFrame {
 
 	//编辑按钮响应，后台获取前端用户选择数据。注释同上
 	protected void EditButton(ActionEvent ae) {
-		try{
-			// TODO Auto-generated method stub
-			String id=this.TextFile0.getText();
-			String textfile1=this.TextFile1.getText();
-			String textfile2=this.TextFile2.getText();
-			String textfile3=this.TextFile3.getText();
-			String textfile4=this.TextFile4.getText();
-
-			out.writeObject("6");
-			out.writeObject("StudentEdit");
-			out.writeObject(id);
-			out.writeObject(textfile1);
-			out.writeObject(textfile2);
-			out.writeObject(textfile3);
-			out.writeObject(textfile4);
-			out.flush();
+		// TODO Auto-generated method stub
+		String id=this.TextFile0.getText();
+		String textfile1=this.TextFile1.getText();
+		String textfile2=this.TextFile2.getText();
+		String textfile3=this.TextFile3.getText();
+		String textfile4=this.TextFile4.getText();
 
-			if(JOptionPane.showConfirmDialog(this, "是否确认编辑?","正在编辑...",JOptionPane.YES_NO_OPTION) == JOptionPane.OK_OPTION) {
-				Boolean ActionType=(Boolean) in.readObject();
+		// 先确认再发送，取消时不会留下没人读取的响应
+		if(JOptionPane.showConfirmDialog(this, "是否确认编辑?","正在编辑...",JOptionPane.YES_NO_OPTION) == JOptionPane.OK_OPTION) {
+			Button3.setEnabled(false);
+			ClientService.onEdt(ClientService.request(in -> (Boolean) in.readObject(),
+					"6", "StudentEdit", id, textfile1, textfile2, textfile3, textfile4), ActionType -> {
 				//编辑响应，后台传入。成功1，失败2
 				if(ActionType==true) {
 					JOptionPane.showMessageDialog(this,"编辑成功");
 					requestAllClass();
 				}else {
 					JOptionPane.showMessageDialog(this,"编辑失败");
-
+					Button3.setEnabled(true);
 				}
-			}
-		} catch (Exception ex) {
-			ex.printStackTrace();
-			System.out.println(ex.getMessage());
+			});
 		}
 	}
 
@@ -264,78 +252,63 @@ public class AllStudentFrame extends JInternalFrame {
 	}
 	//搜索按钮响应，后台获取前端用户选择数据。注释同上
 	protected void SelectSomeone(ActionEvent ae) {
-		try{
-			String id=this.TextFile0.getText();
-			String textfile1=this.TextFile1.getText();
-			String textfile2=this.TextFile2.getText();
-			String textfile3=this.TextFile3.getText();
-			String textfile4=this.TextFile4.getText();
+		String id=this.TextFile0.getText();
+		String textfile1=this.TextFile1.getText();
+		String textfile2=this.TextFile2.getText();
+		String textfile3=this.TextFile3.getText();
+		String textfile4=this.TextFile4.getText();
 
-			out.writeObject("6");
-			out.writeObject("SelectSomeone");
-			out.writeObject(id);
-			out.writeObject(textfile1);
-			out.writeObject(textfile2);
-			out.writeObject(textfile3);
-			out.writeObject(textfile4);
-			out.flush();
-
-			//后台由此获取输入框数据
-			Integer ActionType=(Integer) in.readObject();//响应模式，后台传入。1用户未输入内容就搜索，2查无此项目；3查找成功，后台传入所要查找的数据
-
-			if(ActionType==1) {
+		//后台由此获取输入框数据
+		Button2.setEnabled(false);
+		ClientService.onEdt(ClientService.request(AllStudentFrame::readSearchResult,
+				"6", "SelectSomeone", id, textfile1, textfile2, textfile3, textfile4), result -> {
+			//响应模式，后台传入。1用户未输入内容就搜索，2查无此项目；3查找成功，后台传入所要查找的数据
+			if(result.actionType()==1) {
 				requestAllClass();
-				return;
 			}
-			else if(ActionType==2) {
+			else if(result.actionType()==2) {
 				JOptionPane.showMessageDialog(this,"查找失败");
 
 			}
-			else if(ActionType==3) {
+			else if(result.actionType()==3) {
 				dtm.setRowCount(0);
-				Integer allgoodsnum = (Integer) in.readObject();
-				System.out.println(allgoodsnum);
-
-				for(int i=0;i<allgoodsnum;i++){
-					Vector v = new Vector();
-					v.add((Long) in.readObject());//学号
-					v.add((String) in.readObject());//学生姓名
-					v.add((String) in.readObject());//年级
-					v.add((String) in.readObject());//院系
-					v.add((String) in.readObject());
+				for(Vector<Object> v : result.rows()){
 					dtm.addRow(v);
 				}
 			}
-		} catch (Exception ex) {
-			ex.printStackTrace();
-			System.out.println(ex.getMessage());
-		}
+		}).thenRun(() -> Button2.setEnabled(true));
 	}
 
-	public void requestAllClass() {
-		try{
-			out.writeObject("6");
-			out.writeObject("requestAllClass");
-			out.flush();
+	private record SearchResult(int actionType, List<Vector<Object>> rows) {
+	}
 
-			dtm.setRowCount(0);
+	// 在I/O线程上读出查找结果
+	private static SearchResult readSearchResult(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		Integer ActionType=(Integer) in.readObject();
+		List<Vector<Object>> rows = new ArrayList<>();
+		if(ActionType==3) {
 			Integer allgoodsnum = (Integer) in.readObject();
 			System.out.println(allgoodsnum);
 
 			for(int i=0;i<allgoodsnum;i++){
-				Vector v = new Vector();
+				Vector<Object> v = new Vector<>();
 				v.add((Long) in.readObject());//学号
 				v.add((String) in.readObject());//学生姓名
 				v.add((String) in.readObject());//年级
-				v.add((String) in.readObject());//专业
+				v.add((String) in.readObject());//院系
 				v.add((String) in.readObject());
-				dtm.addRow(v);
+				rows.add(v);
 			}
-			this.Button3.setEnabled(false);
-		} catch (Exception ex) {
-			ex.printStackTrace();
-			System.out.println(ex.getMessage());
 		}
+		return new SearchResult(ActionType, rows);
+	}
+
+	public void requestAllClass() {
+		this.Button3.setEnabled(false);
+		ClientService.onEdt(ClientService.requestRows("6", "requestAllClass"), rows -> {
+			dtm.setRowCount(0);
+			rows.fill(dtm);
+		});
 	}
 	//点×后关闭界面
 	public void doDefaultCloseAction() {
@@ -3,7 +3,8 @@ package Pages.view.manager;
  
  */
 
-import Pages.MainApp;
+import Pages.net.ClientService;
+import Pages.net.TableSync;
 
 import java.awt.EventQueue;
 
@@ -18,8 +19,8 @@ import javax.swing.JOptionPane;
 import javax.swing.JTextField;
 import javax.swing.JButton;
 import java.awt.event.ActionListener;
+import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Vector;
 import java.awt.event.ActionEvent;
@@ -43,10 +44,8 @@ public class ManageShopeFrame extends JInternalFrame {
 	private JButton Button5;//将按钮设置成为属性
 	private JTable ClassListTable;
 	private DefaultTableModel dtm=null;
+	private TableSync tableSync;
 	private JTextField TextFile0;
-
-	ObjectInputStream in = MainApp.getIn();
-	ObjectOutputStream out = MainApp.getOut();
 	
 	
 
@@ -201,27 +200,21 @@ public class ManageShopeFrame extends JInternalFrame {
 		Button5.setBounds(607, 377, 93, 23);
 		getContentPane().add(Button5);
 		this.dtm=(DefaultTableModel) ClassListTable.getModel();
+		this.tableSync=new TableSync(dtm, "3");
 		requestAllClass() ;
 	}
 	//添加按钮响应，后台获取前端用户选择数据。相同变量厦门不会重复注释
 	protected void AddButton(ActionEvent ae) {
-		try{
-			String id=this.TextFile0.getText();//商品ID
-			String textfile1=this.TextFile1.getText();//商品名称
-			String textfile2=this.TextFile2.getText();//价格
-			String textfile3=this.TextFile3.getText();//库存
-
-			out.writeObject("3");
-			out.writeObject("AddGoods");
-			out.writeObject(id);
-			out.writeObject(textfile1);
-			out.writeObject(textfile2);
-			out.writeObject(textfile3);
-			out.flush();
-
-			if(JOptionPane.showConfirmDialog(this, "是否确认添加?","正在添加...",JOptionPane.YES_NO_OPTION) == JOptionPane.OK_OPTION) {
+		String id=this.TextFile0.getText();//商品ID
+		String textfile1=this.TextFile1.getText();//商品名称
+		String textfile2=this.TextFile2.getText();//价格
+		String textfile3=this.TextFile3.getText();//库存
 
-				Boolean ActionType=(Boolean) in.readObject();
+		// 先确认再发送，取消时不会留下没人读取的响应
+		if(JOptionPane.showConfirmDialog(this, "是否确认添加?","正在添加...",JOptionPane.YES_NO_OPTION) == JOptionPane.OK_OPTION) {
+			Button5.setEnabled(false);
+			ClientService.onEdt(ClientService.request(in -> (Boolean) in.readObject(),
+					"3", "AddGoods", id, textfile1, textfile2, textfile3), ActionType -> {
 				//编辑响应，后台传入。成功1，失败2
 				if(ActionType==true) {
 					JOptionPane.showMessageDialog(this,"添加成功");
@@ -231,45 +224,31 @@ public class ManageShopeFrame extends JInternalFrame {
 					JOptionPane.showMessageDialog(this,"添加失败");
 
 				}
-
-			}
-		} catch (Exception ex) {
-			ex.printStackTrace();
-			System.out.println(ex.getMessage());
+			}).thenRun(() -> Button5.setEnabled(true));
 		}
 	}
 
 	//编辑按钮响应，后台获取前端用户选择数据。注释同上
 	protected void EditButton(ActionEvent ae) {
-		try{
-			// TODO Auto-generated method stub
-			String id=this.TextFile0.getText();
-			String textfile1=this.TextFile1.getText();
-			String textfile2=this.TextFile2.getText();
-			String textfile3=this.TextFile3.getText();
-
-			out.writeObject("3");
-			out.writeObject("EditGoods");
-			out.writeObject(id);
-			out.writeObject(textfile1);
-			out.writeObject(textfile2);
-			out.writeObject(textfile3);
-			out.flush();
+		// TODO Auto-generated method stub
+		String id=this.TextFile0.getText();
+		String textfile1=this.TextFile1.getText();
+		String textfile2=this.TextFile2.getText();
+		String textfile3=this.TextFile3.getText();
 
-			if(JOptionPane.showConfirmDialog(this, "是否确认编辑?","正在编辑...",JOptionPane.YES_NO_OPTION) == JOptionPane.OK_OPTION) {
-				Boolean ActionType=(Boolean) in.readObject();
+		if(JOptionPane.showConfirmDialog(this, "是否确认编辑?","正在编辑...",JOptionPane.YES_NO_OPTION) == JOptionPane.OK_OPTION) {
+			Button3.setEnabled(false);
+			ClientService.onEdt(ClientService.request(in -> (Boolean) in.readObject(),
+					"3", "EditGoods", id, textfile1, textfile2, textfile3), ActionType -> {
 				//编辑响应，后台传入。成功1，失败2
 				if(ActionType==true) {
 					JOptionPane.showMessageDialog(this,"编辑成功");
 					requestAllClass();
 				}else {
 					JOptionPane.showMessageDialog(this,"编辑失败");
-
+					Button3.setEnabled(true);
 				}
-			}
-		} catch (Exception ex) {
-			ex.printStackTrace();
-			System.out.println(ex.getMessage());
+			});
 		}
 	}
 
@@ -282,6 +261,7 @@ public class ManageShopeFrame extends JInternalFrame {
 		this.TextFile2.setText("");
 		this.TextFile3.setText("");
 		 
+		tableSync.reset();
 		requestAllClass();
 		/*测试代码
 		 * dtm.setRowCount(0); Vector v=new
@@ -296,26 +276,19 @@ public class ManageShopeFrame extends JInternalFrame {
 
 	//删除按钮响应，后台获取前端用户选择数据。注释同上
 	protected void deletebutton(ActionEvent ae) {
-		try{
-			if(JOptionPane.showConfirmDialog(this, "是否删除?","正在删除...",JOptionPane.YES_NO_OPTION) == JOptionPane.OK_OPTION) {
-				String id =this.TextFile0.getText();
-				out.writeObject("3");
-				out.writeObject("DeleteGoods");
-				out.writeObject(id);
-				out.flush();
-				Boolean ActionType=(Boolean) in.readObject();
+		if(JOptionPane.showConfirmDialog(this, "是否删除?","正在删除...",JOptionPane.YES_NO_OPTION) == JOptionPane.OK_OPTION) {
+			String id =this.TextFile0.getText();
+			Button1.setEnabled(false);
+			ClientService.onEdt(ClientService.request(in -> (Boolean) in.readObject(), "3", "DeleteGoods", id), ActionType -> {
 				//删除响应，后台传入。成功1，失败2
 				if(ActionType==true) {
 					JOptionPane.showMessageDialog(this,"删除成功");
 					requestAllClass();
 				}else {
 					JOptionPane.showMessageDialog(this,"删除失败");
-
+					Button1.setEnabled(true);
 				}
-			}
-		} catch (Exception ex) {
-			ex.printStackTrace();
-			System.out.println(ex.getMessage());
+			});
 		}
 	}
 
@@ -336,73 +309,58 @@ public class ManageShopeFrame extends JInternalFrame {
 	}
 //搜索按钮响应，后台获取前端用户选择数据。注释同上
 	protected void SelectSomeone(ActionEvent ae) {
-		try{
-			String id=this.TextFile0.getText();
-			String textfile1=this.TextFile1.getText();
-			String textfile2=this.TextFile2.getText();
-			String textfile3=this.TextFile3.getText();
-
-			out.writeObject("3");
-			out.writeObject("SelectSomeone");
-			out.writeObject(id);
-			out.writeObject(textfile1);
-			out.flush();
-
-			//后台由此获取输入框数据
-			Integer ActionType=(Integer) in.readObject();//响应模式，后台传入。1用户未输入内容就搜索，2查无此项目；3查找成功，后台传入所要查找的数据
+		String id=this.TextFile0.getText();
+		String textfile1=this.TextFile1.getText();
 
-			if(ActionType==1) {
+		//后台由此获取输入框数据
+		Button2.setEnabled(false);
+		ClientService.onEdt(ClientService.request(ManageShopeFrame::readSearchResult, "3", "SelectSomeone", id, textfile1), result -> {
+			//响应模式，后台传入。1用户未输入内容就搜索，2查无此项目；3查找成功，后台传入所要查找的数据
+			if(result.actionType()==1) {
 				requestAllClass();
-				return;
 			}
-			else if(ActionType==2) {
+			else if(result.actionType()==2) {
 				JOptionPane.showMessageDialog(this,"查找失败");
 
 			}
-			else if(ActionType==3) {
+			else if(result.actionType()==3) {
+				tableSync.reset();
 				dtm.setRowCount(0);
-				Integer allgoodsnum = (Integer) in.readObject();
-				System.out.println(allgoodsnum);
-
-				for(int i=0;i<allgoodsnum;i++){
-					Vector v = new Vector();
-					v.add((Long) in.readObject());//id
-					v.add((String) in.readObject());//名称
-					v.add((Double) in.readObject());//价格
-					v.add((Integer) in.readObject());//库存
+				for(Vector<Object> v : result.rows()){
 					dtm.addRow(v);
 				}
 			}
-		} catch (Exception ex) {
-			ex.printStackTrace();
-			System.out.println(ex.getMessage());
-		}
+		}).thenRun(() -> Button2.setEnabled(true));
 	}
 
-	public void requestAllClass() {
-		try{
-			out.writeObject("3");
-			out.writeObject("requestAllClass");
-			out.flush();
+	private record SearchResult(int actionType, List<Vector<Object>> rows) {
+	}
 
-			dtm.setRowCount(0);
+	// 在I/O线程上读出查找结果
+	private static SearchResult readSearchResult(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		Integer ActionType=(Integer) in.readObject();
+		List<Vector<Object>> rows = new ArrayList<>();
+		if(ActionType==3) {
 			Integer allgoodsnum = (Integer) in.readObject();
 			System.out.println(allgoodsnum);
 
 			for(int i=0;i<allgoodsnum;i++){
-				Vector v = new Vector();
+				Vector<Object> v = new Vector<>();
 				v.add((Long) in.readObject());//id
 				v.add((String) in.readObject());//名称
 				v.add((Double) in.readObject());//价格
 				v.add((Integer) in.readObject());//库存
-				dtm.addRow(v);
+				rows.add(v);
 			}
-			this.Button3.setEnabled(false);
-			this.Button1.setEnabled(false);
-		} catch (Exception ex) {
-			ex.printStackTrace();
-			System.out.println(ex.getMessage());
 		}
+		return new SearchResult(ActionType, rows);
+	}
+
+	public void requestAllClass() {
+		this.Button3.setEnabled(false);
+		this.Button1.setEnabled(false);
+		//只取上次同步之后的变化，增删改后不再整表重新加载
+		tableSync.sync();
 	}
 	//点×后关闭界面
 	public void doDefaultCloseAction() {
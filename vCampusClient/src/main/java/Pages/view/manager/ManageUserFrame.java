@@ -2,7 +2,7 @@ package Pages.view.manager;
 //**   @author 唐可成
 
 
-import Pages.MainApp;
+import Pages.net.ClientService;
 
 import java.awt.EventQueue;
 import javax.swing.JInternalFrame;
@@ -15,8 +15,8 @@ import javax.swing.JOptionPane;
 import javax.swing.JTextField;
 import javax.swing.JButton;
 import java.awt.event.ActionListener;
+import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Vector;
 import java.awt.event.ActionEvent;
@@ -41,8 +41,6 @@ public class ManageUserFrame extends JInternalFrame {
 	private DefaultTableModel dtm=null;
 	private JTextField TextFile0;
 
-	ObjectInputStream in = MainApp.getIn();
-	ObjectOutputStream out = MainApp.getOut();
 	
 	
 
@@ -192,19 +190,14 @@ public class ManageUserFrame extends JInternalFrame {
 	}
 	//添加按钮响应，后台获取前端用户选择数据。相同变量厦门不会重复注释
 	protected void AddButton(ActionEvent ae) {
-		try{
-			String id=this.TextFile0.getText();
-			String textfile1=this.TextFile1.getText();
-			String textfile2=this.TextFile2.getText();
+		String id=this.TextFile0.getText();
+		String textfile1=this.TextFile1.getText();
+		String textfile2=this.TextFile2.getText();
 
-			if(JOptionPane.showConfirmDialog(this, "是否确认添加?","正在添加...",JOptionPane.YES_NO_OPTION) == JOptionPane.OK_OPTION) {
-				out.writeObject("2");
-				out.writeObject("AddUsers");
-				out.writeObject(id);
-				out.writeObject(textfile1);
-				out.writeObject(textfile2);
-				out.flush();
-				Boolean ActionType = (Boolean)in.readObject();
+		if(JOptionPane.showConfirmDialog(this, "是否确认添加?","正在添加...",JOptionPane.YES_NO_OPTION) == JOptionPane.OK_OPTION) {
+			Button5.setEnabled(false);
+			ClientService.onEdt(ClientService.request(in -> (Boolean) in.readObject(),
+					"2", "AddUsers", id, textfile1, textfile2), ActionType -> {
 				if (ActionType == true) {
 					JOptionPane.showMessageDialog(this, "添加成功");
 					requestAllClass();
@@ -212,43 +205,30 @@ public class ManageUserFrame extends JInternalFrame {
 					JOptionPane.showMessageDialog(this, "添加失败");
 
 				}
-			}
-		} catch (Exception ex) {
-			ex.printStackTrace();
-			System.out.println(ex.getMessage());
+			}).thenRun(() -> Button5.setEnabled(true));
 		}
 	}
 
 	//编辑按钮响应，后台获取前端用户选择数据。注释同上
 	protected void EditButton(ActionEvent ae) {
-		try{
-			String id=this.TextFile0.getText();
-			String textfile1=this.TextFile1.getText();
-			String textfile2=this.TextFile2.getText();
-
-			out.writeObject("2");
-			out.writeObject("Edit");
-			out.writeObject(id);
-			out.writeObject(textfile1);
-			out.writeObject(textfile2);
-			out.flush();
-
-			if(JOptionPane.showConfirmDialog(this, "是否确认编辑?","正在编辑...",JOptionPane.YES_NO_OPTION) == JOptionPane.OK_OPTION) {
+		String id=this.TextFile0.getText();
+		String textfile1=this.TextFile1.getText();
+		String textfile2=this.TextFile2.getText();
 
-				Boolean ActionType=(Boolean)in.readObject();
+		// 先确认再发送，取消时不会留下没人读取的响应
+		if(JOptionPane.showConfirmDialog(this, "是否确认编辑?","正在编辑...",JOptionPane.YES_NO_OPTION) == JOptionPane.OK_OPTION) {
+			Button3.setEnabled(false);
+			ClientService.onEdt(ClientService.request(in -> (Boolean) in.readObject(),
+					"2", "Edit", id, textfile1, textfile2), ActionType -> {
 				//编辑响应，后台传入。成功1，失败2
 				if(ActionType==true) {
 					JOptionPane.showMessageDialog(this,"编辑成功");
 					requestAllClass();
 				}else {
 					JOptionPane.showMessageDialog(this,"编辑失败");
-
+					Button3.setEnabled(true);
 				}
-
-			}
-		} catch (Exception ex) {
-			ex.printStackTrace();
-			System.out.println(ex.getMessage());
+			});
 		}
 	}
 
@@ -277,26 +257,19 @@ public class ManageUserFrame extends JInternalFrame {
 
 	//删除按钮响应，后台获取前端用户选择数据。注释同上
 	protected void deletebutton(ActionEvent ae) {
-		try{
-			if(JOptionPane.showConfirmDialog(this, "是否删除?","正在删除...",JOptionPane.YES_NO_OPTION) == JOptionPane.OK_OPTION) {
-				String id =this.TextFile0.getText();
-				out.writeObject("2");
-				out.writeObject("Delete");
-				out.writeObject(id);
-				out.flush();
-				Boolean ActionType=(Boolean)in.readObject();
+		if(JOptionPane.showConfirmDialog(this, "是否删除?","正在删除...",JOptionPane.YES_NO_OPTION) == JOptionPane.OK_OPTION) {
+			String id =this.TextFile0.getText();
+			Button1.setEnabled(false);
+			ClientService.onEdt(ClientService.request(in -> (Boolean) in.readObject(), "2", "Delete", id), ActionType -> {
 				//删除响应，后台传入。成功1，失败2
 				if(ActionType==true) {
 					JOptionPane.showMessageDialog(this,"删除成功");
 					requestAllClass();
 				}else {
 					JOptionPane.showMessageDialog(this,"删除失败");
-
+					Button1.setEnabled(true);
 				}
-			}
-		} catch (Exception ex) {
-			ex.printStackTrace();
-			System.out.println(ex.getMessage());
+			});
 		}
 	}
 
@@ -315,84 +288,71 @@ public class ManageUserFrame extends JInternalFrame {
 	}
 //搜索按钮响应，后台获取前端用户选择数据。注释同上
 	protected void SelectSomeone(ActionEvent ae) {
-		try {
-			String id = this.TextFile0.getText();
-			String textfile1 = this.TextFile1.getText();
-			String textfile2 = this.TextFile2.getText();
-			System.out.println(id);
-			System.out.println(textfile1);
-			System.out.println(textfile2);
+		String id = this.TextFile0.getText();
+		String textfile1 = this.TextFile1.getText();
+		String textfile2 = this.TextFile2.getText();
+		System.out.println(id);
+		System.out.println(textfile1);
+		System.out.println(textfile2);
 
-			out.writeObject("2");
-			out.writeObject("SelectSomeone");
-			out.writeObject(id);
-			out.writeObject(textfile1);
-			out.writeObject(textfile2);
-			out.flush();
-			//后台由此获取输入框数据
-			int ActionType = (Integer)in.readObject();//响应模式，后台传入。1用户未输入内容就搜索，2查无此项目；3查找成功，后台传入所要查找的数据
-			if (ActionType == 1) {
+		//后台由此获取输入框数据
+		Button2.setEnabled(false);
+		ClientService.onEdt(ClientService.request(ManageUserFrame::readSearchResult, "2", "SelectSomeone", id, textfile1, textfile2), result -> {
+			//响应模式，后台传入。1用户未输入内容就搜索，2查无此项目；3查找成功，后台传入所要查找的数据
+			if (result.actionType() == 1) {
 				requestAllClass();
-				return;
-			} else if (ActionType == 2) {
+			} else if (result.actionType() == 2) {
 				JOptionPane.showMessageDialog(this, "查找失败");
 
-			} else if (ActionType == 3) {
+			} else if (result.actionType() == 3) {
 				dtm.setRowCount(0);
-				Integer someusernum = (Integer) in.readObject();
-				System.out.println(someusernum);
-				for(int i=0;i<someusernum;i++){
-					Vector v = new Vector();
-					v.add((Long) in.readObject());
-					v.add((String) in.readObject());
-					Integer type = (Integer) in.readObject();
-					if(type==0) v.add("管理员");
-					if(type==1) v.add("教师");
-					if(type==2) v.add("学生");
+				for(Vector<Object> v : result.rows()){
 					dtm.addRow(v);
 				}
 			}
-
-		} catch (Exception ex) {
-			ex.printStackTrace();
-			System.out.println(ex.getMessage());
-		}
+		}).thenRun(() -> Button2.setEnabled(true));
 	}
 
-	public void requestAllClass() {
-		try{
-			out.writeObject("2");
-			out.writeObject("requestAllClass");
-			out.flush();
-
-			dtm.setRowCount(0);
-			Integer allusernum = (Integer) in.readObject();
-			System.out.println(allusernum);
+	private record SearchResult(int actionType, List<Vector<Object>> rows) {
+	}
 
-			for(int i=0;i<allusernum;i++){
-				Vector v = new Vector();
+	// 在I/O线程上读出查找结果
+	private static SearchResult readSearchResult(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		int ActionType = (Integer)in.readObject();
+		List<Vector<Object>> rows = new ArrayList<>();
+		if (ActionType == 3) {
+			Integer someusernum = (Integer) in.readObject();
+			System.out.println(someusernum);
+			for(int i=0;i<someusernum;i++){
+				Vector<Object> v = new Vector<>();
 				v.add((Long) in.readObject());
 				v.add((String) in.readObject());
-				Integer type = (Integer) in.readObject();
-				if(type==0) v.add("管理员");
-				if(type==1) v.add("教师");
-				if(type==2) v.add("学生");
-				dtm.addRow(v);
+				v.add(userTypeName(in.readObject()));
+				rows.add(v);
 			}
+		}
+		return new SearchResult(ActionType, rows);
+	}
 
-			/*
-			 * for(Integer i=0;i< 20;i++) { Vector<String> firstRow = new Vector<>();
-			 * firstRow.add("Apple"); firstRow.add("Banana"); vectors.add(firstRow); }
-			 * Vector<String> firstRow = new Vector<>(); firstRow.add("Apple");
-			 * firstRow.add("Banana"); vectors.add(firstRow);
-			 */
-			this.Button3.setEnabled(false);
-			this.Button1.setEnabled(false);
-		} catch (Exception ex) {
-			ex.printStackTrace();
-			System.out.println(ex.getMessage());
+	public void requestAllClass() {
+		this.Button3.setEnabled(false);
+		this.Button1.setEnabled(false);
+		ClientService.onEdt(ClientService.requestRows("2", "requestAllClass"), rows -> {
+			dtm.setRowCount(0);
+			rows.map("usertype", ManageUserFrame::userTypeName).fill(dtm);
+		});
+	}
+	//用户类型：0是管理员，1是教师，2是学生
+	private static Object userTypeName(Object type) {
+		if(type == null) return null;
+		switch ((Integer) type) {
+			case 0: return "管理员";
+			case 1: return "教师";
+			case 2: return "学生";
+			default: return null;
 		}
 	}
+
 	//点×后关闭界面
 	public void doDefaultCloseAction() {
 		this.setVisible(false);
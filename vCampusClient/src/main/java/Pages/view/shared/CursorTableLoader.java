@@ -0,0 +1,112 @@
+package Pages.view.shared;
+
+import Pages.net.ClientService;
+import Pages.protocol.RowSet;
+import Pages.protocol.WireFrame;
+
+import java.util.function.UnaryOperator;
+
+import javax.swing.JScrollBar;
+import javax.swing.JScrollPane;
+import javax.swing.table.DefaultTableModel;
+
+/**
+ * 按游标分批加载列表，表格滚动到接近底部时自动请求下一批
+ * 服务器对应的功能为requestAfter：传入上一批最后一行的id和批大小，返回行集和是否还有更多
+ * 请求在后台发出，返回后才在事件分派线程上追加到表格，加载期间界面可以正常操作
+ */
+public class CursorTableLoader {
+
+	public static final int PAGE_SIZE = 100;
+	// 距离底部不足这么多行时开始加载下一批
+	private static final int PREFETCH_ROWS = 20;
+
+	private final String model;
+	private final DefaultTableModel dtm;
+	private final JScrollPane scrollPane;
+	private final UnaryOperator<RowSet> mapper;
+
+	private long lastId;
+	private boolean hasMore;
+	private boolean loading;
+	// 每次reload加一，用来识别过期的响应
+	private long generation;
+
+	private record Batch(RowSet rows, boolean hasMore) {
+	}
+
+	public CursorTableLoader(String model, DefaultTableModel dtm, JScrollPane scrollPane) {
+		this(model, dtm, scrollPane, UnaryOperator.identity());
+	}
+
+	public CursorTableLoader(String model, DefaultTableModel dtm, JScrollPane scrollPane, UnaryOperator<RowSet> mapper) {
+		this.model = model;
+		this.dtm = dtm;
+		this.scrollPane = scrollPane;
+		this.mapper = mapper;
+		scrollPane.getVerticalScrollBar().addAdjustmentListener(e -> {
+			if (!e.getValueIsAdjusting()) {
+				loadIfNearBottom();
+			}
+		});
+	}
+
+	// 清空表格，从第一批重新加载
+	public void reload() {
+		generation++;
+		dtm.setRowCount(0);
+		lastId = 0;
+		hasMore = true;
+		loading = false;
+		loadNext();
+	}
+
+	// 表格改为展示搜索结果时停止继续追加
+	public void stopLoading() {
+		generation++;
+		hasMore = false;
+	}
+
+	public void loadNext() {
+		if (loading || !hasMore) {
+			return;
+		}
+		loading = true;
+		// 返回后按响应设置，请求失败时不再继续加载
+		hasMore = false;
+		// reload之后还没返回的旧批次直接丢弃
+		long batch = generation;
+		ClientService.onEdt(ClientService.request(in -> new Batch(WireFrame.readRowSet(in), (Boolean) in.readObject()),
+				model, "requestAfter", lastId, PAGE_SIZE), result -> {
+			if (batch != generation) {
+				return;
+			}
+			hasMore = result.hasMore();
+			RowSet rows = result.rows();
+			if (rows.getRowCount() > 0) {
+				lastId = (Long) rows.get(rows.getRowCount() - 1, "id");
+				mapper.apply(rows).fill(dtm);
+			}
+		}).thenRun(() -> {
+			if (batch != generation) {
+				return;
+			}
+			loading = false;
+			// 第一批不足以填满表格时没有滚动事件，需要主动检查一次
+			loadIfNearBottom();
+		});
+	}
+
+	private void loadIfNearBottom() {
+		// 窗口尚未显示时滚动条没有尺寸，不能据此判断
+		if (!hasMore || loading || !scrollPane.isShowing()) {
+			return;
+		}
+		JScrollBar bar = scrollPane.getVerticalScrollBar();
+		int rowHeight = Math.max(1, bar.getUnitIncrement());
+		int remaining = bar.getMaximum() - bar.getValue() - bar.getVisibleAmount();
+		if (remaining <= PREFETCH_ROWS * rowHeight) {
+			loadNext();
+		}
+	}
+}
@@ -1,6 +1,8 @@
 package Pages.view.student;
 
 import Pages.MainApp;
+import Pages.net.ClientService;
+import Pages.view.shared.CursorTableLoader;
 
 import java.awt.EventQueue;
 
@@ -16,8 +18,8 @@ import javax.swing.JOptionPane;
 import javax.swing.JTextField;
 import javax.swing.JButton;
 import java.awt.event.ActionListener;
+import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Vector;
 import java.awt.event.ActionEvent;
@@ -40,11 +42,9 @@ public class BookList extends JInternalFrame {
 	private JButton Button5;// 将按钮设置成为属性
 	private JTable ClassListTable;
 	private DefaultTableModel dtm = null;
+	private CursorTableLoader loader;
 	private JTextField TextFile0;
 
-	ObjectInputStream in = MainApp.getIn();
-	ObjectOutputStream out = MainApp.getOut();
-
 	/**
 	 * Launch the application.
 	 */
@@ -183,38 +183,32 @@ public class BookList extends JInternalFrame {
 		Button5.setBounds(607, 377, 93, 23);
 		getContentPane().add(Button5);
 		this.dtm = (DefaultTableModel) ClassListTable.getModel();
+		this.loader = new CursorTableLoader("4", dtm, scrollPane,
+				rows -> rows.map("available", available -> (Boolean) available ? "未借阅" : "已借阅"));
 		requestAllClass();
 	}
 
 	protected void AddButton(ActionEvent ae) {
 		// TODO Auto-generated method stub
-		try {
-			String id = this.TextFile0.getText();// 书籍ID
-			String textfile1 = this.TextFile1.getText();// 书籍名称
-			String textfile2 = this.TextFile2.getText();// 作者
-			String textfile3 = this.TextFile3.getText();// ISBN
-			String textfile4 = this.TextFile4.getText();// 分类
-			if (JOptionPane.showConfirmDialog(this, "是否确认借书?", "正在借书...",
-					JOptionPane.YES_NO_OPTION) == JOptionPane.OK_OPTION) {
-				out.writeObject("13");
-				out.writeObject("addMyBorrow");
-				out.writeObject(MainApp.getCurrentUserId());
-				out.writeObject(id);
-				out.flush();
-				int ActionType = (Integer) in.readObject();
-				// 编辑响应，后台传入。成功1，失败2
+		String id = this.TextFile0.getText();// 书籍ID
+		if (JOptionPane.showConfirmDialog(this, "是否确认借书?", "正在借书...",
+				JOptionPane.YES_NO_OPTION) == JOptionPane.OK_OPTION) {
+			// 等待结果期间不能重复提交
+			Button5.setEnabled(false);
+			ClientService.onEdt(ClientService.request(in -> (Integer) in.readObject(),
+					"13", "addMyBorrow", MainApp.getCurrentUserId(), id), ActionType -> {
+				// 编辑响应，后台传入。成功1，失败2，已被他人借走3
 				if (ActionType == 1) {
 					JOptionPane.showMessageDialog(this, "借阅成功");
 					requestAllClass();
+				} else if (ActionType == 3) {
+					JOptionPane.showMessageDialog(this, "该书已被借走");
+					requestAllClass();
 				} else {
 					JOptionPane.showMessageDialog(this, "借阅失败");
 
 				}
-
-			}
-		} catch (Exception ex) {
-			ex.printStackTrace();
-			System.out.println(ex.getMessage());
+			}).thenRun(() -> Button5.setEnabled(true));
 		}
 
 	}
@@ -255,67 +249,66 @@ public class BookList extends JInternalFrame {
 
 	// 搜索按钮响应，后台可获取前端用户选择数据，变量煮熟上面有
 	protected void SelectSomeone(ActionEvent ae) {
-		try{
-			String id=this.TextFile0.getText();
-			String textfile1=this.TextFile1.getText();
-			String textfile2=this.TextFile2.getText();
-			String textfile3=this.TextFile3.getText();
-			String textfile4=this.TextFile4.getText();
-
-			out.writeObject("4");
-			out.writeObject("SelectSomeone");
-			out.writeObject(id);
-			out.writeObject(textfile1);
-			out.writeObject(textfile2);
-			out.flush();
-
-			//后台由此获取输入框数据
-			Integer ActionType=(Integer) in.readObject();//响应模式，后台传入。1用户未输入内容就搜索，2查无此项目；3查找成功，后台传入所要查找的数据
-
-			if(ActionType==1) {
+		String id=this.TextFile0.getText();
+		String textfile1=this.TextFile1.getText();
+		String textfile2=this.TextFile2.getText();
+		String textfile3=this.TextFile3.getText();
+		String textfile4=this.TextFile4.getText();
+
+		// 未填书籍ID时按书名、作者、出版社、ISBN做全文检索，结果按相关度排序
+		if(id.trim().isEmpty()){
+			String query = String.join(" ", textfile1, textfile2, textfile3, textfile4).trim();
+			if(query.isEmpty()) {
 				requestAllClass();
 				return;
 			}
-			else if(ActionType==2) {
+			Button2.setEnabled(false);
+			ClientService.onEdt(ClientService.requestRows("4", "SearchBooks", query, CursorTableLoader.PAGE_SIZE), rows -> {
+				if(rows.getRowCount() == 0) {
+					JOptionPane.showMessageDialog(this,"查找失败");
+					return;
+				}
+				loader.stopLoading();
+				dtm.setRowCount(0);
+				rows.map("available", available -> (Boolean) available ? "未借阅" : "已借阅").fill(dtm);
+			}).thenRun(() -> Button2.setEnabled(true));
+			return;
+		}
+
+		//后台由此获取输入框数据
+		Button2.setEnabled(false);
+		ClientService.onEdt(ClientService.request(BookList::readSearchResult, "4", "SelectSomeone", id, textfile1, textfile2), result -> {
+			//响应模式，后台传入。1用户未输入内容就搜索，2查无此项目；3查找成功，后台传入所要查找的数据
+			if(result.actionType()==1) {
+				requestAllClass();
+			}
+			else if(result.actionType()==2) {
 				JOptionPane.showMessageDialog(this,"查找失败");
 
 			}
-			else if(ActionType==3) {
+			else if(result.actionType()==3) {
+				loader.stopLoading();
 				dtm.setRowCount(0);
-				Integer allbooksnum = (Integer) in.readObject();
-				System.out.println(allbooksnum);
-
-				for(int i=0;i<allbooksnum;i++){
-					Vector v = new Vector();
-					v.add((Long) in.readObject());//id
-					v.add((String) in.readObject());//书名
-					v.add((String) in.readObject());//作者
-					v.add((String) in.readObject());//出版社
-					v.add((String) in.readObject());//ISBN
-					Boolean isAvailbale = (Boolean) in.readObject();
-					if(isAvailbale) v.add("未借阅");
-					else v.add("已借阅");
+				for(Vector<Object> v : result.rows()){
 					dtm.addRow(v);
 				}
 			}
-		} catch (Exception ex) {
-			ex.printStackTrace();
-			System.out.println(ex.getMessage());
-		}
+		}).thenRun(() -> Button2.setEnabled(true));
 	}
 
-	public void requestAllClass() {
-		try{
-			out.writeObject("4");
-			out.writeObject("requestAllClass");
-			out.flush();
+	private record SearchResult(int actionType, List<Vector<Object>> rows) {
+	}
 
-			dtm.setRowCount(0);
+	// 在I/O线程上读出按ID查找的结果
+	private static SearchResult readSearchResult(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		Integer ActionType=(Integer) in.readObject();
+		List<Vector<Object>> rows = new ArrayList<>();
+		if(ActionType==3) {
 			Integer allbooksnum = (Integer) in.readObject();
 			System.out.println(allbooksnum);
 
 			for(int i=0;i<allbooksnum;i++){
-				Vector v = new Vector();
+				Vector<Object> v = new Vector<>();
 				v.add((Long) in.readObject());//id
 				v.add((String) in.readObject());//书名
 				v.add((String) in.readObject());//作者
@@ -324,12 +317,15 @@ public class BookList extends JInternalFrame {
 				Boolean isAvailbale = (Boolean) in.readObject();
 				if(isAvailbale) v.add("未借阅");
 				else v.add("已借阅");
-				dtm.addRow(v);
+				rows.add(v);
 			}
-		} catch (Exception ex) {
-			ex.printStackTrace();
-			System.out.println(ex.getMessage());
 		}
+		return new SearchResult(ActionType, rows);
+	}
+
+	// 按游标分批加载，滚动到底部时自动加载下一批
+	public void requestAllClass() {
+		loader.reload();
 	}
 
 	// 点×后关闭界面
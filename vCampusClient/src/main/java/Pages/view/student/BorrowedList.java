@@ -2,6 +2,7 @@ package Pages.view.student;
 //**   @author 唐可成
 
 import Pages.MainApp;
+import Pages.net.ClientService;
 
 import java.awt.EventQueue;
 
@@ -15,8 +16,8 @@ import javax.swing.JOptionPane;
 import javax.swing.JTextField;
 import javax.swing.JButton;
 import java.awt.event.ActionListener;
+import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Vector;
 import java.awt.event.ActionEvent;
@@ -41,8 +42,6 @@ public class BorrowedList extends JInternalFrame {
 	private DefaultTableModel dtm = null;
 	private JTextField TextFile0;
 
-	ObjectInputStream in = MainApp.getIn();
-	ObjectOutputStream out = MainApp.getOut();
 
 	/**
 	 * Launch the application.
@@ -211,27 +210,21 @@ public class BorrowedList extends JInternalFrame {
 	protected void deletebutton(ActionEvent ae) {
 		// TODO Auto-generated method stub
 		// 弹出确认对话框，对话框的的响应
-		try {
-			String id = this.TextFile0.getText();// 获取书籍id
-			if (JOptionPane.showConfirmDialog(this, "是否申请还书?", "正在还书...",
-					JOptionPane.YES_NO_OPTION) == JOptionPane.OK_OPTION) {
-				out.writeObject("13");
-				out.writeObject("returnMyBorrow");
-				out.writeObject(MainApp.getCurrentUserId());
-				out.writeObject(id);
-				out.flush();
-				Boolean ActionType = (Boolean) in.readObject();
+		String id = this.TextFile0.getText();// 获取书籍id
+		if (JOptionPane.showConfirmDialog(this, "是否申请还书?", "正在还书...",
+				JOptionPane.YES_NO_OPTION) == JOptionPane.OK_OPTION) {
+			Button1.setEnabled(false);
+			ClientService.onEdt(ClientService.request(in -> (Boolean) in.readObject(),
+					"13", "returnMyBorrow", MainApp.getCurrentUserId(), id), ActionType -> {
 				// 删除响应，后台传入。成功1，失败2
 				if (ActionType == true) {
 					JOptionPane.showMessageDialog(this, "还书成功");
 					requestAllClass();
 				} else {
 					JOptionPane.showMessageDialog(this, "还书失败");
+					Button1.setEnabled(true);
 				}
-			}
-		} catch (Exception ex) {
-			ex.printStackTrace();
-			System.out.println(ex.getMessage());
+			});
 		}
 		/*
 		 * Vector v=new
@@ -257,78 +250,62 @@ public class BorrowedList extends JInternalFrame {
 
 	// 搜索按钮响应，后台获取前端数据
 	protected void SelectSomeone(ActionEvent ae) {
-		try{
-			String id=this.TextFile0.getText();
-			String textfile1=this.TextFile1.getText();
-			String textfile2=this.TextFile2.getText();
-			String textfile3=this.TextFile3.getText();
-			String textfile4=this.TextFile4.getText();
-
-			out.writeObject("13");
-			out.writeObject("SelectSomeone");
-			out.writeObject(MainApp.getCurrentUserId());
-			out.writeObject(id);
-			out.writeObject(textfile1);
-			out.writeObject(textfile2);
-			out.flush();
-
-			//后台由此获取输入框数据
-			Integer ActionType=(Integer) in.readObject();//响应模式，后台传入。1用户未输入内容就搜索，2查无此项目；3查找成功，后台传入所要查找的数据
-
-			if(ActionType==1) {
+		String id=this.TextFile0.getText();
+		String textfile1=this.TextFile1.getText();
+		String textfile2=this.TextFile2.getText();
+
+		//后台由此获取输入框数据
+		Button2.setEnabled(false);
+		ClientService.onEdt(ClientService.request(BorrowedList::readSearchResult,
+				"13", "SelectSomeone", MainApp.getCurrentUserId(), id, textfile1, textfile2), result -> {
+			//响应模式，后台传入。1用户未输入内容就搜索，2查无此项目；3查找成功，后台传入所要查找的数据
+			if(result.actionType()==1) {
 				requestAllClass();
-				return;
 			}
-			else if(ActionType==2) {
+			else if(result.actionType()==2) {
 				JOptionPane.showMessageDialog(this,"查找失败");
 
 			}
-			else if(ActionType==3) {
+			else if(result.actionType()==3) {
 				dtm.setRowCount(0);
-				Integer allbooksnum = (Integer) in.readObject();
-				System.out.println(allbooksnum);
-
-				for(int i=0;i<allbooksnum;i++){
-					Vector v = new Vector();
-					v.add((Long) in.readObject());//id
-					v.add((String) in.readObject());//书名
-					v.add((String) in.readObject());//作者
-					v.add((String) in.readObject());//出版社
-					v.add((String) in.readObject());//ISBN
+				for(Vector<Object> v : result.rows()){
 					dtm.addRow(v);
 				}
 			}
-		} catch (Exception ex) {
-			ex.printStackTrace();
-			System.out.println(ex.getMessage());
-		}
+		}).thenRun(() -> Button2.setEnabled(true));
 	}
 
-	public void requestAllClass() {
-		try{
-			out.writeObject("13");
-			out.writeObject("requestAllClass");
-			out.writeObject(MainApp.getCurrentUserId());
-			out.flush();
+	private record SearchResult(int actionType, List<Vector<Object>> rows) {
+	}
 
-			dtm.setRowCount(0);
+	// 在I/O线程上读出查找结果
+	private static SearchResult readSearchResult(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		Integer ActionType=(Integer) in.readObject();
+		List<Vector<Object>> rows = new ArrayList<>();
+		if(ActionType==3) {
 			Integer allbooksnum = (Integer) in.readObject();
 			System.out.println(allbooksnum);
 
 			for(int i=0;i<allbooksnum;i++){
-				Vector v = new Vector();
+				Vector<Object> v = new Vector<>();
 				v.add((Long) in.readObject());//id
 				v.add((String) in.readObject());//书名
 				v.add((String) in.readObject());//作者
 				v.add((String) in.readObject());//出版社
 				v.add((String) in.readObject());//ISBN
-				dtm.addRow(v);
+				rows.add(v);
 			}
-			this.Button1.setEnabled(false);
-		} catch (Exception ex) {
-			ex.printStackTrace();
-			System.out.println(ex.getMessage());
 		}
+		return new SearchResult(ActionType, rows);
+	}
+
+	public void requestAllClass() {
+		this.Button1.setEnabled(false);
+		ClientService.onEdt(ClientService.requestRows("13", "requestAllClass", MainApp.getCurrentUserId()), rows -> {
+			dtm.setRowCount(0);
+			//借阅列表不显示借阅状态
+			rows.fill(dtm, "id", "title", "author", "press", "isbn");
+		});
 	}
 
 	// 点×后关闭界面
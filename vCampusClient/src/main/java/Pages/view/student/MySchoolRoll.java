@@ -2,6 +2,7 @@ package Pages.view.student;
 //**   @author 唐可成
 
 import Pages.MainApp;
+import Pages.net.ClientService;
 
 import java.awt.EventQueue;
 
@@ -13,8 +14,7 @@ import java.awt.Font;
 import javax.swing.JButton;
 import java.awt.event.ActionListener;
 import java.awt.event.ActionEvent;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.util.UUID;
 import java.util.Vector;
 import javax.swing.ImageIcon;
 
@@ -23,9 +23,6 @@ public class MySchoolRoll extends JInternalFrame {
 	private static final long serialVersionUID = 1L;
 	private JTextField TextFile;
 
-	ObjectInputStream in = MainApp.getIn();
-	ObjectOutputStream out = MainApp.getOut();
-
 	/**
 	 * Launch the application.
 	 */
@@ -85,24 +82,35 @@ public class MySchoolRoll extends JInternalFrame {
 	}
 
 	protected void GetBalance(ActionEvent ae) {
-		try{
-			String money = this.TextFile.getText();
-			if(JOptionPane.showConfirmDialog(this, "是否确认充值","正在充值...",JOptionPane.YES_NO_OPTION) == JOptionPane.OK_OPTION) {
-				out.writeObject("11");
-				out.writeObject("GetBalance");
-				out.writeObject(MainApp.getCurrentUserId());
-				out.writeObject(money);
-				out.flush();
-				JOptionPane.showMessageDialog(this, "充值成功");
-				ResetButton(ae);
-			}
-		} catch (Exception ex) {
-			ex.printStackTrace();
-			System.out.println(ex.getMessage());
+		String money = this.TextFile.getText();
+		if(JOptionPane.showConfirmDialog(this, "是否确认充值","正在充值...",JOptionPane.YES_NO_OPTION) == JOptionPane.OK_OPTION) {
+			JButton button = (JButton) ae.getSource();
+			button.setEnabled(false);
+			//幂等键，重发时服务器不会重复入账
+			ClientService.onEdt(ClientService.request(in -> new Recharge((Integer) in.readObject(), (Double) in.readObject()),
+					"11", "GetBalance", MainApp.getCurrentUserId(), money, UUID.randomUUID().toString()), recharge -> {
+				Integer res = recharge.res();
+				if(res == 1 || res == 3) {
+					JOptionPane.showMessageDialog(this, "充值成功，当前余额" + recharge.balance());
+					ResetButton(ae);
+				}
+				else if(res == 5) {
+					JOptionPane.showMessageDialog(this, "请输入正确的金额，最多两位小数");
+				}
+				else {
+					JOptionPane.showMessageDialog(this, "充值失败");
+				}
+			}).thenRun(() -> button.setEnabled(true));
 		}
 
 	}
 
+	private record Recharge(Integer res, Double balance) {
+	}
+
+	private record SchoolRoll(String name, String studentid, String college, Double balance) {
+	}
+
 	protected void ResetButton(ActionEvent ae) {
 		// TODO Auto-generated method stub
 		this.TextFile.setText("");
@@ -111,65 +119,62 @@ public class MySchoolRoll extends JInternalFrame {
 	}
 
 	public void requestAllClass() {
-		try{
-			out.writeObject("11");
-			out.writeObject("GetMySchool");
-			out.writeObject(MainApp.getCurrentUserId());
-			out.flush();
-
-			String name = (String) in.readObject();
-			String studentid = (String) in.readObject();
-			String college = (String) in.readObject();
-			Double balance = (Double) in.readObject();
-
-			JLabel lblNewLabel = new JLabel("学籍状态：");
-			lblNewLabel.setFont(new Font("宋体", Font.PLAIN, 12));
-			lblNewLabel.setBounds(65, 22, 77, 23);
-			getContentPane().add(lblNewLabel);
-
-			JLabel lblNewLabel_2 = new JLabel("学号：");
-			lblNewLabel_2.setFont(new Font("宋体", Font.PLAIN, 13));
-			lblNewLabel_2.setBounds(65, 81, 146, 35);
-			getContentPane().add(lblNewLabel_2);
-
-			JLabel StudentID = new JLabel(name);
-			StudentID.setFont(new Font("宋体", Font.PLAIN, 13));
-			StudentID.setBounds(152, 56, 120, 26);
-			getContentPane().add(StudentID);
-
-			JLabel StudenName = new JLabel(college);
-			StudenName.setFont(new Font("宋体", Font.PLAIN, 13));
-			StudenName.setBounds(152, 81, 146, 35);
-			getContentPane().add(StudenName);
-
-			JLabel lblNewLabel_2_3_3 = new JLabel("姓名：");
-			lblNewLabel_2_3_3.setFont(new Font("宋体", Font.PLAIN, 13));
-			lblNewLabel_2_3_3.setBounds(65, 55, 146, 28);
-			getContentPane().add(lblNewLabel_2_3_3);
-
-			JLabel lblNewLabel_2_3_3_1 = new JLabel("学院：");
-			lblNewLabel_2_3_3_1.setFont(new Font("宋体", Font.PLAIN, 13));
-			lblNewLabel_2_3_3_1.setBounds(65, 112, 146, 35);
-			getContentPane().add(lblNewLabel_2_3_3_1);
-
-			JLabel Grade = new JLabel(studentid);
-			Grade.setFont(new Font("宋体", Font.PLAIN, 13));
-			Grade.setBounds(152, 112, 157, 35);
-			getContentPane().add(Grade);
-
-			JLabel lblNewLabel_2_3_3_3 = new JLabel("余额：");
-			lblNewLabel_2_3_3_3.setFont(new Font("宋体", Font.PLAIN, 13));
-			lblNewLabel_2_3_3_3.setBounds(65, 146, 350, 35);
-			getContentPane().add(lblNewLabel_2_3_3_3);
-
-			JLabel Major = new JLabel(Double.toString(balance));
-			Major.setFont(new Font("宋体", Font.PLAIN, 13));
-			Major.setBounds(152, 148, 163, 35);
-			getContentPane().add(Major);
-		} catch (Exception ex) {
-			ex.printStackTrace();
-			System.out.println(ex.getMessage());
-		}
+		ClientService.onEdt(ClientService.request(
+				in -> new SchoolRoll((String) in.readObject(), (String) in.readObject(), (String) in.readObject(), (Double) in.readObject()),
+				"11", "GetMySchool", MainApp.getCurrentUserId()), this::showSchoolRoll);
+	}
+
+	private void showSchoolRoll(SchoolRoll roll) {
+		String name = roll.name();
+		String studentid = roll.studentid();
+		String college = roll.college();
+		Double balance = roll.balance();
+
+		JLabel lblNewLabel = new JLabel("学籍状态：");
+		lblNewLabel.setFont(new Font("宋体", Font.PLAIN, 12));
+		lblNewLabel.setBounds(65, 22, 77, 23);
+		getContentPane().add(lblNewLabel);
+
+		JLabel lblNewLabel_2 = new JLabel("学号：");
+		lblNewLabel_2.setFont(new Font("宋体", Font.PLAIN, 13));
+		lblNewLabel_2.setBounds(65, 81, 146, 35);
+		getContentPane().add(lblNewLabel_2);
+
+		JLabel StudentID = new JLabel(name);
+		StudentID.setFont(new Font("宋体", Font.PLAIN, 13));
+		StudentID.setBounds(152, 56, 120, 26);
+		getContentPane().add(StudentID);
+
+		JLabel StudenName = new JLabel(college);
+		StudenName.setFont(new Font("宋体", Font.PLAIN, 13));
+		StudenName.setBounds(152, 81, 146, 35);
+		getContentPane().add(StudenName);
+
+		JLabel lblNewLabel_2_3_3 = new JLabel("姓名：");
+		lblNewLabel_2_3_3.setFont(new Font("宋体", Font.PLAIN, 13));
+		lblNewLabel_2_3_3.setBounds(65, 55, 146, 28);
+		getContentPane().add(lblNewLabel_2_3_3);
+
+		JLabel lblNewLabel_2_3_3_1 = new JLabel("学院：");
+		lblNewLabel_2_3_3_1.setFont(new Font("宋体", Font.PLAIN, 13));
+		lblNewLabel_2_3_3_1.setBounds(65, 112, 146, 35);
+		getContentPane().add(lblNewLabel_2_3_3_1);
+
+		JLabel Grade = new JLabel(studentid);
+		Grade.setFont(new Font("宋体", Font.PLAIN, 13));
+		Grade.setBounds(152, 112, 157, 35);
+		getContentPane().add(Grade);
+
+		JLabel lblNewLabel_2_3_3_3 = new JLabel("余额：");
+		lblNewLabel_2_3_3_3.setFont(new Font("宋体", Font.PLAIN, 13));
+		lblNewLabel_2_3_3_3.setBounds(65, 146, 350, 35);
+		getContentPane().add(lblNewLabel_2_3_3_3);
+
+		JLabel Major = new JLabel(Double.toString(balance));
+		Major.setFont(new Font("宋体", Font.PLAIN, 13));
+		Major.setBounds(152, 148, 163, 35);
+		getContentPane().add(Major);
+		repaint();
 	}
 	//点×后关闭界面
 			public void doDefaultCloseAction() {
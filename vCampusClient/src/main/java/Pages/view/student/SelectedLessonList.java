@@ -2,6 +2,8 @@ package Pages.view.student;
 //**   @author 唐可成
 
 import Pages.MainApp;
+import Pages.net.ClientService;
+import Pages.view.shared.CursorTableLoader;
 
 import java.awt.EventQueue;
 
@@ -15,8 +17,8 @@ import javax.swing.JOptionPane;
 import javax.swing.JTextField;
 import javax.swing.JButton;
 import java.awt.event.ActionListener;
+import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Vector;
 import java.awt.event.ActionEvent;
@@ -39,10 +41,9 @@ public class SelectedLessonList extends JInternalFrame {
 	private JButton Button4;// 将按钮设置成为属性
 	private JTable ClassListTable;
 	private DefaultTableModel dtm = null;
+	private CursorTableLoader loader;
 	private JButton Button6;
 
-	ObjectInputStream in = MainApp.getIn();
-	ObjectOutputStream out = MainApp.getOut();
 
 	/**
 	 * Launch the application.
@@ -185,30 +186,26 @@ public class SelectedLessonList extends JInternalFrame {
 		Button6.setBounds(567, 377, 133, 23);
 		getContentPane().add(Button6);
 		this.dtm = (DefaultTableModel) ClassListTable.getModel();
+		this.loader = new CursorTableLoader("12", dtm, scrollPane);
 		requestAllClass();
 	}
 
 	protected void AddMyLesson(ActionEvent ae) {
 
 		// TODO Auto-generated method stub
-		try {
-			String id = this.TextFile0.getText();// 课程id
-			String textfile1 = this.TextFile1.getText();// 课程名
-			String textfile2 = this.TextFile2.getText();// 教师
-			String textfile3 = this.TextFile3.getText();// 学分
-			String textfile4 = this.TextFile4.getText();// 是否已选后台由此获取输入框数据
-			if (JOptionPane.showConfirmDialog(this, "是否选择该课程?", "正在添加...",
-					JOptionPane.YES_NO_OPTION) == JOptionPane.OK_OPTION) {
-				out.writeObject("12");
-				out.writeObject("addMyLesson");
-				out.writeObject(MainApp.getCurrentUserId());
-				out.writeObject(id);
-				out.flush();
-				int ActionType = (Integer) in.readObject();// 响应模式，逻辑由后台判断。后台传入。1用户未输入内容就添加，2课程冲突；3添加成功，4不在计划内后台传入所要查找的数据。
-
+		String id = this.TextFile0.getText();// 课程id
+		String textfile1 = this.TextFile1.getText();// 课程名
+		String textfile2 = this.TextFile2.getText();// 教师
+		String textfile3 = this.TextFile3.getText();// 学分
+		String textfile4 = this.TextFile4.getText();// 是否已选后台由此获取输入框数据
+		if (JOptionPane.showConfirmDialog(this, "是否选择该课程?", "正在添加...",
+				JOptionPane.YES_NO_OPTION) == JOptionPane.OK_OPTION) {
+			Button6.setEnabled(false);
+			ClientService.onEdt(ClientService.request(in -> (Integer) in.readObject(),
+					"12", "addMyLesson", MainApp.getCurrentUserId(), id), ActionType -> {
+				// 响应模式，逻辑由后台判断。后台传入。1用户未输入内容就添加，2课程冲突；3添加成功，4不在计划内后台传入所要查找的数据。
 				if (ActionType == 1) {
 					requestAllClass();
-					return;
 				} else if (ActionType == 2) {
 					JOptionPane.showMessageDialog(this, "课容量已满");
 
@@ -220,10 +217,7 @@ public class SelectedLessonList extends JInternalFrame {
 					JOptionPane.showMessageDialog(this, "添加成功");
 					requestAllClass();
 				}
-			}
-		} catch (Exception ex) {
-			ex.printStackTrace();
-			System.out.println(ex.getMessage());
+			}).thenRun(() -> Button6.setEnabled(true));
 		}
 
 	}
@@ -264,78 +258,62 @@ public class SelectedLessonList extends JInternalFrame {
 
 	// 搜索按钮响应，后台由此获取所选数据
 	protected void SelectSomeone(ActionEvent ae) {
-		try{
-			String id=this.TextFile0.getText();//课程ID
-			String textfile1=this.TextFile1.getText();//课程名称
-			String textfile2=this.TextFile2.getText();//授课老师
-			String textfile3=this.TextFile3.getText();//学分
-			String textfile4=this.TextFile4.getText();//是否已选
-
-			out.writeObject("12");
-			out.writeObject("SelectSomeone");
-			out.writeObject(id);
-			out.writeObject(textfile1);
-			out.writeObject(textfile2);
-			out.writeObject(textfile4);
-			out.flush();
-
-			//后台由此获取输入框数据
-			Integer ActionType=(Integer) in.readObject();//响应模式，后台传入。1用户未输入内容就搜索，2查无此项目；3查找成功，后台传入所要查找的数据
-
-			if(ActionType==1) {
+		String id=this.TextFile0.getText();//课程ID
+		String textfile1=this.TextFile1.getText();//课程名称
+		String textfile2=this.TextFile2.getText();//授课老师
+		String textfile3=this.TextFile3.getText();//学分
+		String textfile4=this.TextFile4.getText();//是否已选
+
+		//后台由此获取输入框数据
+		Button2.setEnabled(false);
+		ClientService.onEdt(ClientService.request(SelectedLessonList::readSearchResult,
+				"12", "SelectSomeone", id, textfile1, textfile2, textfile4), result -> {
+			//响应模式，后台传入。1用户未输入内容就搜索，2查无此项目；3查找成功，后台传入所要查找的数据
+			if(result.actionType()==1) {
 				requestAllClass();
-				return;
 			}
-			else if(ActionType==2) {
+			else if(result.actionType()==2) {
 				JOptionPane.showMessageDialog(this,"查找失败");
 
 			}
-			else if(ActionType==3) {
+			else if(result.actionType()==3) {
+				loader.stopLoading();
 				dtm.setRowCount(0);
-				Integer allcoursenum = (Integer) in.readObject();
-				System.out.println(allcoursenum);
-
-				for(int i=0;i<allcoursenum;i++){
-					Vector v = new Vector();
-					v.add((Long) in.readObject());//id
-					v.add((String) in.readObject());//课程名称
-					v.add((String) in.readObject());//授课老师
-					v.add((int) in.readObject());//学分
-					v.add((String) in.readObject());//课程安排
-					v.add((int) in.readObject());//课容量
+				for(Vector<Object> v : result.rows()){
 					dtm.addRow(v);
 				}
 			}
-		} catch (Exception ex) {
-			ex.printStackTrace();
-			System.out.println(ex.getMessage());
-		}
+		}).thenRun(() -> Button2.setEnabled(true));
 	}
 
-	public void requestAllClass() {
-		try{
-			out.writeObject("12");
-			out.writeObject("requestAllClass");
-			out.flush();
+	private record SearchResult(int actionType, List<Vector<Object>> rows) {
+	}
 
-			dtm.setRowCount(0);
+	// 在I/O线程上读出查找结果
+	private static SearchResult readSearchResult(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		Integer ActionType=(Integer) in.readObject();
+		List<Vector<Object>> rows = new ArrayList<>();
+		if(ActionType==3) {
 			Integer allcoursenum = (Integer) in.readObject();
 			System.out.println(allcoursenum);
 
 			for(int i=0;i<allcoursenum;i++){
-				Vector v = new Vector();
+				Vector<Object> v = new Vector<>();
 				v.add((Long) in.readObject());//id
 				v.add((String) in.readObject());//课程名称
 				v.add((String) in.readObject());//授课老师
 				v.add((int) in.readObject());//学分
 				v.add((String) in.readObject());//课程安排
 				v.add((int) in.readObject());//课容量
-				dtm.addRow(v);
+				rows.add(v);
 			}
-		} catch (Exception ex) {
-			ex.printStackTrace();
-			System.out.println(ex.getMessage());
 		}
+		return new SearchResult(ActionType, rows);
+	}
+
+	// 按游标分批加载，滚动到底部时自动加载下一批
+	public void requestAllClass() {
+		loader.reload();
 	}
 
 	// 点×后关闭界面
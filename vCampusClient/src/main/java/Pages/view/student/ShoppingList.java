@@ -1,6 +1,8 @@
 package Pages.view.student;
 
 import Pages.MainApp;
+import Pages.net.ClientService;
+import Pages.view.shared.CursorTableLoader;
 
 import java.awt.EventQueue;
 
@@ -14,8 +16,8 @@ import javax.swing.JOptionPane;
 import javax.swing.JTextField;
 import javax.swing.JButton;
 import java.awt.event.ActionListener;
+import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Vector;
 import java.awt.event.ActionEvent;
@@ -37,10 +39,9 @@ public class ShoppingList extends JInternalFrame {
 	private JButton Button4;// 将按钮设置成为属性
 	private JTable ClassListTable;
 	private DefaultTableModel dtm = null;
+	private CursorTableLoader loader;
 	private JButton Button6;
 
-	ObjectInputStream in = MainApp.getIn();
-	ObjectOutputStream out = MainApp.getOut();
 
 	/**
 	 * Launch the application.
@@ -163,43 +164,40 @@ public class ShoppingList extends JInternalFrame {
 		Button6.setBounds(567, 377, 133, 23);
 		getContentPane().add(Button6);
 		this.dtm = (DefaultTableModel) ClassListTable.getModel();
+		this.loader = new CursorTableLoader("10", dtm, scrollPane);
 		requestAllClass();
 	}
 
 	// 后台获取前端数据，变量注释在下面，不再重复注释
 	protected void AddMyProduct(ActionEvent ae) {
 		// TODO Auto-generated method stub
-		try {
-			String id = this.TextFile0.getText();// 商品id
-			String textfile1 = this.TextFile1.getText();// 商品名称
-			String textfile3 = this.TextFile3.getText();// 购买数量
-			if (JOptionPane.showConfirmDialog(this, "是否购买商品？", "正在购买...",
-					JOptionPane.YES_NO_OPTION) == JOptionPane.OK_OPTION) {
-				out.writeObject("10");
-				out.writeObject("addMyProduct");
-				out.writeObject(MainApp.getCurrentUserId());
-				out.writeObject(id);
-				out.writeObject(textfile1);
-				out.writeObject(textfile3);
-				out.flush();
-				int ActionType = (int) in.readObject();// 响应模式，逻辑由后台判断。后台传入。1用户未选择任何商品就购买，2购买失败；3购买成功
-
+		String id = this.TextFile0.getText();// 商品id
+		String textfile1 = this.TextFile1.getText();// 商品名称
+		String textfile3 = this.TextFile3.getText();// 购买数量
+		if (JOptionPane.showConfirmDialog(this, "是否购买商品？", "正在购买...",
+				JOptionPane.YES_NO_OPTION) == JOptionPane.OK_OPTION) {
+			Button6.setEnabled(false);
+			ClientService.onEdt(ClientService.request(in -> (Integer) in.readObject(),
+					"10", "addMyProduct", MainApp.getCurrentUserId(), id, textfile1, textfile3), ActionType -> {
+				// 响应模式，逻辑由后台判断。后台传入。1用户未选择任何商品就购买，2余额不足；3购买成功；4库存不足；5商品不存在
 				if (ActionType == 1) {
 					requestAllClass();
-					return;
 				} else if (ActionType == 2) {
-					JOptionPane.showMessageDialog(this, "购买失败");
+					JOptionPane.showMessageDialog(this, "购买失败，余额不足");
 
+				} else if (ActionType == 4) {
+					JOptionPane.showMessageDialog(this, "购买失败，库存不足");
+					requestAllClass();
+				} else if (ActionType == 5) {
+					JOptionPane.showMessageDialog(this, "购买失败，商品不存在");
+					requestAllClass();
 				} else if (ActionType == 3) {
 					dtm.setRowCount(0);
 					JOptionPane.showMessageDialog(this, "购买成功");
 					requestAllClass();
 
 				}
-			}
-		} catch (Exception ex) {
-			ex.printStackTrace();
-			System.out.println(ex.getMessage());
+			}).thenRun(() -> Button6.setEnabled(true));
 		}
 
 	}
@@ -237,67 +235,56 @@ public class ShoppingList extends JInternalFrame {
 	protected void SelectSomeone(ActionEvent ae) {
 
 		// TODO Auto-generated method stub
-		try {
-			String id = this.TextFile0.getText();// 商品id
-			String textfile1 = this.TextFile1.getText();// 商品名称
-			if (JOptionPane.showConfirmDialog(this, "是否查找商品?", "正在选择...",
-					JOptionPane.YES_NO_OPTION) == JOptionPane.OK_OPTION) {
-				out.writeObject("10");
-				out.writeObject("SelectSomeone");
-				out.writeObject(id);
-				out.writeObject(textfile1);
-				out.flush();
-				int ActionType = (int)in.readObject();// 响应模式，逻辑由后台判断。后台传入。1用户未输入内容就搜索，2查无此项目；3查找成功，后台传入所要查找的数据。
-				if (ActionType == 1) {
+		String id = this.TextFile0.getText();// 商品id
+		String textfile1 = this.TextFile1.getText();// 商品名称
+		if (JOptionPane.showConfirmDialog(this, "是否查找商品?", "正在选择...",
+				JOptionPane.YES_NO_OPTION) == JOptionPane.OK_OPTION) {
+			Button2.setEnabled(false);
+			ClientService.onEdt(ClientService.request(ShoppingList::readSearchResult, "10", "SelectSomeone", id, textfile1), result -> {
+				// 响应模式，逻辑由后台判断。后台传入。1用户未输入内容就搜索，2查无此项目；3查找成功，后台传入所要查找的数据。
+				if (result.actionType() == 1) {
 					requestAllClass();
-					return;
-				} else if (ActionType == 2) {
+				} else if (result.actionType() == 2) {
 					JOptionPane.showMessageDialog(this, "查找失败");
 
-				} else if (ActionType == 3) {
+				} else if (result.actionType() == 3) {
+					loader.stopLoading();
 					dtm.setRowCount(0);
-					Integer allgoodsnum = (Integer) in.readObject();
-					System.out.println(allgoodsnum);
-
-					for(int i=0;i<allgoodsnum;i++){
-						Vector v = new Vector();
-						v.add((Long) in.readObject());//id
-						v.add((String) in.readObject());//名称
-						v.add((Double) in.readObject());//价格
-						v.add((Integer) in.readObject());//库存
+					for(Vector<Object> v : result.rows()){
 						dtm.addRow(v);
 					}
 				}
-			}
-		} catch (Exception ex) {
-			ex.printStackTrace();
-			System.out.println(ex.getMessage());
+			}).thenRun(() -> Button2.setEnabled(true));
 		}
 
 	}
 
-	public void requestAllClass() {
-		try{
-			out.writeObject("10");
-			out.writeObject("requestAllClass");
-			out.flush();
+	private record SearchResult(int actionType, List<Vector<Object>> rows) {
+	}
 
-			dtm.setRowCount(0);
+	// 在I/O线程上读出查找结果
+	private static SearchResult readSearchResult(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		int ActionType = (int)in.readObject();
+		List<Vector<Object>> rows = new ArrayList<>();
+		if (ActionType == 3) {
 			Integer allgoodsnum = (Integer) in.readObject();
 			System.out.println(allgoodsnum);
 
 			for(int i=0;i<allgoodsnum;i++){
-				Vector v = new Vector();
+				Vector<Object> v = new Vector<>();
 				v.add((Long) in.readObject());//id
 				v.add((String) in.readObject());//名称
 				v.add((Double) in.readObject());//价格
 				v.add((Integer) in.readObject());//库存
-				dtm.addRow(v);
+				rows.add(v);
 			}
-		} catch (Exception ex) {
-			ex.printStackTrace();
-			System.out.println(ex.getMessage());
 		}
+		return new SearchResult(ActionType, rows);
+	}
+
+	// 按游标分批加载，滚动到底部时自动加载下一批
+	public void requestAllClass() {
+		loader.reload();
 	}
 
 	// 点×后关闭界面
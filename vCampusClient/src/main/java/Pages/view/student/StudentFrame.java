@@ -7,6 +7,7 @@ import javax.swing.JFrame;
 import javax.swing.JPanel;
 import javax.swing.border.EmptyBorder;
 
+import Pages.net.TokenHolder;
 import Pages.view.ChangePasswordFrame;
 import Pages.view.ClassList;
 import Pages.view.LoginFrame;
@@ -199,6 +200,18 @@ public class StudentFrame extends JFrame {
 		//lblNewLabel.setIcon(new ImageIcon(StudentFrame.class.getResource("/Pages/image/sipailou.jpg")));
 		lblNewLabel.setBounds(10, 0, 1026, 557);
 		desktopPane.add(lblNewLabel);
+		preloadPanels();
+	}
+
+	// 图书、商品和学籍页面的数据在后台同时请求，打开时已经加载好，不必逐个等待
+	// 每次登录都重新创建，避免沿用上一个用户的页面
+	private void preloadPanels() {
+		booklist=new BookList();
+		desktopPane.add(booklist);
+		shoppinglist=new ShoppingList();
+		desktopPane.add(shoppinglist);
+		myschoolroll=new MySchoolRoll();
+		desktopPane.add(myschoolroll);
 	}
 	protected void ToBeApproved(ActionEvent ae) {
 		// TODO Auto-generated method stub
@@ -309,6 +322,7 @@ public class StudentFrame extends JFrame {
 		// TODO Auto-generated method stub
 		
 		if(JOptionPane.showConfirmDialog(this, "是否确认注销","正在注销...",JOptionPane.YES_NO_OPTION) == JOptionPane.OK_OPTION) {
+			TokenHolder.clear();//退出后不再使用原来的登录令牌
 			LoginFrame loginframe=new LoginFrame();
 			loginframe.setVisible(true);
 			this.dispose();//用户选择注销，后台进行相关逻辑写在if里面
@@ -319,6 +333,7 @@ public class StudentFrame extends JFrame {
 	protected void LoginOut(ActionEvent ae) {
 		// TODO Auto-generated method stub
 		if(JOptionPane.showConfirmDialog(this, "是否确认退出?","正在退出...",JOptionPane.YES_NO_OPTION) == JOptionPane.OK_OPTION) {
+			TokenHolder.clear();//退出后不再使用原来的登录令牌
 			LoginFrame loginframe=new LoginFrame();//用户确认退出
 			loginframe.setVisible(true);
 			this.dispose();}
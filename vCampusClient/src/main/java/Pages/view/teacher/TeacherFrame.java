@@ -7,6 +7,7 @@ import javax.swing.JFrame;
 import javax.swing.JPanel;
 import javax.swing.border.EmptyBorder;
 
+import Pages.net.TokenHolder;
 import Pages.view.ChangePasswordFrame;
 import Pages.view.LoginFrame;
 import Pages.view.manager.AddClassFrame;
@@ -255,6 +256,7 @@ public class TeacherFrame extends JFrame {
 		// TODO Auto-generated method stub
 		
 		if(JOptionPane.showConfirmDialog(this, "是否确认注销","正在注销...",JOptionPane.YES_NO_OPTION) == JOptionPane.OK_OPTION) {
+			TokenHolder.clear();//退出后不再使用原来的登录令牌
 			LoginFrame loginframe=new LoginFrame();//用户确认退出
 			loginframe.setVisible(true);
 			this.dispose();
@@ -265,6 +267,7 @@ public class TeacherFrame extends JFrame {
 	protected void LoginOut(ActionEvent ae) {
 		// TODO Auto-generated method stub
 				if(JOptionPane.showConfirmDialog(this, "是否确认退出?","正在退出...",JOptionPane.YES_NO_OPTION) == JOptionPane.OK_OPTION) {
+					TokenHolder.clear();//退出后不再使用原来的登录令牌
 					LoginFrame loginframe=new LoginFrame();//用户确认退出
 						loginframe.setVisible(true);
 						this.dispose();}//关闭界面}
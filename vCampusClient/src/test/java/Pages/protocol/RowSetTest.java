@@ -0,0 +1,137 @@
+package Pages.protocol;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.event.TableModelEvent;
+import javax.swing.table.DefaultTableModel;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 行集按id合并到表格模型的测试类
+ */
+public class RowSetTest {
+
+	@Test
+	public void testMergeDeletesUpdatesThenAppends() throws IOException {
+		DefaultTableModel dtm = table(new Object[][] {{1L, "一"}, {2L, "二"}, {3L, "三"}});
+		List<TableModelEvent> events = new ArrayList<>();
+		dtm.addTableModelListener(events::add);
+
+		RowSet.decode(frame(new long[] {3, 4}, new String[] {"新三", "四"})).merge(dtm, new long[] {2});
+
+		assertEquals(3, dtm.getRowCount(), "删除一行、追加一行后应为3行");
+		assertRow(dtm, 0, 1L, "一");
+		assertRow(dtm, 1, 3L, "新三");
+		assertRow(dtm, 2, 4L, "四");
+		// 删除整表刷新一次，已有的行原地更新，新的行一次追加到末尾
+		assertEquals(3, events.size(), "应触发删除、更新和追加各一次");
+		assertEquals(TableModelEvent.UPDATE, events.get(1).getType());
+		assertEquals(1, events.get(1).getFirstRow(), "应只更新id为3的行");
+		assertEquals(TableModelEvent.INSERT, events.get(2).getType());
+		assertEquals(2, events.get(2).getFirstRow(), "新的行应追加到末尾");
+	}
+
+	@Test
+	public void testMergeOnlyDeletes() throws IOException {
+		DefaultTableModel dtm = table(new Object[][] {{1L, "一"}, {2L, "二"}});
+
+		RowSet.decode(frame(new long[0], new String[0])).merge(dtm, new long[] {1, 9});
+
+		assertEquals(1, dtm.getRowCount(), "只应删除表格中存在的id");
+		assertRow(dtm, 0, 2L, "二");
+	}
+
+	@Test
+	public void testMergeIntoEmptyTableAppendsInOrder() throws IOException {
+		DefaultTableModel dtm = table(new Object[0][]);
+
+		RowSet.decode(frame(new long[] {5, 7}, new String[] {null, "七"})).merge(dtm, new long[0]);
+
+		assertEquals(2, dtm.getRowCount());
+		assertRow(dtm, 0, 5L, null);
+		assertRow(dtm, 1, 7L, "七");
+	}
+
+	private static DefaultTableModel table(Object[][] rows) {
+		return new DefaultTableModel(rows, new String[] {"id", "name"});
+	}
+
+	private static void assertRow(DefaultTableModel dtm, int row, Long id, String name) {
+		assertEquals(id, dtm.getValueAt(row, 0), "第" + row + "行的id不对");
+		assertEquals(name, dtm.getValueAt(row, 1), "第" + row + "行的名称不对");
+	}
+
+	// 按服务器的格式编码一个(id, name)行集帧
+	private static byte[] frame(long[] ids, String[] names) throws IOException {
+		ByteArrayOutputStream payload = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(payload);
+		writeVarLong(out, 2);
+		writeString(out, "id");
+		out.writeByte(ColumnType.LONG.getCode());
+		writeString(out, "name");
+		out.writeByte(ColumnType.STRING.getCode());
+		writeVarLong(out, ids.length);
+		// id列：非空位图，再写与上一个值的差
+		out.write(allPresent(ids.length));
+		long previous = 0;
+		for (long id : ids) {
+			writeVarLong(out, id - previous);
+			previous = id;
+		}
+		// 名称列：字典，再写每行的下标，0为null
+		List<String> dictionary = new ArrayList<>();
+		for (String name : names) {
+			if (name != null && !dictionary.contains(name)) {
+				dictionary.add(name);
+			}
+		}
+		writeVarLong(out, dictionary.size());
+		for (String name : dictionary) {
+			writeString(out, name);
+		}
+		for (String name : names) {
+			writeVarLong(out, name == null ? 0 : dictionary.indexOf(name) + 1);
+		}
+		out.flush();
+
+		ByteArrayOutputStream frame = new ByteArrayOutputStream();
+		DataOutputStream header = new DataOutputStream(frame);
+		header.writeShort(WireFrame.MAGIC);
+		header.writeByte(WireFrame.VERSION);
+		header.writeByte(WireFrame.TYPE_ROW_SET);
+		header.writeInt(payload.size());
+		payload.writeTo(frame);
+		return frame.toByteArray();
+	}
+
+	private static byte[] allPresent(int rows) {
+		byte[] bits = new byte[(rows + 7) / 8];
+		for (int i = 0; i < rows; i++) {
+			bits[i >> 3] |= (byte) (1 << (i & 7));
+		}
+		return bits;
+	}
+
+	private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+		long v = (value << 1) ^ (value >> 63);
+		while ((v & ~0x7FL) != 0) {
+			out.writeByte((int) ((v & 0x7F) | 0x80));
+			v >>>= 7;
+		}
+		out.writeByte((int) v);
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		writeVarLong(out, bytes.length + 1);
+		out.write(bytes);
+	}
+}
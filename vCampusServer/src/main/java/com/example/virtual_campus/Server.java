@@ -1,11 +1,18 @@
 package com.example.virtual_campus;
 
 import com.example.virtual_campus.ServerPages.*;
+import com.example.virtual_campus.Utils.JWTUtils;
 import com.example.virtual_campus.controller.UserController;
 import com.example.virtual_campus.model.User;
+import com.example.virtual_campus.repository.UserRepository;
+import com.example.virtual_campus.session.RequestContext;
+import com.example.virtual_campus.socket.NioSocketServer;
+import com.example.virtual_campus.socket.RequestMultiplexer;
 import com.example.virtual_campus.controller.AuthController;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -23,14 +30,41 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 
 @SpringBootApplication
 @EnableMethodSecurity(prePostEnabled = true)
 public class Server{
-    private final int PORT = 8080;
-    private final int MAX_CONNECTIONS = 10;
-    private ConcurrentHashMap<Socket, Thread> socketMap = new ConcurrentHashMap<>();
+    @Value("${vcampus.server.port:8080}")
+    private int PORT;
+    @Value("${vcampus.server.max-connections:500}")
+    private int MAX_CONNECTIONS;
+    // 连接执行模式：platform为平台线程池，virtual为每个连接一个虚拟线程
+    @Value("${vcampus.server.executor:platform}")
+    private String executorMode;
+    // 传输方式：blocking为每个连接占用一个线程，nio为选择器加工作线程池
+    @Value("${vcampus.server.transport:blocking}")
+    private String transport;
+    @Value("${vcampus.server.nio.workers:32}")
+    private int nioWorkers;
+    // 处理带编号请求的工作线程数，同一连接上的多个请求可以同时处理
+    @Value("${vcampus.server.mux.workers:32}")
+    private int muxWorkers;
 
+    private final ConcurrentHashMap<Socket, Thread> socketMap = new ConcurrentHashMap<>();
+    // 连接名额：accept时获取，会话结束时归还
+    private Semaphore connectionPermits;
+    private ExecutorService clientPool;
+    private ExecutorService requestPool;
+    private RequestMultiplexer multiplexer;
+    private volatile ServerSocket serverSocket;
+    private NioSocketServer nioServer;
+
+    @Autowired
+    private UserRepository userRepository;
     @Autowired
     private LoginPage LoginPage;
     @Autowired
@@ -56,128 +90,226 @@ public class Server{
         SpringApplication.run(Server.class);
     }
 
+    @PostConstruct
+    public void initClientPool() {
+        connectionPermits = new Semaphore(MAX_CONNECTIONS);
+        // NIO模式下线程只处理已到达的完整请求，不需要按连接数分配
+        int poolSize = isNio() ? nioWorkers : MAX_CONNECTIONS;
+        clientPool = newClientExecutor(executorMode, poolSize);
+        requestPool = newClientExecutor(executorMode, muxWorkers, "request-");
+        multiplexer = new RequestMultiplexer(requestPool, (in, out) -> {
+            serveSingle((String) in.readObject(), in, out);
+            return true;
+        });
+        System.out.println("Socket服务传输方式：" + transport + "，执行模式：" + executorMode + "，最大连接数：" + MAX_CONNECTIONS);
+    }
+
+    /**
+     * 创建负责客户端会话的执行器
+     * @param mode virtual为每个连接一个虚拟线程，其余取值为固定大小的平台线程池
+     * @param poolSize 平台线程池大小，与最大连接数一致
+     * @return 执行器
+     */
+    public static ExecutorService newClientExecutor(String mode, int poolSize) {
+        return newClientExecutor(mode, poolSize, "client-");
+    }
+
+    static ExecutorService newClientExecutor(String mode, int poolSize, String threadName) {
+        if ("virtual".equalsIgnoreCase(mode)) {
+            // 会话大部分时间阻塞在readObject和JDBC调用上，虚拟线程阻塞时会让出载体线程
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(threadName, 0).factory());
+        }
+        return Executors.newFixedThreadPool(poolSize, Thread.ofPlatform().name(threadName, 0).factory());
+    }
+
+    private boolean isNio() {
+        return "nio".equalsIgnoreCase(transport);
+    }
+
     @Bean
     public CommandLineRunner startServer(){
+        return (args) -> {
+            System.out.println("In CommandLineRunnerImpl ");
+
+            for (String arg : args) {
+                System.out.println(arg);
+            }
+            // 监听循环放到独立线程中，避免阻塞Spring容器的启动流程
+            if (isNio()) {
+                nioServer = new NioSocketServer(PORT, MAX_CONNECTIONS, clientPool, this::serveRequest);
+                new Thread(nioServer, "socket-selector").start();
+            } else {
+                Thread acceptor = new Thread(this::acceptLoop, "socket-acceptor");
+                acceptor.start();
+            }
+        };
+    }
+
+    private void acceptLoop() {
         try{
-            ServerSocket serverSocket = new ServerSocket(PORT);
+            serverSocket = new ServerSocket(PORT);
             System.out.println("Server started. Waiting for client...");
 
-            while (true) {
+            while (!serverSocket.isClosed()) {
                 Socket clientSocket = serverSocket.accept();
 
-                if (socketMap.size() >= MAX_CONNECTIONS) {
+                // 先占用一个连接名额，保证同时在线的连接数严格不超过MAX_CONNECTIONS
+                if (!connectionPermits.tryAcquire()) {
                     System.out.println("Max connections reached, rejecting new connection.");
                     clientSocket.close();
                     continue;
                 }
-                System.out.println("Client connected!");
-                handleClient(clientSocket);
-/*
-                Thread clientThread = new Thread(() -> {
-                    try {
-                        handleClient(clientSocket);
-                    } catch (IOException e) {
-                        throw new RuntimeException(e);
-                    }
-                });
-
-                socketMap.put(clientSocket, clientThread);
-                clientThread.start();
-*/
-
+                System.out.println("Client connected! 当前连接数：" + (MAX_CONNECTIONS - connectionPermits.availablePermits()));
+                try {
+                    clientPool.execute(() -> {
+                        try {
+                            handleClient(clientSocket);
+                        } catch (IOException e) {
+                            e.printStackTrace();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    connectionPermits.release();
+                    clientSocket.close();
+                }
             }
 
-        } catch (Exception e) {
-            e.printStackTrace();
+        } catch (IOException e) {
+            if (serverSocket == null || !serverSocket.isClosed()) {
+                e.printStackTrace();
+            }
         }
-        return (args) -> {
-            System.out.println("In CommandLineRunnerImpl ");
+    }
 
-            for (String arg : args) {
-                System.out.println(arg);
-            }
-        };
+    @PreDestroy
+    public void stopServer() throws IOException {
+        if (nioServer != null) {
+            nioServer.stop();
+        }
+        if (serverSocket != null) {
+            serverSocket.close();
+        }
+        for (Socket socket : socketMap.keySet()) {
+            socket.close();
+        }
+        clientPool.shutdownNow();
+        requestPool.shutdownNow();
     }
 
     public void handleClient(Socket clientSocket) throws IOException {
+        socketMap.put(clientSocket, Thread.currentThread());
         try (ObjectInputStream in = new ObjectInputStream(clientSocket.getInputStream());
              ObjectOutputStream out = new ObjectOutputStream(clientSocket.getOutputStream())) {
-            while (true) {
-                String model = (String) in.readObject();
-                if (model.equals("exit")) {
-                    in.close();
-                    out.flush();
-                    out.close();
-                    break;
-                }
-                String function = (String) in.readObject();
-                
-                // JWT验证 - 跳过登录请求的验证，不区分function的大小写
-                if (!model.equals("1") || !function.equalsIgnoreCase("login")) {
-                    // 读取JWT令牌
-                    System.out.println("mode:"+model);
-                    System.out.println("function:"+function);
-                    String token = (String) in.readObject();
-                    
-                    // 验证JWT令牌
-                    if (!com.example.virtual_campus.Utils.JWTUtils.validateToken(token)) {
-                        System.out.println("JWT验证失败，拒绝请求");
-                        out.writeObject("error");
-                        out.writeObject("令牌无效或已过期");
-                        out.flush();
-                        continue;
-                    }
-                    
-                    // 令牌验证成功，可以从令牌中获取用户信息
-                    String username = com.example.virtual_campus.Utils.JWTUtils.getUsernameFromToken(token);
-                    Long userId = com.example.virtual_campus.Utils.JWTUtils.getUserIdFromToken(token);
-                    Integer userType = com.example.virtual_campus.Utils.JWTUtils.getUserTypeFromToken(token);
-                    
-                    System.out.println("JWT验证成功，用户：" + username + ", 用户类型：" + userType);
-                    // 这里可以将用户信息存储在ThreadLocal或请求上下文中，供后续处理使用
-                }
-                
-                System.out.println("读入第一段指向："+model);
-                switch (model) {
-                    case "1":
-                        LoginPage.work(function, in, out);
-                        break;
-                    case "2":
-                        ManageUserPage.work(function, in, out);
-                        break;
-                    case "3":
-                        ManageGoodsPage.work(function, in, out);
-                        break;
-                    case "4":
-                        ManageBookPage.work(function, in, out);
-                        break;
-                    case "5":
-                        ManageCoursePage.work(function, in, out);
-                        break;
-                    case "6":
-                        ManageStudentPage.work(function, in, out);
-                        break;
-                    case "10":
-                        StudentShoppingPage.work(function, in, out);
-                        break;
-                    case "11":
-                        StudentSchoolPage.work(function, in, out);
-                        break;
-                    case "12":
-                        StudentLessonPage.work(function, in, out);
-                        break;
-                    case "13":
-                        StudentBorrowPage.work(function, in, out);
-                        break;
-                }
+            while (serveRequest(in, out)) {
+                // 逐个处理该连接上的请求，直到客户端发送exit
             }
-
         } catch (Exception e) {
             e.printStackTrace();
         } finally {
             socketMap.remove(clientSocket);
+            connectionPermits.release();
             clientSocket.close();
             System.out.println("Connection closed with " + clientSocket.getRemoteSocketAddress());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 从输入流读取并处理一个完整请求，阻塞式和NIO两种传输方式共用
+     * @param in 请求输入流
+     * @param out 响应输出流
+     * @return 客户端发送exit时返回false，表示应关闭连接
+     */
+    public boolean serveRequest(ObjectInputStream in, ObjectOutputStream out)
+            throws IOException, ClassNotFoundException {
+        String model = (String) in.readObject();
+        if (model.equals("exit")) {
+            out.flush();
+            return false;
+        }
+        if (model.equals(RequestMultiplexer.MARKER)) {
+            // 带编号的请求交给工作线程，不等处理完就读下一个
+            multiplexer.submit(in, out);
+            return true;
+        }
+        // 不带编号的请求直接写入连接的输出流，期间不能穿插其他请求的响应
+        synchronized (out) {
+            serveSingle(model, in, out);
+        }
+        return true;
+    }
+
+    /**
+     * 处理已读出model的一个请求：验证令牌后交给对应页面
+     */
+    private void serveSingle(String model, ObjectInputStream in, ObjectOutputStream out)
+            throws IOException, ClassNotFoundException {
+        String function = (String) in.readObject();
+        RequestContext context = new RequestContext(null, null);
+        
+        // JWT验证 - 跳过登录和注册请求的验证，不区分function的大小写
+        if (!model.equals("1") || !(function.equalsIgnoreCase("login") || function.equalsIgnoreCase("register"))) {
+            // 读取JWT令牌
+            System.out.println("mode:"+model);
+            System.out.println("function:"+function);
+            String token = (String) in.readObject();
+            
+            // 验证JWT令牌，一次解析取出用户信息
+            JWTUtils.TokenClaims claims = JWTUtils.parseToken(token);
+            if (claims == null) {
+                System.out.println("JWT验证失败，拒绝请求");
+                out.writeObject("error");
+                out.writeObject("令牌无效或已过期");
+                out.flush();
+                return;
+            }
+            
+            System.out.println("JWT验证成功，用户：" + claims.username() + ", 用户类型：" + claims.userType());
+            // 每个请求重新读取用户，由二级缓存命中，修改或删除用户后立即生效
+            context = new RequestContext(claims, () -> userRepository.findById(claims.userId()).orElse(null));
+        }
+        
+        System.out.println("读入第一段指向："+model);
+        RequestContext.bind(context);
+        try {
+            dispatch(model, function, in, out);
+        } finally {
+            RequestContext.unbind();
+        }
+    }
+
+    private void dispatch(String model, String function, ObjectInputStream in, ObjectOutputStream out)
+            throws IOException, ClassNotFoundException {
+        switch (model) {
+            case "1":
+                LoginPage.work(function, in, out);
+                break;
+            case "2":
+                ManageUserPage.work(function, in, out);
+                break;
+            case "3":
+                ManageGoodsPage.work(function, in, out);
+                break;
+            case "4":
+                ManageBookPage.work(function, in, out);
+                break;
+            case "5":
+                ManageCoursePage.work(function, in, out);
+                break;
+            case "6":
+                ManageStudentPage.work(function, in, out);
+                break;
+            case "10":
+                StudentShoppingPage.work(function, in, out);
+                break;
+            case "11":
+                StudentSchoolPage.work(function, in, out);
+                break;
+            case "12":
+                StudentLessonPage.work(function, in, out);
+                break;
+            case "13":
+                StudentBorrowPage.work(function, in, out);
+                break;
+        }
+    }
+}
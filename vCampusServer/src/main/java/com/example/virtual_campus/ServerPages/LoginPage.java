@@ -1,12 +1,17 @@
 package com.example.virtual_campus.ServerPages;
 
 import com.example.virtual_campus.Utils.JWTUtils;
+import com.example.virtual_campus.Utils.JWTUtils.TokenClaims;
 import com.example.virtual_campus.controller.AuthController;
+import com.example.virtual_campus.session.RequestContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 import com.example.virtual_campus.Server;
 import org.springframework.web.bind.annotation.RestController;
@@ -17,6 +22,10 @@ public class LoginPage {
     @Autowired
     private AuthController authController;
 
+    // 从输入密码登录起，令牌最多换发到这么多小时，之后需重新登录
+    @Value("${vcampus.jwt.max-session-hours:72}")
+    private long maxSessionHours;
+
      public void work(String function, ObjectInputStream in, ObjectOutputStream out)
             throws IOException, ClassNotFoundException {
         if (function != null) {
@@ -51,8 +60,34 @@ public class LoginPage {
                     out.writeObject(isSuccess);
                     out.flush();
                     break;
+                case "Refresh":
+                    // 令牌快到期时换发新令牌，沿用原来的登录时刻；登录超过最长会话时间后不再换发，需重新输入密码
+                    // 旧令牌暂不吊销，其他连接上已发出的请求仍然有效，客户端换上新令牌后用ConfirmRefresh吊销
+                    TokenClaims claims = RequestContext.current().getClaims();
+                    if (System.currentTimeMillis() - claims.authTime() > TimeUnit.HOURS.toMillis(maxSessionHours)) {
+                        out.writeObject("error");
+                        out.writeObject("登录已超过" + maxSessionHours + "小时，请重新登录");
+                    } else {
+                        out.writeObject(JWTUtils.generateToken(claims.username(), claims.userId(), claims.userType(),
+                                claims.authTime()));
+                    }
+                    out.flush();
+                    break;
+                case "ConfirmRefresh":
+                    // 本次请求已带上新令牌，吊销同一用户换发前的旧令牌
+                    String previous = (String) in.readObject();
+                    TokenClaims current = RequestContext.current().getClaims();
+                    TokenClaims old = JWTUtils.parseToken(previous);
+                    boolean revoked = old != null && Objects.equals(old.userId(), current.userId())
+                            && old.expiresAt() < current.expiresAt();
+                    if (revoked) {
+                        JWTUtils.invalidateToken(previous);
+                    }
+                    out.writeObject(revoked);
+                    out.flush();
+                    break;
                 case "ChangePassword":
-                    Long id = (Long) in.readObject();
+                    Long id = RequestContext.current().userId((Long) in.readObject());
                     String pwd = (String) in.readObject();
                     String newpwd1 = (String) in.readObject();
                     String newpwd2 = (String) in.readObject();
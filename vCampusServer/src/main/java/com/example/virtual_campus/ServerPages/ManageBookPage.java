@@ -7,6 +7,12 @@ import com.example.virtual_campus.controller.BookController;
 import com.example.virtual_campus.model.Book;
 import com.example.virtual_campus.model.Book;
 import com.example.virtual_campus.repository.BookRepository;
+import com.example.virtual_campus.service.BookService;
+import com.example.virtual_campus.service.CatalogService;
+import com.example.virtual_campus.cache.CatalogCache.Listing;
+import com.example.virtual_campus.protocol.RowSets;
+import com.example.virtual_campus.protocol.WireFrame;
+import com.example.virtual_campus.sync.ChangeFeed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -25,6 +31,12 @@ public class ManageBookPage {
     private BookController bookController;
     @Autowired
     private BookRepository bookRepository;
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private CatalogService catalogService;
+    @Autowired
+    private ChangeFeed changeFeed;
 
     public void work(String function, ObjectInputStream in, ObjectOutputStream out)
             throws IOException, ClassNotFoundException {
@@ -33,16 +45,33 @@ public class ManageBookPage {
             switch (function) {
                 case "requestAllClass":
                     System.out.println("请求所有用户信息中");
-                    List<Book> allbook = bookRepository.findAll();
-                    out.writeObject((Integer)allbook.size());
-                    for(Book book : allbook){
-                        out.writeObject(book.getId());
-                        out.writeObject(book.getTitle());
-                        out.writeObject(book.getAuthor());
-                        out.writeObject(book.getPress());
-                        out.writeObject(book.getIsbn());
-                        out.writeObject(book.isAvailable());
-                    }
+                    WireFrame.write(out, catalogService.books().frame());
+                    System.out.println("请求完成");
+                    out.flush();
+                    break;
+                case "requestChanges":
+                    //增量同步，传入上次同步到的版本号，首次传入-1
+                    Long since = (Long) in.readObject();
+                    changeFeed.books(since).write(out);
+                    out.flush();
+                    break;
+                case "requestPage":
+                    System.out.println("按页码请求图书信息中");
+                    Integer page = (Integer) in.readObject();
+                    Integer size = (Integer) in.readObject();
+                    Listing bookpage = catalogService.bookPage(page, size);
+                    out.writeObject(bookpage.total());
+                    WireFrame.write(out, bookpage.frame());
+                    System.out.println("请求完成");
+                    out.flush();
+                    break;
+                case "requestAfter":
+                    System.out.println("按游标请求图书信息中");
+                    Long afterId = (Long) in.readObject();
+                    size = (Integer) in.readObject();
+                    Listing bookslice = catalogService.booksAfter(afterId, size);
+                    WireFrame.write(out, bookslice.frame());
+                    out.writeObject(bookslice.hasNext());
                     System.out.println("请求完成");
                     out.flush();
                     break;
@@ -57,73 +86,23 @@ public class ManageBookPage {
                     else if(!Objects.equals(id,"")){
                         Long bookId = Long.parseLong(id);
                         Optional<Book> SearchbookId = bookController.SearchById(bookId);
-                        if(SearchbookId.isEmpty()) out.writeObject(2);//输入有误
-                        else{
-                            out.writeObject(3);
-                            out.writeObject(1);
-                            out.writeObject(SearchbookId.get().getId());
-                            out.writeObject(SearchbookId.get().getTitle());
-                            out.writeObject(SearchbookId.get().getAuthor());
-                            out.writeObject(SearchbookId.get().getPress());
-                            out.writeObject(SearchbookId.get().getIsbn());
-                            out.writeObject(SearchbookId.get().isAvailable());
-                        }
-                    }
-                    else if(!Objects.equals(title,"")){
-                        allbook = bookRepository.findAll();
-                        Integer somebook = 0;
-                        for(Book book : allbook){
-                            if(Objects.equals(book.getTitle(),title)){
-                                somebook ++;
-                            }
-                        }
-                        if(somebook == 0){
-                            out.writeObject(2);
-                        }
-                        else{
-                            out.writeObject(3);
-                            out.writeObject(somebook);
-                            for(Book book : allbook){
-                                if(Objects.equals(book.getTitle(),title)){
-                                    out.writeObject(book.getId());
-                                    out.writeObject(book.getTitle());
-                                    out.writeObject(book.getAuthor());
-                                    out.writeObject(book.getPress());
-                                    out.writeObject(book.getIsbn());
-                                    out.writeObject(book.isAvailable());
-                                }
-                            }
-                        }
+                        writeSearchResult(out, SearchbookId.map(List::of).orElse(List.of()));
                     }
-                    else if(!Objects.equals(author,"")){
-                        allbook = bookRepository.findAll();
-                        Integer somebook = 0;
-                        for(Book book : allbook){
-                            if(Objects.equals(book.getAuthor(),author)){
-                                somebook ++;
-                            }
-                        }
-                        if(somebook == 0){
-                            out.writeObject(2);
-                        }
-                        else{
-                            out.writeObject(3);
-                            out.writeObject(somebook);
-                            for(Book book : allbook){
-                                if(Objects.equals(book.getAuthor(),author)){
-                                    out.writeObject(book.getId());
-                                    out.writeObject(book.getTitle());
-                                    out.writeObject(book.getAuthor());
-                                    out.writeObject(book.getPress());
-                                    out.writeObject(book.getIsbn());
-                                    out.writeObject(book.isAvailable());
-                                }
-                            }
-                        }
+                    else{
+                        //书名、作者按前缀匹配，同时填写时需同时满足
+                        writeSearchResult(out, bookService.searchBooks(title, author));
                     }
                     System.out.println("查找完成");
                     out.flush();
                     break;
+                case "SearchBooks":
+                    System.out.println("全文检索图书中");
+                    String query = (String) in.readObject();
+                    size = (Integer) in.readObject();
+                    WireFrame.write(out, RowSets.BOOK, bookService.rankedSearch(query, size));
+                    System.out.println("检索完成");
+                    out.flush();
+                    break;
                 case "EditBooks":
                     System.out.println("正在修改中");
                     id = (String) in.readObject();
@@ -169,4 +148,22 @@ public class ManageBookPage {
             System.out.println("Unknown function: " + function);
         }
     }
+
+    // 查找结果：2查无此项目；3查找成功，随后传入条数和每本书的信息
+    private void writeSearchResult(ObjectOutputStream out, List<Book> books) throws IOException {
+        if(books.isEmpty()){
+            out.writeObject(2);
+            return;
+        }
+        out.writeObject(3);
+        out.writeObject(books.size());
+        for(Book book : books){
+            out.writeObject(book.getId());
+            out.writeObject(book.getTitle());
+            out.writeObject(book.getAuthor());
+            out.writeObject(book.getPress());
+            out.writeObject(book.getIsbn());
+            out.writeObject(book.isAvailable());
+        }
+    }
 }
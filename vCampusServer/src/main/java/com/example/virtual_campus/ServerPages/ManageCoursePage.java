@@ -7,6 +7,10 @@ import com.example.virtual_campus.model.Book;
 import com.example.virtual_campus.model.Course;
 import com.example.virtual_campus.model.Course;
 import com.example.virtual_campus.repository.CourseRepository;
+import com.example.virtual_campus.protocol.WireFrame;
+import com.example.virtual_campus.service.CatalogService;
+import com.example.virtual_campus.service.CourseService;
+import com.example.virtual_campus.sync.ChangeFeed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -24,6 +28,12 @@ public class ManageCoursePage {
     private CourseController courseController;
     @Autowired
     private CourseRepository courseRepository;
+    @Autowired
+    private CourseService courseService;
+    @Autowired
+    private CatalogService catalogService;
+    @Autowired
+    private ChangeFeed changeFeed;
 
     public void work(String function, ObjectInputStream in, ObjectOutputStream out)
             throws IOException, ClassNotFoundException {
@@ -32,93 +42,32 @@ public class ManageCoursePage {
             switch (function) {
                 case "requestAllClass":
                     System.out.println("请求所有用户信息中");
-                    List<Course> allcourse = courseController.getAllCourses();
-                    out.writeObject((Integer)allcourse.size());
-                    for(Course course : allcourse){
-                        out.writeObject(course.getId());
-                        out.writeObject(course.getName());
-                        out.writeObject(course.getTeacher());
-                        out.writeObject(course.getCredits());
-                        out.writeObject(course.getSchedule());
-                        out.writeObject(course.getCapacity());
-                    }
+                    WireFrame.write(out, catalogService.courses().frame());
                     System.out.println("请求完成");
                     out.flush();
                     break;
+                case "requestChanges":
+                    //增量同步，传入上次同步到的版本号，首次传入-1
+                    Long since = (Long) in.readObject();
+                    changeFeed.courses(since).write(out);
+                    out.flush();
+                    break;
                 case "SelectSomeone":
                     System.out.println("正在查找对应数据中");
                     String id = (String) in.readObject();
                     String name = (String) in.readObject();
                     String teacher = (String) in.readObject();
-                    if(Objects.equals(id,"") && Objects.equals(name,"")){
+                    if(Objects.equals(id,"") && Objects.equals(name,"") && Objects.equals(teacher,"")){
                         out.writeObject(1);//输入为空
                     }
                     else if(!Objects.equals(id,"")){
                         Long courseId = Long.parseLong(id);
                         Optional<Course> SearchcourseId = courseController.SearchById(courseId);
-                        if(SearchcourseId.isEmpty()) out.writeObject(2);//输入有误
-                        else{
-                            out.writeObject(3);
-                            out.writeObject(1);
-                            out.writeObject(SearchcourseId.get().getId());
-                            out.writeObject(SearchcourseId.get().getName());
-                            out.writeObject(SearchcourseId.get().getTeacher());
-                            out.writeObject(SearchcourseId.get().getCredits());
-                            out.writeObject(SearchcourseId.get().getSchedule());
-                            out.writeObject(SearchcourseId.get().getCapacity());
-                        }
+                        writeSearchResult(out, SearchcourseId.map(List::of).orElse(List.of()));
                     }
-                    else if(!Objects.equals(name,"")){
-                        allcourse = courseRepository.findAll();
-                        Integer somecourse = 0;
-                        for(Course course : allcourse){
-                            if(Objects.equals(course.getName(),name)){
-                                somecourse ++;
-                            }
-                        }
-                        if(somecourse == 0){
-                            out.writeObject(2);
-                        }
-                        else{
-                            out.writeObject(3);
-                            out.writeObject(somecourse);
-                            for(Course course : allcourse){
-                                if(Objects.equals(course.getName(),name)){
-                                    out.writeObject(course.getId());
-                                    out.writeObject(course.getName());
-                                    out.writeObject(course.getTeacher());
-                                    out.writeObject(course.getCredits());
-                                    out.writeObject(course.getSchedule());
-                                    out.writeObject(course.getCapacity());
-                                }
-                            }
-                        }
-                    }
-                    else if(!Objects.equals(teacher,"")){
-                        allcourse = courseRepository.findAll();
-                        Integer somecourse = 0;
-                        for(Course course : allcourse){
-                            if(Objects.equals(course.getTeacher(),teacher)){
-                                somecourse ++;
-                            }
-                        }
-                        if(somecourse == 0){
-                            out.writeObject(2);
-                        }
-                        else{
-                            out.writeObject(3);
-                            out.writeObject(somecourse);
-                            for(Course course : allcourse){
-                                if(Objects.equals(course.getTeacher(),teacher)){
-                                    out.writeObject(course.getId());
-                                    out.writeObject(course.getName());
-                                    out.writeObject(course.getTeacher());
-                                    out.writeObject(course.getCredits());
-                                    out.writeObject(course.getSchedule());
-                                    out.writeObject(course.getCapacity());
-                                }
-                            }
-                        }
+                    else{
+                        //课程名称、授课老师按前缀匹配，同时填写时需同时满足
+                        writeSearchResult(out, courseService.searchCourses(name, teacher));
                     }
                     System.out.println("查找完成");
                     out.flush();
@@ -174,4 +123,22 @@ public class ManageCoursePage {
             System.out.println("Unknown function: " + function);
         }
     }
+
+    // 查找结果：2查无此项目；3查找成功，随后传入条数和每门课程的信息
+    private void writeSearchResult(ObjectOutputStream out, List<Course> courses) throws IOException {
+        if(courses.isEmpty()){
+            out.writeObject(2);
+            return;
+        }
+        out.writeObject(3);
+        out.writeObject(courses.size());
+        for(Course course : courses){
+            out.writeObject(course.getId());
+            out.writeObject(course.getName());
+            out.writeObject(course.getTeacher());
+            out.writeObject(course.getCredits());
+            out.writeObject(course.getSchedule());
+            out.writeObject(course.getCapacity());
+        }
+    }
 }
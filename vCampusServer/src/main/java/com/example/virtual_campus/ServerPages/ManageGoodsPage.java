@@ -4,7 +4,10 @@ import com.example.virtual_campus.controller.AuthController;
 import com.example.virtual_campus.controller.ProductController;
 import com.example.virtual_campus.controller.ProductController;
 import com.example.virtual_campus.model.Product;
+import com.example.virtual_campus.protocol.WireFrame;
 import com.example.virtual_campus.model.Product;
+import com.example.virtual_campus.service.CatalogService;
+import com.example.virtual_campus.sync.ChangeFeed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -20,6 +23,10 @@ public class ManageGoodsPage {
 
     @Autowired
     private ProductController productController;
+    @Autowired
+    private CatalogService catalogService;
+    @Autowired
+    private ChangeFeed changeFeed;
 
     public void work(String function, ObjectInputStream in, ObjectOutputStream out)
             throws IOException, ClassNotFoundException {
@@ -28,17 +35,16 @@ public class ManageGoodsPage {
             switch (function) {
                 case "requestAllClass":
                     System.out.println("请求所有用户信息中");
-                    List<Product> allproduct = productController.getAllProducts();
-                    out.writeObject((Integer)allproduct.size());
-                    for(Product product : allproduct){
-                        out.writeObject(product.getId());
-                        out.writeObject(product.getName());
-                        out.writeObject(product.getPrice());
-                        out.writeObject(product.getQuantity());
-                    }
+                    WireFrame.write(out, catalogService.products().frame());
                     System.out.println("请求完成");
                     out.flush();
                     break;
+                case "requestChanges":
+                    //增量同步，传入上次同步到的版本号，首次传入-1
+                    Long since = (Long) in.readObject();
+                    changeFeed.products(since).write(out);
+                    out.flush();
+                    break;
                 case "SelectSomeone":
                     System.out.println("正在查找对应数据中");
                     String id = (String) in.readObject();
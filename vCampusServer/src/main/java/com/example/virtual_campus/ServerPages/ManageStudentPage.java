@@ -15,6 +15,9 @@ import com.example.virtual_campus.repository.StudentRepository;
 import com.example.virtual_campus.repository.UserRepository;
 import com.example.virtual_campus.service.StudentService;
 import com.example.virtual_campus.service.UserService;
+import com.example.virtual_campus.protocol.RowSets;
+import com.example.virtual_campus.protocol.WireFrame;
+import com.example.virtual_campus.sync.ChangeFeed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -32,6 +35,8 @@ public class ManageStudentPage {
     private UserService userService;
     @Autowired
     private StudentService studentService;
+    @Autowired
+    private ChangeFeed changeFeed;
 
     public void work(String function, ObjectInputStream in, ObjectOutputStream out)
             throws IOException, ClassNotFoundException {
@@ -41,17 +46,16 @@ public class ManageStudentPage {
                 case "requestAllClass":
                     System.out.println("请求所有用户信息中");
                     List<Student> allstudent = studentController.getAllStudents();
-                    out.writeObject((Integer)allstudent.size());
-                    for(Student student : allstudent){
-                        out.writeObject(student.getId());
-                        out.writeObject(student.getName());
-                        out.writeObject(student.getGrade());
-                        out.writeObject(student.getMajor());
-                        out.writeObject(student.getStatus());
-                    }
+                    WireFrame.write(out, RowSets.STUDENT, allstudent);
                     System.out.println("请求完成");
                     out.flush();
                     break;
+                case "requestChanges":
+                    //增量同步，传入上次同步到的版本号，首次传入-1
+                    Long since = (Long) in.readObject();
+                    changeFeed.students(since).write(out);
+                    out.flush();
+                    break;
                 case "SelectSomeone":
                     System.out.println("正在查找对应数据中");
                     String id = (String) in.readObject();
@@ -64,129 +68,11 @@ public class ManageStudentPage {
                     }
                     else if(!Objects.equals(id,"")){
                         Long Id = Long.parseLong(id);
-                        allstudent = studentController.getAllStudents();
-                        Integer somestudent = 0;
-                        for(Student student : allstudent){
-                            if(Objects.equals(student.getId(),Id)){
-                                somestudent ++;
-                            }
-                        }
-                        if(somestudent == 0){
-                            out.writeObject(2);
-                        }
-                        else{
-                            out.writeObject(3);
-                            out.writeObject(somestudent);
-                            for(Student student : allstudent){
-                                if(Objects.equals(student.getId(),Id)){
-                                    out.writeObject(student.getId());
-                                    out.writeObject(student.getName());
-                                    out.writeObject(student.getGrade());
-                                    out.writeObject(student.getMajor());
-                                    out.writeObject(student.getStatus());
-                                }
-                            }
-                        }
-                    }
-                    else if(!Objects.equals(name,"")){
-                        allstudent = studentController.getAllStudents();
-                        Integer somestudent = 0;
-                        for(Student student : allstudent){
-                            if(Objects.equals(student.getName(),name)){
-                                somestudent ++;
-                            }
-                        }
-                        if(somestudent == 0){
-                            out.writeObject(2);
-                        }
-                        else{
-                            out.writeObject(3);
-                            out.writeObject(somestudent);
-                            for(Student student : allstudent){
-                                if(Objects.equals(student.getName(),name)){
-                                    out.writeObject(student.getId());
-                                    out.writeObject(student.getName());
-                                    out.writeObject(student.getGrade());
-                                    out.writeObject(student.getMajor());
-                                    out.writeObject(student.getStatus());
-                                }
-                            }
-                        }
-                    }
-                    else if(!Objects.equals(grade,"")){
-                        allstudent = studentController.getAllStudents();
-                        Integer somestudent = 0;
-                        for(Student student : allstudent){
-                            if(Objects.equals(student.getGrade(),grade)){
-                                somestudent ++;
-                            }
-                        }
-                        if(somestudent == 0){
-                            out.writeObject(2);
-                        }
-                        else{
-                            out.writeObject(3);
-                            out.writeObject(somestudent);
-                            for(Student student : allstudent){
-                                if(Objects.equals(student.getGrade(),grade)){
-                                    out.writeObject(student.getId());
-                                    out.writeObject(student.getName());
-                                    out.writeObject(student.getGrade());
-                                    out.writeObject(student.getMajor());
-                                    out.writeObject(student.getStatus());
-                                }
-                            }
-                        }
+                        writeSearchResult(out, studentRepository.findById(Id).map(List::of).orElse(List.of()));
                     }
-                    else if(!Objects.equals(major,"")){
-                        allstudent = studentController.getAllStudents();
-                        Integer somestudent = 0;
-                        for(Student student : allstudent){
-                            if(Objects.equals(student.getMajor(),major)){
-                                somestudent ++;
-                            }
-                        }
-                        if(somestudent == 0){
-                            out.writeObject(2);
-                        }
-                        else{
-                            out.writeObject(3);
-                            out.writeObject(somestudent);
-                            for(Student student : allstudent){
-                                if(Objects.equals(student.getMajor(),major)){
-                                    out.writeObject(student.getId());
-                                    out.writeObject(student.getName());
-                                    out.writeObject(student.getGrade());
-                                    out.writeObject(student.getMajor());
-                                    out.writeObject(student.getStatus());
-                                }
-                            }
-                        }
-                    }
-                    else if(!Objects.equals(status,"")){
-                        allstudent = studentController.getAllStudents();
-                        Integer somestudent = 0;
-                        for(Student student : allstudent){
-                            if(Objects.equals(student.getStatus(),status)){
-                                somestudent ++;
-                            }
-                        }
-                        if(somestudent == 0){
-                            out.writeObject(2);
-                        }
-                        else{
-                            out.writeObject(3);
-                            out.writeObject(somestudent);
-                            for(Student student : allstudent){
-                                if(Objects.equals(student.getStatus(),status)){
-                                    out.writeObject(student.getId());
-                                    out.writeObject(student.getName());
-                                    out.writeObject(student.getGrade());
-                                    out.writeObject(student.getMajor());
-                                    out.writeObject(student.getStatus());
-                                }
-                            }
-                        }
+                    else{
+                        //姓名、年级、专业、学籍状态按前缀匹配，填写的条件需同时满足
+                        writeSearchResult(out, studentService.searchStudents(name, grade, major, status));
                     }
                     System.out.println("查找完成");
                     out.flush();
@@ -215,4 +101,21 @@ public class ManageStudentPage {
             System.out.println("Unknown function: " + function);
         }
     }
+
+    // 查找结果：2查无此项目；3查找成功，随后传入条数和每个学生的信息
+    private void writeSearchResult(ObjectOutputStream out, List<Student> students) throws IOException {
+        if(students.isEmpty()){
+            out.writeObject(2);
+            return;
+        }
+        out.writeObject(3);
+        out.writeObject(students.size());
+        for(Student student : students){
+            out.writeObject(student.getId());
+            out.writeObject(student.getName());
+            out.writeObject(student.getGrade());
+            out.writeObject(student.getMajor());
+            out.writeObject(student.getStatus());
+        }
+    }
 }
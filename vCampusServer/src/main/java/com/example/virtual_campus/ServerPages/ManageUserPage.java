@@ -3,6 +3,9 @@ package com.example.virtual_campus.ServerPages;
 import com.example.virtual_campus.controller.AuthController;
 import com.example.virtual_campus.controller.UserController;
 import com.example.virtual_campus.model.User;
+import com.example.virtual_campus.protocol.RowSets;
+import com.example.virtual_campus.protocol.WireFrame;
+import com.example.virtual_campus.sync.ChangeFeed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -20,6 +23,8 @@ public class ManageUserPage {
     private AuthController authController;
     @Autowired
     private UserController userController;
+    @Autowired
+    private ChangeFeed changeFeed;
 
     public void work(String function, ObjectInputStream in, ObjectOutputStream out)
             throws IOException, ClassNotFoundException {
@@ -29,15 +34,16 @@ public class ManageUserPage {
                 case "requestAllClass":
                     System.out.println("请求所有用户信息中");
                     List<User> alluser = userController.getAllUsers();
-                    out.writeObject((Integer)alluser.size());
-                    for(User user : alluser){
-                        out.writeObject(user.getId());
-                        out.writeObject(user.getName());
-                        out.writeObject(user.getUsertype());
-                    }
+                    WireFrame.write(out, RowSets.USER, alluser);
                     System.out.println("请求完成");
                     out.flush();
                     break;
+                case "requestChanges":
+                    //增量同步，传入上次同步到的版本号，首次传入-1
+                    Long since = (Long) in.readObject();
+                    changeFeed.users(since).write(out);
+                    out.flush();
+                    break;
                 case "SelectSomeone":
                     System.out.println("正在查找对应数据中");
                     String id = (String) in.readObject();
@@ -6,19 +6,22 @@ import java.io.ObjectOutputStream;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import com.example.virtual_campus.controller.CourseController;
 import com.example.virtual_campus.model.Course;
-import com.example.virtual_campus.model.Product;
-import com.example.virtual_campus.model.User;
-import com.example.virtual_campus.repository.CourseRepository;
-import com.example.virtual_campus.repository.StudentRepository;
-import com.example.virtual_campus.repository.UserRepository;
-import com.example.virtual_campus.service.UserService;
-import com.example.virtual_campus.service.StudentService;
+import com.example.virtual_campus.service.CatalogService;
 import com.example.virtual_campus.service.CourseService;
+import com.example.virtual_campus.cache.CatalogCache.Listing;
+import com.example.virtual_campus.service.EnrollmentQueue;
+import com.example.virtual_campus.protocol.RowSets;
+import com.example.virtual_campus.protocol.WireFrame;
+import com.example.virtual_campus.session.RequestContext;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -27,22 +30,24 @@ public class StudentLessonPage {
     @Autowired
     private CourseService courseService;
     @Autowired
-    private CourseController courseController;
-    @Autowired
-    private UserRepository userRepository;
+    private CatalogService catalogService;
     @Autowired
-    private StudentRepository studentRepository;
+    private EnrollmentQueue enrollmentQueue;
+    // 等待选课排队结果的最长时间
+    @Value("${vcampus.enrollment.timeout-seconds:30}")
+    private long enrollTimeoutSeconds;
     @Autowired
-    private CourseRepository courseRepository;
+    private CourseController courseController;
 
     public void work(String function, ObjectInputStream in, ObjectOutputStream out)
             throws IOException, ClassNotFoundException {
         if (function != null) {
             System.out.println("读入第二段指向:"+function);
+            RequestContext session = RequestContext.current();
             switch (function) {
                 case "addMyLesson":
                     System.out.println("添加课程");
-                    Long userid = (Long) in.readObject();
+                    Long userid = session.userId((Long) in.readObject());
                     String id = (String) in.readObject();
                     if (Objects.equals(id,"")) {
                         out.writeObject(1);
@@ -50,45 +55,62 @@ public class StudentLessonPage {
                         break;
                     }
                     Long Id = Long.parseLong(id);
-                    String studentid = userRepository.findById(userid).get().getUserId();
-                    Long StudentId = Long.parseLong(studentid);
+                    Long StudentId = session.getStudentId();
                     System.out.println("StudentId:"+StudentId);
-                    int res = courseService.enrollCourse(StudentId, Id);
+                    // 选课请求进入排队，所在批次提交后得到结果；排队线程异常时最多等待enrollTimeoutSeconds
+                    Integer res;
+                    try {
+                        res = enrollmentQueue.submit(StudentId, Id).get(enrollTimeoutSeconds, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        res = null;
+                    } catch (ExecutionException | TimeoutException e) {
+                        System.out.println("选课请求未完成：" + e);
+                        res = null;
+                    }
+                    if (res == null) {
+                        out.writeObject("error");
+                        out.writeObject("选课请求处理超时，请稍后查看已选课程");
+                        out.flush();
+                        break;
+                    }
                     out.writeObject(res);
                     System.out.println("添加成功");
                     out.flush();
                     break;
                 case "requestAllClass":
                     System.out.println("请求所有用户信息中");
-                    List<Course> allcourse = courseController.getAllCourses();
-                    out.writeObject((Integer)allcourse.size());
-                    for(Course course : allcourse){
-                        out.writeObject(course.getId());
-                        out.writeObject(course.getName());
-                        out.writeObject(course.getTeacher());
-                        out.writeObject(course.getCredits());
-                        out.writeObject(course.getSchedule());
-                        out.writeObject(course.getCapacity());
-                    }
+                    WireFrame.write(out, catalogService.courses().frame());
+                    System.out.println("请求完成");
+                    out.flush();
+                    break;
+                case "requestPage":
+                    System.out.println("按页码请求课程信息中");
+                    Integer page = (Integer) in.readObject();
+                    Integer size = (Integer) in.readObject();
+                    Listing coursepage = catalogService.coursePage(page, size);
+                    out.writeObject(coursepage.total());
+                    WireFrame.write(out, coursepage.frame());
+                    System.out.println("请求完成");
+                    out.flush();
+                    break;
+                case "requestAfter":
+                    System.out.println("按游标请求课程信息中");
+                    Long afterId = (Long) in.readObject();
+                    size = (Integer) in.readObject();
+                    Listing courseslice = catalogService.coursesAfter(afterId, size);
+                    WireFrame.write(out, courseslice.frame());
+                    out.writeObject(courseslice.hasNext());
                     System.out.println("请求完成");
                     out.flush();
                     break;
                 case "requestAllClassForStudent":
                     System.out.println("请求课表中");
-                    userid = (Long) in.readObject();
-                    User user = userRepository.findById(userid).get();
-                    Long Studentid = Long.parseLong(user.getUserId());
+                    userid = session.userId((Long) in.readObject());
+                    Long Studentid = session.getStudentId();
                     System.out.println("Studentid:"+Studentid);
-                    allcourse = courseController.getCoursesByStudent(Studentid).getBody();
-                    out.writeObject((Integer)allcourse.size());
-                    for(Course course : allcourse){
-                        out.writeObject(course.getId());
-                        out.writeObject(course.getName());
-                        out.writeObject(course.getTeacher());
-                        out.writeObject(course.getCredits());
-                        out.writeObject(course.getSchedule());
-                        out.writeObject(course.getCapacity());
-                    }
+                    List<Course> allcourse = courseController.getCoursesByStudent(Studentid).getBody();
+                    WireFrame.write(out, RowSets.COURSE, allcourse);
                     System.out.println("请求完成");
                     out.flush();
                     break;
@@ -98,82 +120,24 @@ public class StudentLessonPage {
                     String name = (String) in.readObject();
                     String teacher = (String) in.readObject();
                     String ischoose = (String) in.readObject();
-                    if(Objects.equals(id,"") && Objects.equals(name,"")){
+                    if(Objects.equals(id,"") && Objects.equals(name,"") && Objects.equals(teacher,"")){
                         out.writeObject(1);//输入为空
                     }
                     else if(!Objects.equals(id,"")){
                         Long courseId = Long.parseLong(id);
                         Optional<Course> SearchcourseId = courseController.SearchById(courseId);
-                        if(SearchcourseId.isEmpty()) out.writeObject(2);//输入有误
-                        else{
-                            out.writeObject(3);
-                            out.writeObject(1);
-                            out.writeObject(SearchcourseId.get().getId());
-                            out.writeObject(SearchcourseId.get().getName());
-                            out.writeObject(SearchcourseId.get().getTeacher());
-                            out.writeObject(SearchcourseId.get().getCredits());
-                            out.writeObject(SearchcourseId.get().getSchedule());
-                            out.writeObject(SearchcourseId.get().getCapacity());
-                        }
+                        writeSearchResult(out, SearchcourseId.map(List::of).orElse(List.of()));
                     }
-                    else if(!Objects.equals(name,"")){
-                        allcourse = courseRepository.findAll();
-                        Integer somecourse = 0;
-                        for(Course course : allcourse){
-                            if(Objects.equals(course.getName(),name)){
-                                somecourse ++;
-                            }
-                        }
-                        if(somecourse == 0){
-                            out.writeObject(2);
-                        }
-                        else{
-                            out.writeObject(3);
-                            out.writeObject(somecourse);
-                            for(Course course : allcourse){
-                                if(Objects.equals(course.getName(),name)){
-                                    out.writeObject(course.getId());
-                                    out.writeObject(course.getName());
-                                    out.writeObject(course.getTeacher());
-                                    out.writeObject(course.getCredits());
-                                    out.writeObject(course.getSchedule());
-                                    out.writeObject(course.getCapacity());
-                                }
-                            }
-                        }
-                    }
-                    else if(!Objects.equals(teacher,"")){
-                        allcourse = courseRepository.findAll();
-                        Integer somecourse = 0;
-                        for(Course course : allcourse){
-                            if(Objects.equals(course.getTeacher(),teacher)){
-                                somecourse ++;
-                            }
-                        }
-                        if(somecourse == 0){
-                            out.writeObject(2);
-                        }
-                        else{
-                            out.writeObject(3);
-                            out.writeObject(somecourse);
-                            for(Course course : allcourse){
-                                if(Objects.equals(course.getTeacher(),teacher)){
-                                    out.writeObject(course.getId());
-                                    out.writeObject(course.getName());
-                                    out.writeObject(course.getTeacher());
-                                    out.writeObject(course.getCredits());
-                                    out.writeObject(course.getSchedule());
-                                    out.writeObject(course.getCapacity());
-                                }
-                            }
-                        }
+                    else{
+                        //课程名称、授课老师按前缀匹配，同时填写时需同时满足
+                        writeSearchResult(out, courseService.searchCourses(name, teacher));
                     }
                     System.out.println("查找完成");
                     out.flush();
                     break;
                 case "quitMyLesson":
                     System.out.println("LessonList里AddMyLesson");
-                    userid = (Long) in.readObject();
+                    userid = session.userId((Long) in.readObject());
                     id = (String) in.readObject();
                     if (Objects.equals(id,"")) {
                         out.writeObject(2);
@@ -181,8 +145,7 @@ public class StudentLessonPage {
                         break;
                     }
                     Id = (Long) Long.parseLong(id);
-                    studentid = userRepository.findById(userid).get().getUserId();
-                    StudentId = Long.parseLong(studentid);
+                    StudentId = session.getStudentId();
                     courseService.dropCourse(StudentId, Id);
                     out.writeObject(3);
                     out.flush();
@@ -192,4 +155,22 @@ public class StudentLessonPage {
             System.out.println("Unknown function: " + function);
         }
     }
+
+    // 查找结果：2查无此项目；3查找成功，随后传入条数和每门课程的信息
+    private void writeSearchResult(ObjectOutputStream out, List<Course> courses) throws IOException {
+        if(courses.isEmpty()){
+            out.writeObject(2);
+            return;
+        }
+        out.writeObject(3);
+        out.writeObject(courses.size());
+        for(Course course : courses){
+            out.writeObject(course.getId());
+            out.writeObject(course.getName());
+            out.writeObject(course.getTeacher());
+            out.writeObject(course.getCredits());
+            out.writeObject(course.getSchedule());
+            out.writeObject(course.getCapacity());
+        }
+    }
 }
@@ -4,12 +4,9 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 
-import com.example.virtual_campus.model.Product;
 import com.example.virtual_campus.model.User;
-import com.example.virtual_campus.repository.UserRepository;
-import com.example.virtual_campus.service.CourseService;
-import com.example.virtual_campus.service.StudentService;
-import com.example.virtual_campus.service.UserService;
+import com.example.virtual_campus.service.WalletService;
+import com.example.virtual_campus.session.RequestContext;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.RestController;
@@ -17,33 +14,38 @@ import org.springframework.web.bind.annotation.RestController;
 @RestController
 public class StudentSchoolPage {
     @Autowired
-    private UserRepository userRepository;
-    @Autowired
-    private UserService userService;
+    private WalletService walletService;
 
     public void work(String function, ObjectInputStream in, ObjectOutputStream out)
             throws IOException, ClassNotFoundException {
         if (function != null) {
             System.out.println("读入第二段指向:"+function);
+            RequestContext session = RequestContext.current();
             switch (function) {
                 case "GetMySchool":
                     System.out.println("查看信息中");
-                    Long userid = (Long) in.readObject();
-                    User user = userRepository.findById(userid).get();
+                    Long userid = session.userId((Long) in.readObject());
+                    User user = session.getUser();
                     out.writeObject(user.getName());
                     out.writeObject(user.getCollege());
                     out.writeObject(user.getUserId());
-                    out.writeObject(user.getBalance());
+                    // 余额随时变化，单独读取
+                    out.writeObject(walletService.getBalanceCents(userid) / 100.0);
                     System.out.println("查看完成");
                     out.flush();
                     break;
                 case "GetBalance":
                     System.out.println("充值中");
-                    userid = (Long) in.readObject();
+                    userid = session.userId((Long) in.readObject());
                     String money = (String) in.readObject();
-                    Double Money = Double.parseDouble(money);
-                    user = userRepository.findById(userid).get();
-                    userService.AddBalance(userid, Money);
+                    // 客户端每次充值生成一个幂等键，重发同一请求不会重复入账
+                    String key = (String) in.readObject();
+                    Long cents = WalletService.toCents(money);
+                    WalletService.Deposit deposit = cents == null
+                            ? new WalletService.Deposit(5, walletService.getBalanceCents(userid))
+                            : walletService.deposit(userid, cents, key);
+                    out.writeObject(deposit.code());
+                    out.writeObject(deposit.balanceCents() / 100.0);
                     System.out.println("充值完成");
                     out.flush();
                     break;
@@ -3,42 +3,39 @@ package com.example.virtual_campus.ServerPages;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
-import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 
 import com.example.virtual_campus.controller.ProductController;
-import com.example.virtual_campus.controller.UserController;
+import com.example.virtual_campus.inventory.Reservation;
 import com.example.virtual_campus.model.Product;
-import com.example.virtual_campus.model.User;
-import com.example.virtual_campus.repository.ProductRepository;
-import com.example.virtual_campus.repository.UserRepository;
-import com.example.virtual_campus.service.ProductService;
-import com.example.virtual_campus.service.UserService;
+import com.example.virtual_campus.service.CatalogService;
+import com.example.virtual_campus.service.InventoryReservationService;
+import com.example.virtual_campus.cache.CatalogCache.Listing;
+import com.example.virtual_campus.protocol.WireFrame;
+import com.example.virtual_campus.session.RequestContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
 public class StudentShoppingPage {
-    @Autowired
-    private UserRepository userRepository;
-    @Autowired
-    private ProductRepository productRepository;
-    @Autowired
-    private UserController userController;
     @Autowired
     private ProductController productController;
     @Autowired
-    private UserService userService;
+    private InventoryReservationService inventoryReservationService;
+    @Autowired
+    private CatalogService catalogService;
 
     public void work(String function, ObjectInputStream in, ObjectOutputStream out)
             throws IOException, ClassNotFoundException {
         if (function != null) {
             System.out.println("读入第二段指向:"+function);
+            RequestContext session = RequestContext.current();
             switch (function) {
                 case "addMyProduct":
                     System.out.println("开始购买");
-                    Long userid = (Long) in.readObject();
+                    Long userid = session.userId((Long) in.readObject());
                     String id = (String) in.readObject();
                     String name = (String) in.readObject();
                     String quantity = (String) in.readObject();
@@ -46,32 +43,76 @@ public class StudentShoppingPage {
                         out.writeObject(1);
                     }
                     else{
-                        Long Id = Long.parseLong(id);
-                        Product product = productRepository.findById(Id).get();
-                        int Quantity = Integer.parseInt(quantity);
-                        User user = userRepository.findById(userid).get();
-                        if (user.getBalance() < product.getPrice() * Quantity) {
-                            out.writeObject(2);
-                        } else {
-                            userService.AddBalance(userid,- product.getPrice() * Quantity);
-                            product.setQuantity(product.getQuantity()-Quantity);
-                            productController.updateProduct(Id,product);
-                            out.writeObject(3);
-                        }
+                        // 单件购买按只有一种商品的购物车结算，热门商品走库存预留
+                        Map<Long, Integer> cart = Map.of(Long.parseLong(id), Integer.parseInt(quantity));
+                        out.writeObject(inventoryReservationService.checkout(userid, cart));
                     }
                     System.out.println("购买完成");
                     out.flush();
                     break;
+                case "checkoutCart":
+                    System.out.println("购物车结算");
+                    userid = session.userId((Long) in.readObject());
+                    @SuppressWarnings("unchecked")
+                    Map<Long, Integer> cart = (Map<Long, Integer>) in.readObject();
+                    if (cart == null || cart.isEmpty()) {
+                        out.writeObject(1);
+                    }
+                    else{
+                        out.writeObject(inventoryReservationService.checkout(userid, cart));
+                    }
+                    System.out.println("结算完成");
+                    out.flush();
+                    break;
+                case "reserveProduct":
+                    // 抢购时为登录用户占住库存，返回token和有效期（秒），库存不足、超过限购或不是热门商品时token为null
+                    System.out.println("预留库存");
+                    Long reserveId = (Long) in.readObject();
+                    Integer amount = (Integer) in.readObject();
+                    Reservation reservation = amount == null ? null
+                            : inventoryReservationService.reserve(session.getUserId(), reserveId, amount);
+                    out.writeObject(reservation == null ? null : reservation.token());
+                    out.writeObject(reservation == null ? 0L : (reservation.expiresAt() - System.currentTimeMillis()) / 1000);
+                    System.out.println("预留完成");
+                    out.flush();
+                    break;
+                case "checkoutReservation":
+                    System.out.println("按预留结算");
+                    userid = session.userId((Long) in.readObject());
+                    String token = (String) in.readObject();
+                    out.writeObject(inventoryReservationService.checkout(userid, token));
+                    System.out.println("结算完成");
+                    out.flush();
+                    break;
+                case "cancelReservation":
+                    System.out.println("取消预留");
+                    token = (String) in.readObject();
+                    out.writeObject(inventoryReservationService.cancel(session.getUserId(), token));
+                    out.flush();
+                    break;
                 case "requestAllClass":
                     System.out.println("请求所有用户信息中");
-                    List<Product> allproduct = productController.getAllProducts();
-                    out.writeObject((Integer)allproduct.size());
-                    for(Product product : allproduct){
-                        out.writeObject(product.getId());
-                        out.writeObject(product.getName());
-                        out.writeObject(product.getPrice());
-                        out.writeObject(product.getQuantity());
-                    }
+                    WireFrame.write(out, catalogService.products().frame());
+                    System.out.println("请求完成");
+                    out.flush();
+                    break;
+                case "requestPage":
+                    System.out.println("按页码请求商品信息中");
+                    Integer page = (Integer) in.readObject();
+                    Integer size = (Integer) in.readObject();
+                    Listing productpage = catalogService.productPage(page, size);
+                    out.writeObject(productpage.total());
+                    WireFrame.write(out, productpage.frame());
+                    System.out.println("请求完成");
+                    out.flush();
+                    break;
+                case "requestAfter":
+                    System.out.println("按游标请求商品信息中");
+                    Long afterId = (Long) in.readObject();
+                    size = (Integer) in.readObject();
+                    Listing productslice = catalogService.productsAfter(afterId, size);
+                    WireFrame.write(out, productslice.frame());
+                    out.writeObject(productslice.hasNext());
                     System.out.println("请求完成");
                     out.flush();
                     break;
@@ -1,5 +1,6 @@
 package com.example.virtual_campus.Utils;
 
+import com.example.virtual_campus.cache.TokenBlacklist;
 import com.example.virtual_campus.service.RedisService;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
@@ -9,7 +10,9 @@ import org.springframework.stereotype.Component;
 import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * JWT工具类，用于生成和验证JWT令牌
@@ -23,8 +26,15 @@ public class JWTUtils {
     // 密钥实例
     private static final SecretKey SECRET_KEY = Keys.hmacShaKeyFor(SECRET_KEY_STRING.getBytes());
     
-    // Redis服务静态实例，用于黑名单管理
+    // 验证通过的令牌最多缓存这么多个
+    private static final int MAX_CACHED_TOKENS = 10000;
+    
+    // Redis服务静态实例，用于测试连接
     private static RedisService redisService;
+    // 黑名单静态实例，用于注销令牌和验证时的黑名单检查
+    private static TokenBlacklist tokenBlacklist;
+    // 令牌摘要 -> 已验证的用户信息
+    private static final ConcurrentHashMap<String, TokenClaims> validated = new ConcurrentHashMap<>();
     
     /**
      * 通过setter方法注入RedisService，支持静态方法调用
@@ -34,6 +44,11 @@ public class JWTUtils {
         JWTUtils.redisService = redisService;
     }
 
+    @Autowired
+    public void setTokenBlacklist(TokenBlacklist tokenBlacklist) {
+        JWTUtils.tokenBlacklist = tokenBlacklist;
+    }
+
     /**
      * 生成JWT令牌
      * @param username 用户名
@@ -42,6 +57,15 @@ public class JWTUtils {
      * @return JWT令牌
      */
     public static String generateToken(String username, Long userId, Integer userType) {
+        return generateToken(username, userId, userType, System.currentTimeMillis());
+    }
+
+    /**
+     * 生成JWT令牌，换发时沿用原来的登录时刻
+     * @param authTime 用户输入密码登录的时刻（毫秒），记为auth_time声明
+     * @return JWT令牌
+     */
+    public static String generateToken(String username, Long userId, Integer userType, long authTime) {
         // 测试Redis连接
         testRedisConnection();
         
@@ -50,6 +74,7 @@ public class JWTUtils {
         claims.put("username", username);
         claims.put("userId", userId);
         claims.put("userType", userType);
+        claims.put("auth_time", authTime / 1000);
         
         // 创建JWT令牌
         return Jwts.builder()
@@ -91,22 +116,76 @@ public class JWTUtils {
         }
     }
 
+    /**
+     * 令牌中的用户信息，每个请求只解析一次
+     * @param authTime 登录时刻（毫秒），换发的令牌与最初登录的令牌相同
+     * @param expiresAt 过期时刻（毫秒）
+     */
+    public record TokenClaims(String username, Long userId, Integer userType, long authTime, long expiresAt) {
+    }
+
     /**
      * 验证JWT令牌
      * @param token JWT令牌
      * @return 是否有效
      */
     public static boolean validateToken(String token) {
+        return parseToken(token) != null;
+    }
+
+    /**
+     * 验证令牌并取出其中的用户信息
+     * 验证通过的令牌按摘要缓存，同一令牌再次到来时只需查本地黑名单过滤器，不再校验签名
+     * @param token JWT令牌
+     * @return 令牌无效、已过期或已注销时返回null
+     */
+    public static TokenClaims parseToken(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        byte[] digest = TokenBlacklist.digest(token);
+        String key = HexFormat.of().formatHex(digest);
+        // 首先检查令牌是否在黑名单中
+        if (tokenBlacklist != null && tokenBlacklist.isRevoked(token, digest)) {
+            validated.remove(key);
+            return null;
+        }
+        TokenClaims cached = validated.get(key);
+        if (cached != null && cached.expiresAt() > System.currentTimeMillis()) {
+            return cached;
+        }
+        Claims claims = parseClaims(token);
+        if (claims == null) {
+            validated.remove(key);
+            return null;
+        }
+        // 没有auth_time的旧令牌以签发时刻为登录时刻
+        Long authTime = claims.get("auth_time", Long.class);
+        TokenClaims parsed = new TokenClaims(claims.get("username", String.class), claims.get("userId", Long.class),
+                claims.get("userType", Integer.class),
+                authTime == null ? claims.getIssuedAt().getTime() : authTime * 1000, claims.getExpiration().getTime());
+        if (validated.size() >= MAX_CACHED_TOKENS) {
+            evictExpired();
+        }
+        validated.put(key, parsed);
+        return parsed;
+    }
+
+    // 校验签名和有效期，一次解析取出全部声明
+    private static Claims parseClaims(String token) {
         try {
-            // 首先检查令牌是否在黑名单中
-            if (redisService != null && redisService.isInBlacklist(token)) {
-                return false;
-            }
-            
-            Jwts.parserBuilder().setSigningKey(SECRET_KEY).build().parseClaimsJws(token);
-            return true;
+            return Jwts.parserBuilder().setSigningKey(SECRET_KEY).build().parseClaimsJws(token).getBody();
         } catch (SignatureException | MalformedJwtException | ExpiredJwtException | UnsupportedJwtException | IllegalArgumentException e) {
-            return false;
+            return null;
+        }
+    }
+
+    // 缓存满时先去掉已过期的，仍然满则整体清空
+    private static void evictExpired() {
+        long now = System.currentTimeMillis();
+        validated.values().removeIf(claims -> claims.expiresAt() <= now);
+        if (validated.size() >= MAX_CACHED_TOKENS) {
+            validated.clear();
         }
     }
     
@@ -115,8 +194,12 @@ public class JWTUtils {
      * @param token JWT令牌
      */
     public static void invalidateToken(String token) {
-        if (redisService == null) {
-            return; // 如果Redis服务未注入，直接返回
+        if (token == null) {
+            return;
+        }
+        validated.remove(HexFormat.of().formatHex(TokenBlacklist.digest(token)));
+        if (tokenBlacklist == null) {
+            return; // 如果黑名单服务未注入，直接返回
         }
         
         try {
@@ -132,14 +215,14 @@ public class JWTUtils {
             
             // 确保时间为正数
             if (remainingTimeInSeconds > 0) {
-                redisService.addToBlacklist(token, remainingTimeInSeconds);
+                tokenBlacklist.revoke(token, remainingTimeInSeconds);
             } else {
                 // 如果令牌已过期，添加一个较短的过期时间到黑名单
-                redisService.addToBlacklist(token, 3600); // 1小时
+                tokenBlacklist.revoke(token, 3600); // 1小时
             }
         } catch (ExpiredJwtException e) {
             // 即使令牌已过期，也加入黑名单一段时间
-            redisService.addToBlacklist(token, 3600); // 1小时
+            tokenBlacklist.revoke(token, 3600); // 1小时
         } catch (Exception e) {
             // 忽略其他异常
         }
@@ -151,16 +234,8 @@ public class JWTUtils {
      * @return 用户名
      */
     public static String getUsernameFromToken(String token) {
-        try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(SECRET_KEY)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-            return claims.get("username", String.class);
-        } catch (Exception e) {
-            return null;
-        }
+        Claims claims = parseClaims(token);
+        return claims == null ? null : claims.get("username", String.class);
     }
 
     /**
@@ -169,16 +244,8 @@ public class JWTUtils {
      * @return 用户ID
      */
     public static Long getUserIdFromToken(String token) {
-        try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(SECRET_KEY)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-            return claims.get("userId", Long.class);
-        } catch (Exception e) {
-            return null;
-        }
+        Claims claims = parseClaims(token);
+        return claims == null ? null : claims.get("userId", Long.class);
     }
 
     /**
@@ -187,15 +254,7 @@ public class JWTUtils {
      * @return 用户类型
      */
     public static Integer getUserTypeFromToken(String token) {
-        try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(SECRET_KEY)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-            return claims.get("userType", Integer.class);
-        } catch (Exception e) {
-            return null;
-        }
+        Claims claims = parseClaims(token);
+        return claims == null ? null : claims.get("userType", Integer.class);
     }
-}
\ No newline at end of file
+}
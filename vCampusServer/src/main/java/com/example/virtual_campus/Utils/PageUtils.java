@@ -0,0 +1,39 @@
+package com.example.virtual_campus.Utils;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+/**
+ * 分页参数工具，客户端传入的页码和页大小都在这里统一校正
+ */
+public final class PageUtils {
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private PageUtils() {
+    }
+
+    public static int clampSize(Integer size) {
+        if (size == null || size <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    // 页码分页：按id排序，越往后的页数据库需要跳过的行越多
+    public static Pageable pageById(Integer page, Integer size) {
+        int number = page == null || page < 0 ? 0 : page;
+        return PageRequest.of(number, clampSize(size), Sort.by("id"));
+    }
+
+    // 游标分页：只取第一页，位置由 id > afterId 条件决定，深翻页也只走主键索引
+    public static Pageable firstPage(Integer size) {
+        return PageRequest.of(0, clampSize(size));
+    }
+
+    public static long cursor(Long afterId) {
+        return afterId == null || afterId < 0 ? 0 : afterId;
+    }
+}
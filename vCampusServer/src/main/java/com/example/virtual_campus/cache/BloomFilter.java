@@ -0,0 +1,78 @@
+package com.example.virtual_campus.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 布隆过滤器，判断某个摘要“一定不在”或“可能在”集合中
+ * 元素用调用方算好的摘要（至少16字节）表示，由前后两个64位数按双重散列推出各个位的位置
+ * 可以多线程同时添加和查询；不支持删除，需要删除时重新建一个
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * @param expectedItems 预计元素个数
+     * @param falsePositiveRate 元素个数达到预计值时的误判率
+     */
+    public BloomFilter(int expectedItems, double falsePositiveRate) {
+        int n = Math.max(1, expectedItems);
+        long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.max(1, (bits + 63) / 64);
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = (long) wordCount * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    public void put(byte[] digest) {
+        long h1 = first(digest);
+        long h2 = second(digest);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = index(h1 + i * h2);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long old;
+            do {
+                old = words.get(word);
+                if ((old & mask) != 0) {
+                    break;
+                }
+            } while (!words.compareAndSet(word, old, old | mask));
+        }
+    }
+
+    public boolean mightContain(byte[] digest) {
+        long h1 = first(digest);
+        long h2 = second(digest);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = index(h1 + i * h2);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long index(long hash) {
+        return (hash & Long.MAX_VALUE) % bitCount;
+    }
+
+    private static long first(byte[] digest) {
+        return read(digest, 0);
+    }
+
+    // 第二个散列为奇数，保证各次探测的位置不重复
+    private static long second(byte[] digest) {
+        return read(digest, 8) | 1;
+    }
+
+    private static long read(byte[] digest, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (digest[offset + i] & 0xFF);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.virtual_campus.cache;
+
+import com.example.virtual_campus.service.RedisService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图书、课程、商品列表的Redis缓存，保存编码好的行集帧，多个服务器节点共用
+ * 键中带目录的版本号：catalog:book:v3:after:0:100；目录有修改时版本号加一，旧版本的键不再被读到，等过期后删除
+ * Redis不可用时直接查数据库，恢复后补上期间漏掉的版本号递增
+ * 购买、销量写回这类只改库存的修改很频繁，合并为每隔一段时间最多递增一次版本号，列表中的库存最多滞后这段时间
+ */
+@Component
+public class CatalogCache {
+
+    public enum Catalog {
+        BOOK, COURSE, PRODUCT;
+
+        String key() {
+            return "catalog:" + name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * 一次列表请求的结果
+     * @param frame 行集帧
+     * @param total 按页码请求时的总条数
+     * @param hasNext 按游标请求时是否还有下一批
+     */
+    public record Listing(byte[] frame, long total, boolean hasNext) {
+
+        byte[] toBytes() {
+            return ByteBuffer.allocate(9 + frame.length).putLong(total).put((byte) (hasNext ? 1 : 0)).put(frame).array();
+        }
+
+        static Listing fromBytes(byte[] bytes) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            return new Listing(Arrays.copyOfRange(bytes, 9, bytes.length), buffer.getLong(), buffer.get() == 1);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Loader {
+        Listing load() throws IOException;
+    }
+
+    // Redis出错后暂停访问的时间
+    private static final long REDIS_BACKOFF_MILLIS = 5000;
+
+    @Value("${vcampus.catalog.cache:true}")
+    private boolean enabled;
+    @Value("${vcampus.catalog.ttl-minutes:60}")
+    private long ttlMinutes;
+    // 只有库存变化时递增版本号的最短间隔，0为每次都立即递增
+    @Value("${vcampus.catalog.stock-refresh-ms:1000}")
+    private long stockRefreshMillis;
+
+    @Autowired
+    private RedisService redisService;
+
+    // 同一节点上同一个键同时未命中时只查一次数据库
+    private final ConcurrentHashMap<String, CompletableFuture<Listing>> loading = new ConcurrentHashMap<>();
+    // Redis不可用期间没能递增的版本号
+    private final Set<Catalog> pendingInvalidations = ConcurrentHashMap.newKeySet();
+    // 库存有变化、等待下一轮递增版本号的目录
+    private final Set<Catalog> staleStock = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService stockRefresher;
+    private volatile long redisRetryAt;
+
+    @PostConstruct
+    public void start() {
+        if (enabled && stockRefreshMillis > 0) {
+            stockRefresher = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("catalog-stock-refresher").daemon().factory());
+            stockRefresher.scheduleWithFixedDelay(this::refreshStock, stockRefreshMillis, stockRefreshMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stockRefresher != null) {
+            stockRefresher.shutdownNow();
+        }
+    }
+
+    public Listing get(Catalog catalog, String view, Loader loader) throws IOException {
+        if (!enabled || !redisAvailable()) {
+            return loader.load();
+        }
+        String key;
+        try {
+            key = catalog.key() + ":v" + version(catalog) + ":" + view;
+            byte[] cached = redisService.getBytes(key);
+            if (cached != null) {
+                return Listing.fromBytes(cached);
+            }
+        } catch (RuntimeException e) {
+            redisFailed(e);
+            return loader.load();
+        }
+
+        CompletableFuture<Listing> mine = new CompletableFuture<>();
+        CompletableFuture<Listing> running = loading.putIfAbsent(key, mine);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                return loader.load();
+            }
+        }
+        try {
+            Listing listing = loader.load();
+            try {
+                redisService.setBytes(key, listing.toBytes(), ttlMinutes, TimeUnit.MINUTES);
+            } catch (RuntimeException e) {
+                redisFailed(e);
+            }
+            mine.complete(listing);
+            return listing;
+        } catch (IOException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, mine);
+        }
+    }
+
+    // 目录有修改，所有节点随后读到的都是新版本
+    public void invalidate(Catalog catalog) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            redisService.increment(catalog.key() + ":version");
+            pendingInvalidations.remove(catalog);
+        } catch (RuntimeException e) {
+            pendingInvalidations.add(catalog);
+            redisFailed(e);
+        }
+    }
+
+    /**
+     * 当前事务提交后再递增版本号，避免其他请求在提交前把旧数据按新版本写进缓存
+     */
+    public void invalidateAfterCommit(Catalog catalog) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(catalog);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate(catalog);
+            }
+        });
+    }
+
+    /**
+     * 只有库存数量变化时调用，版本号在下一轮合并递增，不再每次购买都让整个目录的缓存失效
+     * 下单时库存以数据库为准，列表中的数量短暂滞后不会导致超卖
+     */
+    public void invalidateStock(Catalog catalog) {
+        if (stockRefresher == null) {
+            invalidate(catalog);
+        } else {
+            staleStock.add(catalog);
+        }
+    }
+
+    // 同invalidateStock，在当前事务提交后生效
+    public void invalidateStockAfterCommit(Catalog catalog) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidateStock(catalog);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidateStock(catalog);
+            }
+        });
+    }
+
+    void refreshStock() {
+        for (Catalog catalog : staleStock) {
+            // 先移除再递增，递增期间新到的库存变化留到下一轮
+            staleStock.remove(catalog);
+            invalidate(catalog);
+        }
+    }
+
+    private String version(Catalog catalog) {
+        Object version = redisService.get(catalog.key() + ":version");
+        return version == null ? "0" : version.toString();
+    }
+
+    private boolean redisAvailable() {
+        if (System.currentTimeMillis() < redisRetryAt) {
+            return false;
+        }
+        for (Catalog catalog : pendingInvalidations) {
+            invalidate(catalog);
+        }
+        // 补递增失败说明Redis仍不可用，不能读到可能过时的缓存
+        return pendingInvalidations.isEmpty();
+    }
+
+    private void redisFailed(RuntimeException e) {
+        if (System.currentTimeMillis() >= redisRetryAt) {
+            System.out.println("列表缓存暂时不可用，直接查询数据库：" + e.getMessage());
+        }
+        redisRetryAt = System.currentTimeMillis() + REDIS_BACKOFF_MILLIS;
+    }
+}
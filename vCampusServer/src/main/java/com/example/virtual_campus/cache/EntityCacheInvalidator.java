@@ -0,0 +1,143 @@
+package com.example.virtual_campus.cache;
+
+import com.example.virtual_campus.service.RedisService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * 多个服务器节点之间同步二级缓存的失效
+ * 本节点通过JPA修改实体时Hibernate会自动更新自己的缓存，但其他节点的Caffeine缓存还是旧值；
+ * 开启广播后，实体修改或删除提交后把“类名:id”发到Redis频道，其他节点收到后清掉对应条目
+ * 原生SQL更新（余额、已选人数等）不经过实体事件，由调用处在提交后调用broadcastAfterCommit
+ */
+@Component
+public class EntityCacheInvalidator implements PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private static final String CHANNEL = "vcampus:cache:evict";
+
+    @Value("${vcampus.cache.broadcast:false}")
+    private boolean broadcast;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private RedisService redisService;
+    @Autowired
+    private RedisConnectionFactory redisConnectionFactory;
+
+    // 区分自己发出的消息
+    private final String node = UUID.randomUUID().toString();
+    private RedisMessageListenerContainer container;
+
+    @PostConstruct
+    public void start() {
+        if (!broadcast) {
+            return;
+        }
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+
+        container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener((message, pattern) -> onMessage(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(CHANNEL));
+        container.afterPropertiesSet();
+        container.start();
+        System.out.println("二级缓存失效广播已启用");
+    }
+
+    @PreDestroy
+    public void stop() throws Exception {
+        if (container != null) {
+            container.destroy();
+        }
+    }
+
+    /**
+     * 当前事务提交后通知其他节点清掉该实体，没有事务时立即通知
+     */
+    public void broadcastAfterCommit(Class<?> type, Long id) {
+        if (!broadcast) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(type, id);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(type, id);
+            }
+        });
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        publish(event.getEntity().getClass(), event.getId());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        publish(event.getEntity().getClass(), event.getId());
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    // 只关心放入二级缓存的实体
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return persister.canWriteToCache();
+    }
+
+    private void publish(Class<?> type, Object id) {
+        try {
+            redisService.publish(CHANNEL, node + "|" + type.getName() + "|" + id);
+        } catch (RuntimeException e) {
+            // Redis不可用时其他节点等缓存过期
+            System.out.println("缓存失效广播发送失败：" + e.getMessage());
+        }
+    }
+
+    private void onMessage(String message) {
+        String[] parts = message.split("\\|");
+        if (parts.length != 3 || node.equals(parts[0])) {
+            return;
+        }
+        try {
+            entityManagerFactory.getCache().evict(Class.forName(parts[1]), Long.parseLong(parts[2]));
+            // 按名字查找的查询缓存也可能包含该实体
+            entityManagerFactory.unwrap(SessionFactoryImplementor.class).getCache().evictQueryRegions();
+        } catch (ClassNotFoundException | NumberFormatException e) {
+            System.out.println("无法识别的缓存失效消息：" + message);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.virtual_campus.cache;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 二级缓存的命中统计，数据来自Hibernate Statistics（需开启hibernate.generate_statistics）
+ */
+@Component
+public class EntityCacheStats {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * 每个缓存区域的命中、未命中、写入次数和当前条数，另有查询缓存和实体从数据库加载的总次数
+     */
+    public Map<String, Map<String, Long>> snapshot() {
+        Statistics statistics = statistics();
+        Map<String, Map<String, Long>> result = new LinkedHashMap<>();
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics regionStatistics = statistics.getDomainDataRegionStatistics(region);
+            Map<String, Long> counts = new LinkedHashMap<>();
+            counts.put("hit", regionStatistics.getHitCount());
+            counts.put("miss", regionStatistics.getMissCount());
+            counts.put("put", regionStatistics.getPutCount());
+            counts.put("size", regionStatistics.getElementCountInMemory());
+            result.put(region, counts);
+        }
+        Map<String, Long> query = new LinkedHashMap<>();
+        query.put("hit", statistics.getQueryCacheHitCount());
+        query.put("miss", statistics.getQueryCacheMissCount());
+        query.put("put", statistics.getQueryCachePutCount());
+        result.put("query", query);
+        result.put("database", Map.of("entityLoad", statistics.getEntityLoadCount()));
+        return result;
+    }
+
+    // 二级缓存总命中率，没有访问时为0
+    public double hitRatio() {
+        Statistics statistics = statistics();
+        long hit = statistics.getSecondLevelCacheHitCount();
+        long total = hit + statistics.getSecondLevelCacheMissCount();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    public void clear() {
+        statistics().clear();
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
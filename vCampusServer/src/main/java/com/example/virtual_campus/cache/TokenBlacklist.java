@@ -0,0 +1,153 @@
+package com.example.virtual_campus.cache;
+
+import com.example.virtual_campus.service.RedisService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT黑名单在本地的布隆过滤器
+ * 绝大多数令牌不在黑名单中，过滤器判定“一定不在”时不必访问Redis；判定“可能在”时再到Redis确认
+ * 本节点注销令牌时直接加入过滤器，并通过Redis频道通知其他节点；
+ * 过滤器不能删除，定时按Redis中现存的黑名单重建，已过期的令牌随之移除，期间漏收的通知也一并补上
+ * 过滤器尚未建立（如启动时Redis不可用）时每次都查Redis
+ */
+@Component
+public class TokenBlacklist {
+
+    private static final String CHANNEL = "vcampus:jwt:revoked";
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    @Value("${vcampus.jwt.blacklist-expected:100000}")
+    private int expectedTokens;
+    @Value("${vcampus.jwt.blacklist-rebuild-minutes:30}")
+    private long rebuildMinutes;
+
+    @Autowired
+    private RedisService redisService;
+    @Autowired
+    private RedisConnectionFactory redisConnectionFactory;
+
+    private volatile BloomFilter filter;
+    // 重建期间新注销的令牌，换上新过滤器前补进去
+    private final Set<String> recent = ConcurrentHashMap.newKeySet();
+    private RedisMessageListenerContainer container;
+    private ScheduledExecutorService rebuilder;
+
+    @PostConstruct
+    public void start() {
+        try {
+            container = new RedisMessageListenerContainer();
+            container.setConnectionFactory(redisConnectionFactory);
+            container.addMessageListener((message, pattern) -> add(new String(message.getBody(), StandardCharsets.UTF_8)),
+                    new ChannelTopic(CHANNEL));
+            container.afterPropertiesSet();
+            container.start();
+        } catch (RuntimeException e) {
+            System.out.println("令牌注销通知订阅失败，依靠定时重建同步：" + e.getMessage());
+        }
+        rebuild();
+        rebuilder = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("jwt-blacklist-rebuilder").daemon().factory());
+        rebuilder.scheduleWithFixedDelay(this::rebuild, rebuildMinutes, rebuildMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() throws Exception {
+        if (rebuilder != null) {
+            rebuilder.shutdownNow();
+        }
+        if (container != null) {
+            container.destroy();
+        }
+    }
+
+    /**
+     * 令牌是否已被注销
+     * @param digest 令牌的SHA-256摘要
+     */
+    public boolean isRevoked(String token, byte[] digest) {
+        BloomFilter current = filter;
+        if (current != null && !current.mightContain(digest)) {
+            return false;
+        }
+        return redisService.isInBlacklist(token);
+    }
+
+    /**
+     * 注销令牌：写入Redis黑名单，加入本地过滤器并通知其他节点
+     * @param seconds 在黑名单中保留的时间
+     */
+    public void revoke(String token, long seconds) {
+        redisService.addToBlacklist(token, seconds);
+        String hex = HexFormat.of().formatHex(digest(token));
+        add(hex);
+        try {
+            redisService.publish(CHANNEL, hex);
+        } catch (RuntimeException e) {
+            // 其他节点在下次重建时补上
+            System.out.println("令牌注销通知发送失败：" + e.getMessage());
+        }
+    }
+
+    // 按Redis中现存的黑名单重新建立过滤器
+    void rebuild() {
+        recent.clear();
+        try {
+            BloomFilter rebuilt = new BloomFilter(expectedTokens, FALSE_POSITIVE_RATE);
+            Set<String> tokens = redisService.getBlacklistedTokens();
+            for (String token : tokens) {
+                rebuilt.put(digest(token));
+            }
+            for (String hex : recent) {
+                rebuilt.put(HexFormat.of().parseHex(hex));
+            }
+            filter = rebuilt;
+            // 换上之前刚加入旧过滤器的也补进来
+            for (String hex : recent) {
+                rebuilt.put(HexFormat.of().parseHex(hex));
+            }
+            System.out.println("令牌黑名单过滤器已重建，共" + tokens.size() + "个");
+        } catch (RuntimeException e) {
+            System.out.println("令牌黑名单过滤器重建失败：" + e.getMessage());
+        }
+    }
+
+    private void add(String hex) {
+        byte[] digest;
+        try {
+            digest = HexFormat.of().parseHex(hex);
+        } catch (IllegalArgumentException e) {
+            System.out.println("无法识别的令牌注销通知：" + hex);
+            return;
+        }
+        recent.add(hex);
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(digest);
+        }
+    }
+
+    public static byte[] digest(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
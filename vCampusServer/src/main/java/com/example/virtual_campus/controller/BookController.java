@@ -9,6 +9,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Optional;
 
 @RestController
@@ -25,6 +26,12 @@ public class BookController {
         return ResponseEntity.ok(bookService.saveBook(book));
     }
 
+    @GetMapping("/search")
+    public ResponseEntity<List<Book>> searchBooks(@RequestParam("q") String query,
+                                                  @RequestParam(value = "limit", required = false) Integer limit) {
+        return ResponseEntity.ok(bookService.rankedSearch(query, limit));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Optional<Book>> getBook(@PathVariable Long id) {
         return ResponseEntity.ok(bookService.findBookById(id));
@@ -65,7 +72,7 @@ public class BookController {
         if(!bookRepository.existsById(id)) return false;
         Book book = bookRepository.findById(id).get();
         if(!book.isAvailable()) return false;
-        bookRepository.delete(book);
+        bookService.deleteBook(id);
         return true;
     }
 
@@ -78,7 +85,7 @@ public class BookController {
         book.setPress(press);
         book.setIsbn(isbn);
         book.setAvailable(true);
-        bookRepository.save(book);
+        bookService.saveBook(book);
         return true;
     }
 }
@@ -0,0 +1,22 @@
+package com.example.virtual_campus.controller;
+
+import com.example.virtual_campus.cache.EntityCacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/cache")
+public class CacheController {
+
+    @Autowired
+    private EntityCacheStats entityCacheStats;
+
+    // 二级缓存各区域的命中统计
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Map<String, Long>>> getStats() {
+        return ResponseEntity.ok(entityCacheStats.snapshot());
+    }
+}
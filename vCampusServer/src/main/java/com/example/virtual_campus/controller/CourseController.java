@@ -106,8 +106,7 @@ public class CourseController {
 
     public boolean CourseDelete(Long id){
         if(!courseRepository.existsById(id)) return false;
-        Course course = courseRepository.findById(id).get();
-        courseRepository.delete(course);
+        courseService.deleteCourse(id);
         return true;
     }
 
@@ -120,7 +119,7 @@ public class CourseController {
         course.setCredits(credits);
         course.setSchedule((schedule));
         course.setCapacity(capacity);
-        courseRepository.save(course);
+        courseService.addCourse(course);
         return true;
     }
 }
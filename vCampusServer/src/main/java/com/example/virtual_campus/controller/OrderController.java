@@ -1,6 +1,7 @@
 package com.example.virtual_campus.controller;
 
 import com.example.virtual_campus.model.Order;
+import com.example.virtual_campus.service.InventoryReservationService;
 import com.example.virtual_campus.service.OrderService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -15,6 +16,8 @@ public class OrderController {
 
     @Autowired
     private OrderService orderService;
+    @Autowired
+    private InventoryReservationService inventoryReservationService;
 
     @GetMapping
     public List<Order> getAllOrders() {
@@ -31,7 +34,7 @@ public class OrderController {
     public ResponseEntity<Order> createOrder(
             @RequestParam Long userId,
             @RequestBody Map<Long, Integer> productQuantities) {
-        Order createdOrder = orderService.createOrder(userId, productQuantities);
+        Order createdOrder = inventoryReservationService.createOrder(userId, productQuantities);
         return ResponseEntity.ok(createdOrder);
     }
 }
\ No newline at end of file
@@ -72,8 +72,7 @@ public class ProductController {
 
     public boolean ProductDelete(Long id){
         if(!productRepository.existsById(id)) return false;
-        Product product = productRepository.findById(id).get();
-        productRepository.delete(product);
+        productService.deleteProduct(id);
         return true;
     }
 
@@ -85,7 +84,7 @@ public class ProductController {
         product.setName(name);
         product.setPrice(price);
         product.setQuantity(quantity);
-        productRepository.save(product);
+        productService.createProduct(product);
         return true;
     }
 }
@@ -60,8 +60,9 @@ public class UserController {
 
     // 充值功能，增加用户对应余额
     @PutMapping("/{id}/balance")
-    public ResponseEntity<User> recharge(@PathVariable Long id, @RequestParam Double balance) {
-        User updatedUser = userService.AddBalance(id, balance);
+    public ResponseEntity<User> recharge(@PathVariable Long id, @RequestParam Double balance,
+                                         @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        User updatedUser = userService.AddBalance(id, balance, idempotencyKey);
         return ResponseEntity.ok(updatedUser);
     }
 }
\ No newline at end of file
@@ -0,0 +1,226 @@
+package com.example.virtual_campus.inventory;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单节点的库存台账
+ * 每个商品的可售库存分散到多个分段中，不同线程优先扣自己对应的分段，
+ * 抢购同一件商品时不再集中竞争一个计数，吞吐量随核数增长
+ */
+public class LocalStockLedger implements StockLedger {
+
+    // 分段间隔8个long（64字节），每段独占一个缓存行，避免伪共享
+    private static final int PAD = 8;
+
+    private final int stripes;
+    private final ConcurrentHashMap<Long, Stock> stocks = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Reservation> reservations = new ConcurrentHashMap<>();
+    // 每个用户在每个商品上未结算的预留数量
+    private final ConcurrentHashMap<Holder, Integer> held = new ConcurrentHashMap<>();
+
+    private record Holder(long userId, long productId) {
+    }
+
+    public LocalStockLedger(int stripes) {
+        this.stripes = Math.max(1, stripes);
+    }
+
+    private final class Stock {
+        final AtomicLongArray cells = new AtomicLongArray(stripes * PAD);
+        final LongAdder sold = new LongAdder();
+
+        Stock(long available) {
+            set(available);
+        }
+
+        void set(long available) {
+            long share = available / stripes;
+            for (int i = 0; i < stripes; i++) {
+                cells.set(i * PAD, share + (i < available % stripes ? 1 : 0));
+            }
+        }
+
+        long sum() {
+            long total = 0;
+            for (int i = 0; i < stripes; i++) {
+                total += cells.get(i * PAD);
+            }
+            return total;
+        }
+
+        /**
+         * 从本线程对应的分段开始扣，不够再依次扣其他分段，凑不齐时把已扣的退回
+         */
+        boolean take(int quantity) {
+            long taken = takeUpTo(quantity);
+            if (taken < quantity) {
+                give(taken);
+                return false;
+            }
+            return true;
+        }
+
+        // 尽量扣掉quantity，返回实际扣到的数量
+        long takeUpTo(long quantity) {
+            int home = home();
+            long taken = 0;
+            for (int i = 0; i < stripes && taken < quantity; i++) {
+                int index = ((home + i) % stripes) * PAD;
+                while (true) {
+                    long left = cells.get(index);
+                    long part = Math.min(left, quantity - taken);
+                    if (part <= 0) {
+                        break;
+                    }
+                    if (cells.compareAndSet(index, left, left - part)) {
+                        taken += part;
+                        break;
+                    }
+                }
+            }
+            return taken;
+        }
+
+        void give(long quantity) {
+            if (quantity > 0) {
+                cells.addAndGet(home() * PAD, quantity);
+            }
+        }
+
+        private int home() {
+            return (int) (Thread.currentThread().threadId() % stripes);
+        }
+    }
+
+    @Override
+    public void load(long productId, long available) {
+        stocks.computeIfAbsent(productId, id -> new Stock(available));
+    }
+
+    @Override
+    public void adjust(long productId, long delta) {
+        Stock stock = stocks.get(productId);
+        if (stock == null) {
+            return;
+        }
+        if (delta >= 0) {
+            stock.give(delta);
+        } else {
+            stock.takeUpTo(-delta);
+        }
+    }
+
+    @Override
+    public Long available(long productId) {
+        Stock stock = stocks.get(productId);
+        return stock == null ? null : stock.sum();
+    }
+
+    @Override
+    public long reserved(long productId) {
+        long total = 0;
+        for (Reservation reservation : reservations.values()) {
+            if (reservation.productId() == productId) {
+                total += reservation.quantity();
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public Reservation reserve(long userId, long productId, int quantity, int limit, long ttlMillis) {
+        Stock stock = stocks.get(productId);
+        Holder holder = new Holder(userId, productId);
+        if (stock == null || quantity <= 0 || !hold(holder, quantity, limit)) {
+            return null;
+        }
+        if (!stock.take(quantity)) {
+            unhold(holder, quantity);
+            return null;
+        }
+        Reservation reservation = new Reservation(UUID.randomUUID().toString(), userId, productId, quantity,
+                System.currentTimeMillis() + ttlMillis);
+        reservations.put(reservation.token(), reservation);
+        return reservation;
+    }
+
+    @Override
+    public Reservation claim(String token, Long userId) {
+        Reservation reservation = token == null ? null : reservations.get(token);
+        if (reservation == null || userId != null && reservation.userId() != userId
+                || !reservations.remove(token, reservation)) {
+            return null;
+        }
+        unhold(new Holder(reservation.userId(), reservation.productId()), reservation.quantity());
+        if (reservation.expiresAt() < System.currentTimeMillis()) {
+            release(reservation);
+            return null;
+        }
+        return reservation;
+    }
+
+    @Override
+    public void sold(Reservation reservation) {
+        Stock stock = stocks.get(reservation.productId());
+        if (stock != null) {
+            stock.sold.add(reservation.quantity());
+        }
+    }
+
+    @Override
+    public void release(Reservation reservation) {
+        Stock stock = stocks.get(reservation.productId());
+        if (stock != null) {
+            stock.give(reservation.quantity());
+        }
+    }
+
+    @Override
+    public int expire(long now) {
+        int expired = 0;
+        for (Reservation reservation : reservations.values()) {
+            // remove成功才退回，与claim同时发生时只有一方生效
+            if (reservation.expiresAt() < now && reservations.remove(reservation.token(), reservation)) {
+                unhold(new Holder(reservation.userId(), reservation.productId()), reservation.quantity());
+                release(reservation);
+                expired++;
+            }
+        }
+        return expired;
+    }
+
+    @Override
+    public long drainSold(long productId) {
+        Stock stock = stocks.get(productId);
+        return stock == null ? 0 : stock.sold.sumThenReset();
+    }
+
+    @Override
+    public void restoreSold(long productId, long quantity) {
+        Stock stock = stocks.get(productId);
+        if (stock != null) {
+            stock.sold.add(quantity);
+        }
+    }
+
+    // 计入用户的预留数量，超过限购时不计入
+    private boolean hold(Holder holder, int quantity, int limit) {
+        while (true) {
+            Integer current = held.get(holder);
+            int next = (current == null ? 0 : current) + quantity;
+            if (next > limit) {
+                return false;
+            }
+            if (current == null ? held.putIfAbsent(holder, next) == null : held.replace(holder, current, next)) {
+                return true;
+            }
+        }
+    }
+
+    private void unhold(Holder holder, int quantity) {
+        held.computeIfPresent(holder, (key, current) -> current > quantity ? current - quantity : null);
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.virtual_campus.inventory;
+
+import com.example.virtual_campus.service.RedisService;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 多节点共享的库存台账，数据保存在Redis中
+ * 每个操作用一段Lua脚本原子完成，多个服务器节点同时扣库存不会超卖；
+ * 过期预留和已售数量由某个节点取走后其他节点就取不到，不会重复退回或重复写回数据库
+ */
+public class RedisStockLedger implements StockLedger {
+
+    private static final String STOCK_PREFIX = "inventory:stock:";
+    private static final String RESERVED_PREFIX = "inventory:reserved:";
+    private static final String SOLD_PREFIX = "inventory:sold:";
+    // 有序集合：token -> 过期时间，用于找出过期的预留
+    private static final String EXPIRY_KEY = "inventory:reservations";
+    // 哈希表：token -> "用户id:商品id:数量:过期时间"
+    private static final String RESERVATION_KEY = "inventory:reservation";
+    // 哈希表：用户id -> 该用户在这个商品上未结算的预留数量
+    private static final String HELD_PREFIX = "inventory:held:";
+    // 每轮清理最多处理的过期预留数
+    private static final int EXPIRE_BATCH = 500;
+
+    private static final RedisScript<Long> RESERVE = new DefaultRedisScript<>("""
+            local qty = tonumber(ARGV[1])
+            if tonumber(redis.call('get', KEYS[1]) or '-1') < qty then
+                return 0
+            end
+            if tonumber(redis.call('hget', KEYS[5], ARGV[5]) or '0') + qty > tonumber(ARGV[6]) then
+                return 0
+            end
+            redis.call('decrby', KEYS[1], qty)
+            redis.call('incrby', KEYS[2], qty)
+            redis.call('zadd', KEYS[3], ARGV[3], ARGV[2])
+            redis.call('hset', KEYS[4], ARGV[2], ARGV[4])
+            redis.call('hincrby', KEYS[5], ARGV[5], qty)
+            return 1
+            """, Long.class);
+
+    // ARGV[2]为空时不核对用户；取出后从用户的预留数量中减去
+    private static final RedisScript<String> CLAIM = new DefaultRedisScript<>("""
+            local value = redis.call('hget', KEYS[2], ARGV[1])
+            if not value then
+                return false
+            end
+            local user, product, qty = string.match(value, '^(%d+):(%d+):(%d+):')
+            if ARGV[2] ~= '' and ARGV[2] ~= user then
+                return false
+            end
+            if redis.call('zrem', KEYS[1], ARGV[1]) == 0 then
+                return false
+            end
+            redis.call('hdel', KEYS[2], ARGV[1])
+            local held = KEYS[3] .. product
+            if redis.call('hincrby', held, user, -tonumber(qty)) <= 0 then
+                redis.call('hdel', held, user)
+            end
+            return value
+            """, String.class);
+
+    // 预留中的数量转入第二个计数（已售或可售）
+    private static final RedisScript<Long> SETTLE = new DefaultRedisScript<>("""
+            redis.call('decrby', KEYS[1], ARGV[1])
+            return redis.call('incrby', KEYS[2], ARGV[1])
+            """, Long.class);
+
+    private static final RedisScript<Long> DRAIN = new DefaultRedisScript<>("""
+            local value = tonumber(redis.call('get', KEYS[1]) or '0')
+            redis.call('set', KEYS[1], '0')
+            return value
+            """, Long.class);
+
+    private static final RedisScript<Long> INCREMENT = new DefaultRedisScript<>(
+            "return redis.call('incrby', KEYS[1], ARGV[1])", Long.class);
+
+    // 未载入的商品不调整，减少时最多减到0
+    private static final RedisScript<Long> ADJUST = new DefaultRedisScript<>("""
+            if redis.call('exists', KEYS[1]) == 0 then
+                return -1
+            end
+            local value = redis.call('incrby', KEYS[1], ARGV[1])
+            if value < 0 then
+                redis.call('set', KEYS[1], '0')
+                return 0
+            end
+            return value
+            """, Long.class);
+
+    private final RedisService redisService;
+
+    public RedisStockLedger(RedisService redisService) {
+        this.redisService = redisService;
+    }
+
+    @Override
+    public void load(long productId, long available) {
+        redisService.setIfAbsent(STOCK_PREFIX + productId, String.valueOf(available));
+    }
+
+    @Override
+    public void adjust(long productId, long delta) {
+        redisService.execute(ADJUST, List.of(STOCK_PREFIX + productId), String.valueOf(delta));
+    }
+
+    @Override
+    public Long available(long productId) {
+        Object value = redisService.get(STOCK_PREFIX + productId);
+        return value == null ? null : Long.parseLong(value.toString());
+    }
+
+    @Override
+    public long reserved(long productId) {
+        Object value = redisService.get(RESERVED_PREFIX + productId);
+        return value == null ? 0 : Long.parseLong(value.toString());
+    }
+
+    @Override
+    public Reservation reserve(long userId, long productId, int quantity, int limit, long ttlMillis) {
+        if (quantity <= 0) {
+            return null;
+        }
+        Reservation reservation = new Reservation(UUID.randomUUID().toString(), userId, productId, quantity,
+                System.currentTimeMillis() + ttlMillis);
+        Long ok = redisService.execute(RESERVE,
+                List.of(STOCK_PREFIX + productId, RESERVED_PREFIX + productId, EXPIRY_KEY, RESERVATION_KEY,
+                        HELD_PREFIX + productId),
+                String.valueOf(quantity), reservation.token(), String.valueOf(reservation.expiresAt()),
+                userId + ":" + productId + ":" + quantity + ":" + reservation.expiresAt(),
+                String.valueOf(userId), String.valueOf(limit));
+        return ok != null && ok == 1 ? reservation : null;
+    }
+
+    @Override
+    public Reservation claim(String token, Long userId) {
+        if (token == null) {
+            return null;
+        }
+        String value = redisService.execute(CLAIM, List.of(EXPIRY_KEY, RESERVATION_KEY, HELD_PREFIX), token,
+                userId == null ? "" : String.valueOf(userId));
+        if (value == null) {
+            return null;
+        }
+        String[] parts = value.split(":");
+        Reservation reservation = new Reservation(token, Long.parseLong(parts[0]), Long.parseLong(parts[1]),
+                Integer.parseInt(parts[2]), Long.parseLong(parts[3]));
+        if (reservation.expiresAt() < System.currentTimeMillis()) {
+            release(reservation);
+            return null;
+        }
+        return reservation;
+    }
+
+    @Override
+    public void sold(Reservation reservation) {
+        redisService.execute(SETTLE,
+                List.of(RESERVED_PREFIX + reservation.productId(), SOLD_PREFIX + reservation.productId()),
+                String.valueOf(reservation.quantity()));
+    }
+
+    @Override
+    public void release(Reservation reservation) {
+        redisService.execute(SETTLE,
+                List.of(RESERVED_PREFIX + reservation.productId(), STOCK_PREFIX + reservation.productId()),
+                String.valueOf(reservation.quantity()));
+    }
+
+    @Override
+    public int expire(long now) {
+        int expired = 0;
+        for (Object token : redisService.rangeByScore(EXPIRY_KEY, 0, now, EXPIRE_BATCH)) {
+            // claim会把过期的预留退回，其他节点已取走的返回null
+            if (claim(token.toString(), null) == null) {
+                expired++;
+            }
+        }
+        return expired;
+    }
+
+    @Override
+    public long drainSold(long productId) {
+        Long value = redisService.execute(DRAIN, List.of(SOLD_PREFIX + productId));
+        return value == null ? 0 : value;
+    }
+
+    @Override
+    public void restoreSold(long productId, long quantity) {
+        redisService.execute(INCREMENT, List.of(SOLD_PREFIX + productId), String.valueOf(quantity));
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.virtual_campus.inventory;
+
+/**
+ * 一次库存预留，凭token在有效期内结算，过期后库存自动退回
+ * @param userId 预留的用户，只有本人可以结算或取消
+ * @param expiresAt 过期时间，毫秒时间戳
+ */
+public record Reservation(String token, long userId, long productId, int quantity, long expiresAt) {
+}
@@ -0,0 +1,58 @@
+package com.example.virtual_campus.inventory;
+
+/**
+ * 热门商品的库存台账
+ * 可售库存、预留和已售未落库的数量都记在这里，购买时不再逐次更新数据库中的商品行
+ * 数据库中的库存 = 可售 + 预留中 + 已售未落库
+ */
+public interface StockLedger {
+
+    /**
+     * 载入商品的可售库存，已载入的保持不变（多个节点同时启动时只有第一个生效）
+     */
+    void load(long productId, long available);
+
+    /**
+     * 按差值调整商品的可售库存，管理员修改库存后调用，未载入的商品不变
+     * 与预留一样原子地加减同一个计数，调整期间的预留和退回不会被覆盖；减少时最多减到0
+     */
+    void adjust(long productId, long delta);
+
+    Long available(long productId);
+
+    // 商品当前预留中的数量
+    long reserved(long productId);
+
+    /**
+     * 为用户预留库存，同一用户在同一商品上未结算的预留合计不超过limit
+     * @return 库存不足或超过限购时返回null
+     */
+    Reservation reserve(long userId, long productId, int quantity, int limit, long ttlMillis);
+
+    /**
+     * 取出一个未过期的预留准备结算，取出后不会再被过期清理，也不再计入用户的限购
+     * @param userId 只取出该用户的预留，为null时不核对（过期清理）
+     * @return 不存在、已过期或属于其他用户时返回null
+     */
+    Reservation claim(String token, Long userId);
+
+    // 结算成功，计入已售未落库
+    void sold(Reservation reservation);
+
+    // 结算失败或取消，库存退回
+    void release(Reservation reservation);
+
+    /**
+     * 退回所有已过期的预留
+     * @return 退回的预留个数
+     */
+    int expire(long now);
+
+    /**
+     * 取出并清零已售未落库的数量，由定时任务写回数据库
+     */
+    long drainSold(long productId);
+
+    // 写回数据库失败时放回
+    void restoreSold(long productId, long quantity);
+}
@@ -1,6 +1,8 @@
 package com.example.virtual_campus.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
@@ -19,9 +21,15 @@ import lombok.Getter;
 import lombok.Setter;
 
 @Entity
-@Table(name = "books")
+@Table(name = "books", indexes = {
+        @Index(name = "idx_books_title", columnList = "title"),
+        @Index(name = "idx_books_author", columnList = "author"),
+        @Index(name = "idx_books_revision", columnList = "revision")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Data
-public class Book {
+public class Book implements Revisioned {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -31,4 +39,8 @@ public class Book {
     private String title;
     private String author;
     private boolean available = true;
+
+    // 修改版本号，新增或修改时由RevisionTracker分配，客户端按它增量同步列表
+    @Column(columnDefinition = "bigint not null default 0")
+    private long revision;
 }
@@ -19,7 +19,10 @@ import lombok.Getter;
 import lombok.Setter;
 
 @Entity
-@Table(name = "borrows")
+@Table(name = "borrows", indexes = {
+        @Index(name = "idx_borrows_user_return", columnList = "user_id, return_date"),
+        @Index(name = "idx_borrows_book_return", columnList = "book_id, return_date")
+})
 @Data
 public class Borrow {
     @Id
@@ -1,6 +1,8 @@
 package com.example.virtual_campus.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
@@ -17,9 +19,15 @@ import lombok.Getter;
 import lombok.Setter;
 
 @Entity
-@Table(name = "courses")
+@Table(name = "courses", indexes = {
+        @Index(name = "idx_courses_name", columnList = "name"),
+        @Index(name = "idx_courses_teacher", columnList = "teacher"),
+        @Index(name = "idx_courses_revision", columnList = "revision")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Data
-public class Course {
+public class Course implements Revisioned {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -32,6 +40,14 @@ public class Course {
 
     private int capacity; // 课程容量
 
+    // 修改版本号，见Revisioned
+    @Column(columnDefinition = "bigint not null default 0")
+    private long revision;
+
+    // 已选人数，只由选课、退课的条件更新维护，保存课程信息时不写入该列
+    @Column(name = "enrolled_count", columnDefinition = "int not null default 0", insertable = false, updatable = false)
+    private int enrolledCount;
+
     @ManyToMany(mappedBy = "courses")
     private Set<Student> enrolledStudents = new HashSet<>();
 
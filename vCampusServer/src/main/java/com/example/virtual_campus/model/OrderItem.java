@@ -16,10 +16,12 @@ import com.fasterxml.jackson.annotation.JsonManagedReference;
 import java.time.LocalDateTime;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Entity
 @Table(name = "orderitems")
 @Data
+@NoArgsConstructor // JPA读取订单时需要无参构造
 public class OrderItem {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -1,6 +1,8 @@
 package com.example.virtual_campus.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
@@ -17,9 +19,13 @@ import java.time.LocalDateTime;
 import lombok.Data;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_revision", columnList = "revision")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Data
-public class Product {
+public class Product implements Revisioned {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -34,4 +40,8 @@ public class Product {
     @NotNull(message = "Product quantity is required")
     private Integer quantity;
 
+    // 修改版本号，见Revisioned
+    @Column(columnDefinition = "bigint not null default 0")
+    private long revision;
+
 }
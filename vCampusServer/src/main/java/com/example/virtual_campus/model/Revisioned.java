@@ -0,0 +1,15 @@
+package com.example.virtual_campus.model;
+
+/**
+ * 带修改版本号的实体
+ * 新增或修改时由RevisionTracker分配一个全局递增的版本号，删除时留下Tombstone；
+ * 客户端记住上次同步到的版本号，之后只取比它新的行和删除记录
+ */
+public interface Revisioned {
+
+    Long getId();
+
+    long getRevision();
+
+    void setRevision(long revision);
+}
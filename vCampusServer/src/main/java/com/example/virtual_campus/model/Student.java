@@ -1,6 +1,8 @@
 package com.example.virtual_campus.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
@@ -15,9 +17,16 @@ import java.time.LocalDateTime;
 import lombok.Data;
 
 @Entity
-@Table(name = "students")
+@Table(name = "students", indexes = {
+        @Index(name = "idx_students_grade_major_status", columnList = "grade, major, status"),
+        @Index(name = "idx_students_major", columnList = "major"),
+        @Index(name = "idx_students_status", columnList = "status"),
+        @Index(name = "idx_students_revision", columnList = "revision")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Data
-public class Student {
+public class Student implements Revisioned {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -28,6 +37,10 @@ public class Student {
     private String major;
     private String status; // 学籍状态：在读、休学、退学等
 
+    // 修改版本号，见Revisioned
+    @Column(columnDefinition = "bigint not null default 0")
+    private long revision;
+
     @ManyToMany
     @JoinTable(name = "student_courses", joinColumns = @JoinColumn(name = "student_id"), inverseJoinColumns = @JoinColumn(name = "course_id"))
     private Set<Course> courses = new HashSet<>();
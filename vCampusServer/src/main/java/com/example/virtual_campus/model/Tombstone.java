@@ -0,0 +1,36 @@
+package com.example.virtual_campus.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 已删除实体的记录，增量同步时告诉客户端把这一行从表格中去掉
+ * 只追加不修改，由RevisionTracker在删除实体的事务中写入
+ */
+@Entity
+@Table(name = "tombstones", indexes = {
+        @Index(name = "idx_tombstones_entity_revision", columnList = "entity, revision")
+})
+@Data
+@NoArgsConstructor
+public class Tombstone {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 32)
+    private String entity; // 实体类名，例如Book
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Column(nullable = false)
+    private long revision;
+
+    public Tombstone(String entity, Long entityId, long revision) {
+        this.entity = entity;
+        this.entityId = entityId;
+        this.revision = revision;
+    }
+}
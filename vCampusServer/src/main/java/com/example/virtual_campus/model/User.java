@@ -1,6 +1,8 @@
 package com.example.virtual_campus.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
@@ -18,9 +20,14 @@ import lombok.Data;
 import java.util.stream.Collectors;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_name", columnList = "name"),
+        @Index(name = "idx_users_revision", columnList = "revision")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Data
-public class User {
+public class User implements Revisioned {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -32,9 +39,16 @@ public class User {
     private String college; // 学院
     private String userId; // 学号或工号
 
-    private Double balance; // 余额
+    // 余额（分），只通过UserRepository.addBalanceCents原子修改并记入钱包流水，新建和保存用户实体时都不会写入
+    @Column(name = "balance_cents", columnDefinition = "bigint not null default 0", insertable = false, updatable = false)
+    private Long balanceCents = 0L;
 
     private Integer usertype;//用户类型：0是管理员，1是教师，2是学生
+
+    // 修改版本号，见Revisioned
+    @Column(columnDefinition = "bigint not null default 0")
+    private long revision;
+
 /*
     @ManyToMany(fetch = FetchType.EAGER)
     @JoinTable(name = "user_roles", joinColumns = @JoinColumn(name = "user_id"), inverseJoinColumns = @JoinColumn(name = "role_id"))
@@ -52,4 +66,13 @@ public class User {
     @JsonManagedReference
     private Set<Order> orders = new HashSet<>();
 */
+
+    // 按元读写余额，兼容原有接口
+    public Double getBalance() {
+        return balanceCents == null ? 0.0 : balanceCents / 100.0;
+    }
+
+    public void setBalance(Double balance) {
+        this.balanceCents = balance == null ? 0L : Math.round(balance * 100);
+    }
 }
@@ -0,0 +1,58 @@
+package com.example.virtual_campus.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 钱包流水，只追加不修改
+ * 每笔记录变动金额和变动后的余额，同一用户的幂等键唯一，客户端重试同一请求不会重复记账
+ */
+@Entity
+@Table(name = "wallet_entries", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_wallet_entries_user_key", columnNames = {"user_id", "idempotency_key"})
+}, indexes = {
+        @Index(name = "idx_wallet_entries_user", columnList = "user_id, id")
+})
+@Data
+@NoArgsConstructor
+public class WalletEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "amount_cents", nullable = false)
+    private Long amountCents; // 变动金额（分），扣款为负
+
+    @Column(name = "balance_after_cents", nullable = false)
+    private Long balanceAfterCents; // 变动后的余额（分）
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private WalletEntryType type;
+
+    @Column(name = "idempotency_key", nullable = false, length = 64)
+    private String idempotencyKey;
+
+    @Column(name = "order_id")
+    private Long orderId; // 购物扣款对应的订单
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public WalletEntry(Long userId, Long amountCents, Long balanceAfterCents, WalletEntryType type,
+                       String idempotencyKey, Long orderId) {
+        this.userId = userId;
+        this.amountCents = amountCents;
+        this.balanceAfterCents = balanceAfterCents;
+        this.type = type;
+        this.idempotencyKey = idempotencyKey;
+        this.orderId = orderId;
+        this.createdAt = LocalDateTime.now();
+    }
+}
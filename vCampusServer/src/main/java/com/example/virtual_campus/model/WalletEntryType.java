@@ -0,0 +1,7 @@
+package com.example.virtual_campus.model;
+
+public enum WalletEntryType {
+    OPENING, // 启用流水前的原有余额
+    DEPOSIT, // 充值
+    PURCHASE // 购物扣款
+}
@@ -0,0 +1,75 @@
+package com.example.virtual_campus.protocol;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 二进制负载读取器，与BinaryWriter的编码方式一一对应
+ */
+public class BinaryReader {
+
+    private final DataInputStream data;
+
+    public BinaryReader(byte[] bytes, int offset, int length) {
+        this.data = new DataInputStream(new ByteArrayInputStream(bytes, offset, length));
+    }
+
+    public long readVarLong() throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = data.readUnsignedByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (v >>> 1) ^ -(v & 1);
+            }
+        }
+        throw new StreamCorruptedException("变长整数过长");
+    }
+
+    public int readVarInt() throws IOException {
+        return (int) readVarLong();
+    }
+
+    public byte readByte() throws IOException {
+        return data.readByte();
+    }
+
+    public boolean readBoolean() throws IOException {
+        return data.readBoolean();
+    }
+
+    public double readDouble() throws IOException {
+        return data.readDouble();
+    }
+
+    public byte[] readBytes(int length) throws IOException {
+        byte[] bytes = new byte[length];
+        data.readFully(bytes);
+        return bytes;
+    }
+
+    public String readString() throws IOException {
+        int length = readVarInt();
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length - 1];
+        data.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public Long readNullableLong() throws IOException {
+        return data.readBoolean() ? readVarLong() : null;
+    }
+
+    public Integer readNullableInt() throws IOException {
+        return data.readBoolean() ? readVarInt() : null;
+    }
+
+    public Double readNullableDouble() throws IOException {
+        return data.readBoolean() ? data.readDouble() : null;
+    }
+}
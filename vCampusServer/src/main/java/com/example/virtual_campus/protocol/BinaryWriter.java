@@ -0,0 +1,94 @@
+package com.example.virtual_campus.protocol;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 二进制负载写入器
+ * 整数使用zigzag变长编码，字符串使用“长度+UTF-8字节”，长度为0表示null
+ */
+public class BinaryWriter {
+
+    private final ByteArrayOutputStream buffer;
+    private final DataOutputStream data;
+
+    public BinaryWriter() {
+        this(256);
+    }
+
+    public BinaryWriter(int initialSize) {
+        this.buffer = new ByteArrayOutputStream(initialSize);
+        this.data = new DataOutputStream(buffer);
+    }
+
+    public void writeVarLong(long value) throws IOException {
+        long v = (value << 1) ^ (value >> 63);
+        while ((v & ~0x7FL) != 0) {
+            data.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        data.writeByte((int) v);
+    }
+
+    public void writeVarInt(int value) throws IOException {
+        writeVarLong(value);
+    }
+
+    public void writeByte(int value) throws IOException {
+        data.writeByte(value);
+    }
+
+    public void writeBoolean(boolean value) throws IOException {
+        data.writeBoolean(value);
+    }
+
+    public void writeDouble(double value) throws IOException {
+        data.writeDouble(value);
+    }
+
+    public void writeBytes(byte[] bytes) throws IOException {
+        data.write(bytes);
+    }
+
+    public void writeString(String value) throws IOException {
+        if (value == null) {
+            writeVarInt(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length + 1);
+        data.write(bytes);
+    }
+
+    // 可空的包装类型先写一个是否存在的标记
+    public void writeNullableLong(Long value) throws IOException {
+        data.writeBoolean(value != null);
+        if (value != null) {
+            writeVarLong(value);
+        }
+    }
+
+    public void writeNullableInt(Integer value) throws IOException {
+        data.writeBoolean(value != null);
+        if (value != null) {
+            writeVarInt(value);
+        }
+    }
+
+    public void writeNullableDouble(Double value) throws IOException {
+        data.writeBoolean(value != null);
+        if (value != null) {
+            data.writeDouble(value);
+        }
+    }
+
+    public int size() {
+        return buffer.size();
+    }
+
+    public byte[] toByteArray() {
+        return buffer.toByteArray();
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.virtual_campus.protocol;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 行集中各列的类型及其整列打包方式
+ * 数值列先写空值位图，再只写非空值；字符串列使用字典编码，重复的出版社、专业等只传一次
+ */
+public enum ColumnType {
+
+    // 按与上一非空值的差值写变长整数，有序的id几乎都只占1字节
+    LONG(1) {
+        @Override
+        void write(Object[] values, BinaryWriter writer) throws IOException {
+            writeNullMask(values, writer);
+            long previous = 0;
+            for (Object value : values) {
+                if (value != null) {
+                    long current = ((Number) value).longValue();
+                    writer.writeVarLong(current - previous);
+                    previous = current;
+                }
+            }
+        }
+
+        @Override
+        Object[] read(int rows, BinaryReader reader) throws IOException {
+            boolean[] present = readNullMask(rows, reader);
+            Object[] values = new Object[rows];
+            long previous = 0;
+            for (int i = 0; i < rows; i++) {
+                if (present[i]) {
+                    previous += reader.readVarLong();
+                    values[i] = previous;
+                }
+            }
+            return values;
+        }
+    },
+
+    INT(2) {
+        @Override
+        void write(Object[] values, BinaryWriter writer) throws IOException {
+            writeNullMask(values, writer);
+            for (Object value : values) {
+                if (value != null) {
+                    writer.writeVarInt(((Number) value).intValue());
+                }
+            }
+        }
+
+        @Override
+        Object[] read(int rows, BinaryReader reader) throws IOException {
+            boolean[] present = readNullMask(rows, reader);
+            Object[] values = new Object[rows];
+            for (int i = 0; i < rows; i++) {
+                if (present[i]) {
+                    values[i] = reader.readVarInt();
+                }
+            }
+            return values;
+        }
+    },
+
+    DOUBLE(3) {
+        @Override
+        void write(Object[] values, BinaryWriter writer) throws IOException {
+            writeNullMask(values, writer);
+            for (Object value : values) {
+                if (value != null) {
+                    writer.writeDouble(((Number) value).doubleValue());
+                }
+            }
+        }
+
+        @Override
+        Object[] read(int rows, BinaryReader reader) throws IOException {
+            boolean[] present = readNullMask(rows, reader);
+            Object[] values = new Object[rows];
+            for (int i = 0; i < rows; i++) {
+                if (present[i]) {
+                    values[i] = reader.readDouble();
+                }
+            }
+            return values;
+        }
+    },
+
+    // 布尔列直接打包成位图，null按false处理
+    BOOLEAN(4) {
+        @Override
+        void write(Object[] values, BinaryWriter writer) throws IOException {
+            byte[] bits = new byte[(values.length + 7) / 8];
+            for (int i = 0; i < values.length; i++) {
+                if (Boolean.TRUE.equals(values[i])) {
+                    bits[i >> 3] |= (byte) (1 << (i & 7));
+                }
+            }
+            writer.writeBytes(bits);
+        }
+
+        @Override
+        Object[] read(int rows, BinaryReader reader) throws IOException {
+            byte[] bits = reader.readBytes((rows + 7) / 8);
+            Object[] values = new Object[rows];
+            for (int i = 0; i < rows; i++) {
+                values[i] = (bits[i >> 3] & (1 << (i & 7))) != 0;
+            }
+            return values;
+        }
+    },
+
+    // 字典编码：先写去重后的字符串表，再为每行写下标，0表示null
+    STRING(5) {
+        @Override
+        void write(Object[] values, BinaryWriter writer) throws IOException {
+            Map<String, Integer> dictionary = new LinkedHashMap<>();
+            int[] indexes = new int[values.length];
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] != null) {
+                    indexes[i] = dictionary.computeIfAbsent(values[i].toString(), k -> dictionary.size() + 1);
+                }
+            }
+            writer.writeVarInt(dictionary.size());
+            for (String value : dictionary.keySet()) {
+                writer.writeString(value);
+            }
+            for (int index : indexes) {
+                writer.writeVarInt(index);
+            }
+        }
+
+        @Override
+        Object[] read(int rows, BinaryReader reader) throws IOException {
+            int size = reader.readVarInt();
+            String[] dictionary = new String[size + 1];
+            for (int i = 1; i <= size; i++) {
+                dictionary[i] = reader.readString();
+            }
+            Object[] values = new Object[rows];
+            for (int i = 0; i < rows; i++) {
+                int index = reader.readVarInt();
+                if (index < 0 || index > size) {
+                    throw new StreamCorruptedException("字符串字典下标越界：" + index);
+                }
+                values[i] = dictionary[index];
+            }
+            return values;
+        }
+    };
+
+    private static final Map<Byte, ColumnType> BY_CODE = new HashMap<>();
+
+    static {
+        for (ColumnType type : values()) {
+            BY_CODE.put(type.code, type);
+        }
+    }
+
+    private final byte code;
+
+    ColumnType(int code) {
+        this.code = (byte) code;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    public static ColumnType fromCode(byte code) throws IOException {
+        ColumnType type = BY_CODE.get(code);
+        if (type == null) {
+            throw new StreamCorruptedException("未知的列类型：" + code);
+        }
+        return type;
+    }
+
+    abstract void write(Object[] values, BinaryWriter writer) throws IOException;
+
+    abstract Object[] read(int rows, BinaryReader reader) throws IOException;
+
+    private static void writeNullMask(Object[] values, BinaryWriter writer) throws IOException {
+        byte[] bits = new byte[(values.length + 7) / 8];
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                bits[i >> 3] |= (byte) (1 << (i & 7));
+            }
+        }
+        writer.writeBytes(bits);
+    }
+
+    private static boolean[] readNullMask(int rows, BinaryReader reader) throws IOException {
+        byte[] bits = reader.readBytes((rows + 7) / 8);
+        boolean[] present = new boolean[rows];
+        for (int i = 0; i < rows; i++) {
+            present[i] = (bits[i >> 3] & (1 << (i & 7))) != 0;
+        }
+        return present;
+    }
+}
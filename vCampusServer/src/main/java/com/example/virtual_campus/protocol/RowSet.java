@@ -0,0 +1,68 @@
+package com.example.virtual_campus.protocol;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 解码后的行集，按列保存数据
+ */
+public class RowSet {
+
+    private final List<String> columnNames;
+    private final List<ColumnType> columnTypes;
+    private final Object[][] columns;
+    private final int rowCount;
+
+    private RowSet(List<String> columnNames, List<ColumnType> columnTypes, Object[][] columns, int rowCount) {
+        this.columnNames = columnNames;
+        this.columnTypes = columnTypes;
+        this.columns = columns;
+        this.rowCount = rowCount;
+    }
+
+    public static RowSet decode(byte[] frame) throws IOException {
+        BinaryReader reader = WireFrame.open(frame, WireFrame.TYPE_ROW_SET);
+        int columnCount = reader.readVarInt();
+        List<String> names = new ArrayList<>(columnCount);
+        List<ColumnType> types = new ArrayList<>(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            names.add(reader.readString());
+            types.add(ColumnType.fromCode(reader.readByte()));
+        }
+        int rows = reader.readVarInt();
+        if (rows < 0) {
+            throw new StreamCorruptedException("行数错误：" + rows);
+        }
+        Object[][] columns = new Object[columnCount][];
+        for (int i = 0; i < columnCount; i++) {
+            columns[i] = types.get(i).read(rows, reader);
+        }
+        return new RowSet(names, types, columns, rows);
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    public ColumnType getColumnType(String column) {
+        return columnTypes.get(indexOf(column));
+    }
+
+    public Object get(int row, String column) {
+        return columns[indexOf(column)][row];
+    }
+
+    private int indexOf(String column) {
+        int index = columnNames.indexOf(column);
+        if (index < 0) {
+            throw new IllegalArgumentException("不存在的列：" + column);
+        }
+        return index;
+    }
+}
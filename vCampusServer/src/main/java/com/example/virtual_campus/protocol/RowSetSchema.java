@@ -0,0 +1,52 @@
+package com.example.virtual_campus.protocol;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 行集的列定义，负责把实体列表按列打包成一个行集帧
+ * 负载格式：列数 (列名 类型)* 行数 各列数据
+ */
+public class RowSetSchema<T> {
+
+    private final List<Column<T>> columns = new ArrayList<>();
+
+    public RowSetSchema<T> column(String name, ColumnType type, Function<? super T, ?> getter) {
+        columns.add(new Column<>(name, type, getter));
+        return this;
+    }
+
+    public List<String> getColumnNames() {
+        List<String> names = new ArrayList<>();
+        for (Column<T> column : columns) {
+            names.add(column.name);
+        }
+        return Collections.unmodifiableList(names);
+    }
+
+    public byte[] encode(Collection<? extends T> rows) throws IOException {
+        BinaryWriter payload = new BinaryWriter(Math.max(256, rows.size() * 16));
+        payload.writeVarInt(columns.size());
+        for (Column<T> column : columns) {
+            payload.writeString(column.name);
+            payload.writeByte(column.type.getCode());
+        }
+        payload.writeVarInt(rows.size());
+        for (Column<T> column : columns) {
+            Object[] values = new Object[rows.size()];
+            int i = 0;
+            for (T row : rows) {
+                values[i++] = column.getter.apply(row);
+            }
+            column.type.write(values, payload);
+        }
+        return WireFrame.frame(WireFrame.TYPE_ROW_SET, payload.toByteArray());
+    }
+
+    private record Column<T>(String name, ColumnType type, Function<? super T, ?> getter) {
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.virtual_campus.protocol;
+
+import com.example.virtual_campus.model.Book;
+import com.example.virtual_campus.model.Course;
+import com.example.virtual_campus.model.Product;
+import com.example.virtual_campus.model.Student;
+import com.example.virtual_campus.model.User;
+
+/**
+ * 各实体列表的行集定义，列顺序即客户端表格的列顺序
+ */
+public final class RowSets {
+
+    public static final RowSetSchema<Book> BOOK = new RowSetSchema<Book>()
+            .column("id", ColumnType.LONG, Book::getId)
+            .column("title", ColumnType.STRING, Book::getTitle)
+            .column("author", ColumnType.STRING, Book::getAuthor)
+            .column("press", ColumnType.STRING, Book::getPress)
+            .column("isbn", ColumnType.STRING, Book::getIsbn)
+            .column("available", ColumnType.BOOLEAN, Book::isAvailable);
+
+    public static final RowSetSchema<Course> COURSE = new RowSetSchema<Course>()
+            .column("id", ColumnType.LONG, Course::getId)
+            .column("name", ColumnType.STRING, Course::getName)
+            .column("teacher", ColumnType.STRING, Course::getTeacher)
+            .column("credits", ColumnType.INT, Course::getCredits)
+            .column("schedule", ColumnType.STRING, Course::getSchedule)
+            .column("capacity", ColumnType.INT, Course::getCapacity);
+
+    public static final RowSetSchema<Product> PRODUCT = new RowSetSchema<Product>()
+            .column("id", ColumnType.LONG, Product::getId)
+            .column("name", ColumnType.STRING, Product::getName)
+            .column("price", ColumnType.DOUBLE, Product::getPrice)
+            .column("quantity", ColumnType.INT, Product::getQuantity);
+
+    public static final RowSetSchema<Student> STUDENT = new RowSetSchema<Student>()
+            .column("id", ColumnType.LONG, Student::getId)
+            .column("name", ColumnType.STRING, Student::getName)
+            .column("grade", ColumnType.STRING, Student::getGrade)
+            .column("major", ColumnType.STRING, Student::getMajor)
+            .column("status", ColumnType.STRING, Student::getStatus);
+
+    public static final RowSetSchema<User> USER = new RowSetSchema<User>()
+            .column("id", ColumnType.LONG, User::getId)
+            .column("name", ColumnType.STRING, User::getName)
+            .column("usertype", ColumnType.INT, User::getUsertype);
+
+    private RowSets() {
+    }
+}
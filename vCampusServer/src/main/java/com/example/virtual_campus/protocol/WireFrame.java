@@ -0,0 +1,74 @@
+package com.example.virtual_campus.protocol;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+
+/**
+ * 带版本号的二进制帧
+ * 帧格式：魔数(2字节) 版本(1字节) 类型(1字节) 负载长度(4字节) | 负载
+ * 整个帧作为一个byte[]写入对象流，取代原先每个字段一次writeObject
+ */
+public final class WireFrame {
+
+    public static final short MAGIC = 0x5643; // "VC"
+    public static final byte VERSION = 2;
+    public static final int HEADER_SIZE = 8;
+
+    // 帧类型
+    public static final byte TYPE_ROW_SET = 1;
+
+    private WireFrame() {
+    }
+
+    public static byte[] frame(byte type, byte[] payload) {
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        frame.putShort(MAGIC);
+        frame.put(VERSION);
+        frame.put(type);
+        frame.putInt(payload.length);
+        frame.put(payload);
+        return frame.array();
+    }
+
+    /**
+     * 把列表按行集编码后写入对象流
+     * 使用writeUnshared，避免对象流的句柄表一直持有已发送的帧
+     */
+    public static <T> void write(ObjectOutputStream out, RowSetSchema<T> schema, Collection<? extends T> rows) throws IOException {
+        out.writeUnshared(schema.encode(rows));
+    }
+
+    // 写入已编码好的帧，例如从缓存中取出的行集
+    public static void write(ObjectOutputStream out, byte[] frame) throws IOException {
+        out.writeUnshared(frame);
+    }
+
+    /**
+     * 校验帧头并返回定位到负载起始处的读取器
+     */
+    public static BinaryReader open(byte[] frame, byte expectedType) throws IOException {
+        if (frame == null || frame.length < HEADER_SIZE) {
+            throw new StreamCorruptedException("帧长度不足");
+        }
+        ByteBuffer header = ByteBuffer.wrap(frame, 0, HEADER_SIZE);
+        if (header.getShort() != MAGIC) {
+            throw new StreamCorruptedException("帧魔数错误");
+        }
+        byte version = header.get();
+        if (version != VERSION) {
+            throw new StreamCorruptedException("不支持的协议版本：" + version);
+        }
+        byte type = header.get();
+        if (type != expectedType) {
+            throw new StreamCorruptedException("帧类型不匹配：" + type);
+        }
+        int length = header.getInt();
+        if (length != frame.length - HEADER_SIZE) {
+            throw new StreamCorruptedException("帧负载长度错误：" + length);
+        }
+        return new BinaryReader(frame, HEADER_SIZE, length);
+    }
+}
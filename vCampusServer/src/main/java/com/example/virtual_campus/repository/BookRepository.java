@@ -1,10 +1,32 @@
 package com.example.virtual_campus.repository;
 
 import com.example.virtual_campus.model.Book;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, JpaSpecificationExecutor<Book> {
+    // 游标分页，取id大于afterId的下一批
+    Slice<Book> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
 
-}
\ No newline at end of file
+    // 增量同步：版本号大于revision的行
+    List<Book> findByRevisionGreaterThanOrderByIdAsc(long revision);
+
+    // 条件更新：只有仍可借时才改为已借出，返回1表示抢到，0表示已被借走或不存在
+    // 并发借同一本书时行锁使后到的更新等待，提交后再判断条件，只会有一个成功
+    // 批量更新不经过实体事件，由调用处传入新的版本号
+    @Modifying
+    @Query("update Book b set b.available = false, b.revision = :revision where b.id = :id and b.available = true")
+    int markBorrowed(@Param("id") Long id, @Param("revision") long revision);
+
+    @Modifying
+    @Query("update Book b set b.available = true, b.revision = :revision where b.id = :id")
+    int markReturned(@Param("id") Long id, @Param("revision") long revision);
+}
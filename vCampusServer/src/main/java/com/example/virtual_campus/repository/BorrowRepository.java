@@ -2,6 +2,31 @@ package com.example.virtual_campus.repository;
 
 import com.example.virtual_campus.model.Borrow;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
 
 public interface BorrowRepository extends JpaRepository<Borrow, Long> {
+
+    // 以下查询均命中borrows(user_id, return_date)或borrows(book_id, return_date)索引
+
+    // 某本书当前未归还的借阅记录
+    Optional<Borrow> findFirstByBook_IdAndReturnDateIsNull(Long bookId);
+
+    long countByBook_IdAndReturnDateIsNull(Long bookId);
+
+    // 某用户当前未归还的全部借阅，同时取出书籍信息
+    @Query("select b from Borrow b join fetch b.book where b.user.id = :userId and b.returnDate is null")
+    List<Borrow> findOpenByUser(@Param("userId") Long userId);
+
+    @Query("select b from Borrow b join fetch b.book k where b.user.id = :userId and b.returnDate is null and k.id = :bookId")
+    List<Borrow> findOpenByUserAndBook(@Param("userId") Long userId, @Param("bookId") Long bookId);
+
+    @Query("select b from Borrow b join fetch b.book k where b.user.id = :userId and b.returnDate is null and k.title = :title")
+    List<Borrow> findOpenByUserAndTitle(@Param("userId") Long userId, @Param("title") String title);
+
+    @Query("select b from Borrow b join fetch b.book k where b.user.id = :userId and b.returnDate is null and k.author = :author")
+    List<Borrow> findOpenByUserAndAuthor(@Param("userId") Long userId, @Param("author") String author);
 }
@@ -1,12 +1,68 @@
 package com.example.virtual_campus.repository;
 
 import com.example.virtual_campus.model.Course;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface CourseRepository extends JpaRepository<Course, Long> {
+public interface CourseRepository extends JpaRepository<Course, Long>, JpaSpecificationExecutor<Course> {
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Course> findByName(String name);
+
+    // 游标分页，取id大于afterId的下一批
+    Slice<Course> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    // 增量同步：版本号大于revision的行
+    List<Course> findByRevisionGreaterThanOrderByIdAsc(long revision);
+
+    @Query("select c.capacity - c.enrolledCount from Course c where c.id = :id")
+    Optional<Integer> findSeatsLeft(@Param("id") Long id);
+
+    @Query("select c.schedule from Course c where c.id = :id")
+    Optional<String> findScheduleById(@Param("id") Long id);
+
+    // 条件更新占座：已选人数小于容量时才加一，返回0表示已满
+    // 原生更新要声明涉及的表，否则Hibernate会清空全部二级缓存
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "courses"))
+    @Query(value = "update courses set enrolled_count = enrolled_count + 1 where id = :id and enrolled_count < capacity", nativeQuery = true)
+    int takeSeat(@Param("id") Long id);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "courses"))
+    @Query(value = "update courses set enrolled_count = enrolled_count - 1 where id = :id and enrolled_count > 0", nativeQuery = true)
+    int releaseSeat(@Param("id") Long id);
+
+    // 批量选课时锁住课程行，同一门课的批次依次执行
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Course c where c.id = :id")
+    Optional<Course> findByIdForUpdate(@Param("id") Long id);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "courses"))
+    @Query(value = "update courses set enrolled_count = enrolled_count + :seats where id = :id and enrolled_count + :seats <= capacity", nativeQuery = true)
+    int takeSeats(@Param("id") Long id, @Param("seats") int seats);
+
+    // 按选课关系表重新统计每门课的已选人数
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "courses"))
+    @Query(value = "update courses c set c.enrolled_count = (select count(*) from student_courses sc where sc.course_id = c.id)", nativeQuery = true)
+    int reconcileEnrolledCounts();
 }
+
@@ -1,14 +1,45 @@
 package com.example.virtual_campus.repository;
 
 import com.example.virtual_campus.model.Product;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Product> findByName(String name);
 
+    // 游标分页，取id大于afterId的下一批
+    Slice<Product> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    // 增量同步：版本号大于revision的行
+    List<Product> findByRevisionGreaterThanOrderByIdAsc(long revision);
+
     boolean existsByName(String name);
+
+    // 结算时按id从小到大锁住购物车中的商品行，所有结算加锁顺序一致，不会互相死锁
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from Product p where p.id in :ids order by p.id")
+    List<Product> findAllForUpdate(@Param("ids") Collection<Long> ids);
+
+    // 热门商品的销量由库存台账汇总后一次写回，库存不足以扣除时不修改，返回0
+    @Modifying
+    @Transactional
+    @Query("update Product p set p.quantity = p.quantity - :sold, p.revision = :revision where p.id = :id and p.quantity >= :sold")
+    int deductStock(@Param("id") Long id, @Param("sold") int sold, @Param("revision") long revision);
 }
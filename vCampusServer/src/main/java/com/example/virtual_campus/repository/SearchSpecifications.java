@@ -0,0 +1,65 @@
+package com.example.virtual_campus.repository;
+
+import com.example.virtual_campus.model.Book;
+import com.example.virtual_campus.model.Course;
+import com.example.virtual_campus.model.Student;
+import jakarta.persistence.criteria.Path;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * 组合查询条件，在数据库中执行
+ * 每个非空输入都是一个前缀匹配条件，多个条件之间为AND关系，空输入忽略
+ * 前缀匹配 like 'xxx%' 可以走对应列上的索引；MySQL默认的*_ci排序规则本身不区分大小写，
+ * 因此不对列再套lower()，否则索引会失效
+ */
+public final class SearchSpecifications {
+
+    private SearchSpecifications() {
+    }
+
+    public static Specification<Book> books(String title, String author) {
+        return Specification.where(SearchSpecifications.<Book>startsWith("title", title))
+                .and(startsWith("author", author));
+    }
+
+    public static Specification<Course> courses(String name, String teacher) {
+        return Specification.where(SearchSpecifications.<Course>startsWith("name", name))
+                .and(startsWith("teacher", teacher));
+    }
+
+    // 学生姓名保存在关联的users表中
+    public static Specification<Student> students(String name, String grade, String major, String status) {
+        return Specification.where(SearchSpecifications.<Student>startsWith("user.name", name))
+                .and(startsWith("grade", grade))
+                .and(startsWith("major", major))
+                .and(startsWith("status", status));
+    }
+
+    public static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    // 输入为空时返回null，Specification组合时会自动忽略
+    // 不区分大小写完全依赖MySQL列的*_ci排序规则；改用区分大小写的排序规则或其他数据库时，
+    // 这里需要改为对lower()后的列匹配，并在lower(列)上建函数索引
+    static <T> Specification<T> startsWith(String attribute, String value) {
+        if (isBlank(value)) {
+            return null;
+        }
+        String pattern = escapeLike(value.trim()) + "%";
+        return (root, query, cb) -> {
+            Path<?> path = root;
+            for (String part : attribute.split("\\.")) {
+                path = path.get(part);
+            }
+            @SuppressWarnings("unchecked")
+            Path<String> column = (Path<String>) path;
+            return cb.like(column, pattern, '\\');
+        };
+    }
+
+    // 转义用户输入中的通配符
+    static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
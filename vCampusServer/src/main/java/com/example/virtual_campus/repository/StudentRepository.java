@@ -1,9 +1,45 @@
 package com.example.virtual_campus.repository;
 
 import com.example.virtual_campus.model.Student;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
-public interface StudentRepository extends JpaRepository<Student, Long> {
-}
\ No newline at end of file
+public interface StudentRepository extends JpaRepository<Student, Long>, JpaSpecificationExecutor<Student> {
+    // 增量同步：版本号大于revision的行
+    List<Student> findByRevisionGreaterThanOrderByIdAsc(long revision);
+
+    // 选课关系直接读写student_courses表，不加载学生的课程集合
+
+    @Query("select c.schedule from Student s join s.courses c where s.id = :studentId")
+    List<String> findCourseSchedules(@Param("studentId") Long studentId);
+
+    long countByCourses_Id(Long courseId);
+
+    @Query("select s.id from Student s where s.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // 一批学生中已选过该课程的学生
+    @Query("select s.id from Student s join s.courses c where s.id in :ids and c.id = :courseId")
+    List<Long> findIdsEnrolledIn(@Param("ids") Collection<Long> ids, @Param("courseId") Long courseId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "student_courses"))
+    @Query(value = "insert into student_courses (student_id, course_id) values (:studentId, :courseId)", nativeQuery = true)
+    int insertEnrollment(@Param("studentId") Long studentId, @Param("courseId") Long courseId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "student_courses"))
+    @Query(value = "delete from student_courses where student_id = :studentId and course_id = :courseId", nativeQuery = true)
+    int deleteEnrollment(@Param("studentId") Long studentId, @Param("courseId") Long courseId);
+}
@@ -0,0 +1,16 @@
+package com.example.virtual_campus.repository;
+
+import com.example.virtual_campus.model.Tombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TombstoneRepository extends JpaRepository<Tombstone, Long> {
+    // 某类实体在给定版本号之后删除的id
+    @Query("select t.entityId from Tombstone t where t.entity = :entity and t.revision > :revision order by t.revision")
+    List<Long> findDeletedIds(@Param("entity") String entity, @Param("revision") long revision);
+}
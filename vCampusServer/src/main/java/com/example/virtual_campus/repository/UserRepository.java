@@ -1,7 +1,13 @@
 package com.example.virtual_campus.repository;
 
 import com.example.virtual_campus.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -9,7 +15,21 @@ import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    // 增量同步：版本号大于revision的行
+    List<User> findByRevisionGreaterThanOrderByIdAsc(long revision);
+
+    // 登录和各页面按名字查找，结果放入查询缓存
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByName(String name);
 
     boolean existsByName(String name);
+
+    // 原子修改余额，扣款后余额不能为负，返回0表示余额不足或用户不存在
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "users"))
+    @Query(value = "update users set balance_cents = balance_cents + :delta where id = :id and balance_cents + :delta >= 0", nativeQuery = true)
+    int addBalanceCents(@Param("id") Long id, @Param("delta") long delta);
+
+    @Query("select u.balanceCents from User u where u.id = :id")
+    Optional<Long> findBalanceCents(@Param("id") Long id);
 }
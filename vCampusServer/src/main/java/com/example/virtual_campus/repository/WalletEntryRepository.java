@@ -0,0 +1,43 @@
+package com.example.virtual_campus.repository;
+
+import com.example.virtual_campus.model.WalletEntry;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface WalletEntryRepository extends JpaRepository<WalletEntry, Long> {
+    Optional<WalletEntry> findByUserIdAndIdempotencyKey(Long userId, String idempotencyKey);
+
+    // 用户表余额与最后一笔流水的余额不一致的用户id
+    @Query(value = "select u.id from users u join wallet_entries w on w.id = "
+            + "(select max(w2.id) from wallet_entries w2 where w2.user_id = u.id) "
+            + "where w.balance_after_cents <> u.balance_cents", nativeQuery = true)
+    List<Long> findDriftedUserIds();
+
+    // 启用流水前的余额记在原来的balance列中，迁移到balance_cents并补一笔期初流水
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "users"))
+    @Query(value = "update users u set u.balance_cents = round(u.balance * 100) "
+            + "where u.balance is not null and u.balance <> 0 and u.balance_cents = 0 "
+            + "and not exists (select 1 from wallet_entries w where w.user_id = u.id)", nativeQuery = true)
+    int migrateLegacyBalances();
+
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "wallet_entries"))
+    @Query(value = "insert into wallet_entries (user_id, amount_cents, balance_after_cents, type, idempotency_key, created_at) "
+            + "select u.id, u.balance_cents, u.balance_cents, 'OPENING', concat('opening:', u.id), now() from users u "
+            + "where u.balance_cents <> 0 and not exists (select 1 from wallet_entries w where w.user_id = u.id)", nativeQuery = true)
+    int insertOpeningEntries();
+}
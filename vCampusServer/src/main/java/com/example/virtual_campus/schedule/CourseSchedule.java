@@ -0,0 +1,127 @@
+package com.example.virtual_campus.schedule;
+
+import java.util.BitSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 解析后的课程上课时间
+ * 支持“周一 6-9节”“星期三 第3节”“周二 1-2节 1-8周”“周四 3-4节 单周”，多段时间用逗号、分号或顿号分隔
+ * 每个“周次-星期-节次”对应位图中的一位，两门课是否冲突只需判断位图是否相交，部分重叠也能发现
+ * 无法解析的写法退回到原来的整串比较
+ */
+public final class CourseSchedule {
+
+    public static final int WEEKS = 20;   // 一学期最多周数
+    public static final int DAYS = 7;
+    public static final int PERIODS = 13; // 每天最多节数
+    static final int SLOTS_PER_WEEK = DAYS * PERIODS;
+
+    private static final Pattern SEGMENT_SEPARATOR = Pattern.compile("[,，;；、]");
+    private static final Pattern WEEK_RANGE = Pattern.compile("第?\\s*(\\d{1,2})\\s*(?:[-~～至到]\\s*(\\d{1,2}))?\\s*周");
+    private static final Pattern WEEK_PARITY = Pattern.compile("([单双])周");
+    private static final Pattern DAY_PERIOD = Pattern.compile(
+            "(?:周|星期)([一二三四五六日天1-7])\\s*第?\\s*(\\d{1,2})(?:\\s*[-~～至到]\\s*(\\d{1,2}))?\\s*节?");
+    private static final String DAY_NAMES = "一二三四五六日";
+
+    private static final CourseSchedule EMPTY = new CourseSchedule("", null);
+
+    private final String raw;
+    private final BitSet slots; // 无法解析时为null
+
+    private CourseSchedule(String raw, BitSet slots) {
+        this.raw = raw;
+        this.slots = slots;
+    }
+
+    public static CourseSchedule parse(String text) {
+        if (text == null || text.isBlank()) {
+            return EMPTY;
+        }
+        String raw = text.trim();
+        BitSet slots = new BitSet(WEEKS * SLOTS_PER_WEEK);
+        boolean found = false;
+        for (String segment : SEGMENT_SEPARATOR.split(raw)) {
+            // 先取出周次范围，剩下的部分再解析星期和节次
+            int firstWeek = 1;
+            int lastWeek = WEEKS;
+            int parity = 0; // 1单周，2双周
+            Matcher weekMatcher = WEEK_PARITY.matcher(segment);
+            if (weekMatcher.find()) {
+                parity = "单".equals(weekMatcher.group(1)) ? 1 : 2;
+                segment = weekMatcher.replaceAll(" ");
+            }
+            weekMatcher = WEEK_RANGE.matcher(segment);
+            if (weekMatcher.find()) {
+                firstWeek = Integer.parseInt(weekMatcher.group(1));
+                lastWeek = weekMatcher.group(2) == null ? firstWeek : Integer.parseInt(weekMatcher.group(2));
+                segment = weekMatcher.replaceAll(" ");
+            }
+            if (firstWeek < 1 || lastWeek > WEEKS || firstWeek > lastWeek) {
+                return new CourseSchedule(raw, null);
+            }
+
+            Matcher dayMatcher = DAY_PERIOD.matcher(segment);
+            while (dayMatcher.find()) {
+                int day = dayOf(dayMatcher.group(1));
+                int firstPeriod = Integer.parseInt(dayMatcher.group(2));
+                int lastPeriod = dayMatcher.group(3) == null ? firstPeriod : Integer.parseInt(dayMatcher.group(3));
+                if (firstPeriod < 1 || lastPeriod > PERIODS || firstPeriod > lastPeriod) {
+                    return new CourseSchedule(raw, null);
+                }
+                for (int week = firstWeek; week <= lastWeek; week++) {
+                    if (parity != 0 && week % 2 != parity % 2) {
+                        continue;
+                    }
+                    int base = (week - 1) * SLOTS_PER_WEEK + (day - 1) * PERIODS;
+                    slots.set(base + firstPeriod - 1, base + lastPeriod);
+                }
+                found = true;
+            }
+        }
+        return new CourseSchedule(raw, found ? slots : null);
+    }
+
+    private static int dayOf(String name) {
+        char c = name.charAt(0);
+        if (c >= '1' && c <= '7') {
+            return c - '0';
+        }
+        return c == '天' ? 7 : DAY_NAMES.indexOf(c) + 1;
+    }
+
+    public String getRaw() {
+        return raw;
+    }
+
+    public boolean isParsed() {
+        return slots != null;
+    }
+
+    public boolean isEmpty() {
+        return raw.isEmpty();
+    }
+
+    // 仅供索引在包内做位运算，不得修改
+    BitSet slots() {
+        return slots;
+    }
+
+    /**
+     * 两门课的上课时间是否有重叠，未填写上课时间的课程不与任何课程冲突
+     */
+    public boolean overlaps(CourseSchedule other) {
+        if (isEmpty() || other.isEmpty()) {
+            return false;
+        }
+        if (isParsed() && other.isParsed()) {
+            return slots.intersects(other.slots);
+        }
+        return raw.equals(other.raw);
+    }
+
+    @Override
+    public String toString() {
+        return raw;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.virtual_campus.schedule;
+
+import org.springframework.stereotype.Component;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 每个学生已选课程占用时间的索引
+ * 首次访问时从数据库读取该生所选课程的上课时间，之后选课成功时把新课程的时间位并入，
+ * 检查冲突只需一次位图相交判断，与已选课程门数无关
+ * 退课、课程时间修改等情况直接作废，下次访问重新加载
+ */
+@Component
+public class StudentTimetables {
+
+    private final ConcurrentHashMap<Long, Timetable> timetables = new ConcurrentHashMap<>();
+    // 课程上课时间的解析结果，同一写法只解析一次
+    private final ConcurrentHashMap<String, CourseSchedule> parsed = new ConcurrentHashMap<>();
+
+    private static final class Timetable {
+        private final BitSet occupied = new BitSet();
+        // 无法解析的上课时间按原文记录
+        private final Set<String> unparsed = new HashSet<>();
+
+        synchronized boolean tryReserve(CourseSchedule schedule) {
+            if (conflicts(schedule)) {
+                return false;
+            }
+            add(schedule);
+            return true;
+        }
+
+        private boolean conflicts(CourseSchedule schedule) {
+            if (schedule.isEmpty()) {
+                return false;
+            }
+            if (schedule.isParsed()) {
+                return occupied.intersects(schedule.slots());
+            }
+            return unparsed.contains(schedule.getRaw());
+        }
+
+        private void add(CourseSchedule schedule) {
+            if (schedule.isEmpty()) {
+                return;
+            }
+            if (schedule.isParsed()) {
+                occupied.or(schedule.slots());
+            } else {
+                unparsed.add(schedule.getRaw());
+            }
+        }
+    }
+
+    public CourseSchedule schedule(String text) {
+        return parsed.computeIfAbsent(text == null ? "" : text.trim(), CourseSchedule::parse);
+    }
+
+    /**
+     * 与已选课程不冲突时占用这门课的时间
+     * 占用后选课没有成功的，调用invalidate作废该生的索引
+     * @param loader 首次访问时读取该生已选课程的上课时间
+     * @return false表示时间冲突
+     */
+    public boolean tryReserve(Long studentId, String schedule, Function<Long, List<String>> loader) {
+        Timetable timetable = timetables.computeIfAbsent(studentId, id -> load(loader.apply(id)));
+        return timetable.tryReserve(schedule(schedule));
+    }
+
+    public void invalidate(Long studentId) {
+        timetables.remove(studentId);
+    }
+
+    // 课程上课时间被修改或课程被删除时，所有学生的索引都可能过期
+    public void clear() {
+        timetables.clear();
+    }
+
+    private Timetable load(List<String> schedules) {
+        Timetable timetable = new Timetable();
+        for (String schedule : schedules) {
+            timetable.add(schedule(schedule));
+        }
+        return timetable;
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.virtual_campus.search;
+
+import com.example.virtual_campus.model.Book;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 图书全文检索的内存倒排索引
+ * 书名、作者、出版社、ISBN按字符二元组建立倒排表，词首词尾带边界标记，汉字另按单字索引
+ * 查询命中足够比例的二元组即算匹配，输错个别字仍能找到；结果按字段权重和逆文档频率打分排序
+ */
+@Component
+public class BookSearchIndex {
+
+    // 查询的词元至少命中这么多比例才算匹配
+    private static final double MIN_MATCH_RATIO = 0.6;
+    // 某个字段完整包含查询串时的加分倍数
+    private static final double PHRASE_BOOST = 2.0;
+    private static final char BEGIN = '\u0002';
+    private static final char END = '\u0003';
+
+    // 字段顺序与权重：书名最重要，出版社最次
+    private static final int TITLE = 0;
+    private static final int AUTHOR = 1;
+    private static final int PRESS = 2;
+    private static final int ISBN = 3;
+    private static final double[] FIELD_WEIGHTS = {3.0, 2.0, 1.0, 2.0};
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // 词元 -> (图书id -> 出现该词元的字段位掩码)
+    private Map<String, Map<Long, Integer>> postings = new HashMap<>();
+    private Map<Long, Document> documents = new HashMap<>();
+
+    private record Document(String[] fields, Set<String> grams) {
+    }
+
+    private static final class Hit {
+        final long id;
+        int matched;
+        double score;
+
+        Hit(long id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * 全量重建：先在新表中建好再整体替换，重建期间查询仍使用旧索引
+     */
+    public void rebuild(Iterable<Book> books) {
+        Map<String, Map<Long, Integer>> newPostings = new HashMap<>();
+        Map<Long, Document> newDocuments = new HashMap<>();
+        for (Book book : books) {
+            add(newPostings, newDocuments, book);
+        }
+        lock.writeLock().lock();
+        try {
+            postings = newPostings;
+            documents = newDocuments;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 新增或修改图书后更新索引
+    public void put(Book book) {
+        if (book == null || book.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeLocked(book.getId());
+            add(postings, documents, book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        if (id == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按相关度从高到低返回图书id
+     * @param query 用户输入，可以是书名、作者、出版社或ISBN的一部分
+     * @param limit 最多返回条数
+     */
+    public List<Long> search(String query, int limit) {
+        String text = normalize(query);
+        if (text.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Set<String> queryGrams = grams(text);
+        // 纯数字（ISBN等）错一位就是另一本书，只做精确的片段匹配
+        int required = text.chars().anyMatch(Character::isLetter)
+                ? (int) Math.ceil(queryGrams.size() * MIN_MATCH_RATIO)
+                : Integer.MAX_VALUE;
+
+        lock.readLock().lock();
+        try {
+            int total = documents.size();
+            Map<Long, Hit> hits = new HashMap<>();
+            for (String gram : queryGrams) {
+                Map<Long, Integer> posting = postings.get(gram);
+                if (posting == null) {
+                    continue;
+                }
+                // 越少见的词元区分度越高
+                double idf = Math.log(1.0 + (double) total / posting.size());
+                for (Map.Entry<Long, Integer> entry : posting.entrySet()) {
+                    Hit hit = hits.computeIfAbsent(entry.getKey(), Hit::new);
+                    hit.matched++;
+                    hit.score += idf * bestWeight(entry.getValue());
+                }
+            }
+
+            List<Hit> result = new ArrayList<>();
+            for (Hit hit : hits.values()) {
+                double phrase = phraseWeight(documents.get(hit.id), text);
+                // 完整包含查询串的一定算匹配，单个汉字这类命中比例不够的短查询也能找到
+                if (phrase == 0 && hit.matched < required) {
+                    continue;
+                }
+                hit.score += phrase * PHRASE_BOOST;
+                result.add(hit);
+            }
+            result.sort(Comparator.comparingDouble((Hit hit) -> -hit.score).thenComparingLong(hit -> hit.id));
+            List<Long> ids = new ArrayList<>(Math.min(limit, result.size()));
+            for (int i = 0; i < result.size() && i < limit; i++) {
+                ids.add(result.get(i).id);
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void add(Map<String, Map<Long, Integer>> postings, Map<Long, Document> documents, Book book) {
+        String[] fields = new String[FIELD_WEIGHTS.length];
+        fields[TITLE] = normalize(book.getTitle());
+        fields[AUTHOR] = normalize(book.getAuthor());
+        fields[PRESS] = normalize(book.getPress());
+        fields[ISBN] = normalize(book.getIsbn());
+        Set<String> all = new LinkedHashSet<>();
+        for (int field = 0; field < fields.length; field++) {
+            for (String gram : grams(fields[field])) {
+                postings.computeIfAbsent(gram, g -> new HashMap<>()).merge(book.getId(), 1 << field, (a, b) -> a | b);
+                all.add(gram);
+            }
+        }
+        documents.put(book.getId(), new Document(fields, all));
+    }
+
+    private void removeLocked(Long id) {
+        Document old = documents.remove(id);
+        if (old == null) {
+            return;
+        }
+        for (String gram : old.grams()) {
+            Map<Long, Integer> posting = postings.get(gram);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static double bestWeight(int fieldMask) {
+        double best = 0;
+        for (int field = 0; field < FIELD_WEIGHTS.length; field++) {
+            if ((fieldMask & (1 << field)) != 0) {
+                best = Math.max(best, FIELD_WEIGHTS[field]);
+            }
+        }
+        return best;
+    }
+
+    private static double phraseWeight(Document document, String text) {
+        double best = 0;
+        for (int field = 0; field < FIELD_WEIGHTS.length; field++) {
+            if (document.fields()[field].contains(text)) {
+                best = Math.max(best, FIELD_WEIGHTS[field]);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 统一全角半角和大小写，去掉数字之间的连字符和空格，使“978-7-5641”和“97875641”一致
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        normalized = normalized.replaceAll("(?<=\\d)[-\\s]+(?=\\d)", "");
+        return normalized.replaceAll("\\s+", " ").trim();
+    }
+
+    /**
+     * 把文本切成连续的字母数字片段，每段加边界标记后取相邻二元组，汉字再单独作为一个词元
+     */
+    static Set<String> grams(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        int i = 0;
+        while (i < text.length()) {
+            if (!Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < text.length() && Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            String run = BEGIN + text.substring(start, i) + END;
+            for (int j = 0; j + 1 < run.length(); j++) {
+                grams.add(run.substring(j, j + 2));
+            }
+            for (int j = start; j < i; j++) {
+                char c = text.charAt(j);
+                if (Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN) {
+                    grams.add(String.valueOf(c));
+                }
+            }
+        }
+        return grams;
+    }
+}
@@ -1,10 +1,23 @@
 package com.example.virtual_campus.service;
 
+import com.example.virtual_campus.Utils.PageUtils;
+import com.example.virtual_campus.cache.CatalogCache;
+import com.example.virtual_campus.cache.CatalogCache.Catalog;
 import com.example.virtual_campus.model.Book;
 import com.example.virtual_campus.repository.BookRepository;
+import com.example.virtual_campus.repository.SearchSpecifications;
+import com.example.virtual_campus.search.BookSearchIndex;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
@@ -12,9 +25,23 @@ public class BookService {
 
     @Autowired
     private BookRepository bookRepository;
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+    @Autowired
+    private CatalogCache catalogCache;
+
+    // 启动时从数据库一次性载入全部图书建立检索索引，之后随增删改增量维护
+    @PostConstruct
+    public void rebuildSearchIndex() {
+        bookSearchIndex.rebuild(bookRepository.findAll());
+        System.out.println("图书检索索引已建立，共" + bookSearchIndex.size() + "本");
+    }
 
     public Book saveBook(Book book) {
-        return bookRepository.save(book);
+        Book saved = bookRepository.save(book);
+        bookSearchIndex.put(saved);
+        catalogCache.invalidateAfterCommit(Catalog.BOOK);
+        return saved;
     }
 
     public Optional<Book> findBookById(Long id) {
@@ -23,13 +50,42 @@ public class BookService {
 
     public void deleteBook(Long id) {
         bookRepository.deleteById(id);
+        bookSearchIndex.remove(id);
+        catalogCache.invalidateAfterCommit(Catalog.BOOK);
     }
 
     public Book updateBook(Book book) {
-        return bookRepository.save(book);
+        Book saved = bookRepository.save(book);
+        bookSearchIndex.put(saved);
+        catalogCache.invalidateAfterCommit(Catalog.BOOK);
+        return saved;
     }
 
     public Iterable<Book> findAllBooks() {
         return bookRepository.findAll();
     }
+
+    public Page<Book> findBookPage(Integer page, Integer size) {
+        return bookRepository.findAll(PageUtils.pageById(page, size));
+    }
+
+    public Slice<Book> findBooksAfter(Long afterId, Integer size) {
+        return bookRepository.findByIdGreaterThanOrderByIdAsc(PageUtils.cursor(afterId), PageUtils.firstPage(size));
+    }
+
+    // 书名、作者前缀组合查询，最多返回一页
+    public List<Book> searchBooks(String title, String author) {
+        return bookRepository.findBy(SearchSpecifications.books(title, author),
+                q -> q.sortBy(Sort.by("id")).limit(PageUtils.MAX_PAGE_SIZE).all());
+    }
+
+    // 全文检索：按相关度排序，图书信息从数据库重新读取，借阅状态为最新
+    public List<Book> rankedSearch(String query, Integer limit) {
+        List<Long> ids = bookSearchIndex.search(query, PageUtils.clampSize(limit));
+        Map<Long, Book> books = new HashMap<>();
+        for (Book book : bookRepository.findAllById(ids)) {
+            books.put(book.getId(), book);
+        }
+        return ids.stream().map(books::get).filter(Objects::nonNull).toList();
+    }
 }
@@ -1,13 +1,16 @@
 package com.example.virtual_campus.service;
 
-import com.example.virtual_campus.model.Book;
+import com.example.virtual_campus.cache.CatalogCache;
+import com.example.virtual_campus.cache.CatalogCache.Catalog;
 import com.example.virtual_campus.model.User;
 import com.example.virtual_campus.model.Borrow;
 import com.example.virtual_campus.repository.BookRepository;
 import com.example.virtual_campus.repository.UserRepository;
 import com.example.virtual_campus.repository.BorrowRepository;
+import com.example.virtual_campus.sync.RevisionTracker;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.Optional;
@@ -24,44 +27,50 @@ public class BorrowService {
     @Autowired
     private UserRepository userRepository;
 
-    public int borrowBook(Long bookId, Long userId) {
-        Optional<Book> bookOptional = bookRepository.findById(bookId);
-        Optional<User> userOptional = userRepository.findById(userId);
-
-        if (bookOptional.isPresent() && userOptional.isPresent()) {
-            Book book = bookOptional.get();
-            User user = userOptional.get();
+    @Autowired
+    private CatalogCache catalogCache;
 
-            if (book.isAvailable()) {
-                book.setAvailable(false);
-                bookRepository.save(book);
+    @Autowired
+    private RevisionTracker revisionTracker;
 
-                Borrow borrow = new Borrow();
-                borrow.setBook(book);
-                borrow.setUser(user);
-                borrow.setBorrowDate(LocalDate.now());
-                borrowRepository.save(borrow);
-                return 1;
-            } else {
-                return 2;
-            }
-        } else {
+    /**
+     * 借书
+     * @return 1借阅成功；2图书或用户不存在；3图书已被借走
+     */
+    @Transactional
+    public int borrowBook(Long bookId, Long userId) {
+        Optional<User> userOptional = userRepository.findById(userId);
+        if (userOptional.isEmpty()) {
             return 2;
         }
+        // 先用条件更新抢占这本书，不再先读后写，避免两人同时读到可借而都借成功
+        if (revisionTracker.update(revision -> bookRepository.markBorrowed(bookId, revision)) == 0) {
+            return bookRepository.existsById(bookId) ? 3 : 2;
+        }
+
+        Borrow borrow = new Borrow();
+        borrow.setBook(bookRepository.getReferenceById(bookId));
+        borrow.setUser(userOptional.get());
+        borrow.setBorrowDate(LocalDate.now());
+        borrowRepository.save(borrow);
+        catalogCache.invalidateAfterCommit(Catalog.BOOK);
+        return 1;
     }
 
+    @Transactional
     public void returnBook(Long borrowId) {
         Optional<Borrow> borrowOptional = borrowRepository.findById(borrowId);
 
         if (borrowOptional.isPresent()) {
             Borrow borrow = borrowOptional.get();
-            Book book = borrow.getBook();
-
-            book.setAvailable(true);
-            bookRepository.save(book);
-
+            if (borrow.getReturnDate() != null) {
+                return;
+            }
             borrow.setReturnDate(LocalDate.now());
             borrowRepository.save(borrow);
+            Long bookId = borrow.getBook().getId();
+            revisionTracker.update(revision -> bookRepository.markReturned(bookId, revision));
+            catalogCache.invalidateAfterCommit(Catalog.BOOK);
         } else {
             throw new RuntimeException("Borrow not found");
         }
@@ -0,0 +1,122 @@
+package com.example.virtual_campus.service;
+
+import com.example.virtual_campus.cache.CatalogCache;
+import com.example.virtual_campus.cache.CatalogCache.Catalog;
+import com.example.virtual_campus.cache.CatalogCache.Listing;
+import com.example.virtual_campus.model.Book;
+import com.example.virtual_campus.model.Course;
+import com.example.virtual_campus.model.Product;
+import com.example.virtual_campus.protocol.RowSetSchema;
+import com.example.virtual_campus.protocol.RowSets;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 图书、课程、商品的列表请求（全部、按页码、按游标），结果经CatalogCache缓存
+ */
+@Service
+public class CatalogService {
+
+    // 与客户端CursorTableLoader.PAGE_SIZE一致，预热打开列表时的第一批
+    private static final int FIRST_BATCH = 100;
+
+    @Value("${vcampus.catalog.prewarm:false}")
+    private boolean prewarm;
+
+    @Autowired
+    private CatalogCache catalogCache;
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private CourseService courseService;
+    @Autowired
+    private ProductService productService;
+
+    @PostConstruct
+    public void warmUp() {
+        if (!prewarm) {
+            return;
+        }
+        try {
+            books();
+            booksAfter(0L, FIRST_BATCH);
+            courses();
+            coursesAfter(0L, FIRST_BATCH);
+            products();
+            productsAfter(0L, FIRST_BATCH);
+            System.out.println("列表缓存预热完成");
+        } catch (IOException | RuntimeException e) {
+            System.out.println("列表缓存预热失败：" + e.getMessage());
+        }
+    }
+
+    public Listing books() throws IOException {
+        return catalogCache.get(Catalog.BOOK, "all", () -> {
+            List<Book> books = new ArrayList<>();
+            bookService.findAllBooks().forEach(books::add);
+            return all(RowSets.BOOK, books);
+        });
+    }
+
+    public Listing bookPage(Integer page, Integer size) throws IOException {
+        return catalogCache.get(Catalog.BOOK, "page:" + page + ":" + size,
+                () -> page(RowSets.BOOK, bookService.findBookPage(page, size)));
+    }
+
+    public Listing booksAfter(Long afterId, Integer size) throws IOException {
+        return catalogCache.get(Catalog.BOOK, "after:" + afterId + ":" + size,
+                () -> slice(RowSets.BOOK, bookService.findBooksAfter(afterId, size)));
+    }
+
+    public Listing courses() throws IOException {
+        return catalogCache.get(Catalog.COURSE, "all", () -> all(RowSets.COURSE, courseService.getAllCourses()));
+    }
+
+    public Listing coursePage(Integer page, Integer size) throws IOException {
+        return catalogCache.get(Catalog.COURSE, "page:" + page + ":" + size,
+                () -> page(RowSets.COURSE, courseService.getCoursePage(page, size)));
+    }
+
+    public Listing coursesAfter(Long afterId, Integer size) throws IOException {
+        return catalogCache.get(Catalog.COURSE, "after:" + afterId + ":" + size,
+                () -> slice(RowSets.COURSE, courseService.getCoursesAfter(afterId, size)));
+    }
+
+    public Listing products() throws IOException {
+        return catalogCache.get(Catalog.PRODUCT, "all", () -> all(RowSets.PRODUCT, productService.getAllProducts()));
+    }
+
+    public Listing productPage(Integer page, Integer size) throws IOException {
+        return catalogCache.get(Catalog.PRODUCT, "page:" + page + ":" + size,
+                () -> page(RowSets.PRODUCT, productService.getProductPage(page, size)));
+    }
+
+    public Listing productsAfter(Long afterId, Integer size) throws IOException {
+        return catalogCache.get(Catalog.PRODUCT, "after:" + afterId + ":" + size,
+                () -> slice(RowSets.PRODUCT, productService.getProductsAfter(afterId, size)));
+    }
+
+    public void invalidate(Catalog catalog) {
+        catalogCache.invalidate(catalog);
+    }
+
+    private static <T> Listing all(RowSetSchema<T> schema, List<T> rows) throws IOException {
+        return new Listing(schema.encode(rows), rows.size(), false);
+    }
+
+    private static <T> Listing page(RowSetSchema<T> schema, Page<T> page) throws IOException {
+        return new Listing(schema.encode(page.getContent()), page.getTotalElements(), page.hasNext());
+    }
+
+    private static <T> Listing slice(RowSetSchema<T> schema, Slice<T> slice) throws IOException {
+        return new Listing(schema.encode(slice.getContent()), slice.getNumberOfElements(), slice.hasNext());
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.virtual_campus.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 课程余量的内存计数器
+ * 选课时先在这里用CAS扣减名额，满员的课程直接拒绝，不必再访问数据库
+ * 数据库中的条件更新才是最终依据，两者不一致时作废该课程的计数，下次访问重新加载
+ */
+@Component
+public class CourseSeatCounter {
+
+    private final ConcurrentHashMap<Long, AtomicInteger> remaining = new ConcurrentHashMap<>();
+
+    /**
+     * 尝试占用一个名额
+     * @param loader 首次访问某门课时读取数据库中的余量，课程不存在时返回null
+     * @return false表示已满；课程不存在时返回true，交由数据库判断
+     */
+    public boolean tryAcquire(Long courseId, Function<Long, Integer> loader) {
+        AtomicInteger seats = remaining.get(courseId);
+        if (seats == null) {
+            Integer left = loader.apply(courseId);
+            if (left == null) {
+                return true;
+            }
+            seats = remaining.computeIfAbsent(courseId, id -> new AtomicInteger(left));
+        }
+        // 余量大于0才减一，不会减成负数
+        return seats.getAndUpdate(left -> left > 0 ? left - 1 : left) > 0;
+    }
+
+    // 占用的名额最终没有用上（冲突、已选、退课）时归还
+    public void release(Long courseId) {
+        AtomicInteger seats = remaining.get(courseId);
+        if (seats != null) {
+            seats.incrementAndGet();
+        }
+    }
+
+    // 课程容量被修改或计数与数据库不一致时调用
+    public void invalidate(Long courseId) {
+        remaining.remove(courseId);
+    }
+
+    public Integer remaining(Long courseId) {
+        AtomicInteger seats = remaining.get(courseId);
+        return seats == null ? null : seats.get();
+    }
+}
@@ -1,11 +1,23 @@
 package com.example.virtual_campus.service;
 
+import com.example.virtual_campus.Utils.PageUtils;
+import com.example.virtual_campus.cache.CatalogCache;
+import com.example.virtual_campus.cache.CatalogCache.Catalog;
+import com.example.virtual_campus.cache.EntityCacheInvalidator;
 import com.example.virtual_campus.model.Course;
 import com.example.virtual_campus.model.Student;
 import com.example.virtual_campus.repository.CourseRepository;
+import com.example.virtual_campus.repository.SearchSpecifications;
 import com.example.virtual_campus.repository.StudentRepository;
+import com.example.virtual_campus.schedule.StudentTimetables;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.Set;
 import java.util.ArrayList;
@@ -21,8 +33,30 @@ public class CourseService {
     @Autowired
     private StudentRepository studentRepository;
 
+    @Autowired
+    private CourseSeatCounter courseSeatCounter;
+
+    @Autowired
+    private StudentTimetables studentTimetables;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityCacheInvalidator entityCacheInvalidator;
+    @Autowired
+    private CatalogCache catalogCache;
+
+    // 启动时按选课关系表校正已选人数，避免上次异常退出或手工改库造成偏差
+    @PostConstruct
+    public void reconcileEnrolledCounts() {
+        int courses = courseRepository.reconcileEnrolledCounts();
+        System.out.println("课程已选人数校正完成，共" + courses + "门课程");
+    }
+
     public Course addCourse(Course course) {// 新增课程
-        return courseRepository.save(course);
+        Course saved = courseRepository.save(course);
+        catalogCache.invalidateAfterCommit(Catalog.COURSE);
+        return saved;
     }
 
     public Optional<Course> updateCourse(Long id, Course courseDetails) {// 更新课程
@@ -32,7 +66,11 @@ public class CourseService {
             course.setCredits(courseDetails.getCredits());
             course.setSchedule(courseDetails.getSchedule());
             course.setCapacity(courseDetails.getCapacity());
-            return courseRepository.save(course);
+            Course saved = courseRepository.save(course);
+            courseSeatCounter.invalidate(id);// 容量可能变化，余量重新加载
+            studentTimetables.clear();// 上课时间可能变化，学生课表索引重新加载
+            catalogCache.invalidateAfterCommit(Catalog.COURSE);
+            return saved;
         });
     }
 
@@ -40,44 +78,94 @@ public class CourseService {
         return courseRepository.findAll();
     }
 
+    public Page<Course> getCoursePage(Integer page, Integer size) {// 按页码获取课程信息
+        return courseRepository.findAll(PageUtils.pageById(page, size));
+    }
+
+    public Slice<Course> getCoursesAfter(Long afterId, Integer size) {// 按游标获取下一批课程信息
+        return courseRepository.findByIdGreaterThanOrderByIdAsc(PageUtils.cursor(afterId), PageUtils.firstPage(size));
+    }
+
+    public List<Course> searchCourses(String name, String teacher) {// 课程名称、授课老师前缀组合查询，最多返回一页
+        return courseRepository.findBy(SearchSpecifications.courses(name, teacher),
+                q -> q.sortBy(Sort.by("id")).limit(PageUtils.MAX_PAGE_SIZE).all());
+    }
+
     public Optional<Course> getCourseById(Long id) {// 获取单个课程信息
         return courseRepository.findById(id);
     }
 
     public void deleteCourse(Long id) {// 删除课程信息
         courseRepository.deleteById(id);
+        courseSeatCounter.invalidate(id);
+        studentTimetables.clear();
+        catalogCache.invalidateAfterCommit(Catalog.COURSE);
     }
 
-    public int enrollCourse(Long studentId, Long courseId) {// 报名课程
-        Student student = studentRepository.findById(studentId)
-                .orElseThrow(() -> new RuntimeException("Student not found"));
-        Course course = courseRepository.findById(courseId)
-                .orElseThrow(() -> new RuntimeException("Course not found"));
-
-        // 实现选课限制逻辑
-        // 检查课程容量
-        if (course.getCapacity() <= course.getEnrolledStudents().size()) {
+    /**
+     * 报名课程
+     * @return 2课程已满；3时间冲突或已选过该课；4选课成功
+     */
+    public int enrollCourse(Long studentId, Long courseId) {
+        // 内存计数器先扣减，满员的课程直接拒绝，不再访问数据库
+        if (!courseSeatCounter.tryAcquire(courseId, id -> courseRepository.findSeatsLeft(id).orElse(null))) {
             return 2;
         }
+        int res;
+        try {
+            res = transactionTemplate.execute(status -> enrollInTransaction(studentId, courseId));
+        } catch (DataIntegrityViolationException e) {
+            res = 3;// 同一学生并发重复选同一门课，关系表主键冲突
+            studentTimetables.invalidate(studentId);
+        } catch (RuntimeException e) {
+            courseSeatCounter.release(courseId);
+            studentTimetables.invalidate(studentId);
+            throw e;
+        }
+        if (res == 2) {
+            // 数据库判定已满，说明内存余量偏大，下次重新加载；已占用的上课时间随课表索引一起作废
+            courseSeatCounter.invalidate(courseId);
+            studentTimetables.invalidate(studentId);
+        } else if (res != 4) {
+            courseSeatCounter.release(courseId);
+        }
+        return res;
+    }
+
+    private int enrollInTransaction(Long studentId, Long courseId) {
+        if (!studentRepository.existsById(studentId)) {
+            throw new RuntimeException("Student not found");
+        }
+        String schedule = courseRepository.findScheduleById(courseId)
+                .orElseThrow(() -> new RuntimeException("Course not found"));
 
-        // 检查课程时间表冲突
-        if (hasScheduleConflict(student, course)) {
+        // 按学生课表索引检查时间冲突，部分重叠也算冲突；已选过的课程时间必然重叠，也在这里拦下
+        if (!studentTimetables.tryReserve(studentId, schedule, studentRepository::findCourseSchedules)) {
             return 3;
         }
 
-        student.getCourses().add(course);
-        studentRepository.save(student);
+        // 条件更新占座，并发选课时不会超过课程容量
+        if (courseRepository.takeSeat(courseId) == 0) {
+            return 2;
+        }
+        entityCacheInvalidator.broadcastAfterCommit(Course.class, courseId);
+        studentRepository.insertEnrollment(studentId, courseId);
         return 4;
     }
 
     public void dropCourse(Long studentId, Long courseId) {// 退课
-        Student student = studentRepository.findById(studentId)
-                .orElseThrow(() -> new RuntimeException("Student not found"));
-        Course course = courseRepository.findById(courseId)
-                .orElseThrow(() -> new RuntimeException("Course not found"));
-
-        student.getCourses().remove(course);
-        studentRepository.save(student);
+        Boolean dropped = transactionTemplate.execute(status -> {
+            if (studentRepository.deleteEnrollment(studentId, courseId) == 0) {
+                return false;
+            }
+            courseRepository.releaseSeat(courseId);
+            entityCacheInvalidator.broadcastAfterCommit(Course.class, courseId);
+            return true;
+        });
+        if (Boolean.TRUE.equals(dropped)) {
+            courseSeatCounter.release(courseId);
+            studentTimetables.invalidate(studentId);
+        }
     }
 
     public List<Course> getCoursesByStudent(Long studentId) {// 获取学生选课信息
@@ -92,19 +180,13 @@ public class CourseService {
         return new ArrayList<>(course.getEnrolledStudents());
     }
 
-    private boolean hasScheduleConflict(Student student, Course newCourse) {
-        for (Course course : student.getCourses()) {
-            if (course.getSchedule().equals(newCourse.getSchedule())) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     public Course updateCourseSchedule(Long courseId, String newSchedule) {
         Course course = courseRepository.findById(courseId)
                 .orElseThrow(() -> new RuntimeException("Course not found"));
         course.setSchedule(newSchedule);
-        return courseRepository.save(course);
+        Course saved = courseRepository.save(course);
+        studentTimetables.clear();
+        catalogCache.invalidateAfterCommit(Catalog.COURSE);
+        return saved;
     }
 }
@@ -0,0 +1,230 @@
+package com.example.virtual_campus.service;
+
+import com.example.virtual_campus.cache.EntityCacheInvalidator;
+import com.example.virtual_campus.model.Course;
+import com.example.virtual_campus.repository.CourseRepository;
+import com.example.virtual_campus.repository.StudentRepository;
+import com.example.virtual_campus.schedule.StudentTimetables;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * 选课请求的排队入口
+ * 选课开放时大量请求同时到达，这里立即受理并按到达顺序排队，
+ * 由单个后台线程批量取出，按课程分组后每门课一个事务处理，处理完通过CompletableFuture通知各会话
+ * 返回值与CourseService.enrollCourse一致：2课程已满；3时间冲突或已选过该课；4选课成功
+ */
+@Component
+public class EnrollmentQueue {
+
+    // queue为排队批量处理，direct为每个请求直接调用CourseService.enrollCourse
+    @Value("${vcampus.enrollment.mode:queue}")
+    private String mode;
+    // 每批最多取出的请求数
+    @Value("${vcampus.enrollment.batch-size:200}")
+    private int batchSize;
+
+    @Autowired
+    private CourseService courseService;
+    @Autowired
+    private CourseRepository courseRepository;
+    @Autowired
+    private StudentRepository studentRepository;
+    @Autowired
+    private CourseSeatCounter courseSeatCounter;
+    @Autowired
+    private StudentTimetables studentTimetables;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityCacheInvalidator entityCacheInvalidator;
+
+    private final LinkedBlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private volatile boolean running;
+    private Thread worker;
+
+    private record Request(Long studentId, Long courseId, CompletableFuture<Integer> result) {
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!isQueued()) {
+            return;
+        }
+        running = true;
+        worker = Thread.ofPlatform().name("enrollment-queue").daemon().start(this::drainLoop);
+        System.out.println("选课排队已启用，每批最多" + batchSize + "个请求");
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+        Request request;
+        while ((request = queue.poll()) != null) {
+            courseSeatCounter.release(request.courseId());
+            request.result().completeExceptionally(new IllegalStateException("服务器正在关闭"));
+        }
+    }
+
+    /**
+     * 受理一个选课请求，立即返回，结果在所在批次提交后给出
+     */
+    public CompletableFuture<Integer> submit(Long studentId, Long courseId) {
+        if (!isQueued()) {
+            return CompletableFuture.completedFuture(courseService.enrollCourse(studentId, courseId));
+        }
+        // 满员的课程不必排队
+        if (!courseSeatCounter.tryAcquire(courseId, id -> courseRepository.findSeatsLeft(id).orElse(null))) {
+            return CompletableFuture.completedFuture(2);
+        }
+        Request request = new Request(studentId, courseId, new CompletableFuture<>());
+        queue.add(request);
+        return request.result();
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    private boolean isQueued() {
+        return "queue".equalsIgnoreCase(mode);
+    }
+
+    private void drainLoop() {
+        List<Request> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+                // 按课程分组，组内保持到达顺序，先到先得
+                Map<Long, List<Request>> byCourse = new LinkedHashMap<>();
+                for (Request request : batch) {
+                    byCourse.computeIfAbsent(request.courseId(), id -> new ArrayList<>()).add(request);
+                }
+                for (Map.Entry<Long, List<Request>> entry : byCourse.entrySet()) {
+                    applyBatch(entry.getKey(), entry.getValue());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Throwable e) {
+                // 只有这一个工作线程，不能因为一批出错就退出，否则之后的选课请求都等不到结果
+                e.printStackTrace();
+                fail(batch, e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void applyBatch(Long courseId, List<Request> requests) {
+        int[] results;
+        try {
+            results = transactionTemplate.execute(status -> admit(courseId, requests));
+        } catch (Throwable e) {
+            e.printStackTrace();
+            fail(requests, e);
+            return;
+        }
+        for (int result : results) {
+            if (result == 2) {
+                // 数据库判定已满，说明内存余量偏大，下次重新加载；在给出结果前作废，之后到达的请求不会再用旧的计数
+                courseSeatCounter.invalidate(courseId);
+                break;
+            }
+        }
+        for (int i = 0; i < requests.size(); i++) {
+            Request request = requests.get(i);
+            int result = results[i];
+            if (result == 0) {
+                finish(request, false, () -> request.result().completeExceptionally(new RuntimeException("Student not found")));
+            } else {
+                finish(request, result == 4, () -> request.result().complete(result));
+            }
+        }
+    }
+
+    /**
+     * 让还没有结果的请求以异常结束并归还名额，已经给出结果的不再重复归还
+     */
+    private void fail(List<Request> requests, Throwable cause) {
+        for (Request request : requests) {
+            finish(request, false, () -> request.result().completeExceptionally(cause));
+            // 事务回滚，批内占用的上课时间作废重新加载
+            studentTimetables.invalidate(request.studentId());
+        }
+    }
+
+    // 给出结果，没选上的先归还名额再通知，已经有结果的说明名额也已处理过
+    private void finish(Request request, boolean admitted, Runnable complete) {
+        if (request.result().isDone()) {
+            return;
+        }
+        if (!admitted) {
+            courseSeatCounter.release(request.courseId());
+        }
+        complete.run();
+    }
+
+    /**
+     * 在一个事务中处理同一门课的一批请求：锁住课程行，按顺序分配余量，一次更新已选人数
+     * @return 与requests一一对应的结果，0表示学生不存在
+     */
+    private int[] admit(Long courseId, List<Request> requests) {
+        Course course = courseRepository.findByIdForUpdate(courseId)
+                .orElseThrow(() -> new RuntimeException("Course not found"));
+        int seatsLeft = course.getCapacity() - course.getEnrolledCount();
+
+        Set<Long> studentIds = new HashSet<>();
+        for (Request request : requests) {
+            studentIds.add(request.studentId());
+        }
+        Set<Long> existing = new HashSet<>(studentRepository.findExistingIds(studentIds));
+        Set<Long> enrolled = new HashSet<>(studentRepository.findIdsEnrolledIn(studentIds, courseId));
+
+        int[] results = new int[requests.size()];
+        Set<Long> admitted = new LinkedHashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            Long studentId = requests.get(i).studentId();
+            if (!existing.contains(studentId)) {
+                results[i] = 0;
+            } else if (enrolled.contains(studentId) || admitted.contains(studentId)) {
+                results[i] = 3;
+            } else if (admitted.size() >= seatsLeft) {
+                results[i] = 2;
+            } else if (!studentTimetables.tryReserve(studentId, course.getSchedule(), studentRepository::findCourseSchedules)) {
+                results[i] = 3;// 与已选课程时间重叠
+            } else {
+                admitted.add(studentId);
+                results[i] = 4;
+            }
+        }
+        if (!admitted.isEmpty()) {
+            if (courseRepository.takeSeats(courseId, admitted.size()) == 0) {
+                throw new IllegalStateException("课程已选人数超出容量：" + courseId);
+            }
+            entityCacheInvalidator.broadcastAfterCommit(Course.class, courseId);
+            for (Long studentId : admitted) {
+                studentRepository.insertEnrollment(studentId, courseId);
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,302 @@
+package com.example.virtual_campus.service;
+
+import com.example.virtual_campus.cache.CatalogCache;
+import com.example.virtual_campus.cache.CatalogCache.Catalog;
+import com.example.virtual_campus.exception.ResourceNotFoundException;
+import com.example.virtual_campus.inventory.LocalStockLedger;
+import com.example.virtual_campus.inventory.RedisStockLedger;
+import com.example.virtual_campus.inventory.Reservation;
+import com.example.virtual_campus.inventory.StockLedger;
+import com.example.virtual_campus.model.Order;
+import com.example.virtual_campus.model.Product;
+import com.example.virtual_campus.repository.ProductRepository;
+import com.example.virtual_campus.repository.UserRepository;
+import com.example.virtual_campus.sync.RevisionTracker;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 热门商品的库存预留
+ * 开学抢教材这类限量商品，所有买家都要更新同一个商品行；配置为热门的商品改由库存台账扣减，
+ * 购买时先预留库存，结算时只锁买家自己的用户行，卖出的数量由后台线程定时汇总写回数据库
+ * 单节点使用分段计数（local），多节点部署时改用Redis（redis）共享台账
+ */
+@Service
+public class InventoryReservationService {
+
+    // local为本机分段计数，redis为多个服务器节点共享
+    @Value("${vcampus.inventory.mode:local}")
+    private String mode;
+    // 热门商品id，逗号分隔，为空时所有商品按原方式结算
+    @Value("${vcampus.inventory.hot-products:}")
+    private String hotProducts;
+    // 预留的有效期，过期未结算的库存自动退回
+    @Value("${vcampus.inventory.reservation-ttl-seconds:120}")
+    private long ttlSeconds;
+    // 每人在同一热门商品上同时预留的最大数量，防止一个账号占住全部库存
+    @Value("${vcampus.inventory.per-user-limit:5}")
+    private int perUserLimit;
+    // 过期清理和销量写回数据库的间隔
+    @Value("${vcampus.inventory.reconcile-interval-ms:1000}")
+    private long reconcileIntervalMs;
+
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RedisService redisService;
+    @Autowired
+    private CatalogCache catalogCache;
+    @Autowired
+    private RevisionTracker revisionTracker;
+
+    private final Set<Long> hot = ConcurrentHashMap.newKeySet();
+    private StockLedger ledger;
+    private ScheduledExecutorService reconciler;
+
+    @PostConstruct
+    public void start() {
+        for (String id : hotProducts.split(",")) {
+            if (!id.isBlank()) {
+                hot.add(Long.parseLong(id.trim()));
+            }
+        }
+        if (hot.isEmpty()) {
+            return;
+        }
+        ledger = "redis".equalsIgnoreCase(mode)
+                ? new RedisStockLedger(redisService)
+                : new LocalStockLedger(Runtime.getRuntime().availableProcessors());
+        for (Long productId : hot) {
+            load(productId);
+        }
+        reconciler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("inventory-reconciler").daemon().factory());
+        reconciler.scheduleWithFixedDelay(this::reconcile, reconcileIntervalMs, reconcileIntervalMs, TimeUnit.MILLISECONDS);
+        System.out.println("热门商品库存预留已启用（" + mode + "），商品：" + hot);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (reconciler == null) {
+            return;
+        }
+        reconciler.shutdown();
+        try {
+            reconciler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 关闭前把未写回的销量写回数据库
+        reconcile();
+    }
+
+    public boolean isHot(Long productId) {
+        return productId != null && hot.contains(productId);
+    }
+
+    /**
+     * 为用户预留热门商品的库存
+     * @return 库存不足、超过限购或不是热门商品时返回null
+     */
+    public Reservation reserve(Long userId, Long productId, int quantity) {
+        if (userId == null || !isHot(productId)) {
+            return null;
+        }
+        if (ledger.available(productId) == null) {
+            // 启动后才添加的商品在第一次购买时载入
+            load(productId);
+        }
+        return ledger.reserve(userId, productId, quantity, perUserLimit, TimeUnit.SECONDS.toMillis(ttlSeconds));
+    }
+
+    // 放弃自己的预留，库存立即退回
+    public boolean cancel(Long userId, String token) {
+        if (ledger == null || userId == null) {
+            return false;
+        }
+        Reservation reservation = ledger.claim(token, userId);
+        if (reservation == null) {
+            return false;
+        }
+        ledger.release(reservation);
+        return true;
+    }
+
+    /**
+     * 凭预留的token结算，只能结算自己的预留
+     * @return 同OrderService.Checkout，预留不存在、已过期或属于其他用户时返回6
+     */
+    public int checkout(Long userId, String token) {
+        Reservation reservation = ledger == null || userId == null ? null : ledger.claim(token, userId);
+        if (reservation == null) {
+            return 6;
+        }
+        return settle(userId, Map.of(), List.of(reservation)).code();
+    }
+
+    /**
+     * 购物车结算：热门商品先从台账预留，其余商品按原方式锁行扣减
+     * 购物车中没有热门商品时直接交给OrderService
+     * @return 同OrderService.Checkout
+     */
+    public int checkout(Long userId, Map<Long, Integer> cart) {
+        return checkoutCart(userId, cart).code();
+    }
+
+    /**
+     * REST接口下单，与Socket的购物车结算走同一条路径，热门商品同样经过台账，不会绕过预留直接扣商品行
+     * @return 保存的订单
+     */
+    public Order createOrder(Long userId, Map<Long, Integer> productQuantities) {
+        if (!userRepository.existsById(userId)) {
+            throw new ResourceNotFoundException("User not found with id: " + userId);
+        }
+        OrderService.Checkout checkout = checkoutCart(userId, productQuantities);
+        switch (checkout.code()) {
+            case 2 -> throw new IllegalArgumentException("Not enough balance to purchase");
+            case 4 -> throw new IllegalArgumentException("Not enough stock");
+            case 5 -> throw new ResourceNotFoundException("Product not found or invalid quantity");
+            default -> {
+                return checkout.order();
+            }
+        }
+    }
+
+    private OrderService.Checkout checkoutCart(Long userId, Map<Long, Integer> cart) {
+        Map<Long, Integer> normal = new LinkedHashMap<>();
+        List<Reservation> reserved = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : cart.entrySet()) {
+            if (!isHot(entry.getKey())) {
+                normal.put(entry.getKey(), entry.getValue());
+                continue;
+            }
+            if (entry.getValue() == null || entry.getValue() <= 0) {
+                releaseAll(reserved);
+                return new OrderService.Checkout(5, null);
+            }
+            Reservation reservation = reserve(userId, entry.getKey(), entry.getValue());
+            // 立即结算的预留马上取出，不会在结算中途过期
+            reservation = reservation == null ? null : ledger.claim(reservation.token(), userId);
+            if (reservation == null) {
+                releaseAll(reserved);
+                return new OrderService.Checkout(4, null);
+            }
+            reserved.add(reservation);
+        }
+        if (reserved.isEmpty()) {
+            return orderService.checkout(userId, cart);
+        }
+        return settle(userId, normal, reserved);
+    }
+
+    /**
+     * 管理员修改或删除商品：先写回已售数量，执行修改后把新旧库存的差值加到台账的可售数量上
+     * 修改期间的抢购照常进行，差值与预留原子地加减同一个计数，不会覆盖掉期间的预留，
+     * 已取出待结算的预留也仍然算在旧库存里；定时写回在修改完成前等待
+     * @param change 保存或删除商品，返回修改后的商品，删除时返回null
+     */
+    public synchronized Product restock(Long productId, Supplier<Product> change) {
+        if (!isHot(productId) || ledger == null) {
+            return change.get();
+        }
+        flush(productId);
+        long before = productRepository.findById(productId).map(Product::getQuantity).orElse(0);
+        Product changed = change.get();
+        long after = changed == null || changed.getQuantity() == null ? 0 : changed.getQuantity();
+        ledger.adjust(productId, after - before);
+        return changed;
+    }
+
+    // 把已售未落库的数量写回数据库
+    public synchronized void flush(Long productId) {
+        if (!isHot(productId) || ledger == null) {
+            return;
+        }
+        long sold = ledger.drainSold(productId);
+        if (sold <= 0) {
+            return;
+        }
+        try {
+            int updated = revisionTracker.update(revision -> productRepository.deductStock(productId, Math.toIntExact(sold), revision));
+            if (updated == 0) {
+                // 商品已删除或库存被改得比已售还少，这些订单已成交，不再放回重试；
+                // 停止在台账上继续出售，等管理员补货后按差值恢复
+                Long left = ledger.available(productId);
+                ledger.adjust(productId, -(left == null ? 0 : left));
+                System.out.println("商品" + productId + "的库存不足以扣除已售的" + sold + "件，已停止抢购，请核对库存");
+            }
+            catalogCache.invalidateStock(Catalog.PRODUCT);
+        } catch (RuntimeException e) {
+            // 数据库暂时不可用时放回，下一轮再写
+            ledger.restoreSold(productId, sold);
+            System.out.println("商品" + productId + "的销量写回数据库失败：" + e.getMessage());
+        }
+    }
+
+    public Long available(Long productId) {
+        return isHot(productId) && ledger != null ? ledger.available(productId) : null;
+    }
+
+    void reconcile() {
+        try {
+            int expired = ledger.expire(System.currentTimeMillis());
+            if (expired > 0) {
+                System.out.println("退回" + expired + "个过期的库存预留");
+            }
+            for (Long productId : hot) {
+                flush(productId);
+            }
+        } catch (RuntimeException e) {
+            // 定时任务抛出异常后不会再执行，这里只记录
+            System.out.println("库存台账同步失败：" + e.getMessage());
+        }
+    }
+
+    private OrderService.Checkout settle(Long userId, Map<Long, Integer> normal, List<Reservation> reserved) {
+        OrderService.Checkout checkout;
+        try {
+            checkout = orderService.checkout(userId, normal, reserved);
+        } catch (RuntimeException e) {
+            releaseAll(reserved);
+            throw e;
+        }
+        // 事务已提交才计入已售，失败的退回库存
+        for (Reservation reservation : reserved) {
+            if (checkout.code() == 3) {
+                ledger.sold(reservation);
+            } else {
+                ledger.release(reservation);
+            }
+        }
+        return checkout;
+    }
+
+    private void load(Long productId) {
+        productRepository.findById(productId)
+                .ifPresent(product -> ledger.load(productId, product.getQuantity()));
+    }
+
+    private void releaseAll(List<Reservation> reserved) {
+        for (Reservation reservation : reserved) {
+            ledger.release(reservation);
+        }
+    }
+}
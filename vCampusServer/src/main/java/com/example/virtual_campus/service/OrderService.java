@@ -1,19 +1,27 @@
 package com.example.virtual_campus.service;
 
+import com.example.virtual_campus.cache.CatalogCache;
+import com.example.virtual_campus.cache.CatalogCache.Catalog;
 import com.example.virtual_campus.model.Order;
 import com.example.virtual_campus.model.OrderItem;
 import com.example.virtual_campus.model.Product;
 import com.example.virtual_campus.model.User;
+import com.example.virtual_campus.model.WalletEntryType;
 import com.example.virtual_campus.exception.ResourceNotFoundException;
+import com.example.virtual_campus.inventory.Reservation;
 import com.example.virtual_campus.repository.OrderRepository;
 import com.example.virtual_campus.repository.ProductRepository;
 import com.example.virtual_campus.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
 
 @Service
 public class OrderService {
@@ -27,6 +35,12 @@ public class OrderService {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
     public List<Order> getAllOrders() {
         return orderRepository.findAll();
     }
@@ -36,44 +50,96 @@ public class OrderService {
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + id));
     }
 
-    @Transactional
-    public Order createOrder(Long userId, Map<Long, Integer> productQuantities) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
+    /**
+     * 结算结果
+     * @param code 2余额不足；3购买成功；4库存不足；5商品不存在或购买数量有误；6预留不存在或已过期
+     * @param order 购买成功时保存的订单
+     */
+    public record Checkout(int code, Order order) {
+    }
 
-        Order order = new Order(user);
+    /**
+     * 购物车结算：在一个事务中检查库存和余额，扣减库存和余额，并记录订单和订单明细
+     * 先按商品id从小到大锁商品行，最后原子扣减用户余额，所有结算按同一顺序加锁，并发购买不会互相死锁，库存和余额也不会扣成负数
+     * 检查全部通过后才开始修改，任何一项不满足都不会留下部分扣减
+     */
+    @Transactional
+    public Checkout checkout(Long userId, Map<Long, Integer> cart) {
+        return checkout(userId, cart, List.of());
+    }
 
-        for (Map.Entry<Long, Integer> entry : productQuantities.entrySet()) {
-            Long productId = entry.getKey();
-            int quantity = entry.getValue();
+    /**
+     * 结算普通商品和已在库存台账中预留好的热门商品
+     * 热门商品的库存已由预留扣除，这里只读取价格，不锁也不修改商品行，抢购时不会在同一行上排队
+     * @param reserved 已取出待结算的预留，失败时由调用方退回库存
+     */
+    @Transactional
+    public Checkout checkout(Long userId, Map<Long, Integer> cart, List<Reservation> reserved) {
+        // 合并同一商品并按id排序
+        TreeMap<Long, Integer> quantities = new TreeMap<>();
+        for (Map.Entry<Long, Integer> entry : cart.entrySet()) {
+            if (entry.getKey() == null || entry.getValue() == null || entry.getValue() <= 0) {
+                return new Checkout(5, null);
+            }
+            quantities.merge(entry.getKey(), entry.getValue(), Integer::sum);
+        }
+        if (quantities.isEmpty() && reserved.isEmpty()) {
+            return new Checkout(5, null);
+        }
 
-            Product product = productRepository.findById(productId)
-                    .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
+        List<Product> products = quantities.isEmpty() ? List.of() : productRepository.findAllForUpdate(quantities.keySet());
+        if (products.size() != quantities.size()) {
+            return new Checkout(5, null);
+        }
 
-            if (product.getQuantity() < quantity) {
-                throw new IllegalArgumentException("Not enough stock for product: " + product.getName());
+        long totalCents = 0;
+        for (Product product : products) {
+            int quantity = quantities.get(product.getId());
+            if (product.getQuantity() == null || product.getQuantity() < quantity) {
+                return new Checkout(4, null);
+            }
+            totalCents += toCents(product.getPrice()) * quantity;
+        }
+        List<Product> reservedProducts = new ArrayList<>();
+        for (Reservation reservation : reserved) {
+            Optional<Product> product = productRepository.findById(reservation.productId());
+            if (product.isEmpty()) {
+                return new Checkout(5, null);
             }
+            reservedProducts.add(product.get());
+            totalCents += toCents(product.get().getPrice()) * reservation.quantity();
+        }
+        // 先按读到的余额粗略判断，真正的扣款在下面原子完成
+        if (user.getBalanceCents() < totalCents) {
+            return new Checkout(2, null);
+        }
 
+        Order order = new Order(user);
+        for (Product product : products) {
+            int quantity = quantities.get(product.getId());
             product.setQuantity(product.getQuantity() - quantity); // 减少库存
-
-            OrderItem orderItem = new OrderItem(order, product, quantity);
-            order.getOrderItems().add(orderItem);
+            order.getOrderItems().add(new OrderItem(order, product, quantity));
         }
-
-        // 计算订单中商品的总价，并根据用户的余额判断能否购买，如果不能购买则抛出异常，如果可以购买则扣除用户的余额
-        double total = order.getOrderItems().stream()
-                .mapToDouble(orderItem -> orderItem.getProduct().getPrice() * orderItem.getQuantity())
-                .sum();
-
-        if (user.getBalance() < total) {
-            throw new IllegalArgumentException("Not enough balance to purchase");
+        for (int i = 0; i < reserved.size(); i++) {
+            // 库存由台账定时写回数据库
+            order.getOrderItems().add(new OrderItem(order, reservedProducts.get(i), reserved.get(i).quantity()));
         }
+        order.setTotalPrice(totalCents / 100.0);
+        order = orderRepository.save(order);
+        // 扣除余额并记入流水，期间余额被其他请求花掉时整笔回滚
+        if (walletService.post(userId, -totalCents, WalletEntryType.PURCHASE, "order:" + order.getId(), order.getId()) == null) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return new Checkout(2, null);
+        }
+        if (!products.isEmpty()) {
+            catalogCache.invalidateStockAfterCommit(Catalog.PRODUCT);
+        }
+        return new Checkout(3, order);
+    }
 
-        user.setBalance(user.getBalance() - total); // 扣除余额
-
-        // 将商品总价存入订单
-        order.setTotalPrice(total);
-
-        return orderRepository.save(order);
+    private static long toCents(Double price) {
+        return price == null ? 0 : Math.round(price * 100);
     }
-}
\ No newline at end of file
+}
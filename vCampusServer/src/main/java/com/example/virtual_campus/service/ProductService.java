@@ -1,9 +1,14 @@
 package com.example.virtual_campus.service;
 
+import com.example.virtual_campus.Utils.PageUtils;
+import com.example.virtual_campus.cache.CatalogCache;
+import com.example.virtual_campus.cache.CatalogCache.Catalog;
 import com.example.virtual_campus.model.Product;
 import com.example.virtual_campus.exception.ResourceNotFoundException;
 import com.example.virtual_campus.repository.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -14,29 +19,53 @@ public class ProductService {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private InventoryReservationService inventoryReservationService;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
     public List<Product> getAllProducts() {
         return productRepository.findAll();
     }
 
+    public Page<Product> getProductPage(Integer page, Integer size) {
+        return productRepository.findAll(PageUtils.pageById(page, size));
+    }
+
+    public Slice<Product> getProductsAfter(Long afterId, Integer size) {
+        return productRepository.findByIdGreaterThanOrderByIdAsc(PageUtils.cursor(afterId), PageUtils.firstPage(size));
+    }
+
     public Product getProductById(Long id) {
         return productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
     }
 
     public Product createProduct(Product product) {
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        catalogCache.invalidateAfterCommit(Catalog.PRODUCT);
+        return saved;
     }
 
     public Product updateProduct(Long id, Product productDetails) {
-        Product product = getProductById(id);
-        product.setName(productDetails.getName());
-        product.setPrice(productDetails.getPrice());
-        product.setQuantity(productDetails.getQuantity());
-        return productRepository.save(product);
+        // 热门商品的台账按新旧库存的差值调整可售数量
+        Product saved = inventoryReservationService.restock(id, () -> {
+            Product product = getProductById(id);
+            product.setName(productDetails.getName());
+            product.setPrice(productDetails.getPrice());
+            product.setQuantity(productDetails.getQuantity());
+            return productRepository.save(product);
+        });
+        catalogCache.invalidateAfterCommit(Catalog.PRODUCT);
+        return saved;
     }
 
     public void deleteProduct(Long id) {
-        Product product = getProductById(id);
-        productRepository.delete(product);
+        inventoryReservationService.restock(id, () -> {
+            productRepository.delete(getProductById(id));
+            return null;
+        });
+        catalogCache.invalidateAfterCommit(Catalog.PRODUCT);
     }
 }
@@ -3,9 +3,15 @@ package com.example.virtual_campus.service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -19,12 +25,15 @@ public class RedisService {
     
     private final RedisTemplate<String, Object> redisTemplate;
     
+    private final RedisTemplate<String, byte[]> bytesRedisTemplate;
+    
     // JWT黑名单前缀，用于区分不同类型的缓存
     private static final String JWT_BLACKLIST_PREFIX = "jwt:blacklist:";
     
     @Autowired
-    public RedisService(RedisTemplate<String, Object> redisTemplate) {
+    public RedisService(RedisTemplate<String, Object> redisTemplate, RedisTemplate<String, byte[]> bytesRedisTemplate) {
         this.redisTemplate = redisTemplate;
+        this.bytesRedisTemplate = bytesRedisTemplate;
         logger.info("RedisService initialized successfully");
     }
     
@@ -93,6 +102,118 @@ public class RedisService {
         }
     }
     
+    /**
+     * 按原始字节设置键值对，带过期时间
+     * @param key 键
+     * @param value 值
+     * @param expireTime 过期时间
+     * @param timeUnit 时间单位
+     */
+    public void setBytes(String key, byte[] value, long expireTime, TimeUnit timeUnit) {
+        try {
+            bytesRedisTemplate.opsForValue().set(key, value, expireTime, timeUnit);
+            logger.debug("Set bytes key: {}, size: {}", key, value.length);
+        } catch (Exception e) {
+            logger.error("Error setting bytes key: {}", key, e);
+            throw e;
+        }
+    }
+    
+    /**
+     * 按原始字节获取值
+     * @param key 键
+     * @return 值，不存在时返回null
+     */
+    public byte[] getBytes(String key) {
+        try {
+            byte[] value = bytesRedisTemplate.opsForValue().get(key);
+            logger.debug("Get bytes key: {}, exists: {}", key, value != null);
+            return value;
+        } catch (Exception e) {
+            logger.error("Error getting bytes key: {}", key, e);
+            throw e;
+        }
+    }
+    
+    /**
+     * 计数加一，键不存在时从0开始
+     * @param key 键
+     * @return 加一后的值
+     */
+    public Long increment(String key) {
+        try {
+            return redisTemplate.opsForValue().increment(key);
+        } catch (Exception e) {
+            logger.error("Error incrementing key: {}", key, e);
+            throw e;
+        }
+    }
+    
+    /**
+     * 键不存在时才设置，不过期
+     * @param key 键
+     * @param value 值
+     * @return 是否设置成功
+     */
+    public Boolean setIfAbsent(String key, Object value) {
+        try {
+            Boolean result = redisTemplate.opsForValue().setIfAbsent(key, value);
+            logger.debug("Set key if absent: {}, result: {}", key, result);
+            return result;
+        } catch (Exception e) {
+            logger.error("Error setting key if absent: {}", key, e);
+            throw e;
+        }
+    }
+    
+    /**
+     * 按分数范围取有序集合中的成员，分数从小到大
+     * @param key 键
+     * @param min 最小分数
+     * @param max 最大分数
+     * @param count 最多返回个数
+     * @return 成员集合
+     */
+    public Set<Object> rangeByScore(String key, double min, double max, long count) {
+        try {
+            return redisTemplate.opsForZSet().rangeByScore(key, min, max, 0, count);
+        } catch (Exception e) {
+            logger.error("Error ranging sorted set: {}", key, e);
+            throw e;
+        }
+    }
+    
+    /**
+     * 执行Lua脚本，脚本内的多个操作原子完成
+     * @param script 脚本
+     * @param keys 脚本中的KEYS
+     * @param args 脚本中的ARGV，按字符串序列化
+     * @return 脚本返回值
+     */
+    public <T> T execute(RedisScript<T> script, List<String> keys, Object... args) {
+        try {
+            return redisTemplate.execute(script, keys, args);
+        } catch (Exception e) {
+            logger.error("Error executing script on keys: {}", keys, e);
+            throw e;
+        }
+    }
+    
+    /**
+     * 向频道发布消息
+     * @param channel 频道
+     * @param message 消息
+     */
+    public void publish(String channel, String message) {
+        try {
+            redisTemplate.convertAndSend(channel, message);
+            logger.debug("Publish to channel: {}", channel);
+        } catch (Exception e) {
+            logger.error("Error publishing to channel: {}", channel, e);
+            throw e;
+        }
+    }
+    
     /**
      * 将JWT令牌添加到黑名单
      * @param token JWT令牌
@@ -110,6 +231,22 @@ public class RedisService {
         }
     }
     
+    /**
+     * 取出黑名单中现存的全部JWT令牌，按SCAN分批遍历，不阻塞Redis
+     * @return 令牌集合
+     */
+    public Set<String> getBlacklistedTokens() {
+        Set<String> tokens = new HashSet<>();
+        ScanOptions options = ScanOptions.scanOptions().match(JWT_BLACKLIST_PREFIX + "*").count(1000).build();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            cursor.forEachRemaining(key -> tokens.add(key.substring(JWT_BLACKLIST_PREFIX.length())));
+            return tokens;
+        } catch (Exception e) {
+            logger.error("Error scanning token blacklist", e);
+            throw e;
+        }
+    }
+    
     /**
      * 检查JWT令牌是否在黑名单中
      * @param token JWT令牌
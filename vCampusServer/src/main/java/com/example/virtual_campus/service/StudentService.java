@@ -1,10 +1,13 @@
 package com.example.virtual_campus.service;
 
+import com.example.virtual_campus.Utils.PageUtils;
 import com.example.virtual_campus.model.Student;
 import com.example.virtual_campus.model.User;
+import com.example.virtual_campus.repository.SearchSpecifications;
 import com.example.virtual_campus.repository.StudentRepository;
 import com.example.virtual_campus.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -55,4 +58,9 @@ public class StudentService {
         student.setStatus(status);
         studentRepository.save(student);
     }
+
+    public List<Student> searchStudents(String name, String grade, String major, String status) {// 姓名、年级、专业、学籍状态前缀组合查询，最多返回一页
+        return studentRepository.findBy(SearchSpecifications.students(name, grade, major, status),
+                q -> q.sortBy(Sort.by("id")).limit(PageUtils.MAX_PAGE_SIZE).all());
+    }
 }
@@ -29,6 +29,9 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private WalletService walletService;
+
     public List<User> getAllUsers() {
         return userRepository.findAll();
     }
@@ -51,6 +54,8 @@ public class UserService {
     }
 
     public User createUser(User user) {
+        // 新用户余额为0，请求中带的余额不会入库，需要充值时走钱包流水
+        user.setBalance(0.0);
         return userRepository.save(user);
     }
 
@@ -58,8 +63,7 @@ public class UserService {
         System.out.println("查找用户。。。");
         User user = getUserById(id);
         user.setName(userDetails.getName());
-        user.setBalance(userDetails.getBalance());
-        user.setPassword(userDetails.getPassword());
+        user.setPassword(userDetails.getPassword()); // 余额只能通过钱包流水修改
         return userRepository.save(user);
     }
 
@@ -69,9 +73,19 @@ public class UserService {
     }
 
     public User AddBalance(Long id, Double balance) {
-        User user = getUserById(id);
-        user.setBalance(user.getBalance() + balance);
-        return userRepository.save(user);
+        return AddBalance(id, balance, null);
+    }
+
+    /**
+     * 充值，余额原子增加并记入钱包流水
+     * @param idempotencyKey 重试同一次充值时沿用，不会重复入账
+     */
+    public User AddBalance(Long id, Double balance, String idempotencyKey) {
+        getUserById(id);
+        if (balance == null || walletService.deposit(id, Math.round(balance * 100), idempotencyKey).code() == 5) {
+            throw new IllegalArgumentException("Invalid recharge amount");
+        }
+        return getUserById(id);
     }
 
     public Optional<User> findByName(String name) {// 查找用户
@@ -0,0 +1,158 @@
+package com.example.virtual_campus.service;
+
+import com.example.virtual_campus.cache.EntityCacheInvalidator;
+import com.example.virtual_campus.model.User;
+import com.example.virtual_campus.model.WalletEntry;
+import com.example.virtual_campus.model.WalletEntryType;
+import com.example.virtual_campus.repository.UserRepository;
+import com.example.virtual_campus.repository.WalletEntryRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 校园卡钱包
+ * 余额以分为单位存在用户表中，每次变动用一条带条件的update原子完成，同一事务内追加一条流水；
+ * 并发充值和购物只在这一条update上短暂排队，不会出现先读后写丢失更新
+ * 用户表中的余额就是流水的最新快照，读余额不需要汇总流水；后台定时核对两者是否一致
+ */
+@Service
+public class WalletService {
+
+    // 核对余额与流水的间隔，0为不核对
+    @Value("${vcampus.wallet.audit-interval-minutes:10}")
+    private long auditIntervalMinutes;
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WalletEntryRepository walletEntryRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityCacheInvalidator entityCacheInvalidator;
+
+    private ScheduledExecutorService auditor;
+
+    /**
+     * 充值结果
+     * @param code 1充值成功；3重复请求，返回第一次处理的结果；4用户不存在；5金额有误
+     * @param balanceCents 充值后的余额（分）
+     */
+    public record Deposit(int code, long balanceCents) {
+    }
+
+    @PostConstruct
+    public void start() {
+        migrateLegacyBalances();
+        if (auditIntervalMinutes > 0) {
+            auditor = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("wallet-auditor").daemon().factory());
+            auditor.scheduleWithFixedDelay(this::audit, auditIntervalMinutes, auditIntervalMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (auditor != null) {
+            auditor.shutdownNow();
+        }
+    }
+
+    /**
+     * 充值，同一用户的同一幂等键只记一次
+     * @param idempotencyKey 客户端为每次充值生成，重试时沿用；为空时视为不同的请求
+     */
+    public Deposit deposit(Long userId, long amountCents, String idempotencyKey) {
+        if (userId == null || amountCents <= 0) {
+            return new Deposit(5, 0);
+        }
+        String key = idempotencyKey == null || idempotencyKey.isBlank() ? UUID.randomUUID().toString() : idempotencyKey;
+        Optional<WalletEntry> done = walletEntryRepository.findByUserIdAndIdempotencyKey(userId, key);
+        if (done.isPresent()) {
+            return new Deposit(3, done.get().getBalanceAfterCents());
+        }
+        try {
+            return transactionTemplate.execute(status -> {
+                WalletEntry entry = post(userId, amountCents, WalletEntryType.DEPOSIT, key, null);
+                return entry == null ? new Deposit(4, 0) : new Deposit(1, entry.getBalanceAfterCents());
+            });
+        } catch (DataIntegrityViolationException e) {
+            // 同一请求的重试并发到达，后到的违反唯一约束整体回滚，返回先到的结果
+            return walletEntryRepository.findByUserIdAndIdempotencyKey(userId, key)
+                    .map(entry -> new Deposit(3, entry.getBalanceAfterCents()))
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    /**
+     * 在调用方的事务中修改余额并追加流水
+     * update会锁住用户行直到事务结束，随后读到的余额就是本次变动后的余额
+     * @return 余额不足或用户不存在时返回null，余额不变
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public WalletEntry post(Long userId, long amountCents, WalletEntryType type, String idempotencyKey, Long orderId) {
+        if (userRepository.addBalanceCents(userId, amountCents) == 0) {
+            return null;
+        }
+        entityCacheInvalidator.broadcastAfterCommit(User.class, userId);
+        long balanceCents = userRepository.findBalanceCents(userId).orElseThrow();
+        return walletEntryRepository.save(new WalletEntry(userId, amountCents, balanceCents, type, idempotencyKey, orderId));
+    }
+
+    public long getBalanceCents(Long userId) {
+        return userRepository.findBalanceCents(userId).orElse(0L);
+    }
+
+    /**
+     * 元转为分，最多两位小数
+     * @return 格式有误时返回null
+     */
+    public static Long toCents(String yuan) {
+        try {
+            return new BigDecimal(yuan.trim()).movePointRight(2).longValueExact();
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    void migrateLegacyBalances() {
+        try {
+            int migrated = walletEntryRepository.migrateLegacyBalances();
+            if (migrated > 0) {
+                System.out.println("已将" + migrated + "个用户的余额迁移为以分为单位");
+            }
+        } catch (RuntimeException e) {
+            // 新建的数据库没有原来的balance列
+        }
+        int opened = walletEntryRepository.insertOpeningEntries();
+        if (opened > 0) {
+            System.out.println("为" + opened + "个用户补记期初余额流水");
+        }
+    }
+
+    void audit() {
+        try {
+            List<Long> drifted = walletEntryRepository.findDriftedUserIds();
+            if (!drifted.isEmpty()) {
+                System.out.println("以下用户的余额与钱包流水不一致：" + drifted);
+            }
+        } catch (RuntimeException e) {
+            System.out.println("核对钱包流水失败：" + e.getMessage());
+        }
+    }
+}
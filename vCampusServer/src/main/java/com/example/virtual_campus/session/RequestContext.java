@@ -0,0 +1,99 @@
+package com.example.virtual_campus.session;
+
+import com.example.virtual_campus.Utils.JWTUtils.TokenClaims;
+import com.example.virtual_campus.model.User;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * 一个请求的登录身份，取自本次请求的JWT
+ * 处理请求期间绑定到当前线程，各页面通过current()取得；同一连接上并行处理的带编号请求各有自己的上下文，互不覆盖
+ * 客户端在请求中附带的用户ID只用于核对，以令牌中的身份为准，防止冒充其他用户
+ * 登录用户的实体在本请求第一次用到时读取，不跨请求保留，用户被修改或删除后下一个请求即可看到
+ */
+public final class RequestContext {
+
+    private static final ThreadLocal<RequestContext> CURRENT = new ThreadLocal<>();
+
+    // 登录、注册请求不带令牌，为null
+    private final TokenClaims claims;
+    private final Supplier<User> loader;
+    private User user;
+    private boolean loaded;
+
+    /**
+     * @param loader 读取登录用户，只在用到时调用一次，可以为null
+     */
+    public RequestContext(TokenClaims claims, Supplier<User> loader) {
+        this.claims = claims;
+        this.loader = loader;
+    }
+
+    public static RequestContext current() {
+        RequestContext context = CURRENT.get();
+        if (context == null) {
+            throw new IllegalStateException("当前线程没有绑定请求上下文");
+        }
+        return context;
+    }
+
+    public static void bind(RequestContext context) {
+        CURRENT.set(context);
+    }
+
+    public static void unbind() {
+        CURRENT.remove();
+    }
+
+    public boolean isAuthenticated() {
+        return claims != null;
+    }
+
+    public TokenClaims getClaims() {
+        return claims;
+    }
+
+    public Long getUserId() {
+        return claims == null ? null : claims.userId();
+    }
+
+    public Integer getUserType() {
+        return claims == null ? null : claims.userType();
+    }
+
+    public String getUsername() {
+        return claims == null ? null : claims.username();
+    }
+
+    /**
+     * 登录用户，余额等会变化的字段需另行从数据库读取
+     */
+    public User getUser() {
+        if (!loaded) {
+            user = loader == null ? null : loader.get();
+            loaded = true;
+        }
+        return user;
+    }
+
+    /**
+     * 登录用户对应的学号
+     */
+    public Long getStudentId() {
+        User user = getUser();
+        return user == null || user.getUserId() == null ? null : Long.parseLong(user.getUserId());
+    }
+
+    /**
+     * 核对客户端附带的用户ID，返回登录身份的用户ID
+     * @param claimedUserId 请求中读到的用户ID
+     */
+    public Long userId(Long claimedUserId) {
+        Long userId = getUserId();
+        if (claimedUserId != null && !Objects.equals(claimedUserId, userId)) {
+            System.out.println("请求中的用户ID" + claimedUserId + "与登录身份" + userId + "不一致，按登录身份处理");
+        }
+        return userId;
+    }
+}
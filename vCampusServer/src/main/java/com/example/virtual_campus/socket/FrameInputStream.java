@@ -0,0 +1,80 @@
+package com.example.virtual_campus.socket;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+
+/**
+ * 由选择器线程追加完整帧、由工作线程顺序读取的输入流
+ * 客户端每个请求只flush一次，一帧就是一个或几个完整的请求；选择器线程收齐整帧后才交给工作线程，
+ * 工作线程读取时所需的数据都已到达，不会停在半个请求上等待后续的网络数据
+ */
+public class FrameInputStream extends InputStream {
+
+    private final ArrayDeque<byte[]> frames = new ArrayDeque<>();
+    private byte[] current;
+    private int position;
+    private int available;
+    private boolean closed;
+
+    /**
+     * 追加一个完整帧的负载
+     */
+    public synchronized void append(byte[] payload) {
+        if (payload.length == 0) {
+            return;
+        }
+        frames.addLast(payload);
+        available += payload.length;
+    }
+
+    @Override
+    public synchronized int read() throws IOException {
+        if (!nextData()) {
+            return -1;
+        }
+        available--;
+        return current[position++] & 0xff;
+    }
+
+    @Override
+    public synchronized int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!nextData()) {
+            return -1;
+        }
+        int n = Math.min(len, current.length - position);
+        System.arraycopy(current, position, b, off, n);
+        position += n;
+        available -= n;
+        return n;
+    }
+
+    @Override
+    public synchronized int available() {
+        return available;
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+    }
+
+    // 当前帧读完时换下一帧；已收到的帧都读完了请求还没读完，说明客户端把一个请求拆成了多帧
+    private boolean nextData() throws IOException {
+        while (current == null || position == current.length) {
+            byte[] next = frames.pollFirst();
+            if (next == null) {
+                if (closed) {
+                    return false;
+                }
+                throw new IOException("请求不完整：一个请求应在一帧内发完");
+            }
+            current = next;
+            position = 0;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.virtual_campus.socket;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * 缓存写入的数据，每次flush时打包成一个长度前缀帧交给选择器线程发送
+ */
+public class FrameOutputStream extends OutputStream {
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private final ByteBufferPool bufferPool;
+    private final Consumer<ByteBuffer> sink;
+
+    public FrameOutputStream(ByteBufferPool bufferPool, Consumer<ByteBuffer> sink) {
+        this.bufferPool = bufferPool;
+        this.sink = sink;
+    }
+
+    @Override
+    public void write(int b) {
+        buffer.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        buffer.write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        int size = buffer.size();
+        if (size == 0) {
+            return;
+        }
+        int frameSize = Integer.BYTES + size;
+        ByteBuffer frame = frameSize <= bufferPool.getBufferSize()
+                ? bufferPool.acquire()
+                : ByteBuffer.allocate(frameSize);
+        frame.putInt(size);
+        frame.put(buffer.toByteArray());
+        frame.flip();
+        buffer.reset();
+        sink.accept(frame);
+    }
+}
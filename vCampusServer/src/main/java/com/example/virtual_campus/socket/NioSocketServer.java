@@ -0,0 +1,319 @@
+package com.example.virtual_campus.socket;
+
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于Selector的非阻塞Socket服务
+ * 单个选择器线程负责accept和读写，按4字节长度前缀切分出完整帧后再交给工作线程池处理，
+ * 空闲连接不占用任何线程。同一连接上的请求由工作线程按顺序读取，带编号的请求再交给请求线程池并行处理。
+ * 每帧是客户端一次flush写出的完整请求，工作线程只处理已收齐的请求；
+ * 某个连接收到而未处理的数据过多时暂停读取，由TCP流量控制让客户端放慢发送，处理掉一部分后再恢复。
+ */
+public class NioSocketServer implements Runnable {
+
+    // 单帧上限，防止异常长度导致分配过大的内存
+    private static final int MAX_FRAME_SIZE = 16 * 1024 * 1024;
+    // 每个连接已收齐但未处理的请求字节上限，超过后暂停读取
+    private static final int MAX_BUFFERED = 1024 * 1024;
+
+    private final int port;
+    private final int maxConnections;
+    private final ExecutorService workers;
+    private final RequestHandler handler;
+    private final ByteBufferPool bufferPool = new ByteBufferPool(16 * 1024, 256);
+    private final AtomicInteger connections = new AtomicInteger();
+    private final Queue<Connection> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final Queue<Connection> pendingReads = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean running = true;
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+
+    public NioSocketServer(int port, int maxConnections, ExecutorService workers, RequestHandler handler) {
+        this.port = port;
+        this.maxConnections = maxConnections;
+        this.workers = workers;
+        this.handler = handler;
+    }
+
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    @Override
+    public void run() {
+        try {
+            selector = Selector.open();
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(port));
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+            System.out.println("NIO Server started. Waiting for client...");
+
+            while (running) {
+                selector.select();
+                registerPendingOps();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    try {
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else {
+                            Connection connection = (Connection) key.attachment();
+                            if (key.isReadable()) {
+                                connection.read();
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                connection.write();
+                            }
+                        }
+                    } catch (IOException e) {
+                        if (key.attachment() instanceof Connection connection) {
+                            connection.close();
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            if (running) {
+                e.printStackTrace();
+            }
+        } finally {
+            closeAll();
+        }
+    }
+
+    // 由选择器线程自己关闭所有连接和通道
+    private void closeAll() {
+        try {
+            if (selector != null) {
+                for (SelectionKey key : selector.keys()) {
+                    if (key.attachment() instanceof Connection connection) {
+                        connection.close();
+                    }
+                }
+                selector.close();
+            }
+            if (serverChannel != null) {
+                serverChannel.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public void stop() {
+        running = false;
+        if (selector != null) {
+            selector.wakeup();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            System.out.println("Max connections reached, rejecting new connection.");
+            channel.close();
+            return;
+        }
+        channel.configureBlocking(false);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        Connection connection = new Connection(channel, key);
+        key.attach(connection);
+        // 立即发出对象流头部，客户端构造ObjectInputStream时需要先读到它
+        connection.out.flush();
+        System.out.println("Client connected! 当前连接数：" + connections.get());
+    }
+
+    // 工作线程产生的响应帧、处理完积压后恢复读取，都在选择器线程中登记对应的事件
+    private void registerPendingOps() {
+        Connection connection;
+        while ((connection = pendingWrites.poll()) != null) {
+            if (connection.key.isValid()) {
+                connection.key.interestOps(connection.key.interestOps() | SelectionKey.OP_WRITE);
+            }
+        }
+        while ((connection = pendingReads.poll()) != null) {
+            if (connection.key.isValid()) {
+                connection.key.interestOps(connection.key.interestOps() | SelectionKey.OP_READ);
+            }
+        }
+    }
+
+    private class Connection {
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private final FrameInputStream input = new FrameInputStream();
+        private final ObjectOutputStream out;
+        private final Queue<ByteBuffer> writeQueue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        // 积压过多已暂停读取
+        private final AtomicBoolean paused = new AtomicBoolean();
+
+        // 帧解析状态
+        private final ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+        private byte[] payload;
+        private int payloadPosition;
+
+        // 仅在工作线程中使用
+        private ObjectInputStream in;
+
+        Connection(SocketChannel channel, SelectionKey key) throws IOException {
+            this.channel = channel;
+            this.key = key;
+            this.out = new ObjectOutputStream(new FrameOutputStream(bufferPool, this::enqueue));
+        }
+
+        void read() throws IOException {
+            ByteBuffer buffer = bufferPool.acquire();
+            try {
+                int n = channel.read(buffer);
+                if (n < 0) {
+                    close();
+                    return;
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    if (payload == null) {
+                        while (header.hasRemaining() && buffer.hasRemaining()) {
+                            header.put(buffer.get());
+                        }
+                        if (header.hasRemaining()) {
+                            break;
+                        }
+                        header.flip();
+                        int length = header.getInt();
+                        header.clear();
+                        if (length < 0 || length > MAX_FRAME_SIZE) {
+                            throw new IOException("非法的帧长度：" + length);
+                        }
+                        payload = new byte[length];
+                        payloadPosition = 0;
+                    }
+                    int chunk = Math.min(buffer.remaining(), payload.length - payloadPosition);
+                    buffer.get(payload, payloadPosition, chunk);
+                    payloadPosition += chunk;
+                    if (payloadPosition == payload.length) {
+                        input.append(payload);
+                        payload = null;
+                        schedule();
+                    }
+                }
+            } finally {
+                bufferPool.release(buffer);
+            }
+            if (input.available() >= MAX_BUFFERED) {
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+                paused.set(true);
+                // 暂停前工作线程可能刚好处理完，再检查一次，避免没有线程来恢复
+                resumeIfDrained();
+            }
+        }
+
+        void write() throws IOException {
+            ByteBuffer frame;
+            while ((frame = writeQueue.peek()) != null) {
+                channel.write(frame);
+                if (frame.hasRemaining()) {
+                    return;
+                }
+                writeQueue.poll();
+                bufferPool.release(frame);
+            }
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+            // 清除写事件后可能又有新帧入队
+            if (!writeQueue.isEmpty()) {
+                key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+            }
+        }
+
+        private void enqueue(ByteBuffer frame) {
+            writeQueue.add(frame);
+            pendingWrites.add(this);
+            selector.wakeup();
+        }
+
+        // 积压降到上限以下时恢复读取，由选择器线程修改关注的事件
+        private void resumeIfDrained() {
+            if (input.available() < MAX_BUFFERED && paused.compareAndSet(true, false)) {
+                pendingReads.add(this);
+                selector.wakeup();
+            }
+        }
+
+        // 保证同一连接同时只有一个工作线程在处理
+        private void schedule() {
+            if (!closed.get() && scheduled.compareAndSet(false, true)) {
+                workers.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                if (in == null) {
+                    in = new ObjectInputStream(input);
+                }
+                while (!closed.get() && input.available() > 0) {
+                    boolean keepOpen = handler.serve(in, out);
+                    // 带编号请求的响应可能正由其他工作线程写入
+                    synchronized (out) {
+                        out.flush();
+                    }
+                    if (!keepOpen) {
+                        close();
+                        return;
+                    }
+                    resumeIfDrained();
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+                close();
+            } finally {
+                scheduled.set(false);
+            }
+            if (input.available() > 0) {
+                schedule();
+            }
+        }
+
+        void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            connections.decrementAndGet();
+            input.close();
+            key.cancel();
+            try {
+                System.out.println("Connection closed with " + channel.getRemoteAddress());
+                channel.close();
+            } catch (IOException e) {
+                // 连接已断开
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.virtual_campus.socket;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * 处理一个完整请求，返回false表示客户端要求关闭连接
+ * 请求的登录身份取自请求中的令牌，不在连接上保存，见RequestContext
+ */
+@FunctionalInterface
+public interface RequestHandler {
+    boolean serve(ObjectInputStream in, ObjectOutputStream out) throws IOException, ClassNotFoundException;
+}
@@ -0,0 +1,88 @@
+package com.example.virtual_campus.socket;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 同一连接上多个请求并行处理
+ * 客户端把一个完整请求（model、function、令牌和参数）写成独立的对象流，连同请求编号一起发送：
+ *   "mux"、请求编号（long）、请求字节
+ * 服务器把请求交给工作线程池处理，处理完按完成顺序写回：请求编号（long）、响应字节
+ * 客户端按编号把响应交给对应的请求，不必等上一个请求返回就能发出下一个
+ * 写回响应时锁住连接的输出流，与不带编号的旧式请求共用同一条流
+ */
+public class RequestMultiplexer {
+
+    public static final String MARKER = "mux";
+
+    private final ExecutorService workers;
+    private final RequestHandler handler;
+
+    public RequestMultiplexer(ExecutorService workers, RequestHandler handler) {
+        this.workers = workers;
+        this.handler = handler;
+    }
+
+    /**
+     * 读取一个带编号的请求并交给工作线程，调用前已读出MARKER
+     */
+    public void submit(ObjectInputStream in, ObjectOutputStream out)
+            throws IOException, ClassNotFoundException {
+        long requestId = in.readLong();
+        byte[] request = (byte[]) in.readUnshared();
+        try {
+            workers.execute(() -> serve(requestId, request, out));
+        } catch (RejectedExecutionException e) {
+            respondError(requestId, out, "服务器繁忙");
+        }
+    }
+
+    private void serve(long requestId, byte[] request, ObjectOutputStream out) {
+        byte[] response;
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            try (ObjectInputStream requestIn = new ObjectInputStream(new ByteArrayInputStream(request));
+                 ObjectOutputStream responseOut = new ObjectOutputStream(buffer)) {
+                handler.serve(requestIn, responseOut);
+            }
+            response = buffer.toByteArray();
+        } catch (Exception e) {
+            e.printStackTrace();
+            respondError(requestId, out, "请求处理失败：" + e.getMessage());
+            return;
+        }
+        try {
+            respond(requestId, response, out);
+        } catch (IOException e) {
+            // 连接已断开，读取线程会负责关闭
+            System.out.println("请求" + requestId + "的响应发送失败：" + e.getMessage());
+        }
+    }
+
+    private static void respond(long requestId, byte[] response, ObjectOutputStream out) throws IOException {
+        synchronized (out) {
+            out.writeLong(requestId);
+            out.writeUnshared(response);
+            out.flush();
+        }
+    }
+
+    // 与JWT验证失败时的格式一致：先写"error"，再写原因
+    private static void respondError(long requestId, ObjectOutputStream out, String message) {
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            try (ObjectOutputStream responseOut = new ObjectOutputStream(buffer)) {
+                responseOut.writeObject("error");
+                responseOut.writeObject(message);
+            }
+            respond(requestId, buffer.toByteArray(), out);
+        } catch (IOException e) {
+            System.out.println("请求" + requestId + "的错误响应发送失败：" + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.virtual_campus.sync;
+
+import com.example.virtual_campus.model.Book;
+import com.example.virtual_campus.model.Course;
+import com.example.virtual_campus.model.Product;
+import com.example.virtual_campus.model.Revisioned;
+import com.example.virtual_campus.model.Student;
+import com.example.virtual_campus.model.User;
+import com.example.virtual_campus.protocol.RowSetSchema;
+import com.example.virtual_campus.protocol.RowSets;
+import com.example.virtual_campus.protocol.WireFrame;
+import com.example.virtual_campus.repository.BookRepository;
+import com.example.virtual_campus.repository.CourseRepository;
+import com.example.virtual_campus.repository.ProductRepository;
+import com.example.virtual_campus.repository.StudentRepository;
+import com.example.virtual_campus.repository.TombstoneRepository;
+import com.example.virtual_campus.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.List;
+import java.util.function.LongFunction;
+
+/**
+ * 各列表的增量同步（socket的requestChanges）
+ * 客户端带上次同步到的版本号，返回之后新增或修改的行和删除的id；版本号为负时返回全部行，作为同步的起点
+ */
+@Service
+public class ChangeFeed {
+
+    @Autowired
+    private RevisionTracker revisionTracker;
+    @Autowired
+    private TombstoneRepository tombstoneRepository;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private CourseRepository courseRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private StudentRepository studentRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    /**
+     * 一次增量同步的结果
+     * @param revision 客户端下次请求时带上的版本号
+     * @param frame 新增或修改的行，列与全部列表一致
+     * @param deletedIds 删除的id，客户端应先删除再按id合并frame中的行
+     */
+    public record Changes(long revision, byte[] frame, long[] deletedIds) {
+
+        // 响应格式：版本号（Long）、行集帧、删除的id（long[]）
+        public void write(ObjectOutputStream out) throws IOException {
+            out.writeObject(revision);
+            WireFrame.write(out, frame);
+            out.writeUnshared(deletedIds);
+        }
+    }
+
+    public Changes books(long since) throws IOException {
+        return changes(Book.class, RowSets.BOOK, since, bookRepository::findByRevisionGreaterThanOrderByIdAsc);
+    }
+
+    public Changes courses(long since) throws IOException {
+        return changes(Course.class, RowSets.COURSE, since, courseRepository::findByRevisionGreaterThanOrderByIdAsc);
+    }
+
+    public Changes products(long since) throws IOException {
+        return changes(Product.class, RowSets.PRODUCT, since, productRepository::findByRevisionGreaterThanOrderByIdAsc);
+    }
+
+    public Changes students(long since) throws IOException {
+        return changes(Student.class, RowSets.STUDENT, since, studentRepository::findByRevisionGreaterThanOrderByIdAsc);
+    }
+
+    public Changes users(long since) throws IOException {
+        return changes(User.class, RowSets.USER, since, userRepository::findByRevisionGreaterThanOrderByIdAsc);
+    }
+
+    private <T extends Revisioned> Changes changes(Class<T> type, RowSetSchema<T> schema, long since,
+                                                   LongFunction<List<T>> changedSince) throws IOException {
+        // 先取安全版本号再查询：不大于它的修改都已提交，一定能查到；查到的更新的行下次会再发一遍，按id合并不受影响
+        long revision = revisionTracker.safeRevision();
+        byte[] frame = schema.encode(changedSince.apply(Math.max(since, -1)));
+        long[] deletedIds = since < 0 ? new long[0]
+                : tombstoneRepository.findDeletedIds(type.getSimpleName(), since).stream().mapToLong(Long::longValue).toArray();
+        return new Changes(Math.max(revision, since), frame, deletedIds);
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.virtual_campus.sync;
+
+import com.example.virtual_campus.model.Book;
+import com.example.virtual_campus.model.Course;
+import com.example.virtual_campus.model.Product;
+import com.example.virtual_campus.model.Revisioned;
+import com.example.virtual_campus.model.Student;
+import com.example.virtual_campus.model.Tombstone;
+import com.example.virtual_campus.model.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PreDeleteEvent;
+import org.hibernate.event.spi.PreDeleteEventListener;
+import org.hibernate.event.spi.PreInsertEvent;
+import org.hibernate.event.spi.PreInsertEventListener;
+import org.hibernate.event.spi.PreUpdateEvent;
+import org.hibernate.event.spi.PreUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.function.LongToIntFunction;
+
+/**
+ * 分配实体的修改版本号并记录删除，供客户端增量同步列表
+ * 所有实体共用一个递增的版本号：新增、修改在写库前填入revision列，删除时紧接着在同一次flush中写一条Tombstone
+ * 学生的姓名取自关联的用户，用户改名时一并更新其学生行的版本号，学生列表的增量同步才能带上新名字
+ * 事务的提交顺序与分配顺序不一定一致，拿到10的事务可能比拿到11的晚提交；
+ * 因此同时记下已分配但事务还没结束的版本号，safeRevision只报告比它们都小的值，客户端按它同步不会漏掉晚提交的修改
+ * 计数保存在本节点内存中，启动时从各表的最大值接着分配；多节点部署时需改由数据库或Redis分配
+ */
+@Component
+public class RevisionTracker implements PreInsertEventListener, PreUpdateEventListener, PreDeleteEventListener {
+
+    private static final List<Class<? extends Revisioned>> TRACKED =
+            List.of(Book.class, Course.class, Product.class, Student.class, User.class);
+    // 删除记录直接用SQL写入，不经过会话的实体操作
+    static final String INSERT_TOMBSTONE = "insert into tombstones (entity, entity_id, revision) values (?, ?, ?)";
+    static final String TOUCH_STUDENTS = "update students set revision = ? where user_id = ?";
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private long current;
+    // 已分配、所在事务还没结束的版本号
+    private final TreeSet<Long> inFlight = new TreeSet<>();
+
+    @PostConstruct
+    public void start() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            long max = 0;
+            for (Class<? extends Revisioned> type : TRACKED) {
+                max = Math.max(max, maxRevision(entityManager, type.getSimpleName()));
+            }
+            max = Math.max(max, maxRevision(entityManager, Tombstone.class.getSimpleName()));
+            synchronized (this) {
+                current = max;
+            }
+        } finally {
+            entityManager.close();
+        }
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.PRE_INSERT, this);
+        registry.appendListeners(EventType.PRE_UPDATE, this);
+        registry.appendListeners(EventType.PRE_DELETE, this);
+        System.out.println("修改版本号从" + current + "开始分配");
+    }
+
+    /**
+     * 客户端可以安全同步到的版本号：不大于它的修改都已提交或回滚
+     */
+    public synchronized long safeRevision() {
+        return inFlight.isEmpty() ? current : inFlight.first() - 1;
+    }
+
+    /**
+     * 批量更新（JPQL或原生SQL）不经过实体事件，由这里分配版本号并传给更新语句
+     * 在事务中时事务结束后释放，否则语句执行完即已提交，随即释放
+     * @param statement 以版本号为参数执行更新，返回影响的行数
+     */
+    public int update(LongToIntFunction statement) {
+        long revision = allocate();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    release(revision);
+                }
+            });
+            return statement.applyAsInt(revision);
+        }
+        try {
+            return statement.applyAsInt(revision);
+        } finally {
+            release(revision);
+        }
+    }
+
+    @Override
+    public boolean onPreInsert(PreInsertEvent event) {
+        if (event.getEntity() instanceof Revisioned entity) {
+            stamp(entity, event.getPersister(), event.getState(), event.getSession());
+        }
+        return false;
+    }
+
+    @Override
+    public boolean onPreUpdate(PreUpdateEvent event) {
+        if (!(event.getEntity() instanceof Revisioned entity)) {
+            return false;
+        }
+        long revision = stamp(entity, event.getPersister(), event.getState(), event.getSession());
+        if (entity instanceof User && event.getId() instanceof Long userId && nameChanged(event)) {
+            // 与用户的更新在同一事务中提交，用同一个版本号
+            event.getSession().doWork(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(TOUCH_STUDENTS)) {
+                    statement.setLong(1, revision);
+                    statement.setLong(2, userId);
+                    statement.executeUpdate();
+                }
+            });
+        }
+        return false;
+    }
+
+    @Override
+    public boolean onPreDelete(PreDeleteEvent event) {
+        if (!(event.getEntity() instanceof Revisioned) || !(event.getId() instanceof Long id)) {
+            return false;
+        }
+        long revision = track(event.getSession());
+        String entity = event.getPersister().getMappedClass().getSimpleName();
+        // 删除语句在flush中执行，此时不能再persist别的实体；改用会话自己的连接紧接着插入，
+        // 与删除语句在同一事务中提交或回滚，不会出现删掉了行却没有删除记录的情况
+        event.getSession().doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_TOMBSTONE)) {
+                statement.setString(1, entity);
+                statement.setLong(2, id);
+                statement.setLong(3, revision);
+                statement.executeUpdate();
+            }
+        });
+        return false;
+    }
+
+    // 写库前把新的版本号同时填入实体和即将写入的列值
+    private long stamp(Revisioned entity, EntityPersister persister, Object[] state, EventSource session) {
+        long revision = track(session);
+        entity.setRevision(revision);
+        String[] names = persister.getPropertyNames();
+        for (int i = 0; i < names.length; i++) {
+            if ("revision".equals(names[i])) {
+                state[i] = revision;
+                break;
+            }
+        }
+        return revision;
+    }
+
+    private static boolean nameChanged(PreUpdateEvent event) {
+        String[] names = event.getPersister().getPropertyNames();
+        for (int i = 0; i < names.length; i++) {
+            if ("name".equals(names[i])) {
+                return event.getOldState() == null || !Objects.equals(event.getOldState()[i], event.getState()[i]);
+            }
+        }
+        return false;
+    }
+
+    // 分配版本号，Hibernate会话的事务结束（提交或回滚）后释放
+    private long track(EventSource session) {
+        long revision = allocate();
+        session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, s) -> release(revision));
+        return revision;
+    }
+
+    private synchronized long allocate() {
+        long revision = ++current;
+        inFlight.add(revision);
+        return revision;
+    }
+
+    private synchronized void release(long revision) {
+        inFlight.remove(revision);
+    }
+
+    private static long maxRevision(EntityManager entityManager, String entity) {
+        Long max = entityManager.createQuery("select max(e.revision) from " + entity + " e", Long.class).getSingleResult();
+        return max == null ? 0 : max;
+    }
+}
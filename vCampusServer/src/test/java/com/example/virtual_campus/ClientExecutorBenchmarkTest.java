@@ -0,0 +1,110 @@
+package com.example.virtual_campus;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Socket会话执行模式的基准测试
+ * 对比平台线程池与虚拟线程在大量空闲会话（阻塞在readObject上）时的堆占用和线程数
+ * 运行方式：mvn test -Dtest=ClientExecutorBenchmarkTest -Dvcampus.benchmark=true [-Dvcampus.benchmark.sessions=2000]
+ */
+@EnabledIfSystemProperty(named = "vcampus.benchmark", matches = "true")
+public class ClientExecutorBenchmarkTest {
+
+    private static final int SESSIONS = Integer.getInteger("vcampus.benchmark.sessions", 2000);
+
+    @Test
+    public void compareIdleSessionFootprint() throws Exception {
+        Result platform = run("platform");
+        Result virtual = run("virtual");
+
+        System.out.println("模式\t会话数\t堆增量(MB)\t平台线程数\t每GB堆会话数");
+        System.out.println(platform);
+        System.out.println(virtual);
+
+        assertEquals(SESSIONS, platform.sessions, "平台线程池应建立全部会话");
+        assertEquals(SESSIONS, virtual.sessions, "虚拟线程应建立全部会话");
+    }
+
+    private Result run(String mode) throws Exception {
+        ExecutorService executor = Server.newClientExecutor(mode, SESSIONS);
+        CountDownLatch idle = new CountDownLatch(SESSIONS);
+        List<Socket> clients = new ArrayList<>();
+
+        long heapBefore = usedHeap();
+        int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+
+        try (ServerSocket serverSocket = new ServerSocket(0, SESSIONS, InetAddress.getLoopbackAddress())) {
+            Thread acceptor = new Thread(() -> {
+                try {
+                    for (int i = 0; i < SESSIONS; i++) {
+                        Socket socket = serverSocket.accept();
+                        executor.execute(() -> idleSession(socket, idle));
+                    }
+                } catch (Exception e) {
+                    // 测试结束关闭监听时退出
+                }
+            });
+            acceptor.start();
+
+            for (int i = 0; i < SESSIONS; i++) {
+                Socket client = new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+                ObjectOutputStream out = new ObjectOutputStream(client.getOutputStream());
+                out.flush();
+                clients.add(client);
+            }
+            assertTrue(idle.await(60, TimeUnit.SECONDS), mode + "模式下会话未能全部进入等待状态");
+
+            long heapDelta = Math.max(usedHeap() - heapBefore, 1);
+            int threads = ManagementFactory.getThreadMXBean().getThreadCount() - threadsBefore;
+            return new Result(mode, SESSIONS, heapDelta, threads);
+        } finally {
+            for (Socket client : clients) {
+                client.close();
+            }
+            executor.shutdownNow();
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        }
+    }
+
+    private static void idleSession(Socket socket, CountDownLatch idle) {
+        try (socket; ObjectInputStream in = new ObjectInputStream(socket.getInputStream())) {
+            idle.countDown();
+            in.readObject();
+        } catch (Exception e) {
+            // 客户端断开，会话结束
+        }
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private record Result(String mode, int sessions, long heapBytes, int platformThreads) {
+        @Override
+        public String toString() {
+            double heapMb = heapBytes / 1024.0 / 1024.0;
+            long perGb = Math.round(sessions * (1024.0 * 1024 * 1024) / heapBytes);
+            return String.format("%s\t%d\t%.1f\t%d\t%d", mode, sessions, heapMb, platformThreads, perGb);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.virtual_campus;
+
+import com.example.virtual_campus.ServerPages.StudentSchoolPage;
+import com.example.virtual_campus.Utils.JWTUtils.TokenClaims;
+import com.example.virtual_campus.cache.EntityCacheStats;
+import com.example.virtual_campus.model.Book;
+import com.example.virtual_campus.model.Course;
+import com.example.virtual_campus.model.Product;
+import com.example.virtual_campus.model.Student;
+import com.example.virtual_campus.model.User;
+import com.example.virtual_campus.repository.BookRepository;
+import com.example.virtual_campus.repository.CourseRepository;
+import com.example.virtual_campus.repository.ProductRepository;
+import com.example.virtual_campus.repository.StudentRepository;
+import com.example.virtual_campus.repository.UserRepository;
+import com.example.virtual_campus.session.RequestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 二级缓存的基准测试，需要连接真实的MySQL
+ * 模拟各页面的热点查找：查看学籍（GetMySchool）以及按id读取图书、课程、商品、学生，统计吞吐量和命中率
+ * 分别以开启和关闭缓存各运行一次对比：
+ * mvn test -Dtest=EntityCacheBenchmarkTest -Dvcampus.benchmark=true -Dvcampus.cache.enabled=true
+ * mvn test -Dtest=EntityCacheBenchmarkTest -Dvcampus.benchmark=true -Dvcampus.cache.enabled=false
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "vcampus.benchmark", matches = "true")
+public class EntityCacheBenchmarkTest {
+
+    private static final int ROWS = 50;
+    private static final int REQUESTS = Integer.getInteger("vcampus.benchmark.requests", 20000);
+
+    @Value("${vcampus.cache.enabled}")
+    private boolean cacheEnabled;
+
+    @Autowired
+    private StudentSchoolPage studentSchoolPage;
+    @Autowired
+    private EntityCacheStats entityCacheStats;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private CourseRepository courseRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Test
+    public void benchmarkHotLookups() throws Exception {
+        List<Long> users = new ArrayList<>();
+        List<Long> books = new ArrayList<>();
+        List<Long> courses = new ArrayList<>();
+        List<Long> products = new ArrayList<>();
+        List<Long> students = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            User user = new User();
+            user.setName("缓存测试用户" + i);
+            user.setUsertype(2);
+            users.add(userRepository.save(user).getId());
+            Book book = new Book();
+            book.setTitle("缓存测试图书" + i);
+            books.add(bookRepository.save(book).getId());
+            Course course = new Course();
+            course.setName("缓存测试课程" + i);
+            courses.add(courseRepository.save(course).getId());
+            Product product = new Product();
+            product.setName("缓存测试商品" + i);
+            product.setPrice(1.0);
+            product.setQuantity(1);
+            products.add(productRepository.save(product).getId());
+            Student student = new Student();
+            students.add(studentRepository.save(student).getId());
+        }
+
+        try {
+            Random random = new Random(7);
+            entityCacheStats.clear();
+            long begin = System.nanoTime();
+            for (int i = 0; i < REQUESTS; i++) {
+                int row = random.nextInt(ROWS);
+                switch (i % 5) {
+                    case 0 -> getMySchool(users.get(row));
+                    case 1 -> assertTrue(bookRepository.findById(books.get(row)).isPresent());
+                    case 2 -> assertTrue(courseRepository.findById(courses.get(row)).isPresent());
+                    case 3 -> assertTrue(productRepository.findById(products.get(row)).isPresent());
+                    default -> assertTrue(studentRepository.findById(students.get(row)).isPresent());
+                }
+            }
+            long elapsed = System.nanoTime() - begin;
+            System.out.printf("二级缓存%s：%d次查找耗时%dms，每秒%.0f次，命中率%.1f%%%n",
+                    cacheEnabled ? "开启" : "关闭", REQUESTS, elapsed / 1_000_000,
+                    REQUESTS * 1e9 / elapsed, entityCacheStats.hitRatio() * 100);
+            System.out.println(entityCacheStats.snapshot());
+            if (cacheEnabled) {
+                assertTrue(entityCacheStats.hitRatio() > 0.9, "预热后绝大多数查找应命中缓存");
+            }
+        } finally {
+            userRepository.deleteAllById(users);
+            bookRepository.deleteAllById(books);
+            courseRepository.deleteAllById(courses);
+            productRepository.deleteAllById(products);
+            studentRepository.deleteAllById(students);
+        }
+    }
+
+    // 按Socket请求的格式调用查看学籍的处理方法，登录用户与服务器处理请求时一样按id读取
+    private void getMySchool(Long userId) throws Exception {
+        ByteArrayOutputStream request = new ByteArrayOutputStream();
+        try (ObjectOutputStream writer = new ObjectOutputStream(request)) {
+            writer.writeObject(userId);
+        }
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(request.toByteArray()));
+        ObjectOutputStream out = new ObjectOutputStream(new ByteArrayOutputStream());
+        TokenClaims claims = new TokenClaims("缓存测试用户", userId, 2, 0L, Long.MAX_VALUE);
+        RequestContext.bind(new RequestContext(claims, () -> userRepository.findById(userId).orElseThrow()));
+        try {
+            studentSchoolPage.work("GetMySchool", in, out);
+        } finally {
+            RequestContext.unbind();
+        }
+    }
+}
@@ -53,6 +53,33 @@ public class JWTUtilsTest {
         assertFalse(isNullValid, "空令牌应验证失败");
     }
 
+    @Test
+    public void testParseTokenOnce() {
+        String token = JWTUtils.generateToken("parseuser", 7L, 2);
+        JWTUtils.TokenClaims claims = JWTUtils.parseToken(token);
+        assertNotNull(claims, "有效令牌应能解析");
+        assertEquals("parseuser", claims.username(), "用户名应与生成时一致");
+        assertEquals(7L, claims.userId(), "用户ID应与生成时一致");
+        assertEquals(2, claims.userType(), "用户类型应与生成时一致");
+        assertTrue(claims.expiresAt() > System.currentTimeMillis(), "过期时刻应在将来");
+
+        assertSame(claims, JWTUtils.parseToken(token), "同一令牌再次验证应直接使用缓存");
+        assertNull(JWTUtils.parseToken(token + "x"), "签名被篡改的令牌应验证失败");
+        assertNull(JWTUtils.parseToken(""), "空令牌应验证失败");
+    }
+
+    @Test
+    public void testRefreshKeepsAuthTime() {
+        long loginAt = System.currentTimeMillis() - 48L * 60 * 60 * 1000;
+        JWTUtils.TokenClaims refreshed = JWTUtils.parseToken(JWTUtils.generateToken("authuser", 8L, 2, loginAt));
+        assertNotNull(refreshed, "换发的令牌应有效");
+        assertEquals(loginAt / 1000 * 1000, refreshed.authTime(), "换发的令牌应沿用原来的登录时刻");
+        assertTrue(refreshed.expiresAt() > System.currentTimeMillis(), "换发的令牌从现在起计算过期时刻");
+
+        JWTUtils.TokenClaims login = JWTUtils.parseToken(JWTUtils.generateToken("authuser", 8L, 2));
+        assertTrue(System.currentTimeMillis() - login.authTime() < 5000, "新登录的令牌以当前时刻为登录时刻");
+    }
+
     @Test
     public void testExtractFromInvalidToken() {
         // 从无效令牌中提取信息应返回null
@@ -0,0 +1,71 @@
+package com.example.virtual_campus.Utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PageUtils类的测试类
+ */
+public class PageUtilsTest {
+
+    @Test
+    public void testClampSize() {
+        assertEquals(PageUtils.DEFAULT_PAGE_SIZE, PageUtils.clampSize(null), "未指定页大小时用默认值");
+        assertEquals(PageUtils.DEFAULT_PAGE_SIZE, PageUtils.clampSize(0), "页大小为0时用默认值");
+        assertEquals(PageUtils.DEFAULT_PAGE_SIZE, PageUtils.clampSize(-5), "页大小为负时用默认值");
+        assertEquals(20, PageUtils.clampSize(20));
+        assertEquals(PageUtils.MAX_PAGE_SIZE, PageUtils.clampSize(PageUtils.MAX_PAGE_SIZE));
+        assertEquals(PageUtils.MAX_PAGE_SIZE, PageUtils.clampSize(100000), "页大小不应超过上限");
+    }
+
+    @Test
+    public void testPageByIdCorrectsInput() {
+        Pageable first = PageUtils.pageById(null, null);
+        assertEquals(0, first.getPageNumber(), "未指定页码时取第一页");
+        assertEquals(PageUtils.DEFAULT_PAGE_SIZE, first.getPageSize());
+        assertEquals(Sort.by("id"), first.getSort(), "应按id排序");
+
+        assertEquals(0, PageUtils.pageById(-3, 10).getPageNumber(), "负的页码应按第一页处理");
+        Pageable third = PageUtils.pageById(2, 10);
+        assertEquals(20, third.getOffset(), "第三页应跳过前两页");
+        assertEquals(PageUtils.MAX_PAGE_SIZE, PageUtils.pageById(1, 100000).getPageSize());
+    }
+
+    @Test
+    public void testCursorAndFirstPage() {
+        assertEquals(0, PageUtils.cursor(null), "未指定游标时从头开始");
+        assertEquals(0, PageUtils.cursor(-1L), "负的游标应从头开始");
+        assertEquals(42, PageUtils.cursor(42L));
+
+        Pageable page = PageUtils.firstPage(-1);
+        assertEquals(0, page.getOffset(), "游标分页不跳过行");
+        assertEquals(PageUtils.DEFAULT_PAGE_SIZE, page.getPageSize());
+        assertTrue(page.getSort().isUnsorted(), "顺序由查询方法决定");
+    }
+
+    @Test
+    public void testLastPage() {
+        // 25行数据每页10行，第三页是最后一页，只有5行
+        Pageable last = PageUtils.pageById(2, 10);
+        List<Long> rows = LongStream.rangeClosed(21, 25).boxed().toList();
+        Page<Long> page = new PageImpl<>(rows, last, 25);
+
+        assertFalse(page.hasNext(), "最后一页不应还有下一页");
+        assertEquals(25, page.getTotalElements(), "总数应为全部行数");
+        assertEquals(3, page.getTotalPages());
+        assertEquals(5, page.getNumberOfElements());
+
+        // 恰好整除时最后一页是满的，也不应再有下一页
+        Page<Long> full = new PageImpl<>(LongStream.rangeClosed(11, 20).boxed().toList(), PageUtils.pageById(1, 10), 20);
+        assertFalse(full.hasNext(), "整除时最后一页也不应有下一页");
+        assertEquals(20, full.getTotalElements());
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.virtual_campus.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 布隆过滤器的测试类
+ */
+public class BloomFilterTest {
+
+    @Test
+    public void testNoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.put(TokenBlacklist.digest("revoked-" + i));
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.mightContain(TokenBlacklist.digest("revoked-" + i)), "加入过的摘要一定能查到");
+        }
+    }
+
+    @Test
+    public void testFalsePositiveRateNearTarget() {
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.put(TokenBlacklist.digest("revoked-" + i));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (filter.mightContain(TokenBlacklist.digest("valid-" + i))) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "误判率应接近1%，实际" + falsePositives + "/10000");
+    }
+}
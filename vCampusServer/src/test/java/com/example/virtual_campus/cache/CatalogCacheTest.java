@@ -0,0 +1,222 @@
+package com.example.virtual_campus.cache;
+
+import com.example.virtual_campus.cache.CatalogCache.Catalog;
+import com.example.virtual_campus.cache.CatalogCache.Listing;
+import com.example.virtual_campus.model.Book;
+import com.example.virtual_campus.protocol.RowSet;
+import com.example.virtual_campus.protocol.RowSets;
+import com.example.virtual_campus.protocol.WireFrame;
+import com.example.virtual_campus.service.RedisService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 列表缓存的测试类，Redis由内存中的模拟对象代替
+ */
+public class CatalogCacheTest {
+
+    private CatalogCache catalogCache;
+    private RedisService redisService;
+    // 模拟的Redis内容
+    private final Map<String, Object> values = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> bytes = new ConcurrentHashMap<>();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    public void setUp() {
+        redisService = mock(RedisService.class);
+        stubRedis();
+
+        catalogCache = new CatalogCache();
+        ReflectionTestUtils.setField(catalogCache, "enabled", true);
+        ReflectionTestUtils.setField(catalogCache, "ttlMinutes", 60L);
+        ReflectionTestUtils.setField(catalogCache, "redisService", redisService);
+    }
+
+    private void stubRedis() {
+        when(redisService.get(anyString())).thenAnswer(call -> values.get(call.<String>getArgument(0)));
+        when(redisService.increment(anyString())).thenAnswer(call ->
+                (Long) values.merge(call.getArgument(0), 1L, (a, b) -> (Long) a + (Long) b));
+        when(redisService.getBytes(anyString())).thenAnswer(call -> bytes.get(call.<String>getArgument(0)));
+        doAnswer(call -> bytes.put(call.getArgument(0), call.getArgument(1)))
+                .when(redisService).setBytes(anyString(), any(), anyLong(), any());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        catalogCache.stop();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void testVersionBumpSkipsOldEntries() throws Exception {
+        load(Catalog.BOOK);
+        load(Catalog.BOOK);
+        assertEquals(1, loads.get(), "第二次读取应命中缓存");
+        assertTrue(bytes.containsKey("catalog:book:v0:all"), "键中应带当前版本号");
+
+        catalogCache.invalidate(Catalog.BOOK);
+        load(Catalog.BOOK);
+        assertEquals(2, loads.get(), "版本号递增后应重新查询数据库");
+        assertTrue(bytes.containsKey("catalog:book:v1:all"), "新结果应按新版本号保存");
+        load(Catalog.COURSE);
+        assertEquals(3, loads.get(), "各目录的版本号互不影响");
+    }
+
+    @Test
+    public void testInvalidateAfterCommitWaitsForCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        catalogCache.invalidateAfterCommit(Catalog.PRODUCT);
+        assertNull(values.get("catalog:product:version"), "事务提交前不应递增版本号");
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        assertEquals(1L, values.get("catalog:product:version"), "提交后应递增版本号");
+    }
+
+    @Test
+    public void testConcurrentMissesLoadOnce() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CatalogCache.Loader slow = () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return listing();
+        };
+        CompletableFuture<Listing> first = CompletableFuture.supplyAsync(() -> get(Catalog.BOOK, slow));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Listing> second = new CompletableFuture<>();
+        Thread waiter = new Thread(() -> second.complete(get(Catalog.BOOK, slow)));
+        waiter.start();
+        // 等第二个请求在第一个的查询上等待后再放行
+        while (waiter.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        assertEquals(first.get(5, TimeUnit.SECONDS).total(), second.get(5, TimeUnit.SECONDS).total());
+        assertEquals(1, loads.get(), "同一个键同时未命中时只应查询一次数据库");
+    }
+
+    @Test
+    public void testRedisDownFallsBackToDatabase() throws Exception {
+        when(redisService.get(anyString())).thenThrow(new RedisConnectionFailureException("连接被拒绝"));
+        when(redisService.increment(anyString())).thenThrow(new RedisConnectionFailureException("连接被拒绝"));
+
+        assertNotNull(load(Catalog.BOOK), "Redis不可用时应直接查询数据库");
+        catalogCache.invalidate(Catalog.BOOK);
+        load(Catalog.BOOK);
+        assertEquals(2, loads.get(), "Redis不可用期间每次都查询数据库");
+        verify(redisService, times(1)).get(anyString());
+
+        // Redis恢复，等待时间已过
+        reset(redisService);
+        stubRedis();
+        ReflectionTestUtils.setField(catalogCache, "redisRetryAt", 0L);
+        bytes.put("catalog:book:v0:all", listing().toBytes());
+        load(Catalog.BOOK);
+        assertEquals(1L, values.get("catalog:book:version"), "恢复后应先补上期间漏掉的版本号递增");
+        assertEquals(3, loads.get(), "不应读到不可用期间可能已过时的旧版本缓存");
+    }
+
+    @Test
+    public void testStockChangesCoalesced() {
+        ReflectionTestUtils.setField(catalogCache, "stockRefreshMillis", 60_000L);
+        catalogCache.start();
+        for (int i = 0; i < 100; i++) {
+            catalogCache.invalidateStock(Catalog.PRODUCT);
+        }
+        assertNull(values.get("catalog:product:version"), "库存变化不应立即递增版本号");
+
+        catalogCache.refreshStock();
+        assertEquals(1L, values.get("catalog:product:version"), "一轮中的库存变化只递增一次版本号");
+        catalogCache.refreshStock();
+        assertEquals(1L, values.get("catalog:product:version"), "没有新的库存变化时不递增");
+        catalogCache.invalidate(Catalog.PRODUCT);
+        assertEquals(2L, values.get("catalog:product:version"), "管理员修改仍立即生效");
+    }
+
+    private Listing load(Catalog catalog) {
+        return get(catalog, () -> {
+            loads.incrementAndGet();
+            return listing();
+        });
+    }
+
+    private Listing get(Catalog catalog, CatalogCache.Loader loader) {
+        try {
+            return catalogCache.get(catalog, "all", loader);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Listing listing() throws IOException {
+        Book book = new Book();
+        book.setId(7L);
+        book.setTitle("算法导论");
+        return new Listing(RowSets.BOOK.encode(List.of(book)), 1L, false);
+    }
+
+    @Test
+    public void testListingRoundTrip() throws Exception {
+        Book book = new Book();
+        book.setId(7L);
+        book.setTitle("算法导论");
+        book.setAvailable(true);
+        Listing listing = new Listing(RowSets.BOOK.encode(List.of(book)), 123L, true);
+
+        Listing restored = Listing.fromBytes(listing.toBytes());
+        assertEquals(123L, restored.total(), "总条数应保持不变");
+        assertTrue(restored.hasNext(), "是否还有下一批应保持不变");
+        assertArrayEquals(listing.frame(), restored.frame(), "行集帧应逐字节一致");
+    }
+
+    @Test
+    public void testCachedFrameReadableAsRowSet() throws Exception {
+        Book book = new Book();
+        book.setId(7L);
+        book.setTitle("算法导论");
+        Listing listing = Listing.fromBytes(new Listing(RowSets.BOOK.encode(List.of(book)), 1L, false).toBytes());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            WireFrame.write(out, listing.frame());
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            RowSet rows = RowSet.decode((byte[]) in.readObject());
+            assertEquals(1, rows.getRowCount(), "缓存的帧应能按行集读出");
+            assertEquals("算法导论", rows.get(0, "title"), "列值应保持不变");
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.virtual_campus.inventory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 本机分段库存台账的测试类
+ */
+public class LocalStockLedgerTest {
+
+    private static final long TTL = 60_000;
+    private static final long USER = 7L;
+    // 不限购
+    private static final int LIMIT = Integer.MAX_VALUE;
+
+    @Test
+    public void testParallelBuyersNeverOversell() throws Exception {
+        LocalStockLedger ledger = new LocalStockLedger(8);
+        ledger.load(1L, 1000);
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < 32; t++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                int sold = 0;
+                for (int i = 0; i < 200; i++) {
+                    Reservation reservation = ledger.reserve(USER, 1L, 1 + i % 3, LIMIT, TTL);
+                    if (reservation != null && ledger.claim(reservation.token(), USER) != null) {
+                        ledger.sold(reservation);
+                        sold += reservation.quantity();
+                    }
+                }
+                return sold;
+            }));
+        }
+        start.countDown();
+        int sold = 0;
+        for (Future<Integer> result : results) {
+            sold += result.get();
+        }
+        executor.shutdown();
+
+        assertEquals(1000, sold, "库存应恰好卖完，不多卖");
+        assertEquals(0L, ledger.available(1L), "卖完后可售为0");
+        assertEquals(1000, ledger.drainSold(1L), "已售数量应全部待写回");
+        assertEquals(0, ledger.drainSold(1L), "取出后清零");
+    }
+
+    @Test
+    public void testQuantityLargerThanOneStripe() {
+        LocalStockLedger ledger = new LocalStockLedger(4);
+        ledger.load(1L, 10);
+        assertNotNull(ledger.reserve(USER, 1L, 9, LIMIT, TTL), "数量超过单个分段时应从多个分段凑齐");
+        assertNull(ledger.reserve(USER, 1L, 2, LIMIT, TTL), "剩余不足时应预留失败");
+        assertEquals(1L, ledger.available(1L), "预留失败不应扣减库存");
+    }
+
+    @Test
+    public void testExpiredReservationReturnsStock() {
+        LocalStockLedger ledger = new LocalStockLedger(4);
+        ledger.load(1L, 5);
+        Reservation expired = ledger.reserve(USER, 1L, 3, LIMIT, -1);
+        Reservation alive = ledger.reserve(USER, 1L, 2, LIMIT, TTL);
+        assertEquals(5, ledger.reserved(1L), "两个预留都应计入预留中");
+
+        assertEquals(1, ledger.expire(System.currentTimeMillis()), "只有过期的预留被退回");
+        assertEquals(3L, ledger.available(1L), "过期的库存应退回");
+        assertNull(ledger.claim(expired.token(), USER), "过期的预留不能再结算");
+        assertNotNull(ledger.claim(alive.token(), USER), "未过期的预留可以结算");
+        assertNull(ledger.claim(alive.token(), USER), "同一个预留只能结算一次");
+    }
+
+    @Test
+    public void testReleaseAndAdjust() {
+        LocalStockLedger ledger = new LocalStockLedger(4);
+        ledger.load(1L, 5);
+        Reservation reservation = ledger.reserve(USER, 1L, 5, LIMIT, TTL);
+        ledger.release(ledger.claim(reservation.token(), USER));
+        assertEquals(5L, ledger.available(1L), "取消后库存退回");
+
+        ledger.load(1L, 100);
+        assertEquals(5L, ledger.available(1L), "已载入的商品不会被再次载入覆盖");
+        ledger.reserve(USER, 1L, 2, LIMIT, TTL);
+        ledger.adjust(1L, 4);
+        assertEquals(7L, ledger.available(1L), "增加库存时在剩余可售上加上差值，预留中的不受影响");
+        ledger.adjust(1L, -10);
+        assertEquals(0L, ledger.available(1L), "减少的数量超过可售时减到0");
+        ledger.adjust(2L, 3);
+        assertNull(ledger.reserve(USER, 2L, 1, LIMIT, TTL), "未载入的商品不能预留");
+    }
+
+    @Test
+    public void testPerUserLimitAndOwnership() {
+        LocalStockLedger ledger = new LocalStockLedger(4);
+        ledger.load(1L, 100);
+        Reservation first = ledger.reserve(USER, 1L, 3, 5, TTL);
+        assertNotNull(ledger.reserve(USER, 1L, 2, 5, TTL), "限购以内可以继续预留");
+        assertNull(ledger.reserve(USER, 1L, 1, 5, TTL), "超过限购时预留失败");
+        assertEquals(95L, ledger.available(1L), "超过限购的预留不应扣减库存");
+        assertNotNull(ledger.reserve(8L, 1L, 5, 5, TTL), "限购按用户分别计算");
+
+        assertNull(ledger.claim(first.token(), 8L), "不能结算其他用户的预留");
+        assertNotNull(ledger.claim(first.token(), USER), "本人可以结算");
+        assertNotNull(ledger.reserve(USER, 1L, 3, 5, TTL), "取出的预留不再计入限购");
+    }
+
+    @Test
+    public void testAdjustDuringParallelBuyers() throws Exception {
+        LocalStockLedger ledger = new LocalStockLedger(8);
+        ledger.load(1L, 500);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                int taken = 0;
+                for (int i = 0; i < 100; i++) {
+                    if (ledger.reserve(USER, 1L, 1, LIMIT, TTL) != null) {
+                        taken++;
+                    }
+                }
+                return taken;
+            }));
+        }
+        start.countDown();
+        // 抢购进行中管理员补货300件
+        ledger.adjust(1L, 300);
+        int taken = 0;
+        for (Future<Integer> result : results) {
+            taken += result.get();
+        }
+        executor.shutdown();
+
+        assertEquals(800, taken + ledger.available(1L), "补货期间的预留不应丢失，也不应多卖");
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.virtual_campus.protocol;
+
+import com.example.virtual_campus.model.Book;
+import com.example.virtual_campus.model.Product;
+import com.example.virtual_campus.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 二进制行集帧的测试类
+ */
+public class WireFrameTest {
+
+    @Test
+    public void testBookRoundTrip() throws IOException {
+        List<Book> books = books(3);
+        books.get(1).setAvailable(false);
+        books.get(2).setPress(null);
+
+        RowSet rowSet = RowSet.decode(RowSets.BOOK.encode(books));
+        assertEquals(3, rowSet.getRowCount(), "行数应与编码时一致");
+        assertEquals(RowSets.BOOK.getColumnNames(), rowSet.getColumnNames(), "列名应与行集定义一致");
+        for (int i = 0; i < books.size(); i++) {
+            Book book = books.get(i);
+            assertEquals(book.getId(), rowSet.get(i, "id"), "id应一致");
+            assertEquals(book.getTitle(), rowSet.get(i, "title"), "书名应一致");
+            assertEquals(book.getAuthor(), rowSet.get(i, "author"), "作者应一致");
+            assertEquals(book.getPress(), rowSet.get(i, "press"), "出版社应一致");
+            assertEquals(book.getIsbn(), rowSet.get(i, "isbn"), "ISBN应一致");
+            assertEquals(book.isAvailable(), rowSet.get(i, "available"), "借阅状态应一致");
+        }
+    }
+
+    @Test
+    public void testNullableFieldsAndNegativeNumbers() throws IOException {
+        Product first = new Product();
+        first.setId(-7L);
+        first.setName("笔记本");
+        first.setPrice(null);
+        first.setQuantity(-1);
+        Product second = new Product();
+        second.setId(3L);
+        second.setName(null);
+        second.setPrice(2.5);
+        second.setQuantity(null);
+
+        RowSet rowSet = RowSet.decode(RowSets.PRODUCT.encode(List.of(first, second)));
+        assertEquals(-7L, rowSet.get(0, "id"), "负数id应正确还原");
+        assertEquals(3L, rowSet.get(1, "id"), "差值编码后的id应正确还原");
+        assertEquals("笔记本", rowSet.get(0, "name"), "中文名称应正确还原");
+        assertNull(rowSet.get(1, "name"), "空名称应还原为null");
+        assertNull(rowSet.get(0, "price"), "空价格应还原为null");
+        assertEquals(2.5, rowSet.get(1, "price"), "价格应正确还原");
+        assertEquals(-1, rowSet.get(0, "quantity"), "负数库存应正确还原");
+        assertNull(rowSet.get(1, "quantity"), "空库存应还原为null");
+    }
+
+    @Test
+    public void testEmptyRowSet() throws IOException {
+        RowSet rowSet = RowSet.decode(RowSets.USER.encode(new ArrayList<User>()));
+        assertEquals(0, rowSet.getRowCount(), "空列表应解码为0行");
+        assertEquals(ColumnType.INT, rowSet.getColumnType("usertype"), "列类型应随帧传输");
+    }
+
+    @Test
+    public void testRejectWrongTypeAndVersion() throws IOException {
+        byte[] frame = RowSets.BOOK.encode(books(1));
+        assertThrows(StreamCorruptedException.class, () -> WireFrame.open(frame, (byte) 99), "帧类型不匹配时应拒绝");
+        frame[2] = 99;
+        assertThrows(StreamCorruptedException.class, () -> RowSet.decode(frame), "未知版本应拒绝");
+    }
+
+    @Test
+    public void testCatalogIsSingleCompactFrame() throws Exception {
+        List<Book> books = books(5000);
+
+        ByteArrayOutputStream perField = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(perField)) {
+            out.writeObject(books.size());
+            for (Book book : books) {
+                out.writeObject(book.getId());
+                out.writeObject(book.getTitle());
+                out.writeObject(book.getAuthor());
+                out.writeObject(book.getPress());
+                out.writeObject(book.getIsbn());
+                out.writeObject(book.isAvailable());
+            }
+        }
+        ByteArrayOutputStream framed = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(framed)) {
+            WireFrame.write(out, RowSets.BOOK, books);
+        }
+
+        System.out.println("逐字段序列化：" + perField.size() + "字节，行集帧：" + framed.size() + "字节");
+        assertTrue(framed.size() < perField.size() * 3 / 4, "按列打包后5000本书的列表应明显小于逐字段序列化");
+
+        // 整个列表只占对象流中的一个对象
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(framed.toByteArray()))) {
+            RowSet rowSet = RowSet.decode((byte[]) in.readUnshared());
+            assertEquals(5000, rowSet.getRowCount(), "行数应为5000");
+            assertEquals(5000L, rowSet.get(4999, "id"), "最后一行应正确还原");
+            assertThrows(EOFException.class, in::readObject, "帧之后不应再有其他对象");
+        }
+    }
+
+    private static List<Book> books(int count) {
+        List<Book> books = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            Book book = new Book();
+            book.setId((long) i);
+            book.setTitle("数据结构" + i);
+            book.setAuthor("作者" + (i % 50));
+            book.setPress("东南大学出版社");
+            book.setIsbn("978-7-5641-" + String.format("%04d", i));
+            books.add(book);
+        }
+        return books;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.virtual_campus.repository;
+
+import com.example.virtual_campus.model.Book;
+import com.example.virtual_campus.model.Student;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 组合查询条件的测试类，条件由模拟的CriteriaBuilder记录
+ */
+public class SearchSpecificationsTest {
+
+    private CriteriaBuilder cb;
+    private CriteriaQuery<?> query;
+
+    @BeforeEach
+    public void setUp() {
+        cb = mock(CriteriaBuilder.class);
+        query = mock(CriteriaQuery.class);
+    }
+
+    @Test
+    public void testEscapeLike() {
+        assertEquals("50\\%", SearchSpecifications.escapeLike("50%"), "%应转义");
+        assertEquals("a\\_b", SearchSpecifications.escapeLike("a_b"), "_应转义");
+        assertEquals("C:\\\\dir", SearchSpecifications.escapeLike("C:\\dir"), "转义符本身应转义");
+        // 先转义反斜杠，再转义通配符，不会把新加的反斜杠再转义一次
+        assertEquals("\\\\\\%\\_", SearchSpecifications.escapeLike("\\%_"));
+        assertEquals("计算机", SearchSpecifications.escapeLike("计算机"), "普通字符不变");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testPrefixPatternEscaped() {
+        Root<Book> root = mock(Root.class);
+        Path<String> title = mock(Path.class);
+        doReturn(title).when(root).get("title");
+        Predicate like = mock(Predicate.class);
+        when(cb.like(any(), anyString(), anyChar())).thenReturn(like);
+
+        Predicate predicate = SearchSpecifications.books("  100%_纯\\棉 ", null).toPredicate(root, query, cb);
+
+        assertSame(like, predicate, "只有一个条件时直接使用它");
+        verify(cb).like(title, "100\\%\\_纯\\\\棉%", '\\');
+        verify(root, never()).get("author");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testBlankCriteriaIgnored() {
+        Root<Book> root = mock(Root.class);
+
+        assertNull(SearchSpecifications.books(null, "   ").toPredicate(root, query, cb), "全部为空时不加条件");
+        assertNull(SearchSpecifications.books("", null).toPredicate(root, query, cb));
+        verifyNoInteractions(cb, root);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCombinedCriteriaJoinedWithAnd() {
+        Root<Student> root = mock(Root.class);
+        Path<Object> user = mock(Path.class);
+        Path<String> name = mock(Path.class);
+        Path<String> major = mock(Path.class);
+        doReturn(user).when(root).get("user");
+        doReturn(name).when(user).get("name");
+        doReturn(major).when(root).get("major");
+        Predicate byName = mock(Predicate.class);
+        Predicate byMajor = mock(Predicate.class);
+        Predicate both = mock(Predicate.class);
+        when(cb.like(name, "张%", '\\')).thenReturn(byName);
+        when(cb.like(major, "软件%", '\\')).thenReturn(byMajor);
+        when(cb.and(byName, byMajor)).thenReturn(both);
+
+        Predicate predicate = SearchSpecifications.students("张", null, "软件", " ").toPredicate(root, query, cb);
+
+        assertSame(both, predicate, "多个非空条件应以AND组合");
+        verify(root, never()).get("grade");
+        verify(root, never()).get("status");
+    }
+
+    @Test
+    public void testIsBlank() {
+        assertTrue(SearchSpecifications.isBlank(null));
+        assertTrue(SearchSpecifications.isBlank(" \t"));
+        assertFalse(SearchSpecifications.isBlank(" a "));
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.virtual_campus.schedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 课程上课时间解析与冲突检测的测试类
+ */
+public class CourseScheduleTest {
+
+    @Test
+    public void testPartialOverlap() {
+        CourseSchedule java = CourseSchedule.parse("周一 6-9节");
+        assertTrue(java.isParsed(), "现有的上课时间写法应能解析");
+        assertTrue(java.overlaps(CourseSchedule.parse("周一 8-10节")), "节次部分重叠应算冲突");
+        assertTrue(java.overlaps(CourseSchedule.parse("星期一 第7节")), "包含在内的单节课应算冲突");
+        assertFalse(java.overlaps(CourseSchedule.parse("周一 10-11节")), "节次相接不算冲突");
+        assertFalse(java.overlaps(CourseSchedule.parse("周二 6-9节")), "不同星期不算冲突");
+    }
+
+    @Test
+    public void testWeekRangesAndParity() {
+        CourseSchedule firstHalf = CourseSchedule.parse("周三 1-2节 1-8周");
+        assertFalse(firstHalf.overlaps(CourseSchedule.parse("周三 1-2节 9-16周")), "周次不重叠不算冲突");
+        assertTrue(firstHalf.overlaps(CourseSchedule.parse("周三 2-3节 第8-12周")), "周次和节次都重叠应算冲突");
+        assertFalse(CourseSchedule.parse("周四 3-4节 单周").overlaps(CourseSchedule.parse("周四 3-4节 双周")), "单双周不冲突");
+        assertTrue(CourseSchedule.parse("周四 3-4节 单周").overlaps(CourseSchedule.parse("周四 4节")), "单周与每周应冲突");
+    }
+
+    @Test
+    public void testMultipleSegmentsAndFallback() {
+        CourseSchedule twice = CourseSchedule.parse("周一 1-2节，周五 3-4节");
+        assertTrue(twice.overlaps(CourseSchedule.parse("周五 4-5节")), "任意一段重叠都算冲突");
+        assertFalse(twice.overlaps(CourseSchedule.parse("周三 1-2节")), "各段都不重叠不算冲突");
+
+        CourseSchedule free = CourseSchedule.parse("另行通知");
+        assertFalse(free.isParsed(), "无法解析的写法应退回原文比较");
+        assertTrue(free.overlaps(CourseSchedule.parse("另行通知")), "原文相同仍算冲突");
+        assertFalse(free.overlaps(CourseSchedule.parse("周一 1节")), "原文不同不算冲突");
+        assertFalse(CourseSchedule.parse(null).overlaps(CourseSchedule.parse("")), "未填写上课时间不与任何课程冲突");
+        assertFalse(CourseSchedule.parse("周八 1节").isParsed(), "不存在的星期应视为无法解析");
+    }
+
+    @Test
+    public void testStudentTimetableReserve() {
+        StudentTimetables timetables = new StudentTimetables();
+        List<String> enrolled = List.of("周一 6-9节", "另行通知");
+        assertFalse(timetables.tryReserve(1L, "周一 9-10节", id -> enrolled), "与已选课程重叠应拒绝");
+        assertFalse(timetables.tryReserve(1L, "另行通知", id -> enrolled), "与无法解析的已选课程原文相同应拒绝");
+        assertTrue(timetables.tryReserve(1L, "周二 1-2节", id -> enrolled), "不重叠应占用成功");
+        assertFalse(timetables.tryReserve(1L, "周二 2-3节", id -> enrolled), "占用后的时间再选应拒绝");
+
+        timetables.invalidate(1L);
+        assertTrue(timetables.tryReserve(1L, "周二 2-3节", id -> enrolled), "作废后按数据库重新加载");
+    }
+}
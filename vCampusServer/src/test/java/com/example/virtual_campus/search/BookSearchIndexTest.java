@@ -0,0 +1,80 @@
+package com.example.virtual_campus.search;
+
+import com.example.virtual_campus.model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 图书检索索引的测试类
+ */
+public class BookSearchIndexTest {
+
+    private BookSearchIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new BookSearchIndex();
+        index.rebuild(List.of(
+                book(1L, "数据结构与算法分析", "Mark Allen Weiss", "机械工业出版社", "978-7-111-54200-1"),
+                book(2L, "Thinking in Java", "Bruce Eckel", "机械工业出版社", "978-7-111-21382-6"),
+                book(3L, "算法导论", "Thomas Cormen", "机械工业出版社", "978-7-111-40701-0"),
+                book(4L, "结构力学", "龙驭球", "高等教育出版社", "978-7-04-039695-2"),
+                book(5L, "数据库系统概念", "Abraham Silberschatz", "数据结构出版社", "978-7-111-37529-6")));
+    }
+
+    @Test
+    public void testPartialTitleAndAuthor() {
+        assertEquals(1L, index.search("结构与算法", 10).get(0), "书名中间的片段应能找到");
+        assertEquals(List.of(2L), index.search("eckel", 10), "作者不区分大小写");
+        assertTrue(index.search("据", 10).contains(1L), "单个汉字也应能找到");
+    }
+
+    @Test
+    public void testTypoTolerance() {
+        assertEquals(1L, index.search("数剧结构与算法", 10).get(0), "输错一个字仍应找到");
+        assertEquals(2L, index.search("thinking in jvaa", 10).get(0), "英文拼写错误仍应找到");
+        assertFalse(index.search("量子物理", 10).contains(1L), "无关图书不应出现");
+    }
+
+    @Test
+    public void testTitleRanksAbovePress() {
+        List<Long> ids = index.search("数据结构", 10);
+        assertEquals(1L, ids.get(0), "书名命中应排在出版社命中之前");
+        assertTrue(ids.indexOf(1L) < ids.indexOf(5L), "出版社命中的图书排在后面");
+    }
+
+    @Test
+    public void testIsbnIgnoresHyphens() {
+        assertEquals(List.of(3L), index.search("9787111407010", 10), "不带连字符的ISBN应能找到");
+        assertEquals(List.of(3L), index.search("978-7-111-40701", 10), "带连字符的ISBN前缀应能找到");
+    }
+
+    @Test
+    public void testIncrementalUpdate() {
+        index.put(book(2L, "Effective Java", "Joshua Bloch", "机械工业出版社", "978-7-111-61272-8"));
+        assertFalse(index.search("thinking", 10).contains(2L), "修改后旧书名不应再命中");
+        assertEquals(List.of(2L), index.search("bloch", 10), "修改后新作者应能命中");
+
+        index.remove(4L);
+        assertFalse(index.search("结构力学", 10).contains(4L), "删除后不应再命中");
+        assertEquals(4, index.size(), "删除后索引中应剩4本");
+
+        index.put(book(6L, "编译原理", "Alfred Aho", "机械工业出版社", "978-7-111-25121-7"));
+        assertEquals(6L, index.search("编译", 10).get(0), "新增图书应能立即检索到");
+        assertEquals(1, index.search("机械工业出版社", 1).size(), "返回条数不超过上限");
+    }
+
+    private static Book book(Long id, String title, String author, String press, String isbn) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        book.setAuthor(author);
+        book.setPress(press);
+        book.setIsbn(isbn);
+        return book;
+    }
+}
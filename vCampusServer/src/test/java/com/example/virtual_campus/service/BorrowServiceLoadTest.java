@@ -0,0 +1,72 @@
+package com.example.virtual_campus.service;
+
+import com.example.virtual_campus.model.Book;
+import com.example.virtual_campus.repository.BookRepository;
+import com.example.virtual_campus.repository.BorrowRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 热门图书借阅的压力测试，借阅的业务规则由BorrowServiceTest覆盖，这里只检验真实数据库上的并发结果
+ * 运行方式：mvn test -Dtest=BorrowServiceLoadTest -Dvcampus.loadtest=true
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "vcampus.loadtest", matches = "true")
+public class BorrowServiceLoadTest extends LoadTestSupport {
+
+    @Autowired
+    private BorrowService borrowService;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private BorrowRepository borrowRepository;
+
+    private final List<Long> bookIds = new ArrayList<>();
+
+    // 先于父类删除用户执行，借阅记录引用了用户和图书
+    @AfterEach
+    public void deleteBooks() {
+        for (Long bookId : bookIds) {
+            borrowRepository.findFirstByBook_IdAndReturnDateIsNull(bookId).ifPresent(borrowRepository::delete);
+        }
+        bookRepository.deleteAllById(bookIds);
+    }
+
+    /**
+     * 所有人同时借少数几本书，检查每本书只借出一次
+     */
+    @Test
+    public void testBorrowHotTitles() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            Book book = new Book();
+            book.setTitle("压力测试图书" + i);
+            book.setAvailable(true);
+            bookIds.add(bookRepository.save(book).getId());
+        }
+        newUsers(USERS);
+
+        List<Callable<Integer>> borrows = new ArrayList<>();
+        for (int i = 0; i < userIds.size(); i++) {
+            Long userId = userIds.get(i);
+            Long bookId = bookIds.get(i % bookIds.size());
+            borrows.add(() -> borrowService.borrowBook(bookId, userId));
+        }
+        List<Integer> results = race("借阅", borrows);
+
+        assertEquals(bookIds.size(), Collections.frequency(results, 1), "每本书只能被借出一次");
+        assertEquals(userIds.size() - bookIds.size(), Collections.frequency(results, 3), "其余请求应返回已被借走");
+        for (Long bookId : bookIds) {
+            assertEquals(1, borrowRepository.countByBook_IdAndReturnDateIsNull(bookId), "每本书只应有一条未归还记录");
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.virtual_campus.service;
+
+import com.example.virtual_campus.cache.CatalogCache;
+import com.example.virtual_campus.cache.CatalogCache.Catalog;
+import com.example.virtual_campus.model.Book;
+import com.example.virtual_campus.model.Borrow;
+import com.example.virtual_campus.model.User;
+import com.example.virtual_campus.repository.BookRepository;
+import com.example.virtual_campus.repository.BorrowRepository;
+import com.example.virtual_campus.repository.UserRepository;
+import com.example.virtual_campus.sync.RevisionTracker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.function.LongToIntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 借书的测试类，数据库访问由模拟对象代替
+ */
+public class BorrowServiceTest {
+
+    private BorrowService borrowService;
+    private BorrowRepository borrowRepository;
+    private BookRepository bookRepository;
+    private CatalogCache catalogCache;
+    private User user;
+
+    @BeforeEach
+    public void setUp() {
+        borrowRepository = mock(BorrowRepository.class);
+        bookRepository = mock(BookRepository.class);
+        catalogCache = mock(CatalogCache.class);
+        UserRepository userRepository = mock(UserRepository.class);
+        user = new User();
+        user.setId(1L);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        RevisionTracker revisionTracker = mock(RevisionTracker.class);
+        when(revisionTracker.update(any())).thenAnswer(call -> call.<LongToIntFunction>getArgument(0).applyAsInt(7L));
+
+        borrowService = new BorrowService();
+        ReflectionTestUtils.setField(borrowService, "borrowRepository", borrowRepository);
+        ReflectionTestUtils.setField(borrowService, "bookRepository", bookRepository);
+        ReflectionTestUtils.setField(borrowService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(borrowService, "catalogCache", catalogCache);
+        ReflectionTestUtils.setField(borrowService, "revisionTracker", revisionTracker);
+    }
+
+    @Test
+    public void testBorrowAvailableBook() {
+        Book book = new Book();
+        book.setId(5L);
+        when(bookRepository.markBorrowed(5L, 7L)).thenReturn(1);
+        when(bookRepository.getReferenceById(5L)).thenReturn(book);
+
+        assertEquals(1, borrowService.borrowBook(5L, 1L), "可借的书应借阅成功");
+        ArgumentCaptor<Borrow> saved = ArgumentCaptor.forClass(Borrow.class);
+        verify(borrowRepository).save(saved.capture());
+        assertSame(book, saved.getValue().getBook(), "借阅记录应指向这本书");
+        assertSame(user, saved.getValue().getUser(), "借阅记录应指向借书的用户");
+        assertEquals(LocalDate.now(), saved.getValue().getBorrowDate(), "借阅日期应为当天");
+        verify(catalogCache).invalidateAfterCommit(Catalog.BOOK);
+    }
+
+    @Test
+    public void testBorrowTakenBook() {
+        when(bookRepository.markBorrowed(5L, 7L)).thenReturn(0);
+        when(bookRepository.existsById(5L)).thenReturn(true);
+
+        assertEquals(3, borrowService.borrowBook(5L, 1L), "已被借走的书应返回3");
+        verify(borrowRepository, never()).save(any());
+        verify(catalogCache, never()).invalidateAfterCommit(any());
+    }
+
+    @Test
+    public void testBorrowMissingBookOrUser() {
+        when(bookRepository.markBorrowed(6L, 7L)).thenReturn(0);
+        when(bookRepository.existsById(6L)).thenReturn(false);
+
+        assertEquals(2, borrowService.borrowBook(6L, 1L), "图书不存在应返回2");
+        assertEquals(2, borrowService.borrowBook(5L, 2L), "用户不存在应返回2");
+        verify(bookRepository, never()).markBorrowed(eq(5L), anyLong());
+        verify(borrowRepository, never()).save(any());
+    }
+}
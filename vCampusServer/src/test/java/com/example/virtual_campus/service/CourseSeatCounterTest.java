@@ -0,0 +1,65 @@
+package com.example.virtual_campus.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 课程余量计数器的测试类
+ */
+public class CourseSeatCounterTest {
+
+    @Test
+    public void testTenThousandEnrollmentsOnHundredSeats() throws Exception {
+        CourseSeatCounter counter = new CourseSeatCounter();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 10000; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return counter.tryAcquire(1L, id -> {
+                        loads.incrementAndGet();
+                        return 100;
+                    });
+                }));
+            }
+            start.countDown();
+            int acquired = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get()) {
+                    acquired++;
+                }
+            }
+            assertEquals(100, acquired, "10000人同时抢100个名额只能有100人成功");
+        }
+        assertEquals(0, counter.remaining(1L), "名额用完后余量应为0而不是负数");
+        assertTrue(loads.get() >= 1, "首次访问应从数据库加载余量");
+    }
+
+    @Test
+    public void testReleaseAndInvalidate() {
+        CourseSeatCounter counter = new CourseSeatCounter();
+        assertTrue(counter.tryAcquire(2L, id -> 1), "有余量时应占用成功");
+        assertFalse(counter.tryAcquire(2L, id -> 1), "余量用完应拒绝");
+        counter.release(2L);
+        assertTrue(counter.tryAcquire(2L, id -> 1), "归还后应能再次占用");
+
+        counter.invalidate(2L);
+        assertNull(counter.remaining(2L), "作废后不应保留计数");
+        assertTrue(counter.tryAcquire(2L, id -> 5), "作废后应按新余量重新加载");
+        assertEquals(4, counter.remaining(2L), "重新加载后余量应为5减1");
+
+        assertTrue(counter.tryAcquire(3L, id -> null), "课程不存在时交由数据库判断");
+        assertNull(counter.remaining(3L), "不存在的课程不应缓存计数");
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.virtual_campus.service;
+
+import com.example.virtual_campus.model.Course;
+import com.example.virtual_campus.model.Student;
+import com.example.virtual_campus.repository.CourseRepository;
+import com.example.virtual_campus.repository.StudentRepository;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 选课高峰的压力测试，选课的业务规则由EnrollmentQueueTest覆盖，这里只检验真实数据库上的并发结果
+ * 运行方式：mvn test -Dtest=CourseServiceLoadTest -Dvcampus.loadtest=true
+ * 回放选课高峰轨迹：另加 -Dvcampus.loadtest.trace=轨迹文件 [-Dvcampus.loadtest.speed=20]
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "vcampus.loadtest", matches = "true")
+public class CourseServiceLoadTest extends LoadTestSupport {
+
+    @Autowired
+    private CourseService courseService;
+    @Autowired
+    private EnrollmentQueue enrollmentQueue;
+    @Autowired
+    private CourseRepository courseRepository;
+    @Autowired
+    private StudentRepository studentRepository;
+
+    /**
+     * 远多于容量的学生同时选同一门课，检查选上的人数和计数都等于容量
+     */
+    @Test
+    public void testEnrollHotCourse() throws Exception {
+        int capacity = 100;
+        Course course = new Course();
+        course.setName("压力测试课程");
+        course.setSchedule("压力测试时间");
+        course.setCapacity(capacity);
+        Long courseId = courseRepository.save(course).getId();
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < USERS * 10; i++) {
+            Student student = new Student();
+            student.setGrade("压力测试");
+            students.add(student);
+        }
+        List<Long> studentIds = studentRepository.saveAll(students).stream().map(Student::getId).toList();
+
+        List<Callable<Integer>> enrolls = new ArrayList<>();
+        for (Long studentId : studentIds) {
+            enrolls.add(() -> courseService.enrollCourse(studentId, courseId));
+        }
+        List<Integer> results = race("选课", enrolls);
+
+        try {
+            assertEquals(capacity, Collections.frequency(results, 4), "选课成功人数应等于课程容量");
+            assertEquals(capacity, courseRepository.findById(courseId).get().getEnrolledCount(), "已选人数计数应等于课程容量");
+            assertEquals(capacity, studentRepository.countByCourses_Id(courseId), "选课关系不应超过课程容量");
+        } finally {
+            for (int i = 0; i < studentIds.size(); i++) {
+                if (results.get(i) == 4) {
+                    courseService.dropCourse(studentIds.get(i), courseId);
+                }
+            }
+            studentRepository.deleteAllById(studentIds);
+            courseService.deleteCourse(courseId);
+        }
+    }
+
+    /**
+     * 按轨迹文件的时间间隔回放开放选课时的请求，统计排队结果
+     */
+    @Test
+    public void testReplayOpeningHourTrace() throws Exception {
+        String trace = System.getProperty("vcampus.loadtest.trace");
+        Assumptions.assumeTrue(trace != null, "未指定轨迹文件");
+        double speed = Double.parseDouble(System.getProperty("vcampus.loadtest.speed", "20"));
+
+        List<EnrollmentTraceReplayer.Entry> entries = EnrollmentTraceReplayer.read(Path.of(trace));
+        EnrollmentTraceReplayer.Report report = EnrollmentTraceReplayer.replay(entries, speed, enrollmentQueue::submit);
+        System.out.println(speed + "倍速回放" + trace + "：" + report);
+        assertEquals(entries.size(), report.requests(), "轨迹中的请求都应得到结果");
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.virtual_campus.service;
+
+import com.example.virtual_campus.cache.EntityCacheInvalidator;
+import com.example.virtual_campus.model.Course;
+import com.example.virtual_campus.repository.CourseRepository;
+import com.example.virtual_campus.repository.StudentRepository;
+import com.example.virtual_campus.schedule.StudentTimetables;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 选课排队的测试类，数据库访问由模拟对象代替
+ */
+public class EnrollmentQueueTest {
+
+    private EnrollmentQueue queue;
+    private CourseRepository courseRepository;
+    private StudentRepository studentRepository;
+    private CourseSeatCounter courseSeatCounter;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        courseRepository = mock(CourseRepository.class);
+        studentRepository = mock(StudentRepository.class);
+        courseSeatCounter = new CourseSeatCounter();
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(call ->
+                ((TransactionCallback<Object>) call.getArgument(0)).doInTransaction(null));
+        // 学生都存在，都没有选过课
+        when(studentRepository.findExistingIds(anyCollection())).thenAnswer(call -> new ArrayList<>((Collection<Long>) call.getArgument(0)));
+        when(studentRepository.findIdsEnrolledIn(anyCollection(), anyLong())).thenReturn(List.of());
+        when(studentRepository.findCourseSchedules(anyLong())).thenReturn(List.of());
+        when(courseRepository.takeSeats(anyLong(), anyInt())).thenReturn(1);
+
+        queue = new EnrollmentQueue();
+        ReflectionTestUtils.setField(queue, "mode", "queue");
+        ReflectionTestUtils.setField(queue, "batchSize", 200);
+        ReflectionTestUtils.setField(queue, "courseRepository", courseRepository);
+        ReflectionTestUtils.setField(queue, "studentRepository", studentRepository);
+        ReflectionTestUtils.setField(queue, "courseSeatCounter", courseSeatCounter);
+        ReflectionTestUtils.setField(queue, "studentTimetables", new StudentTimetables());
+        ReflectionTestUtils.setField(queue, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(queue, "entityCacheInvalidator", mock(EntityCacheInvalidator.class));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        queue.stop();
+    }
+
+    @Test
+    public void testBatchGroupedByCourseFirstComeFirstServed() throws Exception {
+        course(1L, 2, 0);
+        course(2L, 5, 0);
+        // 启动前提交，保证这些请求落在同一批
+        List<CompletableFuture<Integer>> results = List.of(
+                queue.submit(11L, 1L), queue.submit(21L, 2L), queue.submit(12L, 1L), queue.submit(13L, 1L));
+        queue.start();
+
+        assertEquals(4, get(results.get(0)), "先到的学生应选上");
+        assertEquals(4, get(results.get(1)), "另一门课单独处理");
+        assertEquals(4, get(results.get(2)), "名额内的学生应选上");
+        assertEquals(2, get(results.get(3)), "名额用完后到的学生应返回已满");
+        verify(courseRepository).takeSeats(1L, 2);
+        verify(courseRepository).takeSeats(2L, 1);
+        verify(studentRepository, never()).insertEnrollment(13L, 1L);
+    }
+
+    @Test
+    public void testDuplicateInBatchRejected() throws Exception {
+        course(1L, 5, 0);
+        CompletableFuture<Integer> first = queue.submit(11L, 1L);
+        CompletableFuture<Integer> again = queue.submit(11L, 1L);
+        queue.start();
+
+        assertEquals(4, get(first), "第一次选课应成功");
+        assertEquals(3, get(again), "同一批中重复选同一门课应返回3");
+        verify(courseRepository).takeSeats(1L, 1);
+        assertEquals(4, courseSeatCounter.remaining(1L), "重复请求占用的名额应归还");
+    }
+
+    @Test
+    public void testFullCourseInvalidatesCounter() throws Exception {
+        // 内存计数以为还有2个名额，数据库中只剩1个
+        when(courseRepository.findSeatsLeft(1L)).thenReturn(Optional.of(2));
+        Course course = new Course();
+        course.setId(1L);
+        course.setCapacity(3);
+        course.setEnrolledCount(2);
+        when(courseRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(course));
+
+        CompletableFuture<Integer> first = queue.submit(11L, 1L);
+        CompletableFuture<Integer> second = queue.submit(12L, 1L);
+        queue.start();
+
+        assertEquals(4, get(first), "剩余的一个名额应分给先到的学生");
+        assertEquals(2, get(second), "数据库判定已满应返回2");
+        assertNull(courseSeatCounter.remaining(1L), "计数与数据库不一致时应作废，下次重新加载");
+    }
+
+    @Test
+    public void testWorkerSurvivesFailedBatch() throws Exception {
+        course(2L, 5, 0);
+        when(courseRepository.findSeatsLeft(1L)).thenReturn(Optional.of(5));
+        when(courseRepository.findByIdForUpdate(1L)).thenThrow(new StackOverflowError("模拟错误"));
+
+        CompletableFuture<Integer> failed = queue.submit(11L, 1L);
+        queue.start();
+        ExecutionException error = assertThrows(ExecutionException.class, () -> get(failed), "出错批次的请求应以异常结束");
+        assertInstanceOf(StackOverflowError.class, error.getCause());
+        assertEquals(5, courseSeatCounter.remaining(1L), "出错批次占用的名额应归还");
+
+        assertEquals(4, get(queue.submit(12L, 2L)), "排队线程应继续处理之后的请求");
+    }
+
+    private void course(Long id, int capacity, int enrolled) {
+        Course course = new Course();
+        course.setId(id);
+        course.setCapacity(capacity);
+        course.setEnrolledCount(enrolled);
+        when(courseRepository.findSeatsLeft(id)).thenReturn(Optional.of(capacity - enrolled));
+        when(courseRepository.findByIdForUpdate(id)).thenReturn(Optional.of(course));
+    }
+
+    private static Integer get(CompletableFuture<Integer> result) throws Exception {
+        return result.get(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.virtual_campus.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiFunction;
+
+/**
+ * 按录制的选课高峰轨迹回放选课请求，可加速回放，用于演练选课开放时的排队表现
+ * 轨迹文件每行一条请求：距开始的毫秒数,学生id,课程id，以#开头的行为注释
+ */
+public final class EnrollmentTraceReplayer {
+
+    public record Entry(long offsetMillis, long studentId, long courseId) {
+    }
+
+    /**
+     * 回放结果：各返回值的次数、失败次数和从提交到得到结果的延迟
+     */
+    public record Report(int requests, Map<Integer, Integer> outcomes, int failures,
+                         long p50Millis, long p99Millis, long maxMillis, long elapsedMillis) {
+        @Override
+        public String toString() {
+            return "请求" + requests + "个，结果" + outcomes + "，异常" + failures
+                    + "，延迟p50=" + p50Millis + "ms p99=" + p99Millis + "ms max=" + maxMillis
+                    + "ms，总耗时" + elapsedMillis + "ms";
+        }
+    }
+
+    private EnrollmentTraceReplayer() {
+    }
+
+    public static List<Entry> read(Path trace) throws IOException {
+        return parse(Files.readAllLines(trace, StandardCharsets.UTF_8));
+    }
+
+    public static List<Entry> parse(List<String> lines) {
+        List<Entry> entries = new ArrayList<>();
+        for (String line : lines) {
+            String text = line.trim();
+            if (text.isEmpty() || text.startsWith("#")) {
+                continue;
+            }
+            String[] parts = text.split(",");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("轨迹格式错误：" + line);
+            }
+            entries.add(new Entry(Long.parseLong(parts[0].trim()), Long.parseLong(parts[1].trim()),
+                    Long.parseLong(parts[2].trim())));
+        }
+        entries.sort(Comparator.comparingLong(Entry::offsetMillis));
+        return entries;
+    }
+
+    /**
+     * 按轨迹中的时间间隔提交请求，等待全部完成后汇总
+     * @param speed 回放倍速，20表示轨迹中的20秒在1秒内回放完
+     * @param target 提交选课请求，通常是EnrollmentQueue::submit
+     */
+    public static Report replay(List<Entry> entries, double speed,
+                                BiFunction<Long, Long, CompletableFuture<Integer>> target) {
+        if (speed <= 0) {
+            throw new IllegalArgumentException("回放倍速必须大于0");
+        }
+        long[] latencies = new long[entries.size()];
+        Integer[] outcomes = new Integer[entries.size()];
+        List<CompletableFuture<?>> pending = new ArrayList<>(entries.size());
+        long start = System.nanoTime();
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            long due = start + (long) (TimeUnit.MILLISECONDS.toNanos(entry.offsetMillis()) / speed);
+            long wait;
+            while ((wait = due - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            int index = i;
+            long submitted = System.nanoTime();
+            CompletableFuture<Integer> result;
+            try {
+                result = target.apply(entry.studentId(), entry.courseId());
+            } catch (RuntimeException e) {
+                result = CompletableFuture.failedFuture(e);
+            }
+            pending.add(result.handle((res, error) -> {
+                latencies[index] = System.nanoTime() - submitted;
+                outcomes[index] = error == null ? res : null;
+                return null;
+            }));
+        }
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+        long elapsed = System.nanoTime() - start;
+
+        Map<Integer, Integer> counts = new TreeMap<>();
+        int failures = 0;
+        for (Integer outcome : outcomes) {
+            if (outcome == null) {
+                failures++;
+            } else {
+                counts.merge(outcome, 1, Integer::sum);
+            }
+        }
+        Arrays.sort(latencies);
+        return new Report(entries.size(), counts, failures, percentile(latencies, 0.50),
+                percentile(latencies, 0.99), percentile(latencies, 1.0), TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return TimeUnit.NANOSECONDS.toMillis(sorted[Math.max(0, index)]);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.virtual_campus.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 选课轨迹回放的测试类
+ */
+public class EnrollmentTraceReplayerTest {
+
+    @Test
+    public void testParseSkipsCommentsAndSortsByOffset() {
+        List<EnrollmentTraceReplayer.Entry> entries = EnrollmentTraceReplayer.parse(List.of(
+                "# 毫秒,学生id,课程id",
+                "500, 2, 7",
+                "",
+                "0,1,7"));
+        assertEquals(2, entries.size(), "注释和空行应跳过");
+        assertEquals(1L, entries.get(0).studentId(), "应按时间先后排序");
+        assertThrows(IllegalArgumentException.class, () -> EnrollmentTraceReplayer.parse(List.of("1,2")), "格式错误应拒绝");
+    }
+
+    @Test
+    public void testReplayAtTwentyTimesSpeed() {
+        // 2秒内的400个请求，20倍速应在约100毫秒内提交完
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            lines.add((i * 5) + "," + i + "," + (i % 3));
+        }
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            EnrollmentTraceReplayer.Report report = EnrollmentTraceReplayer.replay(
+                    EnrollmentTraceReplayer.parse(lines), 20, (studentId, courseId) -> {
+                        CompletableFuture<Integer> result = new CompletableFuture<>();
+                        if (studentId == 0) {
+                            result.completeExceptionally(new RuntimeException("Student not found"));
+                        } else {
+                            executor.schedule(() -> result.complete(courseId == 0 ? 2 : 4), 1, TimeUnit.MILLISECONDS);
+                        }
+                        return result;
+                    });
+            System.out.println(report);
+            assertEquals(400, report.requests(), "所有请求都应提交");
+            assertEquals(1, report.failures(), "异常结果应单独计数");
+            assertEquals(133, report.outcomes().get(2), "课程0的请求应返回已满");
+            assertEquals(266, report.outcomes().get(4), "其余请求应选课成功");
+            assertTrue(report.elapsedMillis() >= 90, "回放不应快于20倍速");
+            assertTrue(report.elapsedMillis() < 1000, "20倍速回放2秒的轨迹应远小于2秒");
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
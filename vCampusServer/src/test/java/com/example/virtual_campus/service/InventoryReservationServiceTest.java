@@ -0,0 +1,125 @@
+package com.example.virtual_campus.service;
+
+import com.example.virtual_campus.cache.CatalogCache;
+import com.example.virtual_campus.inventory.Reservation;
+import com.example.virtual_campus.model.Order;
+import com.example.virtual_campus.model.Product;
+import com.example.virtual_campus.repository.ProductRepository;
+import com.example.virtual_campus.repository.UserRepository;
+import com.example.virtual_campus.sync.RevisionTracker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 热门商品库存预留的测试类，使用本机台账，数据库和结算由模拟对象代替
+ */
+public class InventoryReservationServiceTest {
+
+    private static final long HOT = 1L;
+    private static final long NORMAL = 5L;
+
+    private InventoryReservationService service;
+    private ProductRepository productRepository;
+    private OrderService orderService;
+
+    @BeforeEach
+    public void setUp() {
+        productRepository = mock(ProductRepository.class);
+        orderService = mock(OrderService.class);
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.existsById(1L)).thenReturn(true);
+        Product product = new Product();
+        product.setId(HOT);
+        product.setPrice(1.0);
+        product.setQuantity(5);
+        when(productRepository.findById(HOT)).thenReturn(Optional.of(product));
+
+        service = new InventoryReservationService();
+        ReflectionTestUtils.setField(service, "mode", "local");
+        ReflectionTestUtils.setField(service, "hotProducts", String.valueOf(HOT));
+        ReflectionTestUtils.setField(service, "ttlSeconds", 120L);
+        ReflectionTestUtils.setField(service, "perUserLimit", 5);
+        // 不让定时任务在测试中途写回
+        ReflectionTestUtils.setField(service, "reconcileIntervalMs", 3_600_000L);
+        ReflectionTestUtils.setField(service, "productRepository", productRepository);
+        ReflectionTestUtils.setField(service, "orderService", orderService);
+        ReflectionTestUtils.setField(service, "userRepository", userRepository);
+        ReflectionTestUtils.setField(service, "catalogCache", mock(CatalogCache.class));
+        ReflectionTestUtils.setField(service, "revisionTracker", new RevisionTracker());
+        service.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        service.stop();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRestOrderReservesHotItems() {
+        Order order = new Order();
+        when(orderService.checkout(eq(1L), anyMap(), anyList())).thenReturn(new OrderService.Checkout(3, order));
+        Map<Long, Integer> cart = new LinkedHashMap<>();
+        cart.put(HOT, 2);
+        cart.put(NORMAL, 1);
+
+        assertSame(order, service.createOrder(1L, cart), "应返回保存的订单");
+
+        ArgumentCaptor<List<Reservation>> reserved = ArgumentCaptor.forClass(List.class);
+        verify(orderService).checkout(eq(1L), eq(Map.of(NORMAL, 1)), reserved.capture());
+        assertEquals(2, reserved.getValue().get(0).quantity(), "热门商品应从台账预留后结算");
+        verify(orderService, never()).checkout(anyLong(), anyMap());
+        assertEquals(3L, service.available(HOT), "台账应扣除已售的数量");
+    }
+
+    @Test
+    public void testRestOrderCannotOversellHotItem() {
+        assertThrows(IllegalArgumentException.class, () -> service.createOrder(1L, Map.of(HOT, 6)),
+                "超过台账库存时应拒绝，不能直接扣商品行");
+        verifyNoInteractions(orderService);
+        assertEquals(5L, service.available(HOT), "失败的下单不应占用库存");
+    }
+
+    @Test
+    public void testFlushWritesSoldOnce() {
+        sell(2);
+        when(productRepository.deductStock(eq(HOT), anyInt(), anyLong())).thenReturn(1);
+
+        service.flush(HOT);
+        service.flush(HOT);
+
+        verify(productRepository, times(1)).deductStock(eq(HOT), eq(2), anyLong());
+        assertEquals(3L, service.available(HOT));
+    }
+
+    @Test
+    public void testFlushStopsSellingWhenStockShort() {
+        sell(2);
+        // 库存已被其他途径改得少于已售数量，带条件的扣减不修改任何行
+        when(productRepository.deductStock(eq(HOT), anyInt(), anyLong())).thenReturn(0);
+
+        service.flush(HOT);
+        service.flush(HOT);
+
+        verify(productRepository, times(1)).deductStock(eq(HOT), eq(2), anyLong());
+        assertEquals(0L, service.available(HOT), "库存对不上时应停止抢购");
+        assertEquals(4, service.checkout(1L, Map.of(HOT, 1)), "停止后应返回库存不足");
+    }
+
+    private void sell(int quantity) {
+        when(orderService.checkout(eq(1L), anyMap(), anyList())).thenReturn(new OrderService.Checkout(3, new Order()));
+        assertEquals(3, service.checkout(1L, Map.of(HOT, quantity)), "预留热门商品后应结算成功");
+    }
+}
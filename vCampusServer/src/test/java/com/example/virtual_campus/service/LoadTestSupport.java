@@ -0,0 +1,94 @@
+package com.example.virtual_campus.service;
+
+import com.example.virtual_campus.model.Product;
+import com.example.virtual_campus.model.User;
+import com.example.virtual_campus.repository.OrderRepository;
+import com.example.virtual_campus.repository.ProductRepository;
+import com.example.virtual_campus.repository.UserRepository;
+import com.example.virtual_campus.repository.WalletEntryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 各压力测试共用的并发发起和数据清理，压力测试需要连接真实的MySQL，默认不运行
+ * 运行方式：mvn test -Dtest=某某LoadTest -Dvcampus.loadtest=true [-Dvcampus.loadtest.users=300]
+ */
+abstract class LoadTestSupport {
+
+    protected static final int USERS = Integer.getInteger("vcampus.loadtest.users", 300);
+
+    @Autowired
+    protected UserRepository userRepository;
+    @Autowired
+    protected ProductRepository productRepository;
+    @Autowired
+    protected OrderRepository orderRepository;
+    @Autowired
+    protected WalletEntryRepository walletEntryRepository;
+
+    // 测试中创建的数据，结束后按依赖顺序删除
+    protected final List<Long> orderIds = new ArrayList<>();
+    protected final List<Long> productIds = new ArrayList<>();
+    protected final List<Long> userIds = new ArrayList<>();
+
+    @AfterEach
+    public void deleteCreated() {
+        walletEntryRepository.deleteAll(walletEntryRepository.findAll().stream()
+                .filter(entry -> userIds.contains(entry.getUserId())).toList());
+        orderRepository.deleteAllById(orderIds);
+        productRepository.deleteAllById(productIds);
+        userRepository.deleteAllById(userIds);
+    }
+
+    // 所有请求等同一个信号后一起开始，按提交顺序返回结果
+    protected static <T> List<T> race(String name, List<Callable<T>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(64);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<T>> futures = new ArrayList<>();
+        for (Callable<T> task : tasks) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        List<T> results = new ArrayList<>();
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        System.out.println(tasks.size() + "个并发" + name + "请求耗时" + (System.nanoTime() - begin) / 1_000_000 + "ms");
+        return results;
+    }
+
+    protected Product newProduct(String name, double price, int quantity) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(price);
+        product.setQuantity(quantity);
+        Product saved = productRepository.save(product);
+        productIds.add(saved.getId());
+        return saved;
+    }
+
+    protected void newUsers(int count) {
+        for (int i = 0; i < count; i++) {
+            User user = new User();
+            user.setName("压力测试用户" + i);
+            user.setUsertype(2);
+            userIds.add(userRepository.save(user).getId());
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.virtual_campus.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 购物车结算的压力测试，结算的业务规则由OrderServiceTest覆盖，这里只检验真实数据库上的并发结果
+ * 运行方式：mvn test -Dtest=OrderServiceLoadTest -Dvcampus.loadtest=true
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "vcampus.loadtest", matches = "true")
+public class OrderServiceLoadTest extends LoadTestSupport {
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private WalletService walletService;
+
+    /**
+     * 所有人以随机顺序同时结算含多种商品的购物车，检查没有死锁、库存不为负
+     */
+    @Test
+    public void testConcurrentCheckouts() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            newProduct("压力测试商品" + i, 0.3, USERS);
+        }
+        newUsers(USERS);
+        for (Long userId : userIds) {
+            walletService.deposit(userId, 330, null);
+        }
+
+        Random random = new Random(42);
+        List<Callable<OrderService.Checkout>> checkouts = new ArrayList<>();
+        for (Long userId : userIds) {
+            List<Long> shuffled = new ArrayList<>(productIds);
+            Collections.shuffle(shuffled, random);
+            Map<Long, Integer> cart = new LinkedHashMap<>();
+            for (Long productId : shuffled.subList(0, 2 + random.nextInt(3))) {
+                cart.put(productId, 1 + random.nextInt(3));
+            }
+            checkouts.add(() -> orderService.checkout(userId, cart));
+        }
+        List<OrderService.Checkout> results = race("结算", checkouts);
+
+        for (OrderService.Checkout checkout : results) {
+            assertTrue(checkout.code() == 2 || checkout.code() == 3 || checkout.code() == 4, "结算应成功或因余额、库存不足失败，不应出现死锁异常");
+            if (checkout.code() == 3) {
+                orderIds.add(checkout.order().getId());
+            }
+        }
+        for (Long productId : productIds) {
+            assertTrue(productRepository.findById(productId).get().getQuantity() >= 0, "库存不应为负数");
+        }
+        for (Long userId : userIds) {
+            assertTrue(walletService.getBalanceCents(userId) >= 0, "余额不应为负数");
+        }
+    }
+}
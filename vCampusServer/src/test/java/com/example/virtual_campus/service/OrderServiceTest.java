@@ -0,0 +1,154 @@
+package com.example.virtual_campus.service;
+
+import com.example.virtual_campus.cache.CatalogCache;
+import com.example.virtual_campus.cache.CatalogCache.Catalog;
+import com.example.virtual_campus.model.Order;
+import com.example.virtual_campus.model.Product;
+import com.example.virtual_campus.model.User;
+import com.example.virtual_campus.model.WalletEntry;
+import com.example.virtual_campus.model.WalletEntryType;
+import com.example.virtual_campus.repository.OrderRepository;
+import com.example.virtual_campus.repository.ProductRepository;
+import com.example.virtual_campus.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionManager;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 购物车结算的测试类，数据库访问由模拟对象代替
+ * 结算通过带事务拦截器的代理调用，事务管理器记录是否被标记为回滚
+ */
+public class OrderServiceTest {
+
+    private OrderService orderService;
+    private OrderRepository orderRepository;
+    private ProductRepository productRepository;
+    private WalletService walletService;
+    private CatalogCache catalogCache;
+    private SimpleTransactionStatus transaction;
+
+    @BeforeEach
+    public void setUp() {
+        orderRepository = mock(OrderRepository.class);
+        productRepository = mock(ProductRepository.class);
+        walletService = mock(WalletService.class);
+        catalogCache = mock(CatalogCache.class);
+        UserRepository userRepository = mock(UserRepository.class);
+        User user = new User();
+        user.setId(1L);
+        user.setBalance(100.0);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(orderRepository.save(any(Order.class))).thenAnswer(call -> {
+            Order order = call.getArgument(0);
+            order.setId(9L);
+            return order;
+        });
+        when(walletService.post(anyLong(), anyLong(), any(), anyString(), any())).thenReturn(new WalletEntry());
+        // 加锁查询按传入的id顺序返回已登记的商品
+        when(productRepository.findAllForUpdate(any())).thenAnswer(call -> {
+            List<Product> products = new ArrayList<>();
+            for (Long productId : call.<Collection<Long>>getArgument(0)) {
+                productRepository.findById(productId).ifPresent(products::add);
+            }
+            return products;
+        });
+
+        OrderService target = new OrderService();
+        ReflectionTestUtils.setField(target, "orderRepository", orderRepository);
+        ReflectionTestUtils.setField(target, "userRepository", userRepository);
+        ReflectionTestUtils.setField(target, "productRepository", productRepository);
+        ReflectionTestUtils.setField(target, "walletService", walletService);
+        ReflectionTestUtils.setField(target, "catalogCache", catalogCache);
+
+        transaction = new SimpleTransactionStatus();
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(transaction);
+        ProxyFactory proxy = new ProxyFactory(target);
+        proxy.setProxyTargetClass(true);
+        proxy.addAdvice(new TransactionInterceptor((TransactionManager) transactionManager, new AnnotationTransactionAttributeSource()));
+        orderService = (OrderService) proxy.getProxy();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testProductsLockedInIdOrder() {
+        product(3L, 2.0, 5);
+        product(1L, 1.5, 5);
+        Map<Long, Integer> cart = new LinkedHashMap<>();
+        cart.put(3L, 1);
+        cart.put(1L, 2);
+
+        OrderService.Checkout checkout = orderService.checkout(1L, cart);
+
+        assertEquals(3, checkout.code(), "库存和余额充足时应购买成功");
+        ArgumentCaptor<Collection<Long>> locked = ArgumentCaptor.forClass(Collection.class);
+        verify(productRepository).findAllForUpdate(locked.capture());
+        assertEquals(List.of(1L, 3L), new ArrayList<>(locked.getValue()), "应按商品id从小到大加锁，与购物车顺序无关");
+        verify(walletService).post(1L, -500L, WalletEntryType.PURCHASE, "order:9", 9L);
+        assertEquals(3, productRepository.findById(1L).get().getQuantity(), "应扣减库存");
+        verify(catalogCache).invalidateStockAfterCommit(Catalog.PRODUCT);
+        assertFalse(transaction.isRollbackOnly(), "购买成功不应回滚");
+    }
+
+    @Test
+    public void testNotEnoughStockChangesNothing() {
+        product(1L, 1.0, 1);
+
+        OrderService.Checkout checkout = orderService.checkout(1L, Map.of(1L, 2));
+
+        assertEquals(4, checkout.code(), "库存不足应返回4");
+        assertEquals(1, productRepository.findById(1L).get().getQuantity(), "库存不足时不应扣减");
+        verify(orderRepository, never()).save(any());
+        verify(walletService, never()).post(anyLong(), anyLong(), any(), anyString(), any());
+    }
+
+    @Test
+    public void testFailedWalletPostRollsBack() {
+        product(1L, 10.0, 5);
+        // 读余额时够用，扣款时已被其他请求花掉
+        when(walletService.post(anyLong(), anyLong(), any(), anyString(), any())).thenReturn(null);
+
+        OrderService.Checkout checkout = orderService.checkout(1L, Map.of(1L, 2));
+
+        assertEquals(2, checkout.code(), "扣款失败应返回余额不足");
+        assertNull(checkout.order(), "扣款失败不应返回订单");
+        assertTrue(transaction.isRollbackOnly(), "扣款失败时订单和库存扣减应整笔回滚");
+        verify(catalogCache, never()).invalidateStockAfterCommit(any());
+    }
+
+    @Test
+    public void testInvalidCartRejected() {
+        Map<Long, Integer> cart = new LinkedHashMap<>();
+        cart.put(1L, 0);
+
+        assertEquals(5, orderService.checkout(1L, cart).code(), "购买数量有误应返回5");
+        assertEquals(5, orderService.checkout(1L, Map.of()).code(), "空购物车应返回5");
+        verify(productRepository, never()).findAllForUpdate(any());
+    }
+
+    private void product(Long id, double price, int quantity) {
+        Product product = new Product();
+        product.setId(id);
+        product.setPrice(price);
+        product.setQuantity(quantity);
+        when(productRepository.findById(id)).thenReturn(Optional.of(product));
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.virtual_campus.service;
+
+import com.example.virtual_campus.model.WalletEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 发薪日充值的压力测试，钱包的业务规则由WalletServiceTest覆盖，这里只检验真实数据库上的并发结果
+ * 运行方式：mvn test -Dtest=WalletServiceLoadTest -Dvcampus.loadtest=true
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "vcampus.loadtest", matches = "true")
+public class WalletServiceLoadTest extends LoadTestSupport {
+
+    @Autowired
+    private WalletService walletService;
+
+    /**
+     * 每人同时提交几笔充值，每笔都重发一次（模拟客户端重试）
+     * 检查每笔充值只入账一次、余额等于流水合计
+     */
+    @Test
+    public void testConcurrentDepositRetries() throws Exception {
+        newUsers(USERS);
+
+        List<Callable<Integer>> deposits = new ArrayList<>();
+        for (Long userId : userIds) {
+            for (int d = 0; d < 3; d++) {
+                String key = "loadtest:" + userId + ":" + d;
+                deposits.add(() -> walletService.deposit(userId, 110, key).code());
+                deposits.add(() -> walletService.deposit(userId, 110, key).code());
+            }
+        }
+        List<Integer> codes = race("充值", deposits);
+
+        assertEquals(userIds.size() * 3, Collections.frequency(codes, 1), "每笔充值只应入账一次");
+        assertEquals(userIds.size() * 3, Collections.frequency(codes, 3), "重发的充值应返回第一次的结果");
+        List<WalletEntry> entries = walletEntryRepository.findAll();
+        for (Long userId : userIds) {
+            long balance = walletService.getBalanceCents(userId);
+            assertEquals(330, balance, "三笔充值后余额应为3.3元");
+            long total = entries.stream().filter(entry -> entry.getUserId().equals(userId))
+                    .mapToLong(WalletEntry::getAmountCents).sum();
+            assertEquals(balance, total, "流水合计应等于余额");
+        }
+        assertTrue(walletEntryRepository.findDriftedUserIds().stream().noneMatch(userIds::contains), "余额应与最后一笔流水一致");
+    }
+}
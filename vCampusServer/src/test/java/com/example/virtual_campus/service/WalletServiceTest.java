@@ -0,0 +1,109 @@
+package com.example.virtual_campus.service;
+
+import com.example.virtual_campus.cache.EntityCacheInvalidator;
+import com.example.virtual_campus.model.WalletEntry;
+import com.example.virtual_campus.model.WalletEntryType;
+import com.example.virtual_campus.repository.UserRepository;
+import com.example.virtual_campus.repository.WalletEntryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 钱包充值的测试类，数据库访问由模拟对象代替
+ */
+public class WalletServiceTest {
+
+    private WalletService walletService;
+    private UserRepository userRepository;
+    private WalletEntryRepository walletEntryRepository;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        userRepository = mock(UserRepository.class);
+        walletEntryRepository = mock(WalletEntryRepository.class);
+        transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(call ->
+                ((TransactionCallback<Object>) call.getArgument(0)).doInTransaction(null));
+        when(walletEntryRepository.save(any(WalletEntry.class))).thenAnswer(call -> call.getArgument(0));
+        when(userRepository.addBalanceCents(eq(1L), anyLong())).thenReturn(1);
+        when(userRepository.findBalanceCents(1L)).thenReturn(Optional.of(110L));
+
+        walletService = new WalletService();
+        ReflectionTestUtils.setField(walletService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(walletService, "walletEntryRepository", walletEntryRepository);
+        ReflectionTestUtils.setField(walletService, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(walletService, "entityCacheInvalidator", mock(EntityCacheInvalidator.class));
+    }
+
+    @Test
+    public void testDepositRecordsEntry() {
+        WalletService.Deposit deposit = walletService.deposit(1L, 110, "key-1");
+
+        assertEquals(1, deposit.code(), "第一次充值应成功");
+        assertEquals(110, deposit.balanceCents(), "应返回充值后的余额");
+        verify(userRepository).addBalanceCents(1L, 110);
+        verify(walletEntryRepository).save(argThat(entry -> entry.getType() == WalletEntryType.DEPOSIT
+                && entry.getIdempotencyKey().equals("key-1") && entry.getBalanceAfterCents() == 110));
+    }
+
+    @Test
+    public void testRetryReturnsFirstResult() {
+        WalletEntry first = new WalletEntry(1L, 110L, 110L, WalletEntryType.DEPOSIT, "key-1", null);
+        when(walletEntryRepository.findByUserIdAndIdempotencyKey(1L, "key-1")).thenReturn(Optional.of(first));
+
+        WalletService.Deposit deposit = walletService.deposit(1L, 110, "key-1");
+
+        assertEquals(3, deposit.code(), "重复请求应返回3");
+        assertEquals(110, deposit.balanceCents(), "应返回第一次充值后的余额");
+        verify(userRepository, never()).addBalanceCents(anyLong(), anyLong());
+        verify(transactionTemplate, never()).execute(anyCallback());
+    }
+
+    @Test
+    public void testConcurrentRetryLosesToUniqueKey() {
+        WalletEntry first = new WalletEntry(1L, 110L, 220L, WalletEntryType.DEPOSIT, "key-1", null);
+        // 检查时还没有记录，提交时另一个重试已先写入
+        when(walletEntryRepository.findByUserIdAndIdempotencyKey(1L, "key-1"))
+                .thenReturn(Optional.empty()).thenReturn(Optional.of(first));
+        doThrow(new DataIntegrityViolationException("uk_wallet_entries_user_key")).when(transactionTemplate).execute(anyCallback());
+
+        WalletService.Deposit deposit = walletService.deposit(1L, 110, "key-1");
+
+        assertEquals(3, deposit.code(), "违反唯一约束的重试应返回先到的结果");
+        assertEquals(220, deposit.balanceCents(), "应返回先到的请求充值后的余额");
+    }
+
+    @Test
+    public void testDepositsWithoutKeyAreDistinct() {
+        walletService.deposit(1L, 110, null);
+        walletService.deposit(1L, 110, " ");
+
+        verify(userRepository, times(2)).addBalanceCents(1L, 110);
+    }
+
+    @Test
+    public void testInvalidDepositRejected() {
+        when(userRepository.addBalanceCents(eq(2L), anyLong())).thenReturn(0);
+
+        assertEquals(5, walletService.deposit(1L, 0, "key-1").code(), "金额有误应返回5");
+        assertEquals(4, walletService.deposit(2L, 110, "key-2").code(), "用户不存在应返回4");
+        verify(walletEntryRepository, never()).save(any());
+    }
+
+    // 带类型的匹配器，避免execute(any())的未检查转换
+    private static TransactionCallback<Object> anyCallback() {
+        return any();
+    }
+}
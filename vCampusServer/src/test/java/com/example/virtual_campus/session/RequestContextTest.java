@@ -0,0 +1,107 @@
+package com.example.virtual_campus.session;
+
+import com.example.virtual_campus.Utils.JWTUtils.TokenClaims;
+import com.example.virtual_campus.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 请求上下文的测试类
+ */
+public class RequestContextTest {
+
+    @Test
+    public void testClaimedUserIdIgnored() {
+        User alice = user(1L, "213200001");
+        RequestContext context = new RequestContext(new TokenClaims("alice", 1L, 2, 0L, Long.MAX_VALUE), () -> alice);
+        assertEquals(1L, context.userId(99L), "请求中冒充的用户ID应被登录身份取代");
+        assertEquals(1L, context.userId(1L), "一致时返回登录身份");
+        assertEquals(213200001L, context.getStudentId(), "学号应取自登录用户");
+    }
+
+    @Test
+    public void testCurrentRequiresBinding() {
+        assertThrows(IllegalStateException.class, RequestContext::current, "未绑定时不应取得上下文");
+        RequestContext context = new RequestContext(null, null);
+        RequestContext.bind(context);
+        try {
+            assertSame(context, RequestContext.current(), "绑定后应取得同一上下文");
+            assertFalse(context.isAuthenticated(), "登录请求没有令牌");
+        } finally {
+            RequestContext.unbind();
+        }
+    }
+
+    @Test
+    public void testParallelRequestsKeepOwnIdentity() throws Exception {
+        // 同一连接上两个用户的请求在不同工作线程上交错处理
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch bound = new CountDownLatch(2);
+        List<Future<Long>> results = new ArrayList<>();
+        for (long userId = 1; userId <= 2; userId++) {
+            TokenClaims claims = new TokenClaims("user" + userId, userId, 2, 0L, Long.MAX_VALUE);
+            results.add(executor.submit(() -> {
+                RequestContext.bind(new RequestContext(claims, null));
+                try {
+                    bound.countDown();
+                    bound.await();
+                    return RequestContext.current().getUserId();
+                } finally {
+                    RequestContext.unbind();
+                }
+            }));
+        }
+        assertEquals(1L, results.get(0).get(), "每个请求应取到自己令牌中的身份");
+        assertEquals(2L, results.get(1).get(), "每个请求应取到自己令牌中的身份");
+        executor.shutdown();
+    }
+
+    @Test
+    public void testUserLoadedOncePerRequest() {
+        AtomicInteger loads = new AtomicInteger();
+        User stored = user(1L, "213200001");
+        TokenClaims claims = new TokenClaims("alice", 1L, 2, 0L, Long.MAX_VALUE);
+
+        RequestContext first = new RequestContext(claims, () -> {
+            loads.incrementAndGet();
+            return stored;
+        });
+        assertEquals(1L, first.userId(1L));
+        assertEquals(0, loads.get(), "只用到令牌中的身份时不应读取用户");
+        assertSame(stored, first.getUser());
+        assertEquals(213200001L, first.getStudentId());
+        assertEquals(1, loads.get(), "同一请求中只应读取一次");
+
+        // 用户在两个请求之间被修改，下一个请求应读到新的内容
+        stored.setUserId("213200009");
+        RequestContext second = new RequestContext(claims, () -> {
+            loads.incrementAndGet();
+            return stored;
+        });
+        assertEquals(213200009L, second.getStudentId(), "每个请求应重新读取用户");
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testDeletedUser() {
+        RequestContext context = new RequestContext(new TokenClaims("alice", 1L, 2, 0L, Long.MAX_VALUE), () -> null);
+        assertNull(context.getUser(), "用户已删除时返回null");
+        assertNull(context.getStudentId());
+    }
+
+    static User user(Long id, String userId) {
+        User user = new User();
+        user.setId(id);
+        user.setUserId(userId);
+        return user;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.virtual_campus.socket;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 选择器线程与工作线程之间的帧输入流的测试类
+ */
+public class FrameInputStreamTest {
+
+    @Test
+    public void testWholeRequestsReadAcrossFrames() throws Exception {
+        ByteArrayOutputStream wire = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(wire);
+        FrameInputStream input = new FrameInputStream();
+        input.append(take(out, wire));
+        out.writeObject("3");
+        out.writeObject("GetMySchool");
+        input.append(take(out, wire));
+        out.writeObject("1");
+        out.writeObject("Login");
+        input.append(take(out, wire));
+
+        ObjectInputStream in = new ObjectInputStream(input);
+        assertEquals("3", in.readObject());
+        assertEquals("GetMySchool", in.readObject());
+        assertEquals("1", in.readObject());
+        assertEquals("Login", in.readObject());
+        assertEquals(0, input.available(), "两个请求都应读完");
+    }
+
+    @Test
+    public void testSplitRequestFailsInsteadOfWaiting() throws Exception {
+        ByteArrayOutputStream wire = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(wire);
+        FrameInputStream input = new FrameInputStream();
+        input.append(take(out, wire));
+        out.writeObject("一个被拆成两帧的请求");
+        byte[] request = take(out, wire);
+        input.append(Arrays.copyOf(request, request.length / 2));
+
+        ObjectInputStream in = new ObjectInputStream(input);
+        // 后半帧还没到，工作线程不应停在这里等待
+        assertThrows(IOException.class, in::readObject, "请求不完整时应立即失败");
+    }
+
+    @Test
+    public void testClosedStreamEnds() throws IOException {
+        FrameInputStream input = new FrameInputStream();
+        input.append(new byte[]{7});
+        input.close();
+
+        assertEquals(7, input.read());
+        assertEquals(-1, input.read(), "关闭后读完已收到的数据即结束");
+    }
+
+    // 取出一次flush写出的字节，相当于一帧的负载
+    private static byte[] take(ObjectOutputStream out, ByteArrayOutputStream wire) throws IOException {
+        out.flush();
+        byte[] payload = wire.toByteArray();
+        wire.reset();
+        return payload;
+    }
+}
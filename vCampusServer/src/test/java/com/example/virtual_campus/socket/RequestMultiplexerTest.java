@@ -0,0 +1,106 @@
+package com.example.virtual_campus.socket;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 带编号请求的测试类
+ */
+public class RequestMultiplexerTest {
+
+    @Test
+    public void testResponsesMatchedByIdOutOfOrder() throws Exception {
+        CountDownLatch fastWritten = new CountDownLatch(2);
+        // 请求内容为"slow"的等另外两个的响应写回连接后再返回，模拟乱序完成
+        // 处理器返回后响应才由RequestMultiplexer写回，所以在连接输出流flush时计数，而不是在处理器里
+        RequestHandler handler = (in, out) -> {
+            String text = (String) in.readObject();
+            if (text.equals("slow")) {
+                try {
+                    assertTrue(fastWritten.await(5, TimeUnit.SECONDS), "两个快请求的响应应先写回");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            out.writeObject(text.toUpperCase());
+            return true;
+        };
+        ExecutorService workers = Executors.newFixedThreadPool(3);
+        RequestMultiplexer multiplexer = new RequestMultiplexer(workers, handler);
+
+        ByteArrayOutputStream wire = new ByteArrayOutputStream();
+        // 每个响应写完编号和字节后flush一次
+        ObjectOutputStream out = new ObjectOutputStream(wire) {
+            @Override
+            public void flush() throws IOException {
+                super.flush();
+                fastWritten.countDown();
+            }
+        };
+        String[] requests = {"slow", "books", "courses"};
+        for (int i = 0; i < requests.length; i++) {
+            multiplexer.submit(envelope(i + 1, requests[i]), out);
+        }
+        workers.shutdown();
+        assertTrue(workers.awaitTermination(10, TimeUnit.SECONDS), "请求应全部处理完");
+
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(wire.toByteArray()));
+        List<Long> order = new ArrayList<>();
+        Map<Long, String> responses = new HashMap<>();
+        for (int i = 0; i < requests.length; i++) {
+            long id = in.readLong();
+            ObjectInputStream body = new ObjectInputStream(new ByteArrayInputStream((byte[]) in.readUnshared()));
+            order.add(id);
+            responses.put(id, (String) body.readObject());
+        }
+        assertEquals(Map.of(1L, "SLOW", 2L, "BOOKS", 3L, "COURSES"), responses, "响应应按编号对应各自的请求");
+        assertEquals(1L, order.get(2), "慢请求不应挡住后发的请求");
+    }
+
+    @Test
+    public void testHandlerFailureAnsweredWithError() throws Exception {
+        ExecutorService workers = Executors.newSingleThreadExecutor();
+        RequestMultiplexer multiplexer = new RequestMultiplexer(workers, (in, out) -> {
+            throw new IOException("模拟失败");
+        });
+        ByteArrayOutputStream wire = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(wire);
+        multiplexer.submit(envelope(7, "any"), out);
+        workers.shutdown();
+        assertTrue(workers.awaitTermination(10, TimeUnit.SECONDS), "请求应处理完");
+
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(wire.toByteArray()));
+        assertEquals(7L, in.readLong(), "错误响应也应带上请求编号");
+        ObjectInputStream body = new ObjectInputStream(new ByteArrayInputStream((byte[]) in.readUnshared()));
+        assertEquals("error", body.readObject(), "处理失败时应返回error");
+    }
+
+    // 构造一个已读出MARKER之后的请求流
+    private static ObjectInputStream envelope(long requestId, String text) throws IOException {
+        ByteArrayOutputStream request = new ByteArrayOutputStream();
+        try (ObjectOutputStream requestOut = new ObjectOutputStream(request)) {
+            requestOut.writeObject(text);
+        }
+        ByteArrayOutputStream wire = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(wire)) {
+            out.writeLong(requestId);
+            out.writeUnshared(request.toByteArray());
+        }
+        return new ObjectInputStream(new ByteArrayInputStream(wire.toByteArray()));
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.virtual_campus.sync;
+
+import com.example.virtual_campus.model.Book;
+import com.example.virtual_campus.model.Tombstone;
+import com.example.virtual_campus.protocol.RowSet;
+import com.example.virtual_campus.repository.BookRepository;
+import com.example.virtual_campus.repository.TombstoneRepository;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.engine.spi.ActionQueue;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PreDeleteEvent;
+import org.hibernate.jdbc.Work;
+import org.hibernate.persister.entity.EntityPersister;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 增量同步的测试类：删除写入Tombstone，再由ChangeFeed作为删除的id返回
+ * 数据库由内存中的列表代替
+ */
+public class ChangeFeedTest {
+
+    private RevisionTracker revisionTracker;
+    private ChangeFeed changeFeed;
+    private final List<Book> books = new ArrayList<>();
+    private final List<Tombstone> tombstones = new ArrayList<>();
+    // 删除所在事务结束时执行，释放版本号
+    private final List<AfterTransactionCompletionProcess> completions = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        revisionTracker = new RevisionTracker();
+        BookRepository bookRepository = mock(BookRepository.class);
+        when(bookRepository.findByRevisionGreaterThanOrderByIdAsc(anyLong())).thenAnswer(call -> books.stream()
+                .filter(book -> book.getRevision() > (long) call.getArgument(0)).toList());
+        TombstoneRepository tombstoneRepository = mock(TombstoneRepository.class);
+        when(tombstoneRepository.findDeletedIds(anyString(), anyLong())).thenAnswer(call -> tombstones.stream()
+                .filter(t -> t.getEntity().equals(call.getArgument(0)) && t.getRevision() > (long) call.getArgument(1))
+                .map(Tombstone::getEntityId).toList());
+
+        changeFeed = new ChangeFeed();
+        ReflectionTestUtils.setField(changeFeed, "revisionTracker", revisionTracker);
+        ReflectionTestUtils.setField(changeFeed, "tombstoneRepository", tombstoneRepository);
+        ReflectionTestUtils.setField(changeFeed, "bookRepository", bookRepository);
+
+        for (long id = 1; id <= 3; id++) {
+            Book book = new Book();
+            book.setId(id);
+            book.setTitle("书" + id);
+            book.setAvailable(true);
+            books.add(book);
+            save(book);
+        }
+    }
+
+    @Test
+    public void testFullSyncHasNoDeletes() throws IOException {
+        delete(books.get(1));
+        commitDeletes();
+
+        ChangeFeed.Changes changes = changeFeed.books(-1);
+
+        assertEquals(2, RowSet.decode(changes.frame()).getRowCount(), "版本号为负时应返回全部现存的行");
+        assertEquals(0, changes.deletedIds().length, "全量同步不需要删除的id");
+        assertEquals(4, changes.revision(), "应返回最新的安全版本号");
+    }
+
+    @Test
+    public void testIncrementalSyncReturnsChangesAndDeletes() throws IOException {
+        Book deleted = books.get(1);
+        Book edited = books.get(2);
+        delete(deleted);
+        commitDeletes();
+        edited.setTitle("改名");
+        save(edited);
+
+        ChangeFeed.Changes changes = changeFeed.books(3);
+
+        RowSet rows = RowSet.decode(changes.frame());
+        assertEquals(1, rows.getRowCount(), "只应返回同步之后修改的行");
+        assertEquals(edited.getId(), rows.get(0, "id"));
+        assertEquals("改名", rows.get(0, "title"));
+        assertArrayEquals(new long[]{deleted.getId()}, changes.deletedIds(), "应返回同步之后删除的id");
+        assertEquals(5, changes.revision());
+
+        ChangeFeed.Changes next = changeFeed.books(changes.revision());
+        assertEquals(0, RowSet.decode(next.frame()).getRowCount(), "同步到最新后不应再有修改");
+        assertEquals(0, next.deletedIds().length, "已同步过的删除不应再返回");
+    }
+
+    @Test
+    public void testRevisionWaitsForUncommittedDelete() throws IOException {
+        delete(books.get(0));
+
+        // 删除所在的事务还没结束，版本号停在它之前，事务结束后的同步仍会带上这次删除
+        assertEquals(3, changeFeed.books(3).revision(), "未结束的删除不应计入返回的版本号");
+
+        commitDeletes();
+        ChangeFeed.Changes changes = changeFeed.books(3);
+        assertEquals(4, changes.revision());
+        assertArrayEquals(new long[]{1L}, changes.deletedIds());
+    }
+
+    // 相当于保存实体：分配新的版本号，事务随即提交
+    private void save(Book book) {
+        revisionTracker.update(revision -> {
+            book.setRevision(revision);
+            return 1;
+        });
+    }
+
+    // 相当于Hibernate执行删除语句前触发的事件，删除记录写入内存中的tombstones
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void delete(Book book) {
+        try {
+            Object[] values = new Object[3];
+            PreparedStatement statement = mock(PreparedStatement.class);
+            doAnswer(call -> values[0] = call.getArgument(1)).when(statement).setString(eq(1), anyString());
+            doAnswer(call -> values[(int) call.getArgument(0) - 1] = call.getArgument(1))
+                    .when(statement).setLong(anyInt(), anyLong());
+            when(statement.executeUpdate()).thenAnswer(call -> {
+                tombstones.add(new Tombstone((String) values[0], (Long) values[1], (Long) values[2]));
+                return 1;
+            });
+            Connection connection = mock(Connection.class);
+            when(connection.prepareStatement(RevisionTracker.INSERT_TOMBSTONE)).thenReturn(statement);
+            ActionQueue actionQueue = mock(ActionQueue.class);
+            doAnswer(call -> completions.add(call.getArgument(0)))
+                    .when(actionQueue).registerProcess(any(AfterTransactionCompletionProcess.class));
+            EventSource session = mock(EventSource.class);
+            when(session.getActionQueue()).thenReturn(actionQueue);
+            doAnswer(call -> {
+                ((Work) call.getArgument(0)).execute(connection);
+                return null;
+            }).when(session).doWork(any());
+            EntityPersister persister = mock(EntityPersister.class);
+            when(persister.getMappedClass()).thenReturn((Class) Book.class);
+
+            revisionTracker.onPreDelete(new PreDeleteEvent(book, book.getId(), new Object[0], persister, session));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        books.remove(book);
+    }
+
+    private void commitDeletes() {
+        completions.forEach(process -> process.doAfterTransactionCompletion(true, null));
+        completions.clear();
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.virtual_campus.sync;
+
+import com.example.virtual_campus.model.Book;
+import com.example.virtual_campus.model.User;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.engine.spi.ActionQueue;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PreDeleteEvent;
+import org.hibernate.event.spi.PreUpdateEvent;
+import org.hibernate.jdbc.Work;
+import org.hibernate.persister.entity.EntityPersister;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 修改版本号分配的测试类
+ */
+public class RevisionTrackerTest {
+
+    @Test
+    public void testSafeRevisionWaitsForEarlierUpdate() {
+        RevisionTracker tracker = new RevisionTracker();
+        AtomicLong first = new AtomicLong();
+        AtomicLong second = new AtomicLong();
+
+        tracker.update(revision -> {
+            first.set(revision);
+            assertEquals(revision - 1, tracker.safeRevision(), "未结束的更新不应计入安全版本号");
+            tracker.update(inner -> {
+                second.set(inner);
+                return 1;
+            });
+            // 后分配的已结束，但先分配的还没结束，客户端同步到这里会漏掉它
+            assertEquals(first.get() - 1, tracker.safeRevision(), "安全版本号应停在最早未结束的更新之前");
+            return 1;
+        });
+
+        assertTrue(second.get() > first.get(), "版本号应递增");
+        assertEquals(second.get(), tracker.safeRevision(), "全部结束后安全版本号应为最新分配的版本号");
+    }
+
+    @Test
+    public void testFailedUpdateReleasesRevision() {
+        RevisionTracker tracker = new RevisionTracker();
+        assertThrows(IllegalStateException.class, () -> tracker.update(revision -> {
+            throw new IllegalStateException("数据库不可用");
+        }));
+        assertEquals(1, tracker.safeRevision(), "更新失败后版本号也应释放");
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void testDeleteWritesTombstoneInSameFlush() throws Exception {
+        RevisionTracker tracker = new RevisionTracker();
+        PreparedStatement statement = mock(PreparedStatement.class);
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(RevisionTracker.INSERT_TOMBSTONE)).thenReturn(statement);
+        ActionQueue actionQueue = mock(ActionQueue.class);
+        EventSource session = mock(EventSource.class);
+        when(session.getActionQueue()).thenReturn(actionQueue);
+        doAnswer(call -> {
+            ((Work) call.getArgument(0)).execute(connection);
+            return null;
+        }).when(session).doWork(any());
+        EntityPersister persister = mock(EntityPersister.class);
+        when(persister.getMappedClass()).thenReturn((Class) Book.class);
+
+        assertFalse(tracker.onPreDelete(new PreDeleteEvent(new Book(), 5L, new Object[0], persister, session)),
+                "记录删除不应阻止删除");
+
+        // 删除记录在删除语句之前用同一个连接直接写入，不等到事务提交前
+        verify(statement).setString(1, "Book");
+        verify(statement).setLong(2, 5L);
+        verify(statement).setLong(3, 1L);
+        verify(statement).executeUpdate();
+        verify(session, never()).persist(any());
+        assertEquals(0, tracker.safeRevision(), "删除所在的事务结束前不应计入安全版本号");
+
+        ArgumentCaptor<AfterTransactionCompletionProcess> completion =
+                ArgumentCaptor.forClass(AfterTransactionCompletionProcess.class);
+        verify(actionQueue).registerProcess(completion.capture());
+        completion.getValue().doAfterTransactionCompletion(true, null);
+        assertEquals(1, tracker.safeRevision(), "事务结束后应释放删除的版本号");
+    }
+
+    @Test
+    public void testDeleteOfUntrackedEntityIgnored() {
+        RevisionTracker tracker = new RevisionTracker();
+        EventSource session = mock(EventSource.class);
+
+        assertFalse(tracker.onPreDelete(new PreDeleteEvent("不是实体", 5L, new Object[0], mock(EntityPersister.class), session)));
+
+        verifyNoInteractions(session);
+        assertEquals(0, tracker.safeRevision(), "不记录版本的实体不应分配版本号");
+    }
+
+    @Test
+    public void testUserRenameTouchesStudents() throws Exception {
+        RevisionTracker tracker = new RevisionTracker();
+        PreparedStatement statement = mock(PreparedStatement.class);
+        EventSource session = session(RevisionTracker.TOUCH_STUDENTS, statement);
+        EntityPersister persister = mock(EntityPersister.class);
+        when(persister.getPropertyNames()).thenReturn(new String[]{"name", "revision"});
+        User user = new User();
+
+        tracker.onPreUpdate(new PreUpdateEvent(user, 3L, new Object[]{"新名字", 0L}, new Object[]{"旧名字", 0L}, persister, session));
+
+        // 学生列表的姓名来自用户，学生行要用同一个版本号标记为已修改
+        assertEquals(1L, user.getRevision());
+        verify(statement).setLong(1, 1L);
+        verify(statement).setLong(2, 3L);
+        verify(statement).executeUpdate();
+    }
+
+    @Test
+    public void testUserUpdateWithoutRenameLeavesStudents() {
+        RevisionTracker tracker = new RevisionTracker();
+        EventSource session = mock(EventSource.class);
+        when(session.getActionQueue()).thenReturn(mock(ActionQueue.class));
+        EntityPersister persister = mock(EntityPersister.class);
+        when(persister.getPropertyNames()).thenReturn(new String[]{"name", "password", "revision"});
+        User user = new User();
+
+        tracker.onPreUpdate(new PreUpdateEvent(user, 3L, new Object[]{"同名", "新密码", 0L},
+                new Object[]{"同名", "旧密码", 0L}, persister, session));
+
+        assertEquals(1L, user.getRevision(), "用户本身仍应分配新的版本号");
+        verify(session, never()).doWork(any());
+    }
+
+    // 在同一连接上执行sql的模拟会话
+    private static EventSource session(String sql, PreparedStatement statement) throws Exception {
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(sql)).thenReturn(statement);
+        EventSource session = mock(EventSource.class);
+        when(session.getActionQueue()).thenReturn(mock(ActionQueue.class));
+        doAnswer(call -> {
+            ((Work) call.getArgument(0)).execute(connection);
+            return null;
+        }).when(session).doWork(any());
+        return session;
+    }
+}